@@ -9,10 +9,19 @@ import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import com.alibaba.hitsdb.client.callback.QueryCallback;
+import com.alibaba.hitsdb.client.consumer.AdaptiveBatchStatistics;
 import com.alibaba.hitsdb.client.exception.http.HttpUnknowStatusException;
+import com.alibaba.hitsdb.client.http.AddressStatistics;
+import com.alibaba.hitsdb.client.http.ConnectionStatistics;
+import com.alibaba.hitsdb.client.http.HedgeStatistics;
+import com.alibaba.hitsdb.client.http.WarmUpStatistics;
+import com.alibaba.hitsdb.client.http.semaphore.SemaphoreStatistics;
+import com.alibaba.hitsdb.client.retry.RetryStatistics;
+import com.alibaba.hitsdb.client.rollup.RollupStatistics;
 import com.alibaba.hitsdb.client.value.Result;
 import com.alibaba.hitsdb.client.value.request.Point;
 import com.alibaba.hitsdb.client.value.request.Query;
+import com.alibaba.hitsdb.client.value.request.TagSet;
 import com.alibaba.hitsdb.client.value.request.Timeline;
 import com.alibaba.hitsdb.client.value.response.QueryResult;
 import com.alibaba.hitsdb.client.value.response.TagResult;
@@ -24,6 +33,25 @@ public interface HiTSDB extends Closeable {
 	 */
 	void put(Point point);
 
+	/**
+	 * 写入指定的优先级通道，不参与预聚合
+	 * 
+	 * @param point
+	 * @param lane 通道名称，未配置通道时只能为default
+	 */
+	void put(Point point, String lane);
+
+	/**
+	 * 写入一个数据点，时间戳与值不装箱，标签可在同一时间线的多个点之间共享。
+	 * 
+	 * @param metric
+	 * @param tags
+	 * @param timestamp
+	 *            秒或毫秒级时间戳
+	 * @param value
+	 */
+	void put(String metric, TagSet tags, long timestamp, double value);
+
 	/**
 	 * @param point
 	 */
@@ -34,6 +62,116 @@ public interface HiTSDB extends Closeable {
 	 */
 	<T extends Result> T putSync(Collection<Point> points, Class<T> resultType);
 
+	/**
+	 * 自适应批量的当前批次参数与调整统计，未开启自适应批量时返回null
+	 * 
+	 * @return
+	 */
+	AdaptiveBatchStatistics getAdaptiveBatchStatistics();
+
+	/**
+	 * 批次内重复点合并累计丢弃的点数，未开启合并时返回-1
+	 * 
+	 * @return
+	 */
+	long getCoalescedPoints();
+
+	/**
+	 * 异步写入请求许可的争用与等待统计
+	 * 
+	 * @return
+	 */
+	SemaphoreStatistics getSemaphoreStatistics();
+
+	/**
+	 * 写入重试的统计
+	 * 
+	 * @return
+	 */
+	RetryStatistics getRetryStatistics();
+
+	/**
+	 * 查询对冲的统计，未开启查询对冲时返回null
+	 * 
+	 * @return
+	 */
+	HedgeStatistics getHedgeStatistics();
+
+	/**
+	 * 预聚合的统计，未开启预聚合时返回null
+	 * 
+	 * @return
+	 */
+	RollupStatistics getRollupStatistics();
+
+	/**
+	 * 等待启动预热结束，未开启预热时立即返回true
+	 * 
+	 * @param timeout
+	 * @param unit
+	 * @return 预热结束且至少有一个连接通过了校验时返回true，超时或没有可用的连接时返回false
+	 * @throws InterruptedException
+	 */
+	boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException;
+
+	/**
+	 * 启动预热的统计，未开启预热时返回null
+	 * 
+	 * @return
+	 */
+	WarmUpStatistics getWarmUpStatistics();
+
+	/**
+	 * 运行期间增加HiTSDB集群的节点
+	 * 
+	 * @param host
+	 * @param port
+	 * @return 节点已经存在时返回false
+	 */
+	boolean addAddress(String host, int port);
+
+	/**
+	 * 运行期间删除HiTSDB集群的节点，进行中的请求不受影响
+	 * 
+	 * @param host
+	 * @param port
+	 * @return 节点不存在时返回false
+	 */
+	boolean removeAddress(String host, int port);
+
+	/**
+	 * @return 当前所有节点的地址(host:port)
+	 */
+	List<String> getAddresses();
+
+	/**
+	 * 各个节点的请求耗时、错误率与慢启动状态，用于观察节点的选择
+	 * 
+	 * @return
+	 */
+	List<AddressStatistics> getAddressStatistics();
+
+	/**
+	 * 连接池的使用情况与按存活时间、请求数、节点增加关闭的连接数。开启读连接池时只包括写入连接池
+	 * 
+	 * @return
+	 */
+	ConnectionStatistics getConnectionStatistics();
+
+	/**
+	 * 读连接池的使用情况，未开启读连接池时返回null
+	 * 
+	 * @return
+	 */
+	ConnectionStatistics getReadConnectionStatistics();
+
+	/**
+	 * 读请求许可的争用与等待统计，未开启读连接池时返回null
+	 * 
+	 * @return
+	 */
+	SemaphoreStatistics getReadSemaphoreStatistics();
+
 	/**
 	 * @param query
 	 * @param callback
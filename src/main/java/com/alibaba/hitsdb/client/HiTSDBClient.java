@@ -1,6 +1,9 @@
 package com.alibaba.hitsdb.client;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -9,7 +12,10 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.concurrent.FutureCallback;
@@ -19,24 +25,41 @@ import org.slf4j.LoggerFactory;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.hitsdb.client.callback.QueryCallback;
 import com.alibaba.hitsdb.client.callback.http.HttpResponseCallbackFactory;
+import com.alibaba.hitsdb.client.consumer.AdaptiveBatchController;
+import com.alibaba.hitsdb.client.consumer.AdaptiveBatchStatistics;
 import com.alibaba.hitsdb.client.consumer.Consumer;
 import com.alibaba.hitsdb.client.consumer.ConsumerFactory;
+import com.alibaba.hitsdb.client.consumer.DefaultBatchPutConsumer;
 import com.alibaba.hitsdb.client.exception.VIPClientException;
+import com.alibaba.hitsdb.client.exception.WriteAheadLogException;
 import com.alibaba.hitsdb.client.exception.http.HttpClientException;
 import com.alibaba.hitsdb.client.exception.http.HttpClientInitException;
 import com.alibaba.hitsdb.client.exception.http.HttpServerErrorException;
 import com.alibaba.hitsdb.client.exception.http.HttpServerNotSupportException;
 import com.alibaba.hitsdb.client.exception.http.HttpUnknowStatusException;
+import com.alibaba.hitsdb.client.http.AddressStatistics;
+import com.alibaba.hitsdb.client.http.ConnectionStatistics;
+import com.alibaba.hitsdb.client.http.HedgeStatistics;
 import com.alibaba.hitsdb.client.http.HttpAPI;
 import com.alibaba.hitsdb.client.http.HttpClient;
 import com.alibaba.hitsdb.client.http.HttpClientFactory;
+import com.alibaba.hitsdb.client.http.WarmUpStatistics;
 import com.alibaba.hitsdb.client.http.response.HttpStatus;
 import com.alibaba.hitsdb.client.http.response.ResultResponse;
+import com.alibaba.hitsdb.client.http.semaphore.SemaphoreStatistics;
+import com.alibaba.hitsdb.client.lane.PutLane;
 import com.alibaba.hitsdb.client.queue.DataQueue;
 import com.alibaba.hitsdb.client.queue.DataQueueFactory;
+import com.alibaba.hitsdb.client.queue.LanedDataQueue;
+import com.alibaba.hitsdb.client.retry.RetryStatistics;
+import com.alibaba.hitsdb.client.rollup.RollupStage;
+import com.alibaba.hitsdb.client.rollup.RollupStatistics;
+import com.alibaba.hitsdb.client.serialize.PointBatchEncoder;
+import com.alibaba.hitsdb.client.serialize.PointBatchEncoder.EncodedBatch;
 import com.alibaba.hitsdb.client.util.LinkedHashMapUtils;
 import com.alibaba.hitsdb.client.value.JSONValue;
 import com.alibaba.hitsdb.client.value.Result;
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
 import com.alibaba.hitsdb.client.value.request.DumpMetaValue;
 import com.alibaba.hitsdb.client.value.request.MetricTimeRange;
 import com.alibaba.hitsdb.client.value.request.Point;
@@ -44,13 +67,16 @@ import com.alibaba.hitsdb.client.value.request.Query;
 import com.alibaba.hitsdb.client.value.request.SubQuery;
 import com.alibaba.hitsdb.client.value.request.SuggestValue;
 import com.alibaba.hitsdb.client.value.request.TTLValue;
+import com.alibaba.hitsdb.client.value.request.TagSet;
 import com.alibaba.hitsdb.client.value.request.Timeline;
 import com.alibaba.hitsdb.client.value.response.QueryResult;
 import com.alibaba.hitsdb.client.value.response.TTLResult;
 import com.alibaba.hitsdb.client.value.response.TagResult;
 import com.alibaba.hitsdb.client.value.response.batch.DetailsResult;
+import com.alibaba.hitsdb.client.value.response.batch.ErrorPoint;
 import com.alibaba.hitsdb.client.value.response.batch.SummaryResult;
 import com.alibaba.hitsdb.client.value.type.Suggest;
+import com.alibaba.hitsdb.client.wal.WriteAheadLog;
 
 public class HiTSDBClient implements HiTSDB {
 	private static final Logger LOGGER = LoggerFactory.getLogger(HiTSDBClient.class);
@@ -61,6 +87,16 @@ public class HiTSDBClient implements HiTSDB {
 	private final HttpClient httpclient;
 	private final HiTSDBConfig config;
 
+	/**
+	 * 预写日志，未开启时为null
+	 */
+	private final WriteAheadLog writeAheadLog;
+
+	/**
+	 * 预聚合，未开启时为null
+	 */
+	private final RollupStage rollupStage;
+
 	public HiTSDBClient(HiTSDBConfig config) throws HttpClientInitException, VIPClientException {
 		this.config = config;
 		this.httpclient = HttpClientFactory.createHttpClient(config);
@@ -68,22 +104,90 @@ public class HiTSDBClient implements HiTSDB {
 		boolean asyncPut = config.isAsyncPut();
 		if (asyncPut) {
 			this.httpResponseCallbackFactory = httpclient.getHttpResponseCallbackFactory();
-			int batchPutBufferSize = config.getBatchPutBufferSize();
-			int batchPutTimeLimit = config.getBatchPutTimeLimit();
-			boolean backpressure = config.isBackpressure();
-			this.queue = DataQueueFactory.createDataPointQueue(batchPutBufferSize, batchPutTimeLimit, backpressure);
+			this.queue = DataQueueFactory.createDataQueue(config);
+			this.writeAheadLog = createWriteAheadLog(config);
 			this.consumer = ConsumerFactory.createConsumer(queue, httpclient, config);
 			this.consumer.start();
+			this.rollupStage = createRollupStage(config);
 		} else {
 			this.httpResponseCallbackFactory = null;
 			this.queue = null;
+			this.writeAheadLog = null;
 			this.consumer = null;
+			this.rollupStage = null;
 		}
 
 		this.httpclient.start();
+		if (config.isWarmUp() && !config.isWarmUpAsync()) {
+			awaitWarmUp();
+		}
+		if (this.writeAheadLog != null) {
+			replayWriteAheadLog();
+		}
+		if (this.rollupStage != null) {
+			this.rollupStage.start();
+		}
 		LOGGER.info("The hitsdb-client has started.");
 	}
 
+	/**
+	 * 同步预热：预热请求都有超时时间，这里不再另设超时
+	 */
+	private void awaitWarmUp() {
+		try {
+			if (!httpclient.awaitReady(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+				LOGGER.warn("No connection has been warmed up, the hitsdb-client starts without warm connections.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.warn("The warm-up was interrupted");
+		}
+	}
+
+	private RollupStage createRollupStage(HiTSDBConfig config) {
+		if (config.getRollupGranularity() == null) {
+			return null;
+		}
+		return new RollupStage(config.getRollupGranularity(), config.getRollupAggregators(), config.getRollupDelay(),
+				new RollupStage.RollupSink() {
+					@Override
+					public void emit(Point point) {
+						enqueue(point);
+					}
+				});
+	}
+
+	private static WriteAheadLog createWriteAheadLog(HiTSDBConfig config) {
+		String directory = config.getWriteAheadLogDirectory();
+		if (directory == null) {
+			return null;
+		}
+		try {
+			return new WriteAheadLog(new File(directory), config.getWriteAheadLogSegmentSize(),
+					config.getWriteAheadLogSyncInterval());
+		} catch (IOException e) {
+			throw new WriteAheadLogException("Failed to open the write-ahead log in " + directory, e);
+		}
+	}
+
+	/**
+	 * 将上次未处理完的数据点重新写入日志与缓冲队列。队列已满时等待消费，不受backpressure配置影响。
+	 */
+	private void replayWriteAheadLog() {
+		long points = writeAheadLog.replay(new WriteAheadLog.ReplayHandler() {
+			@Override
+			public void replay(Point point) {
+				writeAheadLog.append(point);
+				while (!queue.offer(point)) {
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+				}
+			}
+		});
+		if (points > 0) {
+			LOGGER.info("Replayed {} points from the write-ahead log.", points);
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		// 优雅关闭
@@ -98,12 +202,25 @@ public class HiTSDBClient implements HiTSDB {
 	private void forceClose() throws IOException {
 		boolean async = config.isAsyncPut();
 		if (async) {
+			// 丢弃尚未关闭的预聚合窗口
+			if (this.rollupStage != null) {
+				this.rollupStage.close(false);
+			}
+
 			// 消费者关闭
 			this.consumer.stop(true);
+
+			// 解除溢出分段的映射，未发送的数据点保留在磁盘中
+			closeQueue();
 		}
 
 		// 客户端关闭
 		this.httpclient.close(true);
+
+		// 未处理完的数据点保留在预写日志中
+		if (this.writeAheadLog != null) {
+			this.writeAheadLog.close();
+		}
 	}
 
 	/**
@@ -115,6 +232,11 @@ public class HiTSDBClient implements HiTSDB {
 		boolean async = config.isAsyncPut();
 
 		if (async) {
+			// 输出所有预聚合窗口
+			if (this.rollupStage != null) {
+				this.rollupStage.close(true);
+			}
+
 			// 停止写入
 			this.queue.forbiddenSend();
 
@@ -123,10 +245,24 @@ public class HiTSDBClient implements HiTSDB {
 
 			// 消费者关闭
 			this.consumer.stop();
+
+			// 关闭溢出存储
+			closeQueue();
 		}
 
 		// 客户端关闭
 		this.httpclient.close();
+
+		// 所有请求已结束，删除已确认的预写日志分段
+		if (this.writeAheadLog != null) {
+			this.writeAheadLog.close();
+		}
+	}
+
+	private void closeQueue() throws IOException {
+		if (this.queue instanceof Closeable) {
+			((Closeable) this.queue).close();
+		}
 	}
 
 	@Override
@@ -210,7 +346,58 @@ public class HiTSDBClient implements HiTSDB {
 
 	@Override
 	public void put(Point point) {
-		queue.send(point);
+		if (rollupStage != null && rollupStage.add(point)) {
+			return;
+		}
+		enqueue(point, null);
+	}
+
+	@Override
+	public void put(Point point, String lane) {
+		// 显式指定通道的数据点不参与预聚合
+		enqueue(point, lane);
+	}
+
+	private void enqueue(Point point) {
+		enqueue(point, null);
+	}
+
+	/**
+	 * @param lane 为null时按metric匹配通道
+	 */
+	private void enqueue(Point point, String lane) {
+		if (writeAheadLog == null) {
+			send(point, lane);
+			return;
+		}
+
+		// 先写日志并等待刷盘，再进入缓冲队列
+		long position = writeAheadLog.append(point);
+		writeAheadLog.sync(position);
+		try {
+			send(point, lane);
+		} catch (RuntimeException e) {
+			// 没有进入缓冲队列(包括等待队列时被中断)，不会再发送，确认日志避免重放
+			WriteAheadLog.acknowledge(point);
+			throw e;
+		}
+	}
+
+	private void send(Point point, String lane) {
+		if (lane == null) {
+			queue.send(point);
+		} else if (queue instanceof LanedDataQueue) {
+			((LanedDataQueue) queue).send(point, lane);
+		} else if (PutLane.DEFAULT.equals(lane)) {
+			queue.send(point);
+		} else {
+			throw new IllegalArgumentException("The lane " + lane + " does not exist");
+		}
+	}
+
+	@Override
+	public void put(String metric, TagSet tags, long timestamp, double value) {
+		put(new DoublePoint(metric, tags, timestamp, value));
 	}
 
 	@Override
@@ -225,7 +412,8 @@ public class HiTSDBClient implements HiTSDB {
 			query = Query.timeRange(start, end).sub(queries).build();
 		}
 
-		HttpResponse httpResponse = httpclient.post(HttpAPI.QUERY, query.toJSON());
+		// 开启查询对冲时，较慢的查询会向另一个节点再发送一次
+		HttpResponse httpResponse = httpclient.postHedged(HttpAPI.QUERY, query.toJSON());
 		ResultResponse resultResponse = ResultResponse.simplify(httpResponse, this.httpCompress);
 		HttpStatus httpStatus = resultResponse.getHttpStatus();
 		switch (httpStatus) {
@@ -419,26 +607,164 @@ public class HiTSDBClient implements HiTSDB {
 		return putSync(points, Result.class);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
-	public <T extends Result> T putSync(Collection<Point> points, Class<T> resultType) {
-		String jsonString = JSON.toJSONString(points);
+	public AdaptiveBatchStatistics getAdaptiveBatchStatistics() {
+		if (consumer instanceof DefaultBatchPutConsumer) {
+			AdaptiveBatchController batchController = ((DefaultBatchPutConsumer) consumer).getAdaptiveBatchController();
+			if (batchController != null) {
+				return batchController.getStatistics();
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public SemaphoreStatistics getSemaphoreStatistics() {
+		return httpclient.getSemaphoreManager().getStatistics();
+	}
 
-		HttpResponse httpResponse;
+	@Override
+	public RetryStatistics getRetryStatistics() {
+		return httpclient.getRetryScheduler().getStatistics();
+	}
+
+	@Override
+	public HedgeStatistics getHedgeStatistics() {
+		return httpclient.getHedgeStatistics();
+	}
+
+	@Override
+	public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+		return httpclient.awaitReady(timeout, unit);
+	}
+
+	@Override
+	public WarmUpStatistics getWarmUpStatistics() {
+		return httpclient.getWarmUpStatistics();
+	}
+
+	@Override
+	public boolean addAddress(String host, int port) {
+		if (!httpclient.addAddress(host + ":" + port)) {
+			return false;
+		}
+		onAddressesChanged();
+		return true;
+	}
+
+	@Override
+	public boolean removeAddress(String host, int port) {
+		if (!httpclient.removeAddress(host + ":" + port)) {
+			return false;
+		}
+		onAddressesChanged();
+		return true;
+	}
+
+	private void onAddressesChanged() {
+		if (consumer instanceof DefaultBatchPutConsumer) {
+			((DefaultBatchPutConsumer) consumer).onAddressesChanged(getAddresses().size());
+		}
+	}
+
+	@Override
+	public List<String> getAddresses() {
+		return httpclient.getHttpAddressManager().getAddresses();
+	}
+
+	@Override
+	public List<AddressStatistics> getAddressStatistics() {
+		return httpclient.getAddressStatistics();
+	}
+
+	@Override
+	public ConnectionStatistics getConnectionStatistics() {
+		return httpclient.getConnectionStatistics();
+	}
+
+	@Override
+	public ConnectionStatistics getReadConnectionStatistics() {
+		return httpclient.getReadConnectionStatistics();
+	}
+
+	@Override
+	public SemaphoreStatistics getReadSemaphoreStatistics() {
+		return httpclient.getReadSemaphoreStatistics();
+	}
+
+	@Override
+	public RollupStatistics getRollupStatistics() {
+		if (rollupStage == null) {
+			return null;
+		}
+		return rollupStage.getStatistics();
+	}
+
+	@Override
+	public long getCoalescedPoints() {
+		if (consumer instanceof DefaultBatchPutConsumer) {
+			return ((DefaultBatchPutConsumer) consumer).getCoalescedPoints();
+		}
+		return -1;
+	}
+
+	@Override
+	public <T extends Result> T putSync(Collection<Point> points, Class<T> resultType) {
+		Map<String, String> paramsMap = new HashMap<String, String>();
 		if (resultType.equals(Result.class)) {
-			httpResponse = httpclient.post(HttpAPI.PUT, jsonString);
 		} else if (resultType.equals(SummaryResult.class)) {
-			Map<String, String> paramsMap = new HashMap<String, String>();
 			paramsMap.put("summary", "true");
-			httpResponse = httpclient.post(HttpAPI.PUT, jsonString, paramsMap);
 		} else if (resultType.equals(DetailsResult.class)) {
-			Map<String, String> paramsMap = new HashMap<String, String>();
 			paramsMap.put("details", "true");
-			httpResponse = httpclient.post(HttpAPI.PUT, jsonString, paramsMap);
 		} else {
 			throw new HttpClientException("This result type is not supported");
 		}
 
+		// 直接序列化为UTF-8字节写入池化缓冲区，开启压缩时边序列化边压缩，缓冲区由HttpClient在请求结束后释放
+		List<EncodedBatch> batches;
+		try {
+			batches = new PointBatchEncoder(httpclient).encode(points, config.getBatchPutMaxPayloadBytes());
+		} catch (IOException e) {
+			throw new HttpClientException(e);
+		}
+
+		if (batches.size() == 1) {
+			HttpResponse httpResponse = httpclient.post(HttpAPI.PUT, batches.get(0).getBody(), paramsMap);
+			return parsePutResult(httpResponse, resultType);
+		}
+
+		// 请求体超过字节数上限，切分后的请求同时发出，再依次等待响应并合并结果
+		List<Future<HttpResponse>> futures = new ArrayList<Future<HttpResponse>>(batches.size());
+		for (int i = 0; i < batches.size(); i++) {
+			try {
+				futures.add(httpclient.postAsync(HttpAPI.PUT, batches.get(i).getBody(), paramsMap));
+			} catch (RuntimeException e) {
+				PointBatchEncoder.release(batches.subList(i + 1, batches.size()));
+				throw e;
+			}
+		}
+
+		List<T> results = new ArrayList<T>(futures.size());
+		RuntimeException exception = null;
+		for (Future<HttpResponse> future : futures) {
+			try {
+				results.add(parsePutResult(future.get(), resultType));
+			} catch (InterruptedException e) {
+				exception = new HttpClientException(e);
+			} catch (ExecutionException e) {
+				exception = new HttpClientException(e);
+			} catch (RuntimeException e) {
+				exception = e;
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
+		return mergePutResults(results, resultType);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Result> T parsePutResult(HttpResponse httpResponse, Class<T> resultType) {
 		ResultResponse resultResponse = ResultResponse.simplify(httpResponse, this.httpCompress);
 		HttpStatus httpStatus = resultResponse.getHttpStatus();
 
@@ -464,4 +790,37 @@ public class HiTSDBClient implements HiTSDB {
 		}
 	}
 
+	/**
+	 * 合并切分后各个请求的结果
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends Result> T mergePutResults(List<T> results, Class<T> resultType) {
+		if (resultType.equals(SummaryResult.class)) {
+			SummaryResult merged = new SummaryResult(0, 0);
+			for (T result : results) {
+				if (result != null) {
+					SummaryResult summaryResult = (SummaryResult) result;
+					merged.setSuccess(merged.getSuccess() + summaryResult.getSuccess());
+					merged.setFailed(merged.getFailed() + summaryResult.getFailed());
+				}
+			}
+			return (T) merged;
+		} else if (resultType.equals(DetailsResult.class)) {
+			DetailsResult merged = new DetailsResult(0, 0, new ArrayList<ErrorPoint>());
+			for (T result : results) {
+				if (result != null) {
+					DetailsResult detailsResult = (DetailsResult) result;
+					merged.setSuccess(merged.getSuccess() + detailsResult.getSuccess());
+					merged.setFailed(merged.getFailed() + detailsResult.getFailed());
+					if (detailsResult.getErrors() != null) {
+						merged.getErrors().addAll(detailsResult.getErrors());
+					}
+				}
+			}
+			return (T) merged;
+		} else {
+			return (T) new Result();
+		}
+	}
+
 }
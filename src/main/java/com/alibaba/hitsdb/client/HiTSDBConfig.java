@@ -1,6 +1,24 @@
 package com.alibaba.hitsdb.client;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
 import com.alibaba.hitsdb.client.callback.AbstractBatchPutCallback;
+import com.alibaba.hitsdb.client.compress.DeflaterPool;
+import com.alibaba.hitsdb.client.lane.PutLane;
+import com.alibaba.hitsdb.client.queue.DataQueueType;
+import com.alibaba.hitsdb.client.queue.WaitStrategyType;
+import com.alibaba.hitsdb.client.retry.DefaultPointErrorClassifier;
+import com.alibaba.hitsdb.client.retry.PointErrorClassifier;
+import com.alibaba.hitsdb.client.rollup.RollupStage;
+import com.alibaba.hitsdb.client.transport.PutTransport;
+import com.alibaba.hitsdb.client.value.type.Aggregator;
+import com.alibaba.hitsdb.client.value.type.Granularity;
 
 public class HiTSDBConfig {
 
@@ -9,27 +27,83 @@ public class HiTSDBConfig {
 
 		private int activateRequestLimit = -1;
 		private boolean activateRequestLimitSwitch = true;
+		private boolean adaptiveRequestLimit = false;
+		private int adaptiveRequestLimitMin = 1;
+		private int adaptiveRequestLimitMax = -1; // -1表示与httpConnectionPool相同
 
 		private int batchPutBufferSize = 10000;
 		private AbstractBatchPutCallback<?> batchPutCallback;
 		private int batchPutConsumerThreadCount = 1;
+		private int batchPutPartitionCount = 0;
 		private int batchPutRetryCount = 0;
+		private int batchPutRetryBackoff = 100; // 单位：毫秒
+		private int batchPutRetryMaxBackoff = 10000; // 单位：毫秒
+		private int batchPutRetryDeadline = 0; // 单位：毫秒
+		private int batchPutRetryBudgetPercent = 20;
+		private int batchPutRetryBudgetMinPerSecond = 10;
+		private PointErrorClassifier batchPutPartialRetryClassifier;
 		private int batchPutSize = 500;
 		private int batchPutTimeLimit = 300;
+		private int batchPutMaxPayloadBytes = 0; // 单位：字节，0表示不限制
+		private boolean batchPutCoalesce = false;
+
+		private Granularity rollupGranularity;
+		private List<Aggregator> rollupAggregators;
+		private int rollupDelay = 5000; // 单位：毫秒
+
+		private List<PutLane> lanes = new ArrayList<PutLane>();
+
+		private boolean adaptiveBatchPut = false;
+		private int adaptiveBatchPutMinSize = 100;
+		private int adaptiveBatchPutMaxSize = 5000;
+		private int adaptiveBatchPutMinTimeLimit = 20; // 单位：毫秒
+		private int adaptiveBatchPutMaxTimeLimit = 1000; // 单位：毫秒
 
 		private String host;
 		private int port = 8242;
+		private List<String> extraAddresses = new ArrayList<String>();
+		private int addressSlowStartTime = 10000; // 单位：毫秒
+		private int circuitBreakerThreshold = 3;
+		private int circuitBreakerProbeInterval = 2000; // 单位：毫秒
+		private double queryHedgePercentile = 0; // 0 表示不对冲
+		private int queryHedgeBudgetPercent = 5;
+		private int queryHedgeMinDelay = 10; // 单位：毫秒
+		private int warmUpConnections = 0; // 0 表示不预热
+		private boolean warmUpAsync = false;
 
 		private boolean httpCompress = false;
+		private int httpCompressLevel = Deflater.DEFAULT_COMPRESSION;
+		private int httpCompressMinSize = 0; // 单位：字节
 		private int httpConnectionPool = 64; // 每个Host分配的连接数
 		private int httpConnectTimeout = 90; // 单位：秒
 		private int httpConnectionLiveTime = 0; // 单位：秒
 		private int httpKeepaliveTime = -1; // 0 表示短连接。-1表示长连接。单位：秒。
+		private int httpConnectionMaxRequests = 0; // 0 表示不限制
+		private int httpConnectionIdleTime = 180; // 0 表示不关闭空闲连接。单位：秒
+		private int readConnectionPool = 0; // 0 表示读请求与写请求共用连接池
+		private int readTimeout = -1; // -1表示与httpConnectTimeout相同。单位：秒
+		private int readRequestLimit = -1; // -1表示与readConnectionPool相同
 
 		private int ioThreadCount = 1;
 		private boolean backpressure = true;
 		private boolean asyncPut = true;
 
+		private DataQueueType dataQueueType = DataQueueType.ArrayBlocking;
+		private WaitStrategyType waitStrategyType = WaitStrategyType.Sleeping;
+
+		private String spillDirectory;
+		private long spillMaxBytes = 1024L * 1024 * 1024; // 单位：字节
+		private int spillSegmentSize = 64 * 1024 * 1024; // 单位：字节
+
+		private String writeAheadLogDirectory;
+		private int writeAheadLogSegmentSize = 64 * 1024 * 1024; // 单位：字节
+		private int writeAheadLogSyncInterval = 0; // 单位：毫秒
+
+		private boolean telnetPut = false;
+		private int telnetPutPort = 0; // 0 表示与HTTP端口相同
+		private int telnetPutConnections = 2; // 每个节点的连接数
+		private PutTransport putTransport;
+
 		public Builder(String host) {
 			this.host = host;
 		}
@@ -39,6 +113,107 @@ public class HiTSDBConfig {
 			this.port = port;
 		}
 
+		/**
+		 * 增加HiTSDB集群中的其它节点，写入与查询请求在所有节点之间均衡
+		 */
+		public Builder addAddress(String host, int port) {
+			if (host == null || host.isEmpty() || port <= 0) {
+				throw new IllegalArgumentException("Illegal address " + host + ":" + port);
+			}
+			this.extraAddresses.add(host + ":" + port);
+			return this;
+		}
+
+		/**
+		 * 运行期间新增的节点以及从连续失败中恢复的节点，在该时间内逐步增加分配到的请求，单位：毫秒。默认为10秒，0表示不慢启动
+		 */
+		public Builder addressSlowStartTime(int addressSlowStartTime) {
+			if (addressSlowStartTime < 0) {
+				throw new IllegalArgumentException("The addressSlowStartTime can't be less than 0");
+			}
+			this.addressSlowStartTime = addressSlowStartTime;
+			return this;
+		}
+
+		/**
+		 * 一个节点连续连接失败或超时达到该次数后被熔断，不再分配请求，直到后台探测确认节点恢复。默认为3，0表示不熔断
+		 */
+		public Builder circuitBreakerThreshold(int circuitBreakerThreshold) {
+			if (circuitBreakerThreshold < 0) {
+				throw new IllegalArgumentException("The circuitBreakerThreshold can't be less than 0");
+			}
+			this.circuitBreakerThreshold = circuitBreakerThreshold;
+			return this;
+		}
+
+		/**
+		 * 探测被熔断节点的间隔，同时也是探测请求的超时时间，单位：毫秒。默认为2秒
+		 */
+		public Builder circuitBreakerProbeInterval(int circuitBreakerProbeInterval) {
+			if (circuitBreakerProbeInterval <= 0) {
+				throw new IllegalArgumentException("The circuitBreakerProbeInterval must be greater than 0");
+			}
+			this.circuitBreakerProbeInterval = circuitBreakerProbeInterval;
+			return this;
+		}
+
+		/**
+		 * 开启查询对冲：同步查询超过最近查询耗时的95分位仍未返回时，向另一个节点发送相同的查询，
+		 * 先返回的结果生效，另一个请求被取消。对冲请求数不超过查询数的5%
+		 */
+		public Builder queryHedge() {
+			return queryHedge(95, 5);
+		}
+
+		/**
+		 * @param percentile 等待超过最近查询耗时的该分位后发送对冲请求，取值范围(0, 100)
+		 * @param budgetPercent 对冲请求数不超过查询数的百分比
+		 */
+		public Builder queryHedge(double percentile, int budgetPercent) {
+			if (percentile <= 0 || percentile >= 100) {
+				throw new IllegalArgumentException("The query hedge percentile must be between 0 and 100");
+			}
+			if (budgetPercent <= 0) {
+				throw new IllegalArgumentException("The query hedge budget must be greater than 0");
+			}
+			this.queryHedgePercentile = percentile;
+			this.queryHedgeBudgetPercent = budgetPercent;
+			return this;
+		}
+
+		/**
+		 * 发送对冲请求前的最短等待时间，查询耗时都很短时避免频繁对冲，单位：毫秒。默认为10毫秒
+		 */
+		public Builder queryHedgeMinDelay(int queryHedgeMinDelay) {
+			if (queryHedgeMinDelay < 0) {
+				throw new IllegalArgumentException("The queryHedgeMinDelay can't be less than 0");
+			}
+			this.queryHedgeMinDelay = queryHedgeMinDelay;
+			return this;
+		}
+
+		/**
+		 * 启动时向每个节点预建连接并用一个轻量请求校验，构造客户端时等待预热结束。
+		 * 预建的连接数不超过httpConnectionPool
+		 */
+		public Builder warmUp(int connectionsPerAddress) {
+			if (connectionsPerAddress <= 0) {
+				throw new IllegalArgumentException("The connectionsPerAddress must be greater than 0");
+			}
+			this.warmUpConnections = connectionsPerAddress;
+			this.warmUpAsync = false;
+			return this;
+		}
+
+		/**
+		 * 与{@link #warmUp(int)}相同，但构造客户端时不等待，通过{@link HiTSDB#awaitReady(long, java.util.concurrent.TimeUnit)}等待预热结束
+		 */
+		public Builder warmUpAsync(int connectionsPerAddress) {
+			warmUp(connectionsPerAddress);
+			this.warmUpAsync = true;
+			return this;
+		}
+
 		public Builder activateRequestLimit(int limit) {
 			this.activateRequestLimit = limit;
 			this.activateRequestLimitSwitch = true;
@@ -55,11 +230,143 @@ public class HiTSDBConfig {
 			return this;
 		}
 
+		/**
+		 * 按时间线(metric + tags)将缓冲队列分为多个分区，每个分区由一个独立的消费者线程消费。<br>
+		 * 开启后消费者线程数等于分区数，batchPutConsumerThreadCount不再生效。小于等于1表示不分区。
+		 */
+		public Builder batchPutPartitionCount(int batchPutPartitionCount) {
+			this.batchPutPartitionCount = batchPutPartitionCount;
+			return this;
+		}
+
+		/**
+		 * 每次批量提交请求体(压缩前)的最大字节数，超过时在数据点边界切分为多个请求。<br>
+		 * 同样作用于putSync。默认为0，表示不限制。
+		 */
+		public Builder batchPutMaxPayloadBytes(int batchPutMaxPayloadBytes) {
+			if (batchPutMaxPayloadBytes < 0) {
+				throw new IllegalArgumentException("The batchPutMaxPayloadBytes can't be less than 0");
+			}
+			this.batchPutMaxPayloadBytes = batchPutMaxPayloadBytes;
+			return this;
+		}
+
+		/**
+		 * 开启批次内重复点合并。同一批次中同一时间线同一时间戳的多个点只发送最后一个值，
+		 * 被合并掉的点不会出现在批量提交回调中。
+		 */
+		public Builder batchPutCoalesce() {
+			this.batchPutCoalesce = true;
+			return this;
+		}
+
+		/**
+		 * 开启写入前的预聚合。put()写入的原始数据点按时间线累加到granularity的时间窗口中，
+		 * 窗口关闭后按每种聚合方式发送一个带granularity与aggregator的数据点，原始数据点不再发送。<br>
+		 * 聚合方式支持sum、count、min、max、avg。所属窗口已经关闭的数据点按原始数据点发送。<br>
+		 * 窗口中的原始数据点只保存在内存中，不能与writeAheadLog同时使用。
+		 */
+		public Builder rollup(Granularity granularity, Aggregator... aggregators) {
+			if (granularity == null || granularity == Granularity.S1) {
+				throw new IllegalArgumentException("The rollup granularity must be coarser than 1s");
+			}
+			List<Aggregator> list = Arrays.asList(aggregators);
+			RollupStage.checkAggregators(list);
+			this.rollupGranularity = granularity;
+			this.rollupAggregators = Collections.unmodifiableList(list);
+			return this;
+		}
+
+		/**
+		 * 预聚合窗口结束后等待迟到数据点的时间，默认为5000毫秒。
+		 */
+		public Builder rollupDelay(int rollupDelay) {
+			if (rollupDelay < 0) {
+				throw new IllegalArgumentException("The rollup delay can't be less than 0");
+			}
+			this.rollupDelay = rollupDelay;
+			return this;
+		}
+
+		/**
+		 * 增加一个优先级通道。通道有独立的缓冲队列、批次参数与消费者线程，
+		 * metric匹配通道规则或通过put(point, lane)显式指定通道的数据点进入该通道，其余数据点进入默认通道。
+		 */
+		public Builder lane(PutLane lane) {
+			if (lane == null) {
+				throw new IllegalArgumentException("The lane can't be null");
+			}
+			for (PutLane existing : this.lanes) {
+				if (existing.getName().equals(lane.getName())) {
+					throw new IllegalArgumentException("Duplicate lane name " + lane.getName());
+				}
+			}
+			this.lanes.add(lane);
+			return this;
+		}
+
 		public Builder batchPutRetryCount(int batchPutRetryCount) {
 			this.batchPutRetryCount = batchPutRetryCount;
 			return this;
 		}
 
+		/**
+		 * 重试的退避时间。第n次重试前等待min(maxBackoff, backoff * 2^(n-1))，并在其一半到全部之间随机，单位：毫秒。
+		 * 默认为100毫秒到10秒
+		 */
+		public Builder batchPutRetryBackoff(int backoff, int maxBackoff) {
+			if (backoff < 0 || maxBackoff < backoff) {
+				throw new IllegalArgumentException("Illegal retry backoff " + backoff + "~" + maxBackoff);
+			}
+			this.batchPutRetryBackoff = backoff;
+			this.batchPutRetryMaxBackoff = maxBackoff;
+			return this;
+		}
+
+		/**
+		 * 一个批次从第一次发送开始，超过该时间后不再重试，单位：毫秒。默认为0，表示只受重试次数限制
+		 */
+		public Builder batchPutRetryDeadline(int batchPutRetryDeadline) {
+			if (batchPutRetryDeadline < 0) {
+				throw new IllegalArgumentException("The batchPutRetryDeadline can't be less than 0");
+			}
+			this.batchPutRetryDeadline = batchPutRetryDeadline;
+			return this;
+		}
+
+		/**
+		 * 全局的重试预算：重试数不超过写入请求数的percent%，另外每秒保底minPerSecond次重试，
+		 * 避免服务端故障时重试放大请求量。默认为20%，每秒保底10次
+		 */
+		public Builder batchPutRetryBudget(int percent, int minPerSecond) {
+			if (percent < 0 || minPerSecond < 0) {
+				throw new IllegalArgumentException("The retry budget can't be less than 0");
+			}
+			this.batchPutRetryBudgetPercent = percent;
+			this.batchPutRetryBudgetMinPerSecond = minPerSecond;
+			return this;
+		}
+
+		/**
+		 * 开启部分重试：写入请求带上details参数，服务端返回部分数据点失败时，只重新发送暂时性错误的数据点，
+		 * 写入成功与数据点本身错误的数据点直接回调。重新发送受batchPutRetryCount、退避、截止时间与重试预算的限制。<br>
+		 * 使用默认的错误分类，见{@link DefaultPointErrorClassifier}
+		 */
+		public Builder batchPutPartialRetry() {
+			return batchPutPartialRetry(new DefaultPointErrorClassifier());
+		}
+
+		/**
+		 * 开启部分重试，并指定如何区分暂时性错误与数据点本身的错误
+		 */
+		public Builder batchPutPartialRetry(PointErrorClassifier classifier) {
+			if (classifier == null) {
+				throw new IllegalArgumentException("The point error classifier can't be null");
+			}
+			this.batchPutPartialRetryClassifier = classifier;
+			return this;
+		}
+
 		public Builder batchPutSize(int batchPutSize) {
 			this.batchPutSize = batchPutSize;
 			return this;
@@ -70,11 +377,60 @@ public class HiTSDBConfig {
 			return this;
 		}
 
+		/**
+		 * 开启自适应批量，根据写入请求的耗时与吞吐量在默认上下限之间调整每批次点数与提交间隔。<br>
+		 * batchPutSize与batchPutTimeLimit作为初始值。
+		 */
+		public Builder adaptiveBatchPut() {
+			this.adaptiveBatchPut = true;
+			return this;
+		}
+
+		/**
+		 * 开启自适应批量，并指定每批次点数与提交间隔(毫秒)的上下限。
+		 */
+		public Builder adaptiveBatchPut(int minBatchSize, int maxBatchSize, int minBatchPutTimeLimit, int maxBatchPutTimeLimit) {
+			if (minBatchSize <= 0 || maxBatchSize < minBatchSize) {
+				throw new IllegalArgumentException("Illegal adaptive batch size bounds");
+			}
+			if (minBatchPutTimeLimit <= 0 || maxBatchPutTimeLimit < minBatchPutTimeLimit) {
+				throw new IllegalArgumentException("Illegal adaptive batch time limit bounds");
+			}
+			this.adaptiveBatchPut = true;
+			this.adaptiveBatchPutMinSize = minBatchSize;
+			this.adaptiveBatchPutMaxSize = maxBatchSize;
+			this.adaptiveBatchPutMinTimeLimit = minBatchPutTimeLimit;
+			this.adaptiveBatchPutMaxTimeLimit = maxBatchPutTimeLimit;
+			return this;
+		}
+
 		public Builder closeActivateRequestLimit() {
 			this.activateRequestLimitSwitch = false;
 			return this;
 		}
 
+		/**
+		 * 开启自适应并发限制，根据写入请求的耗时以及5xx、超时调整每个地址同时进行中的请求数。<br>
+		 * activateRequestLimit作为初始值，上限默认与httpConnectionPool相同。开启优先级通道时，通道之间分配的许可总数仍为activateRequestLimit。
+		 */
+		public Builder adaptiveRequestLimit() {
+			this.adaptiveRequestLimit = true;
+			return this;
+		}
+
+		/**
+		 * 开启自适应并发限制，并指定每个地址同时进行中的请求数的上下限。
+		 */
+		public Builder adaptiveRequestLimit(int minLimit, int maxLimit) {
+			if (minLimit <= 0 || maxLimit < minLimit) {
+				throw new IllegalArgumentException("Illegal adaptive request limit bounds");
+			}
+			this.adaptiveRequestLimit = true;
+			this.adaptiveRequestLimitMin = minLimit;
+			this.adaptiveRequestLimitMax = maxLimit;
+			return this;
+		}
+
 		public Builder closeBackpressure() {
 			this.backpressure = false;
 			return this;
@@ -95,6 +451,28 @@ public class HiTSDBConfig {
 			return this;
 		}
 
+		/**
+		 * 每个连接最多处理的请求数，达到后响应结束时关闭连接。默认为0，表示不限制
+		 */
+		public Builder httpConnectionMaxRequests(int httpConnectionMaxRequests) {
+			if (httpConnectionMaxRequests < 0) {
+				throw new IllegalArgumentException("The httpConnectionMaxRequests can't be less than 0");
+			}
+			this.httpConnectionMaxRequests = httpConnectionMaxRequests;
+			return this;
+		}
+
+		/**
+		 * 连接空闲超过该时间后关闭，单位：秒。默认为180秒，0表示不关闭空闲连接
+		 */
+		public Builder httpConnectionIdleTime(int httpConnectionIdleTime) {
+			if (httpConnectionIdleTime < 0) {
+				throw new IllegalArgumentException("The httpConnectionIdleTime can't be less than 0");
+			}
+			this.httpConnectionIdleTime = httpConnectionIdleTime;
+			return this;
+		}
+
 		public Builder readonly() {
 			this.asyncPut = false;
 			return this;
@@ -112,30 +490,237 @@ public class HiTSDBConfig {
 			return this;
 		}
 
+		public Builder dataQueueType(DataQueueType dataQueueType) {
+			if (dataQueueType == null) {
+				throw new IllegalArgumentException("The DataQueueType can't be null");
+			}
+			this.dataQueueType = dataQueueType;
+			return this;
+		}
+
+		/**
+		 * 使用无锁环形缓冲队列，队列长度向上取整为2的幂。
+		 */
+		public Builder ringBufferQueue() {
+			this.dataQueueType = DataQueueType.RingBuffer;
+			return this;
+		}
+
+		public Builder ringBufferQueue(WaitStrategyType waitStrategyType) {
+			this.dataQueueType = DataQueueType.RingBuffer;
+			return this.waitStrategy(waitStrategyType);
+		}
+
+		/**
+		 * 环形缓冲队列的等待策略，默认为Sleeping。
+		 */
+		public Builder waitStrategy(WaitStrategyType waitStrategyType) {
+			if (waitStrategyType == null) {
+				throw new IllegalArgumentException("The WaitStrategyType can't be null");
+			}
+			this.waitStrategyType = waitStrategyType;
+			return this;
+		}
+
+		/**
+		 * 内存缓冲队列已满时，将数据点溢出到该目录下的内存映射分段文件中，服务端恢复后由消费者线程继续读取发送。<br>
+		 * 磁盘占用默认不超过1GB，超过后按backpressure配置阻塞或抛出BufferQueueFullException。
+		 */
+		public Builder spillToDisk(String directory) {
+			if (directory == null || directory.isEmpty()) {
+				throw new IllegalArgumentException("The spill directory can't be empty");
+			}
+			this.spillDirectory = directory;
+			return this;
+		}
+
+		/**
+		 * @param maxBytes 溢出文件占用的磁盘字节数上限
+		 */
+		public Builder spillToDisk(String directory, long maxBytes) {
+			if (maxBytes <= 0) {
+				throw new IllegalArgumentException("The spill max bytes must be greater than 0");
+			}
+			this.spillMaxBytes = maxBytes;
+			return this.spillToDisk(directory);
+		}
+
+		/**
+		 * 每个溢出分段文件的字节数，默认为64MB。
+		 */
+		public Builder spillSegmentSize(int spillSegmentSize) {
+			if (spillSegmentSize < 1024) {
+				throw new IllegalArgumentException("The spill segment size can't be less than 1024");
+			}
+			this.spillSegmentSize = spillSegmentSize;
+			return this;
+		}
+
+		/**
+		 * 开启预写日志。异步写入的数据点先追加到该目录下的日志分段文件并刷盘，再进入缓冲队列，
+		 * 分段中的数据点全部处理完毕后删除分段。<br>
+		 * 进程异常退出或强制关闭时未处理完的数据点保留在日志中，下次创建客户端时重新写入，因此可能重复写入部分数据点。
+		 * 不能与spillToDisk、rollup、telnetPut、putTransport同时使用。
+		 */
+		public Builder writeAheadLog(String directory) {
+			if (directory == null || directory.isEmpty()) {
+				throw new IllegalArgumentException("The write-ahead log directory can't be empty");
+			}
+			this.writeAheadLogDirectory = directory;
+			return this;
+		}
+
+		/**
+		 * 每个预写日志分段文件的字节数，默认为64MB。
+		 */
+		public Builder writeAheadLogSegmentSize(int writeAheadLogSegmentSize) {
+			if (writeAheadLogSegmentSize < 1024) {
+				throw new IllegalArgumentException("The write-ahead log segment size can't be less than 1024");
+			}
+			this.writeAheadLogSegmentSize = writeAheadLogSegmentSize;
+			return this;
+		}
+
+		/**
+		 * 预写日志的刷盘间隔，单位：毫秒。<br>
+		 * 默认为0，put()等待数据点刷盘后才返回，并发写入的数据点合并为一次刷盘；
+		 * 大于0时按间隔定时刷盘，put()不再等待，进程异常退出时最多丢失一个间隔内的数据点。
+		 */
+		public Builder writeAheadLogSyncInterval(int writeAheadLogSyncInterval) {
+			if (writeAheadLogSyncInterval < 0) {
+				throw new IllegalArgumentException("The write-ahead log sync interval can't be less than 0");
+			}
+			this.writeAheadLogSyncInterval = writeAheadLogSyncInterval;
+			return this;
+		}
+
+		/**
+		 * 异步批量写入改为通过telnet风格的行协议发送，每个节点保持2条持久连接，不等待服务端的响应。<br>
+		 * 批次写入套接字后即回调成功，服务端拒绝的数据点只记录日志，适合允许少量丢失的高吞吐数据；
+		 * 需要服务端结果的通道可以用{@link PutLane.Builder#httpPut()}保留HTTP写入。不能与writeAheadLog同时使用。
+		 */
+		public Builder telnetPut() {
+			return telnetPut(0, 2);
+		}
+
+		/**
+		 * @param port 行协议的端口，0表示与HTTP端口相同
+		 * @param connectionsPerAddress 每个节点的连接数
+		 */
+		public Builder telnetPut(int port, int connectionsPerAddress) {
+			if (port < 0 || connectionsPerAddress <= 0) {
+				throw new IllegalArgumentException("Illegal telnet put port " + port + " or connections " + connectionsPerAddress);
+			}
+			this.telnetPut = true;
+			this.telnetPutPort = port;
+			this.telnetPutConnections = connectionsPerAddress;
+			return this;
+		}
+
+		/**
+		 * 异步批量写入使用自定义的传输方式，客户端关闭时一同关闭。与{@link #telnetPut()}同时设置时使用该传输。
+		 * 不能与writeAheadLog同时使用。
+		 */
+		public Builder putTransport(PutTransport putTransport) {
+			if (putTransport == null) {
+				throw new IllegalArgumentException("The putTransport can't be null");
+			}
+			this.putTransport = putTransport;
+			return this;
+		}
+
 		public HiTSDBConfig config() {
+			if (this.writeAheadLogDirectory != null && this.spillDirectory != null) {
+				throw new IllegalArgumentException("The write-ahead log can't be used together with spillToDisk");
+			}
+			if (this.writeAheadLogDirectory != null && this.rollupGranularity != null) {
+				// 预聚合窗口中的原始数据点不经过预写日志，窗口关闭前不是持久的
+				throw new IllegalArgumentException("The write-ahead log can't be used together with rollup");
+			}
+			if (this.writeAheadLogDirectory != null && (this.telnetPut || this.putTransport != null)) {
+				// 传输层写入套接字即确认，连接断开或服务端拒绝时预写日志已经释放了这些数据点
+				throw new IllegalArgumentException("The write-ahead log can't be used together with telnetPut or putTransport");
+			}
+			if (this.adaptiveRequestLimit && !this.activateRequestLimitSwitch) {
+				throw new IllegalArgumentException("The adaptive request limit can't be used together with closeActivateRequestLimit");
+			}
+
 			HiTSDBConfig hiTSDBConfig = new HiTSDBConfig();
 
 			hiTSDBConfig.host = this.host;
 			hiTSDBConfig.port = this.port;
+			Set<String> addresses = new LinkedHashSet<String>();
+			addresses.add(this.host + ":" + this.port);
+			addresses.addAll(this.extraAddresses);
+			hiTSDBConfig.addresses = Collections.unmodifiableList(new ArrayList<String>(addresses));
+			hiTSDBConfig.addressSlowStartTime = this.addressSlowStartTime;
+			hiTSDBConfig.circuitBreakerThreshold = this.circuitBreakerThreshold;
+			hiTSDBConfig.circuitBreakerProbeInterval = this.circuitBreakerProbeInterval;
+			hiTSDBConfig.queryHedgePercentile = this.queryHedgePercentile;
+			hiTSDBConfig.queryHedgeBudgetPercent = this.queryHedgeBudgetPercent;
+			hiTSDBConfig.queryHedgeMinDelay = this.queryHedgeMinDelay;
+			hiTSDBConfig.warmUpConnections = Math.min(this.warmUpConnections, this.httpConnectionPool);
+			hiTSDBConfig.warmUpAsync = this.warmUpAsync;
 			hiTSDBConfig.batchPutCallback = this.batchPutCallback;
 			hiTSDBConfig.batchPutSize = this.batchPutSize;
 			hiTSDBConfig.batchPutTimeLimit = this.batchPutTimeLimit;
+			hiTSDBConfig.batchPutMaxPayloadBytes = this.batchPutMaxPayloadBytes;
+			hiTSDBConfig.batchPutCoalesce = this.batchPutCoalesce;
+			hiTSDBConfig.rollupGranularity = this.rollupGranularity;
+			hiTSDBConfig.rollupAggregators = this.rollupAggregators;
+			hiTSDBConfig.rollupDelay = this.rollupDelay;
+			hiTSDBConfig.lanes = Collections.unmodifiableList(new ArrayList<PutLane>(this.lanes));
+			hiTSDBConfig.adaptiveBatchPut = this.adaptiveBatchPut;
+			hiTSDBConfig.adaptiveBatchPutMinSize = this.adaptiveBatchPutMinSize;
+			hiTSDBConfig.adaptiveBatchPutMaxSize = this.adaptiveBatchPutMaxSize;
+			hiTSDBConfig.adaptiveBatchPutMinTimeLimit = this.adaptiveBatchPutMinTimeLimit;
+			hiTSDBConfig.adaptiveBatchPutMaxTimeLimit = this.adaptiveBatchPutMaxTimeLimit;
 			hiTSDBConfig.batchPutBufferSize = this.batchPutBufferSize;
 			hiTSDBConfig.batchPutRetryCount = this.batchPutRetryCount;
+			hiTSDBConfig.batchPutRetryBackoff = this.batchPutRetryBackoff;
+			hiTSDBConfig.batchPutRetryMaxBackoff = this.batchPutRetryMaxBackoff;
+			hiTSDBConfig.batchPutRetryDeadline = this.batchPutRetryDeadline;
+			hiTSDBConfig.batchPutRetryBudgetPercent = this.batchPutRetryBudgetPercent;
+			hiTSDBConfig.batchPutRetryBudgetMinPerSecond = this.batchPutRetryBudgetMinPerSecond;
+			hiTSDBConfig.batchPutPartialRetryClassifier = this.batchPutPartialRetryClassifier;
 			hiTSDBConfig.httpConnectionPool = this.httpConnectionPool;
 			hiTSDBConfig.httpConnectTimeout = this.httpConnectTimeout;
 			hiTSDBConfig.activateRequestLimitSwitch = this.activateRequestLimitSwitch;
 			hiTSDBConfig.activateRequestLimit = this.activateRequestLimit;
 			hiTSDBConfig.batchPutConsumerThreadCount = this.batchPutConsumerThreadCount;
+			hiTSDBConfig.batchPutPartitionCount = this.batchPutPartitionCount;
 			hiTSDBConfig.httpCompress = this.httpCompress;
+			hiTSDBConfig.httpCompressLevel = this.httpCompressLevel;
+			hiTSDBConfig.httpCompressMinSize = this.httpCompressMinSize;
 			hiTSDBConfig.ioThreadCount = this.ioThreadCount;
 			hiTSDBConfig.backpressure = this.backpressure;
 			hiTSDBConfig.httpConnectionLiveTime = this.httpConnectionLiveTime;
 			hiTSDBConfig.httpKeepaliveTime = this.httpKeepaliveTime;
+			hiTSDBConfig.httpConnectionMaxRequests = this.httpConnectionMaxRequests;
+			hiTSDBConfig.httpConnectionIdleTime = this.httpConnectionIdleTime;
+			hiTSDBConfig.readConnectionPool = this.readConnectionPool;
+			hiTSDBConfig.readTimeout = this.readTimeout >= 0 ? this.readTimeout : this.httpConnectTimeout;
+			hiTSDBConfig.readRequestLimit = this.readRequestLimit > 0 ? this.readRequestLimit : this.readConnectionPool;
 			hiTSDBConfig.asyncPut = this.asyncPut;
+			hiTSDBConfig.dataQueueType = this.dataQueueType;
+			hiTSDBConfig.waitStrategyType = this.waitStrategyType;
+			hiTSDBConfig.spillDirectory = this.spillDirectory;
+			hiTSDBConfig.spillMaxBytes = this.spillMaxBytes;
+			hiTSDBConfig.spillSegmentSize = this.spillSegmentSize;
+			hiTSDBConfig.writeAheadLogDirectory = this.writeAheadLogDirectory;
+			hiTSDBConfig.writeAheadLogSegmentSize = this.writeAheadLogSegmentSize;
+			hiTSDBConfig.writeAheadLogSyncInterval = this.writeAheadLogSyncInterval;
+			hiTSDBConfig.telnetPut = this.telnetPut;
+			hiTSDBConfig.telnetPutPort = this.telnetPutPort;
+			hiTSDBConfig.telnetPutConnections = this.telnetPutConnections;
+			hiTSDBConfig.putTransport = this.putTransport;
 			if (this.activateRequestLimitSwitch && this.activateRequestLimit <= 0) {
 				hiTSDBConfig.activateRequestLimit = this.httpConnectionPool;
 			}
+			hiTSDBConfig.adaptiveRequestLimit = this.adaptiveRequestLimit;
+			hiTSDBConfig.adaptiveRequestLimitMin = this.adaptiveRequestLimitMin;
+			hiTSDBConfig.adaptiveRequestLimitMax = this.adaptiveRequestLimitMax > 0 ? this.adaptiveRequestLimitMax
+					: Math.max(this.adaptiveRequestLimitMin, this.httpConnectionPool);
 
 			return hiTSDBConfig;
 		}
@@ -145,6 +730,26 @@ public class HiTSDBConfig {
 			return this;
 		}
 
+		/**
+		 * 请求压缩级别，取值-1~9，-1表示默认级别。级别越低压缩越快，压缩率越低。
+		 */
+		public Builder httpCompressLevel(int httpCompressLevel) {
+			DeflaterPool.checkLevel(httpCompressLevel);
+			this.httpCompressLevel = httpCompressLevel;
+			return this;
+		}
+
+		/**
+		 * 请求体达到该长度(字节)才压缩，较小的请求体直接发送。默认为0，即总是压缩。
+		 */
+		public Builder httpCompressMinSize(int httpCompressMinSize) {
+			if (httpCompressMinSize < 0) {
+				throw new IllegalArgumentException("The httpCompressMinSize can't be less than 0");
+			}
+			this.httpCompressMinSize = httpCompressMinSize;
+			return this;
+		}
+
 		public Builder httpConnectionPool(int connectionPool) {
 			if (connectionPool <= 0) {
 				throw new IllegalArgumentException("The ConnectionPool con't be less then 1");
@@ -158,6 +763,34 @@ public class HiTSDBConfig {
 			return this;
 		}
 
+		/**
+		 * 查询、suggest与dump_meta等读请求使用独立的连接池与请求许可，大量查询不会占满写入的连接，反之亦然。
+		 * 超时时间与httpConnectTimeout相同，每个节点的读请求许可数与连接数相同
+		 * 
+		 * @param connectionsPerAddress 每个节点的读连接数
+		 */
+		public Builder readPool(int connectionsPerAddress) {
+			return readPool(connectionsPerAddress, -1, connectionsPerAddress);
+		}
+
+		/**
+		 * @param connectionsPerAddress 每个节点的读连接数
+		 * @param timeout 读请求的连接、读取与等待连接或许可的超时时间，0表示不超时，-1表示与httpConnectTimeout相同，单位：秒
+		 * @param requestLimit 每个节点同时进行的读请求数
+		 */
+		public Builder readPool(int connectionsPerAddress, int timeout, int requestLimit) {
+			if (connectionsPerAddress <= 0) {
+				throw new IllegalArgumentException("The connectionsPerAddress must be greater than 0");
+			}
+			if (requestLimit <= 0) {
+				throw new IllegalArgumentException("The requestLimit must be greater than 0");
+			}
+			this.readConnectionPool = connectionsPerAddress;
+			this.readTimeout = timeout;
+			this.readRequestLimit = requestLimit;
+			return this;
+		}
+
 		public Builder ioThreadCount(int ioThreadCount) {
 			this.ioThreadCount = ioThreadCount;
 			return this;
@@ -185,25 +818,80 @@ public class HiTSDBConfig {
 
 	private int activateRequestLimit;
 	private boolean activateRequestLimitSwitch;
+	private boolean adaptiveRequestLimit;
+	private int adaptiveRequestLimitMin;
+	private int adaptiveRequestLimitMax;
 	private int batchPutBufferSize;
 	private AbstractBatchPutCallback<?> batchPutCallback;
 	private int batchPutConsumerThreadCount;
+	private int batchPutPartitionCount;
 	private int batchPutRetryCount;
+	private int batchPutRetryBackoff;
+	private int batchPutRetryMaxBackoff;
+	private int batchPutRetryDeadline;
+	private int batchPutRetryBudgetPercent;
+	private int batchPutRetryBudgetMinPerSecond;
+	private PointErrorClassifier batchPutPartialRetryClassifier;
 	private int batchPutSize;
 	private int batchPutTimeLimit;
+	private int batchPutMaxPayloadBytes;
+	private boolean batchPutCoalesce;
+
+	private Granularity rollupGranularity;
+	private List<Aggregator> rollupAggregators;
+	private int rollupDelay;
+
+	private List<PutLane> lanes;
+	private boolean adaptiveBatchPut;
+	private int adaptiveBatchPutMinSize;
+	private int adaptiveBatchPutMaxSize;
+	private int adaptiveBatchPutMinTimeLimit;
+	private int adaptiveBatchPutMaxTimeLimit;
 	private String host;
 
 	private boolean httpCompress;
+	private int httpCompressLevel;
+	private int httpCompressMinSize;
 	private int httpConnectionPool;
 	private int httpConnectTimeout;
 	private int httpConnectionLiveTime;
 	private int httpKeepaliveTime;
+	private int httpConnectionMaxRequests;
+	private int httpConnectionIdleTime;
+	private int readConnectionPool;
+	private int readTimeout;
+	private int readRequestLimit;
 
 	private int ioThreadCount;
 	private boolean backpressure;
 	private boolean asyncPut;
 
+	private DataQueueType dataQueueType;
+	private WaitStrategyType waitStrategyType;
+
+	private String spillDirectory;
+	private long spillMaxBytes;
+	private int spillSegmentSize;
+
+	private String writeAheadLogDirectory;
+	private int writeAheadLogSegmentSize;
+	private int writeAheadLogSyncInterval;
+
+	private boolean telnetPut;
+	private int telnetPutPort;
+	private int telnetPutConnections;
+	private PutTransport putTransport;
+
 	private int port;
+	private List<String> addresses;
+	private int addressSlowStartTime;
+	private int circuitBreakerThreshold;
+	private int circuitBreakerProbeInterval;
+	private double queryHedgePercentile;
+	private int queryHedgeBudgetPercent;
+	private int queryHedgeMinDelay;
+	private int warmUpConnections;
+	private boolean warmUpAsync;
 
 	public int getActivateRequestLimit() {
 		return activateRequestLimit;
@@ -221,10 +909,45 @@ public class HiTSDBConfig {
 		return batchPutConsumerThreadCount;
 	}
 
+	public int getBatchPutPartitionCount() {
+		return batchPutPartitionCount;
+	}
+
 	public int getBatchPutRetryCount() {
 		return batchPutRetryCount;
 	}
 
+	public int getBatchPutRetryBackoff() {
+		return batchPutRetryBackoff;
+	}
+
+	public int getBatchPutRetryMaxBackoff() {
+		return batchPutRetryMaxBackoff;
+	}
+
+	public int getBatchPutRetryDeadline() {
+		return batchPutRetryDeadline;
+	}
+
+	public int getBatchPutRetryBudgetPercent() {
+		return batchPutRetryBudgetPercent;
+	}
+
+	public int getBatchPutRetryBudgetMinPerSecond() {
+		return batchPutRetryBudgetMinPerSecond;
+	}
+
+	public boolean isBatchPutPartialRetry() {
+		return batchPutPartialRetryClassifier != null;
+	}
+
+	/**
+	 * 部分重试的错误分类，未开启部分重试时为null
+	 */
+	public PointErrorClassifier getBatchPutPartialRetryClassifier() {
+		return batchPutPartialRetryClassifier;
+	}
+
 	public int getBatchPutSize() {
 		return batchPutSize;
 	}
@@ -233,6 +956,53 @@ public class HiTSDBConfig {
 		return batchPutTimeLimit;
 	}
 
+	public int getBatchPutMaxPayloadBytes() {
+		return batchPutMaxPayloadBytes;
+	}
+
+	public boolean isBatchPutCoalesce() {
+		return batchPutCoalesce;
+	}
+
+	public Granularity getRollupGranularity() {
+		return rollupGranularity;
+	}
+
+	public List<Aggregator> getRollupAggregators() {
+		return rollupAggregators;
+	}
+
+	public int getRollupDelay() {
+		return rollupDelay;
+	}
+
+	/**
+	 * 除默认通道之外的优先级通道
+	 */
+	public List<PutLane> getLanes() {
+		return lanes;
+	}
+
+	public boolean isAdaptiveBatchPut() {
+		return adaptiveBatchPut;
+	}
+
+	public int getAdaptiveBatchPutMinSize() {
+		return adaptiveBatchPutMinSize;
+	}
+
+	public int getAdaptiveBatchPutMaxSize() {
+		return adaptiveBatchPutMaxSize;
+	}
+
+	public int getAdaptiveBatchPutMinTimeLimit() {
+		return adaptiveBatchPutMinTimeLimit;
+	}
+
+	public int getAdaptiveBatchPutMaxTimeLimit() {
+		return adaptiveBatchPutMaxTimeLimit;
+	}
+
 	public String getHost() {
 		return host;
 	}
@@ -253,14 +1023,81 @@ public class HiTSDBConfig {
 		return port;
 	}
 
+	/**
+	 * 所有节点的地址(host:port)，第一个为host与port对应的地址
+	 */
+	public List<String> getAddresses() {
+		return addresses;
+	}
+
+	public int getAddressSlowStartTime() {
+		return addressSlowStartTime;
+	}
+
+	public int getCircuitBreakerThreshold() {
+		return circuitBreakerThreshold;
+	}
+
+	public int getCircuitBreakerProbeInterval() {
+		return circuitBreakerProbeInterval;
+	}
+
+	public boolean isQueryHedge() {
+		return queryHedgePercentile > 0;
+	}
+
+	public double getQueryHedgePercentile() {
+		return queryHedgePercentile;
+	}
+
+	public int getQueryHedgeBudgetPercent() {
+		return queryHedgeBudgetPercent;
+	}
+
+	public int getQueryHedgeMinDelay() {
+		return queryHedgeMinDelay;
+	}
+
+	public boolean isWarmUp() {
+		return warmUpConnections > 0;
+	}
+
+	public int getWarmUpConnections() {
+		return warmUpConnections;
+	}
+
+	public boolean isWarmUpAsync() {
+		return warmUpAsync;
+	}
+
 	public boolean isActivateRequestLimitSwitch() {
 		return activateRequestLimitSwitch;
 	}
 
+	public boolean isAdaptiveRequestLimit() {
+		return adaptiveRequestLimit;
+	}
+
+	public int getAdaptiveRequestLimitMin() {
+		return adaptiveRequestLimitMin;
+	}
+
+	public int getAdaptiveRequestLimitMax() {
+		return adaptiveRequestLimitMax;
+	}
+
 	public boolean isHttpCompress() {
 		return httpCompress;
 	}
 
+	public int getHttpCompressLevel() {
+		return httpCompressLevel;
+	}
+
+	public int getHttpCompressMinSize() {
+		return httpCompressMinSize;
+	}
+
 	public boolean isBackpressure() {
 		return backpressure;
 	}
@@ -273,8 +1110,83 @@ public class HiTSDBConfig {
 		return httpKeepaliveTime;
 	}
 
+	public int getHttpConnectionMaxRequests() {
+		return httpConnectionMaxRequests;
+	}
+
+	public int getHttpConnectionIdleTime() {
+		return httpConnectionIdleTime;
+	}
+
+	public boolean isReadPool() {
+		return readConnectionPool > 0;
+	}
+
+	public int getReadConnectionPool() {
+		return readConnectionPool;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	public int getReadRequestLimit() {
+		return readRequestLimit;
+	}
+
 	public boolean isAsyncPut() {
 		return asyncPut;
 	}
 
-}
\ No newline at end of file
+	public DataQueueType getDataQueueType() {
+		return dataQueueType;
+	}
+
+	public WaitStrategyType getWaitStrategyType() {
+		return waitStrategyType;
+	}
+
+	public String getSpillDirectory() {
+		return spillDirectory;
+	}
+
+	public long getSpillMaxBytes() {
+		return spillMaxBytes;
+	}
+
+	public int getSpillSegmentSize() {
+		return spillSegmentSize;
+	}
+
+	public String getWriteAheadLogDirectory() {
+		return writeAheadLogDirectory;
+	}
+
+	public int getWriteAheadLogSegmentSize() {
+		return writeAheadLogSegmentSize;
+	}
+
+	public int getWriteAheadLogSyncInterval() {
+		return writeAheadLogSyncInterval;
+	}
+
+	public boolean isTelnetPut() {
+		return telnetPut;
+	}
+
+	public int getTelnetPutPort() {
+		return telnetPutPort;
+	}
+
+	public int getTelnetPutConnections() {
+		return telnetPutConnections;
+	}
+
+	/**
+	 * 自定义的写入传输，未设置时返回null
+	 */
+	public PutTransport getPutTransport() {
+		return putTransport;
+	}
+
+}
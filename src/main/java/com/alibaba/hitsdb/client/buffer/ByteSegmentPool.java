@@ -0,0 +1,77 @@
+package com.alibaba.hitsdb.client.buffer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 定长字节数组池。<br>
+ * 每个分段远小于G1的Region大小的一半，不会触发大对象(humongous)分配；
+ * 池中最多保留maxPooledSegments个分段，超出部分交给GC回收。
+ */
+public class ByteSegmentPool {
+    /**
+     * 默认分段大小，32KB
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 32 * 1024;
+
+    /**
+     * 默认最多缓存的分段数，共32MB
+     */
+    public static final int DEFAULT_MAX_POOLED_SEGMENTS = 1024;
+
+    private final int segmentSize;
+    private final int maxPooledSegments;
+    private final ConcurrentLinkedQueue<byte[]> segments = new ConcurrentLinkedQueue<byte[]>();
+    private final AtomicInteger pooledSegments = new AtomicInteger(0);
+
+    public ByteSegmentPool() {
+        this(DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_POOLED_SEGMENTS);
+    }
+
+    public ByteSegmentPool(int segmentSize, int maxPooledSegments) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("The segment size must be greater than 0");
+        }
+        this.segmentSize = segmentSize;
+        this.maxPooledSegments = maxPooledSegments;
+    }
+
+    public byte[] acquire() {
+        byte[] segment = segments.poll();
+        if (segment != null) {
+            pooledSegments.decrementAndGet();
+            return segment;
+        }
+        return new byte[segmentSize];
+    }
+
+    public void release(byte[] segment) {
+        if (segment == null || segment.length != segmentSize) {
+            return;
+        }
+
+        if (pooledSegments.incrementAndGet() > maxPooledSegments) {
+            pooledSegments.decrementAndGet();
+            return;
+        }
+        segments.offer(segment);
+    }
+
+    /**
+     * 创建一个从该池中分配内存的缓冲区
+     * 
+     * @return
+     */
+    public SegmentedByteBuffer newBuffer() {
+        return new SegmentedByteBuffer(this);
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public int getPooledSegments() {
+        return pooledSegments.get();
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.alibaba.hitsdb.client.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 由池化分段组成的字节缓冲区，写入时按需从{@link ByteSegmentPool}申请分段，不会复制已写入的数据。<br>
+ * 缓冲区带有引用计数，创建时为1，引用计数归零时分段归还给池，之后不能再访问。
+ */
+public class SegmentedByteBuffer extends OutputStream {
+    private final ByteSegmentPool pool;
+    private final int segmentSize;
+    private final List<byte[]> segments = new ArrayList<byte[]>();
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    /**
+     * 当前写入的分段
+     */
+    private byte[] current;
+
+    /**
+     * 当前分段内的写入位置
+     */
+    private int position;
+
+    /**
+     * 已写入的总字节数
+     */
+    private int size;
+
+    /**
+     * 内容编码，例如gzip，未编码时为null
+     */
+    private String contentEncoding;
+
+    SegmentedByteBuffer(ByteSegmentPool pool) {
+        this.pool = pool;
+        this.segmentSize = pool.getSegmentSize();
+    }
+
+    @Override
+    public void write(int b) {
+        if (current == null || position == segmentSize) {
+            nextSegment();
+        }
+        current[position++] = (byte) b;
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            if (current == null || position == segmentSize) {
+                nextSegment();
+            }
+            int n = Math.min(len, segmentSize - position);
+            System.arraycopy(b, off, current, position, n);
+            position += n;
+            size += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void nextSegment() {
+        if (refCount.get() <= 0) {
+            throw new IllegalStateException("The buffer has been released");
+        }
+        current = pool.acquire();
+        segments.add(current);
+        position = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public void setContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * 已写入的数据按分段切分后的只读视图，不复制数据
+     */
+    public ByteBuffer[] toByteBuffers() {
+        ByteBuffer[] buffers = new ByteBuffer[segments.size()];
+        int remaining = size;
+        for (int i = 0; i < buffers.length; i++) {
+            int length = Math.min(remaining, segmentSize);
+            buffers[i] = ByteBuffer.wrap(segments.get(i), 0, length).asReadOnlyBuffer();
+            remaining -= length;
+        }
+        return buffers;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        int remaining = size;
+        for (byte[] segment : segments) {
+            int length = Math.min(remaining, segmentSize);
+            out.write(segment, 0, length);
+            remaining -= length;
+        }
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        for (byte[] segment : segments) {
+            int length = Math.min(size - offset, segmentSize);
+            System.arraycopy(segment, 0, bytes, offset, length);
+            offset += length;
+        }
+        return bytes;
+    }
+
+    public InputStream newInputStream() {
+        return new InputStream() {
+            private int offset = 0;
+
+            @Override
+            public int read() {
+                if (offset >= size) {
+                    return -1;
+                }
+                byte b = segments.get(offset / segmentSize)[offset % segmentSize];
+                offset++;
+                return b & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (offset >= size) {
+                    return -1;
+                }
+                int n = Math.min(len, Math.min(size - offset, segmentSize - offset % segmentSize));
+                System.arraycopy(segments.get(offset / segmentSize), offset % segmentSize, b, off, n);
+                offset += n;
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return size - offset;
+            }
+        };
+    }
+
+    /**
+     * 增加一次引用
+     * 
+     * @return
+     */
+    public SegmentedByteBuffer retain() {
+        while (true) {
+            int count = refCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException("The buffer has been released");
+            }
+            if (refCount.compareAndSet(count, count + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * 释放一次引用，引用计数归零时将分段归还给池
+     * 
+     * @return 是否已完全释放
+     */
+    public boolean release() {
+        int count = refCount.decrementAndGet();
+        if (count > 0) {
+            return false;
+        }
+        if (count < 0) {
+            throw new IllegalStateException("The buffer has been released");
+        }
+
+        for (byte[] segment : segments) {
+            pool.release(segment);
+        }
+        segments.clear();
+        current = null;
+        return true;
+    }
+
+    public int refCount() {
+        return refCount.get();
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
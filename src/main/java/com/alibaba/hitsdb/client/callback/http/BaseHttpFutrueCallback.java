@@ -5,35 +5,70 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.http.HttpResponse;
 import org.apache.http.concurrent.FutureCallback;
 
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
+
 public class BaseHttpFutrueCallback implements FutureCallback<HttpResponse> {
 
     private final AtomicInteger unCompletedTaskNum;
     private final FutureCallback<HttpResponse> futureCallback;
 
+    /**
+     * 请求体所在的缓冲区，请求结束后释放，可以为null
+     */
+    private final SegmentedByteBuffer content;
+
     public BaseHttpFutrueCallback(AtomicInteger unCompletedTaskNum, FutureCallback<HttpResponse> futureCallback) {
+        this(unCompletedTaskNum, futureCallback, null);
+    }
+
+    public BaseHttpFutrueCallback(AtomicInteger unCompletedTaskNum, FutureCallback<HttpResponse> futureCallback,
+            SegmentedByteBuffer content) {
         super();
         this.unCompletedTaskNum = unCompletedTaskNum;
         this.futureCallback = futureCallback;
+        this.content = content;
     }
 
     @Override
     public void completed(HttpResponse result) {
-        futureCallback.completed(result);
-        // 任务处理完毕，再减数
-        unCompletedTaskNum.decrementAndGet();
+        try {
+            if (futureCallback != null) {
+                futureCallback.completed(result);
+            }
+        } finally {
+            // 任务处理完毕，再减数
+            done();
+        }
     }
 
     @Override
     public void failed(Exception ex) {
-        futureCallback.failed(ex);
-        // 任务处理完毕，再减数
-        unCompletedTaskNum.decrementAndGet();
+        try {
+            if (futureCallback != null) {
+                futureCallback.failed(ex);
+            }
+        } finally {
+            // 任务处理完毕，再减数
+            done();
+        }
     }
 
     @Override
     public void cancelled() {
-        futureCallback.cancelled();
-        // 任务处理完毕，再减数
+        try {
+            if (futureCallback != null) {
+                futureCallback.cancelled();
+            }
+        } finally {
+            // 任务处理完毕，再减数
+            done();
+        }
+    }
+
+    private void done() {
+        if (content != null) {
+            content.release();
+        }
         unCompletedTaskNum.decrementAndGet();
     }
 
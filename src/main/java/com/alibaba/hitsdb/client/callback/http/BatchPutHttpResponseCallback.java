@@ -1,7 +1,9 @@
 package com.alibaba.hitsdb.client.callback.http;
 
 import java.net.SocketTimeoutException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.concurrent.FutureCallback;
@@ -10,10 +12,12 @@ import org.slf4j.LoggerFactory;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
 import com.alibaba.hitsdb.client.callback.AbstractBatchPutCallback;
 import com.alibaba.hitsdb.client.callback.BatchPutCallback;
 import com.alibaba.hitsdb.client.callback.BatchPutDetailsCallback;
 import com.alibaba.hitsdb.client.callback.BatchPutSummaryCallback;
+import com.alibaba.hitsdb.client.consumer.AdaptiveBatchController;
 import com.alibaba.hitsdb.client.exception.http.HttpClientConnectionRefusedException;
 import com.alibaba.hitsdb.client.exception.http.HttpClientSocketTimeoutException;
 import com.alibaba.hitsdb.client.exception.http.HttpServerErrorException;
@@ -24,10 +28,18 @@ import com.alibaba.hitsdb.client.http.HttpAddressManager;
 import com.alibaba.hitsdb.client.http.HttpClient;
 import com.alibaba.hitsdb.client.http.response.HttpStatus;
 import com.alibaba.hitsdb.client.http.response.ResultResponse;
+import com.alibaba.hitsdb.client.http.semaphore.SemaphoreManager;
+import com.alibaba.hitsdb.client.lane.LanePermit;
+import com.alibaba.hitsdb.client.retry.PartialFailure;
+import com.alibaba.hitsdb.client.retry.PointErrorClassifier;
+import com.alibaba.hitsdb.client.retry.RetryScheduler;
+import com.alibaba.hitsdb.client.serialize.PointJSONSerializer;
 import com.alibaba.hitsdb.client.value.Result;
 import com.alibaba.hitsdb.client.value.request.Point;
 import com.alibaba.hitsdb.client.value.response.batch.DetailsResult;
+import com.alibaba.hitsdb.client.value.response.batch.ErrorPoint;
 import com.alibaba.hitsdb.client.value.response.batch.SummaryResult;
+import com.alibaba.hitsdb.client.wal.WriteAheadLog;
 
 public class BatchPutHttpResponseCallback implements FutureCallback<HttpResponse> {
 	private static final Logger LOGGER = LoggerFactory.getLogger(BatchPutHttpResponseCallback.class);
@@ -40,7 +52,55 @@ public class BatchPutHttpResponseCallback implements FutureCallback<HttpResponse
 	private final HiTSDBConfig config;
 	private final String address;
 
+	/**
+	 * 自适应批量控制器，未开启时为null
+	 */
+	private final AdaptiveBatchController batchController;
+
+	/**
+	 * 批次占用的通道许可，未开启优先级通道时为null
+	 */
+	private final LanePermit lanePermit;
+
+	/**
+	 * 已经编码(和压缩)的请求体，重试时直接重新发送。回调不持有它的引用，需要在请求结束前retain，可以为null
+	 */
+	private final SegmentedByteBuffer body;
+
+	/**
+	 * 请求参数，可以为null
+	 */
+	private final Map<String, String> params;
+
+	/**
+	 * 批次的重试截止时间(System.nanoTime())
+	 */
+	private final long deadline;
+
+	/**
+	 * 请求发出的时间
+	 */
+	private final long startTime;
+
 	public BatchPutHttpResponseCallback(String address,HttpClient httpclient, AbstractBatchPutCallback<?> batchPutCallback,List<Point> pointList, HiTSDBConfig config, int batchPutRetryTimes) {
+		this(address, httpclient, batchPutCallback, pointList, config, batchPutRetryTimes, null);
+	}
+
+	public BatchPutHttpResponseCallback(String address,HttpClient httpclient, AbstractBatchPutCallback<?> batchPutCallback,List<Point> pointList, HiTSDBConfig config, int batchPutRetryTimes, AdaptiveBatchController batchController) {
+		this(address, httpclient, batchPutCallback, pointList, config, batchPutRetryTimes, batchController, null);
+	}
+
+	public BatchPutHttpResponseCallback(String address,HttpClient httpclient, AbstractBatchPutCallback<?> batchPutCallback,List<Point> pointList, HiTSDBConfig config, int batchPutRetryTimes, AdaptiveBatchController batchController, LanePermit lanePermit) {
+		this(address, httpclient, batchPutCallback, pointList, config, batchPutRetryTimes, batchController, lanePermit, null, null,
+				httpclient.getRetryScheduler().deadline(System.nanoTime()));
+	}
+
+	/**
+	 * @param body 已经编码的请求体，重试时重新发送，为null时重试前重新序列化
+	 * @param params 请求参数，重试时沿用
+	 * @param deadline 批次的重试截止时间，见{@link RetryScheduler#deadline(long)}
+	 */
+	public BatchPutHttpResponseCallback(String address,HttpClient httpclient, AbstractBatchPutCallback<?> batchPutCallback,List<Point> pointList, HiTSDBConfig config, int batchPutRetryTimes, AdaptiveBatchController batchController, LanePermit lanePermit, SegmentedByteBuffer body, Map<String, String> params, long deadline) {
 		super();
 		this.address = address;
 		this.hitsdbHttpClient = httpclient;
@@ -49,6 +109,47 @@ public class BatchPutHttpResponseCallback implements FutureCallback<HttpResponse
 		this.batchPutRetryTimes = batchPutRetryTimes;
 		this.compress = config.isHttpCompress();
 		this.config = config;
+		this.batchController = batchController;
+		this.lanePermit = lanePermit;
+		this.body = body;
+		this.params = params;
+		this.deadline = deadline;
+		this.startTime = System.nanoTime();
+	}
+
+	private void recordBatch(boolean success) {
+		if (batchController == null) {
+			return;
+		}
+		long latency = System.nanoTime() - startTime;
+		if (success) {
+			batchController.onSuccess(pointList.size(), latency);
+		} else {
+			batchController.onFailure(pointList.size(), latency);
+		}
+	}
+
+	/**
+	 * 向许可管理器反馈请求耗时，自适应模式下据此调整许可数。需要在归还许可之前调用
+	 * 
+	 * @param dropped 是否为5xx或超时等说明服务端过载的失败
+	 */
+	private void recordResponse(boolean dropped) {
+		this.hitsdbHttpClient.getSemaphoreManager().onResponse(address, System.nanoTime() - startTime, dropped);
+	}
+
+	/**
+	 * 批次处理结束(成功或不再重试的失败)，在预写日志中确认这些数据点，并归还通道许可
+	 */
+	private void acknowledge() {
+		WriteAheadLog.acknowledge(pointList);
+		releaseLanePermit();
+	}
+
+	private void releaseLanePermit() {
+		if (lanePermit != null) {
+			lanePermit.release();
+		}
 	}
 
 	@Override
@@ -59,8 +160,14 @@ public class BatchPutHttpResponseCallback implements FutureCallback<HttpResponse
 		switch (httpStatus) {
 			case ServerSuccess:
 			case ServerSuccessNoContent:
+				if (httpStatus == HttpStatus.ServerSuccess && partialRetry(resultResponse)) {
+					return;
+				}
 				// 正常释放Semaphor
+				recordResponse(false);
 				this.hitsdbHttpClient.getSemaphoreManager().release(address);
+				recordBatch(true);
+				acknowledge();
 				
 				if (batchPutCallback == null) {
 					return;
@@ -88,27 +195,34 @@ public class BatchPutHttpResponseCallback implements FutureCallback<HttpResponse
 					return;
 				}
 			case ServerNotSupport: {
+				// 部分数据点写入失败时，服务器同样返回4xx错误
+				if (partialRetry(resultResponse)) {
+					return;
+				}
 				// 服务器返回4xx错误
 				// 正常释放Semaphor
 				this.hitsdbHttpClient.getSemaphoreManager().release(address);
+				recordBatch(false);
+				acknowledge();
 				HttpServerNotSupportException ex = new HttpServerNotSupportException(resultResponse);
 				this.failedWithResponse(ex);
 				return;
 			}
 			case ServerError: {
+				recordBatch(false);
+				recordResponse(true);
+				// 服务器返回5xx错误
+				HttpServerErrorException ex = new HttpServerErrorException(resultResponse);
 				if (this.batchPutRetryTimes == 0) {
-					// 服务器返回5xx错误
-					// 正常释放Semaphor
-					this.hitsdbHttpClient.getSemaphoreManager().release(address);
-					HttpServerErrorException ex = new HttpServerErrorException(resultResponse);
-					this.failedWithResponse(ex);
+					giveUp(ex);
 				} else {
-					errorRetry();
+					errorRetry(ex);
 				}
 	
 				return;
 			}
 			default: {
+				acknowledge();
 				HttpUnknowStatusException ex = new HttpUnknowStatusException(resultResponse);
 				this.failedWithResponse(ex);
 				return;
@@ -130,64 +244,224 @@ public class BatchPutHttpResponseCallback implements FutureCallback<HttpResponse
 
 	private String getNextAddress() {
 		HttpAddressManager httpAddressManager = hitsdbHttpClient.getHttpAddressManager();
-		String newAddress = httpAddressManager.getAddress();
+		// 有其它节点时换一个节点重试
+		String newAddress = httpAddressManager.getAddress(this.address);
 		return newAddress;
 	}
 	
-	private void errorRetry() {
-		String newAddress;
-		boolean acquire;
-		int retryTimes = this.batchPutRetryTimes;
-		while(true) {
-			newAddress = getNextAddress();
-			acquire = this.hitsdbHttpClient.getSemaphoreManager().acquire(newAddress);
-			retryTimes--;
-			if(acquire || retryTimes <= 0) {
-				break;
+	/**
+	 * 在I/O线程中执行，不能阻塞等待许可：
+	 * 下一个地址与当前地址相同时直接沿用当前请求的许可，否则只尝试获取一次新地址的许可，获取不到时仍在当前地址上重试。
+	 */
+	private String handOverPermit() {
+		String newAddress = getNextAddress();
+		if (newAddress.equals(address)) {
+			return address;
+		}
+
+		SemaphoreManager semaphoreManager = this.hitsdbHttpClient.getSemaphoreManager();
+		if (semaphoreManager.acquire(newAddress)) {
+			semaphoreManager.release(address);
+			return newAddress;
+		}
+		return address;
+	}
+
+	/**
+	 * 不再重试，归还许可并向逻辑层传递异常
+	 */
+	private void giveUp(Exception ex) {
+		this.hitsdbHttpClient.getSemaphoreManager().release(address);
+		acknowledge();
+		this.failedWithResponse(ex);
+	}
+
+	/**
+	 * 退避一段时间后重试。退避期间继续占用请求许可与通道许可，重试的批次与新批次一起受并发限制。
+	 * 
+	 * @param cause 放弃重试时传递给逻辑层的异常
+	 */
+	private void errorRetry(Exception cause) {
+		// 请求结束后请求体会被释放，重试需要再持有一次引用
+		SegmentedByteBuffer payload = retainBody();
+		if (!scheduleRetry(pointList, payload)) {
+			if (payload != null) {
+				payload.release();
 			}
+			LOGGER.warn("Give up retrying the batch of {} points, the retry deadline or budget is exhausted", pointList.size());
+			giveUp(cause);
 		}
-		
-		if(retryTimes == 0) {
+	}
+
+	/**
+	 * @param points 重试的数据点
+	 * @param payload 已经编码的数据点，为null时重试前序列化
+	 * @return 超过截止时间或重试预算用完时返回false
+	 */
+	private boolean scheduleRetry(final List<Point> points, final SegmentedByteBuffer payload) {
+		final int retryTimes = this.batchPutRetryTimes - 1;
+		int attempt = Math.max(1, config.getBatchPutRetryCount() - retryTimes);
+		return this.hitsdbHttpClient.getRetryScheduler().schedule(attempt, deadline, new Runnable() {
+			@Override
+			public void run() {
+				retry(points, retryTimes, payload);
+			}
+		});
+	}
+
+	/**
+	 * 部分数据点写入失败时，只重新发送暂时性错误的数据点，写入成功与数据点本身错误的数据点直接确认并回调。<br>
+	 * 重新发送的数据点沿用请求许可与通道许可，由重试的回调确认。
+	 * 
+	 * @return 未开启部分重试、响应中没有失败数据点或失败数据点无法对应到批次中的数据点时返回false，按整个批次处理
+	 */
+	private boolean partialRetry(ResultResponse resultResponse) {
+		PointErrorClassifier classifier = config.getBatchPutPartialRetryClassifier();
+		if (classifier == null || params == null || !params.containsKey("details")) {
+			return false;
+		}
+		DetailsResult detailsResult;
+		try {
+			detailsResult = JSON.parseObject(resultResponse.getContent(), DetailsResult.class);
+		} catch (RuntimeException e) {
+			return false;
+		}
+		if (detailsResult == null || detailsResult.getErrors() == null || detailsResult.getErrors().isEmpty()) {
+			return false;
+		}
+		PartialFailure partialFailure = PartialFailure.split(pointList, detailsResult.getErrors(), classifier);
+		if (partialFailure == null) {
+			return false;
+		}
+
+		// 服务端正常处理了请求
+		recordResponse(false);
+		recordBatch(true);
+
+		List<Point> transientPoints = partialFailure.getTransientPoints();
+		List<Point> failedPoints = partialFailure.getPermanentPoints();
+		List<ErrorPoint> errors = partialFailure.getPermanentErrors();
+		boolean resending = !transientPoints.isEmpty() && this.batchPutRetryTimes > 0 && scheduleRetry(transientPoints, null);
+		if (resending) {
+			LOGGER.warn("Resend {} of {} points with transient errors", transientPoints.size(), pointList.size());
+		} else {
+			failedPoints = new ArrayList<Point>(failedPoints);
+			failedPoints.addAll(transientPoints);
+			errors = new ArrayList<ErrorPoint>(errors);
+			errors.addAll(partialFailure.getTransientErrors());
 			this.hitsdbHttpClient.getSemaphoreManager().release(address);
-			return ;
+			releaseLanePermit();
+		}
+
+		WriteAheadLog.acknowledge(partialFailure.getSucceeded());
+		WriteAheadLog.acknowledge(failedPoints);
+		respondPartially(resultResponse, partialFailure.getSucceeded(), failedPoints, errors);
+		return true;
+	}
+
+	/**
+	 * 回调这一轮已经有结果的数据点，重新发送的数据点由重试的回调处理
+	 */
+	private void respondPartially(ResultResponse resultResponse, List<Point> succeeded, List<Point> failedPoints, List<ErrorPoint> errors) {
+		List<Point> points = new ArrayList<Point>(succeeded.size() + failedPoints.size());
+		points.addAll(succeeded);
+		points.addAll(failedPoints);
+		if (points.isEmpty()) {
+			return;
+		}
+
+		if (batchPutCallback == null) {
+			if (!failedPoints.isEmpty()) {
+				LOGGER.error("No callback logic exception. address:{}, failed points:{}", this.address, JSON.toJSONString(errors));
+			}
+		} else if (batchPutCallback instanceof BatchPutDetailsCallback) {
+			((BatchPutDetailsCallback) batchPutCallback).response(this.address, points, new DetailsResult(succeeded.size(), errors.size(), errors));
+		} else if (batchPutCallback instanceof BatchPutSummaryCallback) {
+			((BatchPutSummaryCallback) batchPutCallback).response(this.address, points, new SummaryResult(succeeded.size(), errors.size()));
+		} else {
+			if (!failedPoints.isEmpty()) {
+				HttpServerNotSupportException ex = new HttpServerNotSupportException(resultResponse.getStatusCode(), JSON.toJSONString(errors));
+				batchPutCallback.failed(this.address, failedPoints, ex);
+			}
+			if (!succeeded.isEmpty() && batchPutCallback instanceof BatchPutCallback) {
+				((BatchPutCallback) batchPutCallback).response(this.address, succeeded, new Result());
+			}
+		}
+	}
+
+	private SegmentedByteBuffer retainBody() {
+		if (body == null) {
+			return null;
 		}
+		try {
+			return body.retain();
+		} catch (IllegalStateException e) {
+			// 请求未能发出，请求体已经被释放
+			return null;
+		}
+	}
+
+	/**
+	 * 在定时器线程中执行，发送已经编码的请求体，不重新序列化
+	 */
+	private void retry(List<Point> points, int retryTimes, SegmentedByteBuffer payload) {
+		String newAddress = handOverPermit();
 		
 		// retry!
 		LOGGER.warn("retry put data!");
 		HttpResponseCallbackFactory httpResponseCallbackFactory = this.hitsdbHttpClient.getHttpResponseCallbackFactory();
 		
 		FutureCallback<HttpResponse> retryCallback;
+		// 重试沿用同一个通道许可
 		if (batchPutCallback != null) {
-			retryCallback = httpResponseCallbackFactory.createBatchPutDataCallback(newAddress,this.batchPutCallback,this.pointList, this.config, retryTimes);
+			retryCallback = httpResponseCallbackFactory.createBatchPutDataCallback(newAddress,this.batchPutCallback,points, this.config, retryTimes, null, lanePermit, payload, params, deadline);
 		} else {
-			retryCallback = httpResponseCallbackFactory.createNoLogicBatchPutHttpFutureCallback(newAddress,this.pointList,this.config, retryTimes);
+			retryCallback = httpResponseCallbackFactory.createNoLogicBatchPutHttpFutureCallback(newAddress,points,this.config, retryTimes, null, lanePermit, payload, params, deadline);
 		}
 
-		String jsonString = JSON.toJSONString(pointList);
-		this.hitsdbHttpClient.post(HttpAPI.PUT, jsonString, retryCallback);
+		try {
+			if (payload != null) {
+				this.hitsdbHttpClient.postToAddress(newAddress, HttpAPI.PUT, payload, params, retryCallback);
+			} else {
+				String jsonString = PointJSONSerializer.toJSONString(points);
+				this.hitsdbHttpClient.postToAddress(newAddress, HttpAPI.PUT, jsonString, params, retryCallback);
+			}
+		} catch (RuntimeException ex) {
+			this.hitsdbHttpClient.getSemaphoreManager().release(newAddress);
+			WriteAheadLog.acknowledge(points);
+			releaseLanePermit();
+			if (batchPutCallback == null) {
+				LOGGER.error("No callback logic exception. address:" + newAddress, ex);
+			} else {
+				batchPutCallback.failed(newAddress, points, ex);
+			}
+		}
 	}
 
 	@Override
 	public void failed(Exception ex) {
+		recordBatch(false);
+		if (ex instanceof SocketTimeoutException || ex instanceof java.net.ConnectException) {
+			recordResponse(true);
+		}
 		// 异常重试
 		if (ex instanceof SocketTimeoutException) {
-			if (this.batchPutRetryTimes == 0) {
-				ex = new HttpClientSocketTimeoutException(ex);
-			} else {
-				errorRetry();
+			ex = new HttpClientSocketTimeoutException(ex);
+			if (this.batchPutRetryTimes > 0) {
+				errorRetry(ex);
 				return;
 			}
 		} else if (ex instanceof java.net.ConnectException) {
-			if (this.batchPutRetryTimes == 0) {
-				ex = new HttpClientConnectionRefusedException(this.address,ex);
-			} else {
-				errorRetry();
+			ex = new HttpClientConnectionRefusedException(this.address,ex);
+			if (this.batchPutRetryTimes > 0) {
+				errorRetry(ex);
 				return;
 			}
 		}
 		
 		// 重试后释放semaphore许可
 		this.hitsdbHttpClient.getSemaphoreManager().release(address);
+		acknowledge();
 
 		// 处理完毕，向逻辑层传递异常并处理。
 		if (batchPutCallback == null) {
@@ -202,6 +476,7 @@ public class BatchPutHttpResponseCallback implements FutureCallback<HttpResponse
 	@Override
 	public void cancelled() {
 		this.hitsdbHttpClient.getSemaphoreManager().release(this.address);
+		releaseLanePermit();
 		LOGGER.info("the HttpAsyncClient has been cancelled");
 	}
 
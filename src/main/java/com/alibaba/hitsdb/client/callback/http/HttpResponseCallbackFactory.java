@@ -1,6 +1,7 @@
 package com.alibaba.hitsdb.client.callback.http;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -8,9 +9,12 @@ import org.apache.http.HttpResponse;
 import org.apache.http.concurrent.FutureCallback;
 
 import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
 import com.alibaba.hitsdb.client.callback.AbstractBatchPutCallback;
 import com.alibaba.hitsdb.client.callback.QueryCallback;
+import com.alibaba.hitsdb.client.consumer.AdaptiveBatchController;
 import com.alibaba.hitsdb.client.http.HttpClient;
+import com.alibaba.hitsdb.client.lane.LanePermit;
 import com.alibaba.hitsdb.client.value.request.Point;
 import com.alibaba.hitsdb.client.value.request.Query;
 
@@ -30,6 +34,19 @@ public class HttpResponseCallbackFactory {
         return new BaseHttpFutrueCallback(unCompletedTaskNum, futureCallback);
     }
 
+    /**
+     * 包装回调，请求结束后释放请求体所在的缓冲区
+     *
+     * @param futureCallback 可以为null
+     * @param content 请求体
+     * @return
+     */
+    public FutureCallback<HttpResponse> wrapUpBaseHttpFutureCallback(final FutureCallback<HttpResponse> futureCallback,
+            final SegmentedByteBuffer content) {
+        Objects.requireNonNull(content);
+        return new BaseHttpFutrueCallback(unCompletedTaskNum, futureCallback, content);
+    }
+
     public FutureCallback<HttpResponse> createQueryCallback(final String address, final QueryCallback callback, final Query query,final boolean queryOne) {
         FutureCallback<HttpResponse> httpCallback = new QueryHttpResponseCallback(address, query, callback,this.httpCompress,queryOne);
         return httpCallback;
@@ -41,6 +58,59 @@ public class HttpResponseCallbackFactory {
             final List<Point> pointList,
             final HiTSDBConfig config,
             final int batchPutRetryCount
+    ) {
+        return createBatchPutDataCallback(address, batchPutCallback, pointList, config, batchPutRetryCount, null);
+    }
+
+    /**
+     * @param batchController 自适应批量控制器，请求结束后记录耗时与结果，可以为null
+     */
+    public FutureCallback<HttpResponse> createBatchPutDataCallback(
+    			final String address,
+            final AbstractBatchPutCallback<?> batchPutCallback,
+            final List<Point> pointList,
+            final HiTSDBConfig config,
+            final int batchPutRetryCount,
+            final AdaptiveBatchController batchController
+    ) {
+        return createBatchPutDataCallback(address, batchPutCallback, pointList, config, batchPutRetryCount, batchController, null);
+    }
+
+    /**
+     * @param batchController 自适应批量控制器，请求结束后记录耗时与结果，可以为null
+     * @param lanePermit 批次占用的通道许可，批次处理结束后归还，可以为null
+     */
+    public FutureCallback<HttpResponse> createBatchPutDataCallback(
+    			final String address,
+            final AbstractBatchPutCallback<?> batchPutCallback,
+            final List<Point> pointList,
+            final HiTSDBConfig config,
+            final int batchPutRetryCount,
+            final AdaptiveBatchController batchController,
+            final LanePermit lanePermit
+    ) {
+        return createBatchPutDataCallback(address, batchPutCallback, pointList, config, batchPutRetryCount, batchController,
+                lanePermit, null, null, hitsdbHttpclient.getRetryScheduler().deadline(System.nanoTime()));
+    }
+
+    /**
+     * @param batchController 自适应批量控制器，请求结束后记录耗时与结果，可以为null
+     * @param lanePermit 批次占用的通道许可，批次处理结束后归还，可以为null
+     * @param body 已经编码的请求体，重试时重新发送，可以为null
+     * @param params 请求参数，重试时沿用，可以为null
+     * @param deadline 批次的重试截止时间
+     */
+    public FutureCallback<HttpResponse> createBatchPutDataCallback(
+    			final String address,
+            final AbstractBatchPutCallback<?> batchPutCallback,
+            final List<Point> pointList,
+            final HiTSDBConfig config,
+            final int batchPutRetryCount,
+            final AdaptiveBatchController batchController,
+            final LanePermit lanePermit,
+            final SegmentedByteBuffer body,
+            final Map<String, String> params,
+            final long deadline
     ) {
         FutureCallback<HttpResponse> httpCallback = new BatchPutHttpResponseCallback (
 					address,
@@ -48,7 +118,12 @@ public class HttpResponseCallbackFactory {
 					batchPutCallback,
 					pointList,
 					config,
-					config.getBatchPutRetryCount()
+					batchPutRetryCount,
+					batchController,
+					lanePermit,
+					body,
+					params,
+					deadline
                 );
         return httpCallback;
     }
@@ -59,6 +134,56 @@ public class HttpResponseCallbackFactory {
             final List<Point> pointList,
             final HiTSDBConfig config,
             final int batchPutRetryTimes
+    ) {
+        return createNoLogicBatchPutHttpFutureCallback(address, pointList, config, batchPutRetryTimes, null);
+    }
+
+    /**
+     * @param batchController 自适应批量控制器，请求结束后记录耗时与结果，可以为null
+     */
+    public FutureCallback<HttpResponse> createNoLogicBatchPutHttpFutureCallback(
+    			final String address,
+            final List<Point> pointList,
+            final HiTSDBConfig config,
+            final int batchPutRetryTimes,
+            final AdaptiveBatchController batchController
+    ) {
+        return createNoLogicBatchPutHttpFutureCallback(address, pointList, config, batchPutRetryTimes, batchController, null);
+    }
+
+    /**
+     * @param batchController 自适应批量控制器，请求结束后记录耗时与结果，可以为null
+     * @param lanePermit 批次占用的通道许可，批次处理结束后归还，可以为null
+     */
+    public FutureCallback<HttpResponse> createNoLogicBatchPutHttpFutureCallback(
+    			final String address,
+            final List<Point> pointList,
+            final HiTSDBConfig config,
+            final int batchPutRetryTimes,
+            final AdaptiveBatchController batchController,
+            final LanePermit lanePermit
+    ) {
+        return createNoLogicBatchPutHttpFutureCallback(address, pointList, config, batchPutRetryTimes, batchController,
+                lanePermit, null, null, hitsdbHttpclient.getRetryScheduler().deadline(System.nanoTime()));
+    }
+
+    /**
+     * @param batchController 自适应批量控制器，请求结束后记录耗时与结果，可以为null
+     * @param lanePermit 批次占用的通道许可，批次处理结束后归还，可以为null
+     * @param body 已经编码的请求体，重试时重新发送，可以为null
+     * @param params 请求参数，重试时沿用，可以为null
+     * @param deadline 批次的重试截止时间
+     */
+    public FutureCallback<HttpResponse> createNoLogicBatchPutHttpFutureCallback(
+    			final String address,
+            final List<Point> pointList,
+            final HiTSDBConfig config,
+            final int batchPutRetryTimes,
+            final AdaptiveBatchController batchController,
+            final LanePermit lanePermit,
+            final SegmentedByteBuffer body,
+            final Map<String, String> params,
+            final long deadline
     ) {
         FutureCallback<HttpResponse> httpCallback = 
                 new BatchPutHttpResponseCallback (
@@ -67,7 +192,12 @@ public class HttpResponseCallbackFactory {
 					null,
 					pointList,
 					config,
-					batchPutRetryTimes
+					batchPutRetryTimes,
+					batchController,
+					lanePermit,
+					body,
+					params,
+					deadline
                 );
         return httpCallback;
     }
@@ -0,0 +1,79 @@
+package com.alibaba.hitsdb.client.compress;
+
+import java.util.zip.Deflater;
+
+/**
+ * 按线程缓存的Deflater。<br>
+ * 每个线程对每个压缩级别缓存一个Deflater(nowrap模式)及其输出暂存数组，避免每个请求都创建新的本地压缩器。
+ * 同一线程嵌套申请时，额外创建的Deflater在归还时直接销毁。
+ */
+public final class DeflaterPool {
+    private static final int LEVEL_COUNT = Deflater.BEST_COMPRESSION - Deflater.DEFAULT_COMPRESSION + 1;
+    private static final int SCRATCH_SIZE = 8 * 1024;
+
+    private static final ThreadLocal<PooledDeflater[]> CACHE = new ThreadLocal<PooledDeflater[]>() {
+        @Override
+        protected PooledDeflater[] initialValue() {
+            return new PooledDeflater[LEVEL_COUNT];
+        }
+    };
+
+    private DeflaterPool() {
+    }
+
+    /**
+     * 压缩器与其输出暂存数组
+     */
+    public static final class PooledDeflater {
+        private final Deflater deflater;
+        private final byte[] scratch;
+        private final int level;
+
+        private PooledDeflater(int level) {
+            this.deflater = new Deflater(level, true);
+            this.scratch = new byte[SCRATCH_SIZE];
+            this.level = level;
+        }
+
+        public Deflater getDeflater() {
+            return deflater;
+        }
+
+        public byte[] getScratch() {
+            return scratch;
+        }
+    }
+
+    public static void checkLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("The compress level must be between -1 and 9");
+        }
+    }
+
+    /**
+     * 申请当前线程缓存的压缩器，使用完毕后必须调用{@link #release(PooledDeflater)}归还
+     */
+    public static PooledDeflater acquire(int level) {
+        checkLevel(level);
+        PooledDeflater[] cache = CACHE.get();
+        int index = level - Deflater.DEFAULT_COMPRESSION;
+        PooledDeflater pooled = cache[index];
+        if (pooled != null) {
+            cache[index] = null;
+            return pooled;
+        }
+        return new PooledDeflater(level);
+    }
+
+    public static void release(PooledDeflater pooled) {
+        pooled.deflater.reset();
+        PooledDeflater[] cache = CACHE.get();
+        int index = pooled.level - Deflater.DEFAULT_COMPRESSION;
+        if (cache[index] == null) {
+            cache[index] = pooled;
+        } else {
+            pooled.deflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.alibaba.hitsdb.client.compress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.alibaba.hitsdb.client.buffer.ByteSegmentPool;
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
+
+/**
+ * 请求体输出流，边序列化边压缩。<br>
+ * 写入的数据先原样缓存，累计超过最小压缩长度后，将已缓存的数据送入GZIP压缩器，之后的写入直接压缩，
+ * 不会等到完整的请求体生成之后再压缩。不足最小压缩长度的请求体不压缩。
+ */
+public class PayloadOutputStream extends OutputStream {
+    public static final String GZIP = "gzip";
+
+    private final ByteSegmentPool pool;
+    private final boolean compress;
+    private final int compressLevel;
+    private final int compressMinSize;
+
+    /**
+     * 未压缩的数据
+     */
+    private SegmentedByteBuffer raw;
+
+    /**
+     * 压缩后的数据，达到最小压缩长度之前为null
+     */
+    private SegmentedByteBuffer compressed;
+    private PooledGZIPOutputStream gzip;
+
+    public PayloadOutputStream(ByteSegmentPool pool, boolean compress, int compressLevel, int compressMinSize) {
+        this.pool = pool;
+        this.compress = compress;
+        this.compressLevel = compressLevel;
+        this.compressMinSize = compressMinSize;
+        this.raw = pool.newBuffer();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (gzip != null) {
+            gzip.write(b);
+            return;
+        }
+        raw.write(b);
+        checkCompress();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (gzip != null) {
+            gzip.write(b, off, len);
+            return;
+        }
+        raw.write(b, off, len);
+        checkCompress();
+    }
+
+    private void checkCompress() throws IOException {
+        if (compress && raw.size() >= compressMinSize && raw.size() > 0) {
+            startCompress();
+        }
+    }
+
+    private void startCompress() throws IOException {
+        compressed = pool.newBuffer();
+        gzip = new PooledGZIPOutputStream(compressed, compressLevel);
+        raw.writeTo(gzip);
+        raw.release();
+        raw = null;
+    }
+
+    /**
+     * 结束写入，返回最终发送的缓冲区，压缩时缓冲区带有gzip编码标记。<br>
+     * 缓冲区的引用转移给调用方。
+     */
+    public SegmentedByteBuffer finish() throws IOException {
+        if (gzip == null) {
+            SegmentedByteBuffer result = raw;
+            raw = null;
+            return result;
+        }
+
+        try {
+            gzip.finish();
+        } catch (IOException e) {
+            abort();
+            throw e;
+        }
+        gzip = null;
+        SegmentedByteBuffer result = compressed;
+        compressed = null;
+        result.setContentEncoding(GZIP);
+        return result;
+    }
+
+    /**
+     * 放弃写入，释放已申请的缓冲区与压缩器
+     */
+    public void abort() {
+        if (gzip != null) {
+            gzip.abort();
+            gzip = null;
+        }
+        if (compressed != null) {
+            compressed.release();
+            compressed = null;
+        }
+        if (raw != null) {
+            raw.release();
+            raw = null;
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
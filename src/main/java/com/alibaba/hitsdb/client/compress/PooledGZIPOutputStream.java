@@ -0,0 +1,107 @@
+package com.alibaba.hitsdb.client.compress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.alibaba.hitsdb.client.compress.DeflaterPool.PooledDeflater;
+
+/**
+ * 使用线程缓存Deflater的GZIP输出流，输出格式与{@link java.util.zip.GZIPOutputStream}相同。<br>
+ * 必须在申请压缩器的线程内完成写入并调用{@link #finish()}，finish之后压缩器归还给当前线程。
+ */
+public class PooledGZIPOutputStream extends OutputStream {
+    private static final byte[] HEADER = { (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private final OutputStream out;
+    private final CRC32 crc = new CRC32();
+    private PooledDeflater pooled;
+
+    public PooledGZIPOutputStream(OutputStream out, int level) throws IOException {
+        this.out = out;
+        this.pooled = DeflaterPool.acquire(level);
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (pooled == null) {
+            throw new IOException("The stream has been finished");
+        }
+        if (len == 0) {
+            return;
+        }
+
+        Deflater deflater = pooled.getDeflater();
+        crc.update(b, off, len);
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate(deflater);
+        }
+    }
+
+    private void deflate(Deflater deflater) throws IOException {
+        byte[] scratch = pooled.getScratch();
+        int n = deflater.deflate(scratch, 0, scratch.length);
+        if (n > 0) {
+            out.write(scratch, 0, n);
+        }
+    }
+
+    /**
+     * 写入剩余的压缩数据与GZIP尾部，并归还压缩器，不会关闭下层输出流
+     */
+    public void finish() throws IOException {
+        if (pooled == null) {
+            return;
+        }
+
+        try {
+            Deflater deflater = pooled.getDeflater();
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(deflater);
+            }
+
+            writeInt((int) crc.getValue());
+            writeInt((int) deflater.getBytesRead());
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * 放弃压缩并归还压缩器
+     */
+    public void abort() {
+        if (pooled != null) {
+            release();
+        }
+    }
+
+    private void release() {
+        PooledDeflater p = this.pooled;
+        this.pooled = null;
+        DeflaterPool.release(p);
+    }
+
+    private void writeInt(int i) throws IOException {
+        out.write(i & 0xff);
+        out.write((i >> 8) & 0xff);
+        out.write((i >> 16) & 0xff);
+        out.write((i >> 24) & 0xff);
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+}
@@ -0,0 +1,250 @@
+package com.alibaba.hitsdb.client.consumer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 自适应批量控制器。<br>
+ * 根据批量写入请求的响应耗时与确认点数，以爬山法在配置的上下限之间调整每批次的点数与提交间隔，
+ * 使每秒被服务端确认的点数最大。
+ * <ul>
+ * <li>每个统计窗口结束时比较本窗口与上一窗口的吞吐量，吞吐量提高则沿当前方向继续调整，明显下降则反向调整。</li>
+ * <li>窗口内出现失败时，立即减半批次点数。</li>
+ * <li>批次平均填充率较低时，批次点数不是瓶颈，保持不变。</li>
+ * <li>提交间隔与批次点数在各自区间内同比例变化。</li>
+ * </ul>
+ * 多个消费者线程与IO线程共享同一个控制器，线程安全。
+ */
+public class AdaptiveBatchController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveBatchController.class);
+
+    /**
+     * 统计窗口的最短时长
+     */
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 统计窗口内的最少批次数
+     */
+    private static final int WINDOW_MIN_BATCHES = 8;
+
+    private static final double GROW_FACTOR = 1.25;
+    private static final double SHRINK_FACTOR = 0.8;
+    private static final double BACKOFF_FACTOR = 0.5;
+
+    /**
+     * 吞吐量波动在该比例以内时视为没有变化
+     */
+    private static final double TOLERANCE = 0.05;
+
+    /**
+     * 批次平均填充率低于该值时不调整
+     */
+    private static final double MIN_FILL_RATIO = 0.5;
+
+    private final long windowNanos;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int minBatchPutTimeLimit;
+    private final int maxBatchPutTimeLimit;
+
+    private volatile int batchSize;
+    private volatile int batchPutTimeLimit;
+
+    // 以下变量在synchronized中访问
+    private long windowStart;
+    private long windowPoints;
+    private int windowBatches;
+    private int windowFailures;
+    private long windowLatencyNanos;
+    private long windowBatchSizeSum;
+    private double lastThroughput;
+    private int direction = 1;
+
+    private double throughput;
+    private double avgLatencyMillis;
+    private String lastDecision = "none";
+    private long windowCount;
+    private long growCount;
+    private long shrinkCount;
+    private long backoffCount;
+    private long holdCount;
+    private long ackedPoints;
+    private long failedBatches;
+
+    public AdaptiveBatchController(int minBatchSize, int maxBatchSize, int minBatchPutTimeLimit, int maxBatchPutTimeLimit,
+            int initialBatchSize, int initialBatchPutTimeLimit) {
+        this(minBatchSize, maxBatchSize, minBatchPutTimeLimit, maxBatchPutTimeLimit, initialBatchSize,
+                initialBatchPutTimeLimit, WINDOW_NANOS, System.nanoTime());
+    }
+
+    AdaptiveBatchController(int minBatchSize, int maxBatchSize, int minBatchPutTimeLimit, int maxBatchPutTimeLimit,
+            int initialBatchSize, int initialBatchPutTimeLimit, long windowNanos, long startTime) {
+        if (minBatchSize <= 0 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("Illegal adaptive batch size bounds: " + minBatchSize + "~" + maxBatchSize);
+        }
+        if (minBatchPutTimeLimit <= 0 || maxBatchPutTimeLimit < minBatchPutTimeLimit) {
+            throw new IllegalArgumentException(
+                    "Illegal adaptive batch time limit bounds: " + minBatchPutTimeLimit + "~" + maxBatchPutTimeLimit);
+        }
+        this.windowNanos = windowNanos;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.minBatchPutTimeLimit = minBatchPutTimeLimit;
+        this.maxBatchPutTimeLimit = maxBatchPutTimeLimit;
+        this.batchSize = clamp(initialBatchSize, minBatchSize, maxBatchSize);
+        this.batchPutTimeLimit = clamp(initialBatchPutTimeLimit, minBatchPutTimeLimit, maxBatchPutTimeLimit);
+        this.windowStart = startTime;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * 当前每批次点数
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * 当前提交间隔，单位：毫秒
+     */
+    public int getBatchPutTimeLimit() {
+        return batchPutTimeLimit;
+    }
+
+    /**
+     * 批次写入成功
+     *
+     * @param points 批次点数
+     * @param latencyNanos 请求耗时
+     */
+    public void onSuccess(int points, long latencyNanos) {
+        onSuccess(points, latencyNanos, System.nanoTime());
+    }
+
+    synchronized void onSuccess(int points, long latencyNanos, long now) {
+        windowPoints += points;
+        ackedPoints += points;
+        record(points, latencyNanos);
+        maybeAdjust(now);
+    }
+
+    /**
+     * 批次写入失败
+     *
+     * @param points 批次点数
+     * @param latencyNanos 请求耗时
+     */
+    public void onFailure(int points, long latencyNanos) {
+        onFailure(points, latencyNanos, System.nanoTime());
+    }
+
+    synchronized void onFailure(int points, long latencyNanos, long now) {
+        windowFailures++;
+        failedBatches++;
+        record(points, latencyNanos);
+        maybeAdjust(now);
+    }
+
+    private void record(int points, long latencyNanos) {
+        windowBatches++;
+        windowLatencyNanos += latencyNanos;
+        windowBatchSizeSum += points;
+    }
+
+    private void maybeAdjust(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed < windowNanos || windowBatches < WINDOW_MIN_BATCHES) {
+            return;
+        }
+
+        double currentThroughput = windowPoints * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        double fillRatio = windowBatchSizeSum / ((double) windowBatches * batchSize);
+        this.throughput = currentThroughput;
+        this.avgLatencyMillis = windowLatencyNanos / (double) windowBatches / TimeUnit.MILLISECONDS.toNanos(1);
+        this.windowCount++;
+
+        int newBatchSize = batchSize;
+        if (windowFailures > 0) {
+            // 出现失败，快速退避
+            newBatchSize = (int) (batchSize * BACKOFF_FACTOR);
+            direction = -1;
+            lastThroughput = 0;
+            backoffCount++;
+            lastDecision = "backoff";
+        } else if (fillRatio < MIN_FILL_RATIO) {
+            // 写入量不足以填满批次，吞吐量由写入量决定，与批次点数无关
+            lastThroughput = currentThroughput;
+            holdCount++;
+            lastDecision = "hold";
+        } else {
+            if (lastThroughput > 0 && currentThroughput < lastThroughput * (1 - TOLERANCE)) {
+                direction = -direction;
+            }
+            newBatchSize = (int) Math.round(batchSize * (direction > 0 ? GROW_FACTOR : SHRINK_FACTOR));
+            lastThroughput = currentThroughput;
+            if (direction > 0) {
+                growCount++;
+                lastDecision = "grow";
+            } else {
+                shrinkCount++;
+                lastDecision = "shrink";
+            }
+        }
+
+        newBatchSize = clamp(newBatchSize, minBatchSize, maxBatchSize);
+        if (newBatchSize == minBatchSize || newBatchSize == maxBatchSize) {
+            // 到达边界后下一次从反方向试探
+            direction = newBatchSize == minBatchSize ? 1 : -1;
+        }
+
+        if (newBatchSize != batchSize) {
+            this.batchSize = newBatchSize;
+            this.batchPutTimeLimit = timeLimitFor(newBatchSize);
+            LOGGER.debug("adaptive batch {}: batchSize={}, batchPutTimeLimit={}, throughput={}, latency={}ms",
+                    lastDecision, newBatchSize, batchPutTimeLimit, (long) currentThroughput, avgLatencyMillis);
+        }
+
+        windowStart = now;
+        windowPoints = 0;
+        windowBatches = 0;
+        windowFailures = 0;
+        windowLatencyNanos = 0;
+        windowBatchSizeSum = 0;
+    }
+
+    private int timeLimitFor(int size) {
+        if (maxBatchSize == minBatchSize) {
+            return batchPutTimeLimit;
+        }
+        double ratio = (size - minBatchSize) / (double) (maxBatchSize - minBatchSize);
+        return clamp((int) Math.round(minBatchPutTimeLimit + ratio * (maxBatchPutTimeLimit - minBatchPutTimeLimit)),
+                minBatchPutTimeLimit, maxBatchPutTimeLimit);
+    }
+
+    /**
+     * 当前的调整状态与统计数据
+     */
+    public synchronized AdaptiveBatchStatistics getStatistics() {
+        AdaptiveBatchStatistics statistics = new AdaptiveBatchStatistics();
+        statistics.setBatchSize(batchSize);
+        statistics.setBatchPutTimeLimit(batchPutTimeLimit);
+        statistics.setThroughput(throughput);
+        statistics.setAvgLatencyMillis(avgLatencyMillis);
+        statistics.setLastDecision(lastDecision);
+        statistics.setWindowCount(windowCount);
+        statistics.setGrowCount(growCount);
+        statistics.setShrinkCount(shrinkCount);
+        statistics.setBackoffCount(backoffCount);
+        statistics.setHoldCount(holdCount);
+        statistics.setAckedPoints(ackedPoints);
+        statistics.setFailedBatches(failedBatches);
+        return statistics;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.alibaba.hitsdb.client.consumer;
+
+import com.alibaba.hitsdb.client.value.JSONValue;
+
+/**
+ * 自适应批量控制器的统计快照
+ */
+public class AdaptiveBatchStatistics extends JSONValue {
+    /**
+     * 当前每批次点数
+     */
+    private int batchSize;
+
+    /**
+     * 当前提交间隔，单位：毫秒
+     */
+    private int batchPutTimeLimit;
+
+    /**
+     * 最近一个统计窗口内每秒确认的点数
+     */
+    private double throughput;
+
+    /**
+     * 最近一个统计窗口内请求的平均耗时，单位：毫秒
+     */
+    private double avgLatencyMillis;
+
+    /**
+     * 最近一次决策：grow、shrink、backoff、hold
+     */
+    private String lastDecision;
+
+    private long windowCount;
+    private long growCount;
+    private long shrinkCount;
+    private long backoffCount;
+    private long holdCount;
+    private long ackedPoints;
+    private long failedBatches;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchPutTimeLimit() {
+        return batchPutTimeLimit;
+    }
+
+    public void setBatchPutTimeLimit(int batchPutTimeLimit) {
+        this.batchPutTimeLimit = batchPutTimeLimit;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public void setThroughput(double throughput) {
+        this.throughput = throughput;
+    }
+
+    public double getAvgLatencyMillis() {
+        return avgLatencyMillis;
+    }
+
+    public void setAvgLatencyMillis(double avgLatencyMillis) {
+        this.avgLatencyMillis = avgLatencyMillis;
+    }
+
+    public String getLastDecision() {
+        return lastDecision;
+    }
+
+    public void setLastDecision(String lastDecision) {
+        this.lastDecision = lastDecision;
+    }
+
+    public long getWindowCount() {
+        return windowCount;
+    }
+
+    public void setWindowCount(long windowCount) {
+        this.windowCount = windowCount;
+    }
+
+    public long getGrowCount() {
+        return growCount;
+    }
+
+    public void setGrowCount(long growCount) {
+        this.growCount = growCount;
+    }
+
+    public long getShrinkCount() {
+        return shrinkCount;
+    }
+
+    public void setShrinkCount(long shrinkCount) {
+        this.shrinkCount = shrinkCount;
+    }
+
+    public long getBackoffCount() {
+        return backoffCount;
+    }
+
+    public void setBackoffCount(long backoffCount) {
+        this.backoffCount = backoffCount;
+    }
+
+    public long getHoldCount() {
+        return holdCount;
+    }
+
+    public void setHoldCount(long holdCount) {
+        this.holdCount = holdCount;
+    }
+
+    public long getAckedPoints() {
+        return ackedPoints;
+    }
+
+    public void setAckedPoints(long ackedPoints) {
+        this.ackedPoints = ackedPoints;
+    }
+
+    public long getFailedBatches() {
+        return failedBatches;
+    }
+
+    public void setFailedBatches(long failedBatches) {
+        this.failedBatches = failedBatches;
+    }
+
+}
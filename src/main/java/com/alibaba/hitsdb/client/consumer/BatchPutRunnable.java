@@ -1,18 +1,22 @@
 package com.alibaba.hitsdb.client.consumer;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.concurrent.FutureCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
 import com.alibaba.hitsdb.client.callback.AbstractBatchPutCallback;
 import com.alibaba.hitsdb.client.callback.BatchPutCallback;
 import com.alibaba.hitsdb.client.callback.BatchPutDetailsCallback;
@@ -22,12 +26,25 @@ import com.alibaba.hitsdb.client.http.HttpAPI;
 import com.alibaba.hitsdb.client.http.HttpAddressManager;
 import com.alibaba.hitsdb.client.http.HttpClient;
 import com.alibaba.hitsdb.client.http.semaphore.SemaphoreManager;
+import com.alibaba.hitsdb.client.lane.LanePermit;
+import com.alibaba.hitsdb.client.lane.LaneScheduler;
+import com.alibaba.hitsdb.client.lane.PutLane;
 import com.alibaba.hitsdb.client.queue.DataQueue;
+import com.alibaba.hitsdb.client.retry.RetryScheduler;
+import com.alibaba.hitsdb.client.serialize.PointBatchEncoder;
+import com.alibaba.hitsdb.client.serialize.PointBatchEncoder.EncodedBatch;
+import com.alibaba.hitsdb.client.transport.PutTransport;
 import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.wal.WriteAheadLog;
 
 public class BatchPutRunnable implements Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(BatchPutRunnable.class);
 
+    /**
+     * 在一个地址上等待请求许可的最长时间，超时后换下一个地址，单位：毫秒
+     */
+    private static final long ACQUIRE_SLICE_MILLIS = 100;
+
     /**
      * 缓冲队列
      */
@@ -69,8 +86,49 @@ public class BatchPutRunnable implements Runnable {
     private final SemaphoreManager semaphoreManager;
     		
 	private final HttpAddressManager httpAddressManager;
+
+    /**
+     * 自适应批量控制器，未开启时为null
+     */
+    private final AdaptiveBatchController batchController;
+
+    /**
+     * 批次内合并丢弃的点数，未开启合并时为null
+     */
+    private final AtomicLong coalescedPoints;
+
+    /**
+     * 所属的优先级通道下标，默认通道为0
+     */
+    private final int laneIndex;
+
+    /**
+     * 优先级通道之间的许可调度，未开启时为null
+     */
+    private final LaneScheduler laneScheduler;
+
+    /**
+     * 批量写入的传输，为null时通过HTTP JSON写入
+     */
+    private final PutTransport putTransport;
 	
     public BatchPutRunnable(DataQueue dataQueue, HttpClient httpclient, HiTSDBConfig config,CountDownLatch countDownLatch) {
+        this(dataQueue, httpclient, config, countDownLatch, null);
+    }
+
+    public BatchPutRunnable(DataQueue dataQueue, HttpClient httpclient, HiTSDBConfig config,CountDownLatch countDownLatch, AdaptiveBatchController batchController) {
+        this(dataQueue, httpclient, config, countDownLatch, batchController, null);
+    }
+
+    public BatchPutRunnable(DataQueue dataQueue, HttpClient httpclient, HiTSDBConfig config,CountDownLatch countDownLatch, AdaptiveBatchController batchController, AtomicLong coalescedPoints) {
+        this(dataQueue, httpclient, config, countDownLatch, batchController, coalescedPoints, null, 0, null);
+    }
+
+    /**
+     * @param lane 所属的优先级通道，为null时使用HiTSDBConfig中的批量参数
+     */
+    public BatchPutRunnable(DataQueue dataQueue, HttpClient httpclient, HiTSDBConfig config,CountDownLatch countDownLatch, AdaptiveBatchController batchController, AtomicLong coalescedPoints,
+            PutLane lane, int laneIndex, LaneScheduler laneScheduler) {
         this.dataQueue = dataQueue;
         this.hitsdbHttpClient = httpclient;
         this.semaphoreManager = hitsdbHttpClient.getSemaphoreManager();
@@ -81,15 +139,28 @@ public class BatchPutRunnable implements Runnable {
         this.config = config;
         this.countDownLatch = countDownLatch;
         this.httpResponseCallbackFactory = hitsdbHttpClient.getHttpResponseCallbackFactory();
+        this.batchController = batchController;
+        this.coalescedPoints = coalescedPoints;
+        this.laneIndex = laneIndex;
+        this.laneScheduler = laneScheduler;
+        this.putTransport = lane != null && lane.isHttpPut() ? null : hitsdbHttpClient.getPutTransport();
+        if (lane != null) {
+            if (lane.getBatchPutSize() > 0) {
+                this.batchSize = lane.getBatchPutSize();
+            }
+            if (lane.getBatchPutTimeLimit() > 0) {
+                this.batchPutTimeLimit = lane.getBatchPutTimeLimit();
+            }
+        }
     }
 
     @Override
     public void run() {
-        // 线程变量sb，paramsMap，waitPoint，readyClose 每个线程只有一组这样的变量。
-        StringBuilder sb = null;
-        if (HiTSDBConfig.Builder.ProducerThreadSerializeSwitch) {
-            sb = new StringBuilder(2048 * batchSize);
-        }
+        // 线程变量batchEncoder，paramsMap，waitPoint，readyClose 每个线程只有一组这样的变量。
+        PointBatchEncoder batchEncoder = new PointBatchEncoder(hitsdbHttpClient);
+        int maxPayloadBytes = config.getBatchPutMaxPayloadBytes();
+        PointCoalescer coalescer = coalescedPoints != null ? new PointCoalescer() : null;
+        List<Point> droppedPoints = new ArrayList<Point>();
 
         Map<String, String> paramsMap = new HashMap<String, String>();
         if (this.batchPutCallback != null) {
@@ -100,50 +171,50 @@ public class BatchPutRunnable implements Runnable {
                 paramsMap.put("details", "true");
             }
         }
+        if (config.isBatchPutPartialRetry()) {
+            // 部分重试需要失败数据点的明细，details的响应同样包含summary的统计
+            paramsMap.remove("summary");
+            paramsMap.put("details", "true");
+        }
         
         Point waitPoint = null;
         boolean readyClose = false;
-        int waitTimeLimit = batchPutTimeLimit/3;
-        long batchPutTimeLimitNano = batchPutTimeLimit*1000l;
         
         while (true) {
             if(readyClose && waitPoint == null) {
                 break ;
             }
             
-            long t0 = System.nanoTime();  // nano
+            if (batchController != null) {
+                // 每批次开始时读取控制器调整后的批次参数
+                batchSize = batchController.getBatchSize();
+                batchPutTimeLimit = batchController.getBatchPutTimeLimit();
+            }
+            long batchPutTimeLimitNano = TimeUnit.MILLISECONDS.toNanos(batchPutTimeLimit);
+            
             List<Point> pointList = new ArrayList<Point>(batchSize);
             if (waitPoint != null) {
                 pointList.add(waitPoint);
                 waitPoint = null;
             }
             
-            for (int i = pointList.size(); i < batchSize; i++) {
+            // 批量取出队列中已有的点，只有队列为空时才阻塞等待，直到凑满一批或达到提交间隔
+            long deadline = System.nanoTime() + batchPutTimeLimitNano;  // nano
+            while (!readyClose && pointList.size() < batchSize) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                
                 try {
-                    Point point = dataQueue.receive(waitTimeLimit);
-                    if (point != null) {
-                    		pointList.add(point);
-                    }
-                    
-                    long t1 = System.nanoTime();  // nano
-                    if(t1-t0 > batchPutTimeLimitNano) {
+                    long timeout = TimeUnit.NANOSECONDS.toMillis(remaining + 999999);
+                    int count = dataQueue.receiveBatch(pointList, batchSize - pointList.size(), timeout);
+                    if (count == 0) {
                         break;
                     }
-                		/*
-	                	Point point = dataQueue.receive(this.batchPutTimeLimit);
-	                if(point == null) {
-	                		break;
-	                }
-	                pointList.add(point);
-	                long t1 = System.nanoTime();  // nano
-	                if(t1-t0 > batchPutTimeLimitNano) {
-	                    break;
-	                }
-                		*/
                 } catch (InterruptedException e) {
                     readyClose = true;
                     LOGGER.info("The thread {} is interrupted", Thread.currentThread().getName());
-                    break;
                 }
             }
             
@@ -162,11 +233,41 @@ public class BatchPutRunnable implements Runnable {
                 continue;
             }
 
-            // 序列化
-            String strJson = serialize(pointList, sb);
+            // 合并同一时间线同一时间戳的重复点，被丢弃的点在预写日志中直接确认
+            if (coalescer != null) {
+                int dropped = coalescer.coalesce(pointList, droppedPoints);
+                if (dropped > 0) {
+                    coalescedPoints.addAndGet(dropped);
+                    WriteAheadLog.acknowledge(droppedPoints);
+                    droppedPoints.clear();
+                }
+            }
+
+            // 写入传输能表示的数据点通过传输发送，其余数据点仍通过HTTP JSON发送
+            if (putTransport != null) {
+                pointList = sendPutTransport(pointList);
+                if (pointList.isEmpty()) {
+                    continue;
+                }
+            }
+
+            // 序列化，请求体超过字节数上限时切分为多个请求
+            List<EncodedBatch> batches;
+            try {
+                batches = batchEncoder.encode(pointList, maxPayloadBytes);
+            } catch (IOException e) {
+                LOGGER.error("Failed to serialize the points", e);
+                WriteAheadLog.acknowledge(pointList);
+                if (this.batchPutCallback != null) {
+                    this.batchPutCallback.failed(null, pointList, e);
+                }
+                continue;
+            }
             
             // 发送
-            sendHttpRequest(pointList,strJson,paramsMap);
+            for (EncodedBatch batch : batches) {
+                sendHttpRequest(batch.getPoints(), batch.getBody(), paramsMap);
+            }
         }
         
         if (readyClose) {
@@ -175,24 +276,92 @@ public class BatchPutRunnable implements Runnable {
         }
     }
     
+    /**
+     * 阻塞获取请求许可。每个地址最多等待一个时间片，超时后换下一个地址继续等待。<br>
+     * 等待期间被中断(关闭客户端)时不放弃手中的批次，继续等待许可，返回前恢复中断状态。
+     */
     private String getAddressAndSemaphoreAcquire() {
-    		String address;
-		while(true) {
-			address = httpAddressManager.getAddress();
-	        boolean acquire = this.semaphoreManager.acquire(address);
-	    		if(!acquire) {
-	    			continue;
-	    		} else {
-	    			break;
-	    		}
-		}
-		
-		return address;
+        boolean interrupted = false;
+        try {
+            while (true) {
+                String address = httpAddressManager.getAddress();
+                try {
+                    if (this.semaphoreManager.acquire(address, ACQUIRE_SLICE_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return address;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
-    
-    
-    private void sendHttpRequest(List<Point> pointList,String strJson,Map<String,String> paramsMap) {
+
+    /**
+     * 按通道权重获取许可，批次处理结束后由回调归还
+     */
+    private LanePermit acquireLanePermit() {
+        if (laneScheduler == null) {
+            return null;
+        }
+        try {
+            return laneScheduler.acquire(laneIndex);
+        } catch (InterruptedException e) {
+            // 关闭过程中被中断，不再等待许可，保留中断状态以结束消费循环
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 通过写入传输发送批次，许可由传输的回调归还
+     *
+     * @return 传输不能表示、需要通过HTTP JSON发送的数据点
+     */
+    private List<Point> sendPutTransport(List<Point> pointList) {
+        List<Point> transportPoints = pointList;
+        List<Point> httpPoints = Collections.emptyList();
+        for (Point point : pointList) {
+            if (!putTransport.accepts(point)) {
+                transportPoints = new ArrayList<Point>(pointList.size());
+                httpPoints = new ArrayList<Point>();
+                for (Point each : pointList) {
+                    if (putTransport.accepts(each)) {
+                        transportPoints.add(each);
+                    } else {
+                        httpPoints.add(each);
+                    }
+                }
+                break;
+            }
+        }
+        if (transportPoints.isEmpty()) {
+            return httpPoints;
+        }
+
+        // 先取节点许可，避免持有通道许可等待已满的节点
+        String address = getAddressAndSemaphoreAcquire();
+        LanePermit lanePermit = acquireLanePermit();
+        PutTransportResponseCallback callback = new PutTransportResponseCallback(address, batchPutCallback, semaphoreManager,
+                httpAddressManager, batchController, lanePermit);
+        try {
+            putTransport.send(address, transportPoints, callback);
+        } catch (RuntimeException ex) {
+            callback.failed(transportPoints, ex);
+        }
+        return httpPoints;
+    }
+
+    private void sendHttpRequest(List<Point> pointList,SegmentedByteBuffer body,Map<String,String> paramsMap) {
+    	// 先取节点许可，避免持有通道许可等待已满的节点
     	String address = getAddressAndSemaphoreAcquire();
+    	LanePermit lanePermit = acquireLanePermit();
+    	RetryScheduler retryScheduler = hitsdbHttpClient.getRetryScheduler();
+    	retryScheduler.onRequest();
+    	long deadline = retryScheduler.deadline(System.nanoTime());
     	
     	// 发送
         if (this.batchPutCallback != null) {
@@ -202,13 +371,22 @@ public class BatchPutRunnable implements Runnable {
 						this.batchPutCallback,
 						pointList,
 						config,
-						config.getBatchPutRetryCount()
+						config.getBatchPutRetryCount(),
+						batchController,
+						lanePermit,
+						body,
+						paramsMap,
+						deadline
                 	);
             
             try {
-                hitsdbHttpClient.postToAddress(address,HttpAPI.PUT, strJson, paramsMap, postHttpCallback);
+                hitsdbHttpClient.postToAddress(address,HttpAPI.PUT, body, paramsMap, postHttpCallback);
             } catch (Exception ex) {
         			this.semaphoreManager.release(address);
+        			if (lanePermit != null) {
+        				lanePermit.release();
+        			}
+        			WriteAheadLog.acknowledge(pointList);
         			this.batchPutCallback.failed(address, pointList, ex);
             }
         } else {
@@ -217,32 +395,20 @@ public class BatchPutRunnable implements Runnable {
                     		address,
                     		pointList,
                     		config,
-                    		config.getBatchPutRetryCount()
+                    		config.getBatchPutRetryCount(),
+                    		batchController,
+                    		lanePermit,
+                    		body,
+                    		paramsMap,
+                    		deadline
                     	);
             try {
-                hitsdbHttpClient.postToAddress(address,HttpAPI.PUT, strJson, noLogicBatchPutHttpFutureCallback);
+                hitsdbHttpClient.postToAddress(address,HttpAPI.PUT, body, paramsMap, noLogicBatchPutHttpFutureCallback);
             } catch (Exception ex) {
             		this.semaphoreManager.release(address);
             		noLogicBatchPutHttpFutureCallback.failed(ex);
             }
         }
     }
-    
-    private String serialize(List<Point> pointList, StringBuilder sb) {
-        // 复用StringBuilder
-        if (HiTSDBConfig.Builder.ProducerThreadSerializeSwitch) {
-            sb.setLength(0);
-            sb.append('[');
-            for (Point point : pointList) {
-                sb.append(point.toJSON());
-                sb.append(",");
-            }
-            sb.setCharAt(sb.length() - 1, ']');
-            return sb.toString();
-        } else {
-            return JSON.toJSONString(pointList);
-        }
-
-    }
 
-}
\ No newline at end of file
+}
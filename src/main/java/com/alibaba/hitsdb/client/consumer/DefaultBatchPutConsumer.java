@@ -1,40 +1,149 @@
 package com.alibaba.hitsdb.client.consumer;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.hitsdb.client.HiTSDBConfig;
 import com.alibaba.hitsdb.client.http.HttpClient;
+import com.alibaba.hitsdb.client.lane.LaneScheduler;
+import com.alibaba.hitsdb.client.lane.PutLane;
 import com.alibaba.hitsdb.client.queue.DataQueue;
+import com.alibaba.hitsdb.client.queue.LanedDataQueue;
+import com.alibaba.hitsdb.client.queue.PartitionedDataQueue;
 
 public class DefaultBatchPutConsumer implements Consumer {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultBatchPutConsumer.class);
     private DataQueue dataQueue;
+    private List<DataQueue> consumeQueues;
+
+    /**
+     * 与consumeQueues一一对应的通道下标，未开启优先级通道时均为0
+     */
+    private List<Integer> consumeLanes;
+    private final List<PutLane> lanes;
+
+    /**
+     * 优先级通道之间的许可调度，未开启优先级通道或请求限制时为null
+     */
+    private final LaneScheduler laneScheduler;
     private ExecutorService threadPool;
     private int batchPutConsumerThreadCount;
     private HttpClient httpclient;
     private HiTSDBConfig config;
     private CountDownLatch countDownLatch;
+    private final AdaptiveBatchController batchController;
+
+    /**
+     * 批次内合并丢弃的点数，未开启合并时为null
+     */
+    private final AtomicLong coalescedPoints;
 
     public DefaultBatchPutConsumer(DataQueue buffer, HttpClient httpclient, HiTSDBConfig config) {
         this.dataQueue = buffer;
         this.httpclient = httpclient;
         this.config = config;
-        this.countDownLatch = new CountDownLatch(config.getBatchPutConsumerThreadCount());
-        this.batchPutConsumerThreadCount = config.getBatchPutConsumerThreadCount();
+        this.consumeQueues = new ArrayList<DataQueue>();
+        this.consumeLanes = new ArrayList<Integer>();
+        if (buffer instanceof LanedDataQueue) {
+            // 每个通道有各自的消费者线程
+            LanedDataQueue lanedQueue = (LanedDataQueue) buffer;
+            this.lanes = lanedQueue.getLanes();
+            List<DataQueue> laneQueues = lanedQueue.getQueues();
+            for (int i = 0; i < laneQueues.size(); i++) {
+                addConsumeQueues(laneQueues.get(i), lanes.get(i).getConsumerThreadCount(), i);
+            }
+            if (config.isActivateRequestLimitSwitch()) {
+                // 请求限制针对单个节点，通道之间分配的是所有节点的许可
+                int addressCount = httpclient.getHttpAddressManager().getAddresses().size();
+                this.laneScheduler = new LaneScheduler(config.getActivateRequestLimit() * addressCount, lanes);
+            } else {
+                this.laneScheduler = null;
+            }
+        } else {
+            this.lanes = null;
+            this.laneScheduler = null;
+            addConsumeQueues(buffer, config.getBatchPutConsumerThreadCount(), 0);
+        }
+        if (config.isAdaptiveBatchPut()) {
+            // 所有消费者线程共享一个控制器
+            this.batchController = new AdaptiveBatchController(config.getAdaptiveBatchPutMinSize(),
+                    config.getAdaptiveBatchPutMaxSize(), config.getAdaptiveBatchPutMinTimeLimit(),
+                    config.getAdaptiveBatchPutMaxTimeLimit(), config.getBatchPutSize(), config.getBatchPutTimeLimit());
+        } else {
+            this.batchController = null;
+        }
+        this.coalescedPoints = config.isBatchPutCoalesce() ? new AtomicLong() : null;
+        this.batchPutConsumerThreadCount = consumeQueues.size();
+        this.countDownLatch = new CountDownLatch(batchPutConsumerThreadCount);
         threadPool = Executors.newFixedThreadPool(batchPutConsumerThreadCount, new BatchPutThreadFactory());
     }
 
+    private void addConsumeQueues(DataQueue queue, int threadCount, int lane) {
+        if (queue instanceof PartitionedDataQueue) {
+            // 分区队列，每个分区一个消费者线程
+            for (DataQueue partition : ((PartitionedDataQueue) queue).getPartitions()) {
+                this.consumeQueues.add(partition);
+                this.consumeLanes.add(lane);
+            }
+        } else {
+            for (int i = 0; i < threadCount; i++) {
+                this.consumeQueues.add(queue);
+                this.consumeLanes.add(lane);
+            }
+        }
+    }
+
     public void start() {
-        for (int i = 0; i < batchPutConsumerThreadCount; i++) {
-            threadPool.submit(new BatchPutRunnable(this.dataQueue, this.httpclient, this.config,this.countDownLatch));
+        for (int i = 0; i < consumeQueues.size(); i++) {
+            int lane = consumeLanes.get(i);
+            if (lane == 0) {
+                // 自适应批量只作用于默认通道
+                threadPool.submit(new BatchPutRunnable(consumeQueues.get(i), this.httpclient, this.config, this.countDownLatch,
+                        this.batchController, this.coalescedPoints, null, 0, this.laneScheduler));
+            } else {
+                threadPool.submit(new BatchPutRunnable(consumeQueues.get(i), this.httpclient, this.config, this.countDownLatch,
+                        null, this.coalescedPoints, lanes.get(lane), lane, this.laneScheduler));
+            }
+        }
+    }
+
+    /**
+     * 优先级通道之间的许可调度，未开启优先级通道或请求限制时为null
+     */
+    public LaneScheduler getLaneScheduler() {
+        return laneScheduler;
+    }
+
+    /**
+     * 节点增减后按节点数调整通道之间的许可总数
+     */
+    public void onAddressesChanged(int addressCount) {
+        if (laneScheduler != null && addressCount > 0) {
+            laneScheduler.setTotalPermits(config.getActivateRequestLimit() * addressCount);
         }
     }
 
+    /**
+     * 自适应批量控制器，未开启自适应批量时为null
+     */
+    public AdaptiveBatchController getAdaptiveBatchController() {
+        return batchController;
+    }
+
+    /**
+     * 批次内合并丢弃的点数，未开启合并时返回-1
+     */
+    public long getCoalescedPoints() {
+        return coalescedPoints == null ? -1 : coalescedPoints.get();
+    }
+
     @Override
     public void stop() {
         this.stop(false);
@@ -63,6 +172,8 @@ public class DefaultBatchPutConsumer implements Consumer {
 
         if (dataQueue != null) {
             dataQueue = null;
+            consumeQueues = null;
+            consumeLanes = null;
         }
     }
 
@@ -0,0 +1,132 @@
+package com.alibaba.hitsdb.client.consumer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 批次内的重复点合并。<br>
+ * 同一时间线(metric、tags与granularity)同一时间戳的多个点只保留批次中最后一个值，保留的点位于第一次出现的位置。<br>
+ * 使用以64位哈希为键的开放寻址表，哈希命中后再比较时间线与时间戳。非线程安全，每个消费者线程一个实例，内部数组跨批次复用。
+ */
+public class PointCoalescer {
+    private static final int EMPTY = 0;
+
+    private long[] keys = new long[0];
+
+    /**
+     * 槽位中保存的点在结果中的下标加1，0表示空槽位
+     */
+    private int[] slots = new int[0];
+    private int mask;
+
+    /**
+     * 原地合并批次中的重复点
+     *
+     * @param points 合并后只包含保留的点
+     * @param dropped 被替换掉的点，可以为null
+     * @return 丢弃的点数
+     */
+    public int coalesce(List<Point> points, List<Point> dropped) {
+        int size = points.size();
+        if (size < 2) {
+            return 0;
+        }
+        ensureCapacity(size);
+
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Point point = points.get(i);
+            long key = hash(point);
+            int index = (int) key & mask;
+            while (true) {
+                int slot = slots[index];
+                if (slot == EMPTY) {
+                    keys[index] = key;
+                    slots[index] = count + 1;
+                    points.set(count++, point);
+                    break;
+                }
+                if (keys[index] == key) {
+                    Point existing = points.get(slot - 1);
+                    if (sameSeriesAndTime(existing, point)) {
+                        points.set(slot - 1, point);
+                        if (dropped != null) {
+                            dropped.add(existing);
+                        }
+                        break;
+                    }
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        int removed = size - count;
+        if (removed > 0) {
+            points.subList(count, size).clear();
+        }
+        return removed;
+    }
+
+    private void ensureCapacity(int size) {
+        // 负载因子不超过0.5
+        int capacity = Integer.highestOneBit(Math.max(size, 8) - 1) << 2;
+        if (slots.length < capacity) {
+            keys = new long[capacity];
+            slots = new int[capacity];
+        } else {
+            Arrays.fill(slots, EMPTY);
+        }
+        mask = slots.length - 1;
+    }
+
+    private static long time(Point point) {
+        if (point instanceof DoublePoint) {
+            DoublePoint doublePoint = (DoublePoint) point;
+            long time = doublePoint.getTime();
+            // 整秒的毫秒时间戳与秒时间戳是同一时刻，统一按秒比较
+            return time % 1000 == 0 ? doublePoint.getTimestamp().longValue() : time;
+        }
+        Integer timestamp = point.getTimestamp();
+        return timestamp == null ? Long.MIN_VALUE : timestamp.longValue();
+    }
+
+    static long hash(Point point) {
+        int seriesHash = 0;
+        String metric = point.getMetric();
+        if (metric != null) {
+            seriesHash = metric.hashCode();
+        }
+        Map<String, String> tags = point.getTags();
+        if (tags != null) {
+            seriesHash = seriesHash * 31 + tags.hashCode();
+        }
+        String granularity = point.getGranularity();
+        if (granularity != null) {
+            seriesHash = seriesHash * 31 + granularity.hashCode();
+        }
+        return mix((((long) seriesHash) << 32) ^ time(point));
+    }
+
+    /**
+     * MurmurHash3的64位finalizer
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static boolean sameSeriesAndTime(Point a, Point b) {
+        return time(a) == time(b) && Objects.equals(a.getMetric(), b.getMetric())
+                && Objects.equals(a.getGranularity(), b.getGranularity()) && Objects.equals(a.getTags(), b.getTags());
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.alibaba.hitsdb.client.consumer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.callback.AbstractBatchPutCallback;
+import com.alibaba.hitsdb.client.callback.BatchPutCallback;
+import com.alibaba.hitsdb.client.callback.BatchPutDetailsCallback;
+import com.alibaba.hitsdb.client.callback.BatchPutSummaryCallback;
+import com.alibaba.hitsdb.client.http.HttpAddressManager;
+import com.alibaba.hitsdb.client.http.semaphore.SemaphoreManager;
+import com.alibaba.hitsdb.client.lane.LanePermit;
+import com.alibaba.hitsdb.client.transport.PutTransportCallback;
+import com.alibaba.hitsdb.client.value.Result;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.response.batch.DetailsResult;
+import com.alibaba.hitsdb.client.value.response.batch.ErrorPoint;
+import com.alibaba.hitsdb.client.value.response.batch.SummaryResult;
+import com.alibaba.hitsdb.client.wal.WriteAheadLog;
+
+/**
+ * 通过{@link com.alibaba.hitsdb.client.transport.PutTransport}发送的批次的结果处理：
+ * 反馈耗时、归还请求许可与通道许可、在预写日志中确认，并回调逻辑层。<br>
+ * 传输没有服务端的逐点结果，成功时所有数据点都按写入成功回调；失败时不重试。
+ */
+class PutTransportResponseCallback implements PutTransportCallback {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PutTransportResponseCallback.class);
+
+    private final String address;
+    private final AbstractBatchPutCallback<?> batchPutCallback;
+    private final SemaphoreManager semaphoreManager;
+    private final HttpAddressManager httpAddressManager;
+    private final AdaptiveBatchController batchController;
+    private final LanePermit lanePermit;
+    private final long startTime;
+
+    PutTransportResponseCallback(String address, AbstractBatchPutCallback<?> batchPutCallback, SemaphoreManager semaphoreManager,
+            HttpAddressManager httpAddressManager, AdaptiveBatchController batchController, LanePermit lanePermit) {
+        this.address = address;
+        this.batchPutCallback = batchPutCallback;
+        this.semaphoreManager = semaphoreManager;
+        this.httpAddressManager = httpAddressManager;
+        this.batchController = batchController;
+        this.lanePermit = lanePermit;
+        this.startTime = System.nanoTime();
+        httpAddressManager.onRequest(address);
+    }
+
+    @Override
+    public void completed(List<Point> points) {
+        long latency = System.nanoTime() - startTime;
+        httpAddressManager.onResponse(address, latency, false);
+        semaphoreManager.onResponse(address, latency, false);
+        semaphoreManager.release(address);
+        if (batchController != null) {
+            batchController.onSuccess(points.size(), latency);
+        }
+        acknowledge(points);
+
+        if (batchPutCallback == null) {
+            return;
+        }
+        if (batchPutCallback instanceof BatchPutCallback) {
+            ((BatchPutCallback) batchPutCallback).response(address, points, new Result());
+        } else if (batchPutCallback instanceof BatchPutSummaryCallback) {
+            ((BatchPutSummaryCallback) batchPutCallback).response(address, points, new SummaryResult(points.size(), 0));
+        } else if (batchPutCallback instanceof BatchPutDetailsCallback) {
+            ((BatchPutDetailsCallback) batchPutCallback).response(address, points,
+                    new DetailsResult(points.size(), 0, new ArrayList<ErrorPoint>(0)));
+        }
+    }
+
+    @Override
+    public void failed(List<Point> points, Exception ex) {
+        long latency = System.nanoTime() - startTime;
+        httpAddressManager.onFailure(address, latency, ex);
+        semaphoreManager.onResponse(address, latency, true);
+        semaphoreManager.release(address);
+        if (batchController != null) {
+            batchController.onFailure(points.size(), latency);
+        }
+        acknowledge(points);
+
+        if (batchPutCallback == null) {
+            LOGGER.error("No callback logic exception. address:" + address, ex);
+        } else {
+            batchPutCallback.failed(address, points, ex);
+        }
+    }
+
+    private void acknowledge(List<Point> points) {
+        WriteAheadLog.acknowledge(points);
+        if (lanePermit != null) {
+            lanePermit.release();
+        }
+    }
+
+}
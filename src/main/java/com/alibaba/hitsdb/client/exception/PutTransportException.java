@@ -0,0 +1,10 @@
+package com.alibaba.hitsdb.client.exception;
+
+public class PutTransportException extends RuntimeException {
+    private static final long serialVersionUID = -6407583213745542021L;
+
+    public PutTransportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
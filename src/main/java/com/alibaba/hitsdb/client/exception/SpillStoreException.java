@@ -0,0 +1,10 @@
+package com.alibaba.hitsdb.client.exception;
+
+public class SpillStoreException extends RuntimeException {
+    private static final long serialVersionUID = 2876504189378165524L;
+
+    public SpillStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.alibaba.hitsdb.client.exception;
+
+public class WriteAheadLogException extends RuntimeException {
+    private static final long serialVersionUID = -3361872405961375038L;
+
+    public WriteAheadLogException(String message) {
+        super(message);
+    }
+
+    public WriteAheadLogException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.alibaba.hitsdb.client.http;
+
+import com.alibaba.hitsdb.client.value.JSONValue;
+
+/**
+ * 一个地址的请求统计快照
+ */
+public class AddressStatistics extends JSONValue {
+	/**
+	 * host:port
+	 */
+	private String address;
+
+	/**
+	 * 进行中的请求数
+	 */
+	private int outstanding;
+
+	/**
+	 * 请求耗时的peak EWMA，单位：毫秒
+	 */
+	private double rttMillis;
+
+	/**
+	 * 错误率的EWMA
+	 */
+	private double errorRate;
+
+	/**
+	 * 慢启动权重，取值0.1~1，1表示慢启动已经结束
+	 */
+	private double slowStartWeight;
+
+	private long requestCount;
+	private long errorCount;
+
+	/**
+	 * 是否被熔断
+	 */
+	private boolean circuitOpen;
+
+	/**
+	 * 累计被熔断的次数
+	 */
+	private long circuitOpenCount;
+
+	public String getAddress() {
+		return address;
+	}
+
+	public void setAddress(String address) {
+		this.address = address;
+	}
+
+	public int getOutstanding() {
+		return outstanding;
+	}
+
+	public void setOutstanding(int outstanding) {
+		this.outstanding = outstanding;
+	}
+
+	public double getRttMillis() {
+		return rttMillis;
+	}
+
+	public void setRttMillis(double rttMillis) {
+		this.rttMillis = rttMillis;
+	}
+
+	public double getErrorRate() {
+		return errorRate;
+	}
+
+	public void setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+	}
+
+	public double getSlowStartWeight() {
+		return slowStartWeight;
+	}
+
+	public void setSlowStartWeight(double slowStartWeight) {
+		this.slowStartWeight = slowStartWeight;
+	}
+
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	public void setRequestCount(long requestCount) {
+		this.requestCount = requestCount;
+	}
+
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	public void setErrorCount(long errorCount) {
+		this.errorCount = errorCount;
+	}
+
+	public boolean isCircuitOpen() {
+		return circuitOpen;
+	}
+
+	public void setCircuitOpen(boolean circuitOpen) {
+		this.circuitOpen = circuitOpen;
+	}
+
+	public long getCircuitOpenCount() {
+		return circuitOpenCount;
+	}
+
+	public void setCircuitOpenCount(long circuitOpenCount) {
+		this.circuitOpenCount = circuitOpenCount;
+	}
+
+}
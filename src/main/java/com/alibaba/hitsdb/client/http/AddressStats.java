@@ -0,0 +1,136 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个地址的请求耗时与错误率统计，用于选择地址。<br>
+ * 耗时采用peak EWMA：耗时变大时立即采用新的耗时，变小时按时间指数衰减，慢节点能被迅速发现。
+ * 错误率按请求指数加权，不再有请求时随时间衰减，被避开的节点过一段时间后重新得到请求。<br>
+ * 连续失败的节点恢复后，以及运行期间新增的节点，在慢启动时间内逐步增加分配到的请求。
+ */
+class AddressStats {
+	private static final double RTT_DECAY_NANOS = TimeUnit.SECONDS.toNanos(2);
+	private static final double ERROR_DECAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+	private static final double ERROR_ALPHA = 0.1;
+	private static final double ERROR_PENALTY = 10;
+	private static final int DOWN_THRESHOLD = 5;
+	private static final double MIN_SLOW_START_WEIGHT = 0.1;
+
+	private final String address;
+	private final long slowStartNanos;
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	private double rtt;
+	private double errorRate;
+	private long lastUpdate;
+	private int consecutiveErrors;
+	private long slowStartBegin;
+	private long requestCount;
+	private long errorCount;
+
+	/**
+	 * @param initialRtt 初始耗时，单位：纳秒
+	 * @param slowStart 是否从慢启动开始
+	 */
+	AddressStats(String address, double initialRtt, long slowStartNanos, boolean slowStart, long now) {
+		this.address = address;
+		this.rtt = initialRtt;
+		this.slowStartNanos = slowStartNanos;
+		this.lastUpdate = now;
+		this.slowStartBegin = slowStart ? now : now - slowStartNanos;
+	}
+
+	void onRequest() {
+		outstanding.incrementAndGet();
+	}
+
+	void onCancelled() {
+		outstanding.decrementAndGet();
+	}
+
+	/**
+	 * @param latencyNanos 请求耗时
+	 * @param error 是否为5xx或请求异常
+	 */
+	synchronized void onResponse(long latencyNanos, boolean error, long now) {
+		outstanding.decrementAndGet();
+		requestCount++;
+
+		long elapsed = Math.max(0, now - lastUpdate);
+		errorRate *= Math.exp(-elapsed / ERROR_DECAY_NANOS);
+		errorRate = errorRate * (1 - ERROR_ALPHA) + (error ? ERROR_ALPHA : 0);
+
+		if (error) {
+			errorCount++;
+			consecutiveErrors++;
+		} else {
+			if (consecutiveErrors >= DOWN_THRESHOLD) {
+				// 节点恢复，重新慢启动
+				slowStartBegin = now;
+			}
+			consecutiveErrors = 0;
+
+			// 失败请求的耗时(例如拒绝连接)不能代表节点的处理速度，只统计成功的请求
+			if (rtt == 0 || latencyNanos > rtt) {
+				rtt = latencyNanos;
+			} else {
+				double w = Math.exp(-elapsed / RTT_DECAY_NANOS);
+				rtt = rtt * w + latencyNanos * (1 - w);
+			}
+		}
+		lastUpdate = now;
+	}
+
+	/**
+	 * 熔断的节点恢复：之前的错误来自故障期间，清零错误率，并重新开始慢启动
+	 */
+	synchronized void recover(long now) {
+		slowStartBegin = now;
+		consecutiveErrors = 0;
+		errorRate = 0;
+		lastUpdate = now;
+	}
+
+	/**
+	 * 选择地址的代价，越小越优先：耗时 * (进行中的请求数 + 1)，并按错误率与慢启动放大
+	 */
+	synchronized double cost(long now) {
+		double cost = Math.max(rtt, 1) * (outstanding.get() + 1);
+		cost *= 1 + ERROR_PENALTY * errorRate(now);
+		return cost / slowStartWeight(now);
+	}
+
+	private double errorRate(long now) {
+		return errorRate * Math.exp(-Math.max(0, now - lastUpdate) / ERROR_DECAY_NANOS);
+	}
+
+	private double slowStartWeight(long now) {
+		if (slowStartNanos <= 0) {
+			return 1;
+		}
+		double weight = (double) (now - slowStartBegin) / slowStartNanos;
+		return Math.max(MIN_SLOW_START_WEIGHT, Math.min(1, weight));
+	}
+
+	synchronized double getRtt() {
+		return rtt;
+	}
+
+	int getOutstanding() {
+		return outstanding.get();
+	}
+
+	synchronized AddressStatistics getStatistics(long now) {
+		AddressStatistics statistics = new AddressStatistics();
+		statistics.setAddress(address);
+		statistics.setOutstanding(outstanding.get());
+		statistics.setRttMillis(rtt / 1e6);
+		statistics.setErrorRate(errorRate(now));
+		statistics.setSlowStartWeight(slowStartWeight(now));
+		statistics.setRequestCount(requestCount);
+		statistics.setErrorCount(errorCount);
+		return statistics;
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一个地址的熔断状态。<br>
+ * 连续的连接失败或超时达到阈值后打开，打开期间该地址不参与选择；任何一个响应(包括5xx)说明节点可达，清零连续失败次数。<br>
+ * 打开后由后台探测关闭，不会因为业务请求的结果自行关闭。
+ */
+class CircuitBreaker {
+	private final int threshold;
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private final AtomicBoolean open = new AtomicBoolean(false);
+	private final AtomicBoolean probing = new AtomicBoolean(false);
+	private final AtomicLong openCount = new AtomicLong();
+
+	/**
+	 * @param threshold 打开熔断的连续失败次数，小于等于0表示不熔断
+	 */
+	CircuitBreaker(int threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * 收到响应
+	 */
+	void onSuccess() {
+		consecutiveFailures.set(0);
+	}
+
+	/**
+	 * 连接失败或超时
+	 *
+	 * @return 是否因为这次失败打开了熔断
+	 */
+	boolean onFailure() {
+		if (threshold <= 0) {
+			return false;
+		}
+		if (consecutiveFailures.incrementAndGet() >= threshold && open.compareAndSet(false, true)) {
+			openCount.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 开始一次探测，同一时间只有一个探测
+	 *
+	 * @return 已有探测在进行时返回false
+	 */
+	boolean tryProbe() {
+		return probing.compareAndSet(false, true);
+	}
+
+	/**
+	 * 探测结束
+	 *
+	 * @param success 节点是否已经恢复
+	 * @return 是否因为这次探测关闭了熔断
+	 */
+	boolean onProbe(boolean success) {
+		try {
+			if (success) {
+				consecutiveFailures.set(0);
+				return open.compareAndSet(true, false);
+			}
+			return false;
+		} finally {
+			probing.set(false);
+		}
+	}
+
+	boolean isOpen() {
+		return open.get();
+	}
+
+	long getOpenCount() {
+		return openCount.get();
+	}
+
+}
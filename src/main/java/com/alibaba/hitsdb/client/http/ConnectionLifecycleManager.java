@@ -0,0 +1,250 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.NHttpConnection;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+
+/**
+ * 连接的生命周期管理。<br>
+ * 每个响应结束后决定连接是否复用：短连接模式、连接存活超过最长时间、处理的请求数达到上限，
+ * 或者所在节点需要让出连接时，响应结束后关闭连接。<br>
+ * 所有客户端共用一个定时线程，每秒关闭空闲与保活过期的连接；
+ * 节点增加后，连接数超过平均值的节点在{@link #REBALANCE_TICKS}秒内分批关闭多出的连接，
+ * 请求随节点选择转移到新节点后在新节点上重新建立连接。
+ */
+class ConnectionLifecycleManager implements ConnectionReuseStrategy {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionLifecycleManager.class);
+
+	private static final long TICK_MILLIS = 1000;
+	static final int REBALANCE_TICKS = 30;
+
+	/**
+	 * 连接上下文中记录首次响应时间与请求数的属性
+	 */
+	private static final String CREATED_ATTRIBUTE = "hitsdb.connection.created";
+	private static final String REQUESTS_ATTRIBUTE = "hitsdb.connection.requests";
+
+	private static ScheduledThreadPoolExecutor timer;
+
+	/**
+	 * 一个节点待关闭的多余连接
+	 */
+	private static final class Rebalance {
+		final AtomicInteger remaining;
+		final int perTick;
+		final AtomicInteger allowance = new AtomicInteger();
+
+		Rebalance(int surplus) {
+			this.remaining = new AtomicInteger(surplus);
+			this.perTick = (surplus + REBALANCE_TICKS - 1) / REBALANCE_TICKS;
+		}
+	}
+
+	private final PoolingNHttpClientConnectionManager connectionManager;
+	private final boolean keepAlive;
+	private final long maxAgeNanos;
+	private final int maxRequests;
+	private final long idleMillis;
+	private final ConcurrentMap<String, Rebalance> rebalances = new ConcurrentHashMap<String, Rebalance>();
+
+	private final AtomicLong maxAgeClosedCount = new AtomicLong();
+	private final AtomicLong maxRequestsClosedCount = new AtomicLong();
+	private final AtomicLong rebalanceClosedCount = new AtomicLong();
+
+	private ScheduledFuture<?> task;
+
+	ConnectionLifecycleManager(HiTSDBConfig config, PoolingNHttpClientConnectionManager connectionManager) {
+		this.connectionManager = connectionManager;
+		this.keepAlive = config.getHttpKeepaliveTime() != 0;
+		this.maxAgeNanos = TimeUnit.SECONDS.toNanos(Math.max(config.getHttpConnectionLiveTime(), 0));
+		this.maxRequests = config.getHttpConnectionMaxRequests();
+		this.idleMillis = TimeUnit.SECONDS.toMillis(config.getHttpConnectionIdleTime());
+	}
+
+	private static synchronized ScheduledThreadPoolExecutor timer() {
+		if (timer == null) {
+			timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "hitsdb-connection-lifecycle");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			timer.setRemoveOnCancelPolicy(true);
+		}
+		return timer;
+	}
+
+	synchronized void start() {
+		if (task != null) {
+			return;
+		}
+		task = timer().scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					tick();
+				} catch (Throwable t) {
+					LOGGER.error("Failed to manage the connections", t);
+				}
+			}
+		}, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	synchronized void stop() {
+		if (task != null) {
+			task.cancel(false);
+			task = null;
+		}
+	}
+
+	void tick() {
+		connectionManager.closeExpiredConnections();
+		if (idleMillis > 0) {
+			connectionManager.closeIdleConnections(idleMillis, TimeUnit.MILLISECONDS);
+		}
+		for (Entry<String, Rebalance> entry : rebalances.entrySet()) {
+			Rebalance rebalance = entry.getValue();
+			if (rebalance.remaining.get() <= 0) {
+				rebalances.remove(entry.getKey(), rebalance);
+			} else {
+				rebalance.allowance.set(Math.min(rebalance.perTick, rebalance.remaining.get()));
+			}
+		}
+	}
+
+	@Override
+	public boolean keepAlive(HttpResponse response, HttpContext context) {
+		if (!keepAlive) {
+			return false;
+		}
+		if (!DefaultConnectionReuseStrategy.INSTANCE.keepAlive(response, context)) {
+			return false;
+		}
+
+		HttpConnection connection = HttpCoreContext.adapt(context).getConnection();
+		if (connection instanceof NHttpConnection) {
+			HttpContext connectionContext = ((NHttpConnection) connection).getContext();
+			long now = System.nanoTime();
+			Long created = (Long) connectionContext.getAttribute(CREATED_ATTRIBUTE);
+			Integer requests = (Integer) connectionContext.getAttribute(REQUESTS_ATTRIBUTE);
+			if (created == null) {
+				// 以首次响应的时间近似连接建立的时间
+				created = now;
+				connectionContext.setAttribute(CREATED_ATTRIBUTE, created);
+			}
+			requests = requests == null ? 1 : requests + 1;
+			connectionContext.setAttribute(REQUESTS_ATTRIBUTE, requests);
+
+			if (maxAgeNanos > 0 && now - created >= maxAgeNanos) {
+				maxAgeClosedCount.incrementAndGet();
+				return false;
+			}
+			if (maxRequests > 0 && requests >= maxRequests) {
+				maxRequestsClosedCount.incrementAndGet();
+				return false;
+			}
+		}
+
+		HttpHost target = HttpCoreContext.adapt(context).getTargetHost();
+		if (target != null && !rebalances.isEmpty()) {
+			Rebalance rebalance = rebalances.get(address(target));
+			if (rebalance != null && tryDecrement(rebalance.allowance)) {
+				rebalance.remaining.decrementAndGet();
+				rebalanceClosedCount.incrementAndGet();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean tryDecrement(AtomicInteger counter) {
+		while (true) {
+			int value = counter.get();
+			if (value <= 0) {
+				return false;
+			}
+			if (counter.compareAndSet(value, value - 1)) {
+				return true;
+			}
+		}
+	}
+
+	private static String address(HttpHost host) {
+		return host.getHostName() + ":" + host.getPort();
+	}
+
+	/**
+	 * 节点增加后，让连接数超过平均值的节点分批关闭多出的连接
+	 */
+	void rebalance(List<String> addresses) {
+		if (!keepAlive || addresses.isEmpty()) {
+			return;
+		}
+		Set<HttpRoute> routes = connectionManager.getRoutes();
+		int total = 0;
+		for (HttpRoute route : routes) {
+			PoolStats stats = connectionManager.getStats(route);
+			total += stats.getLeased() + stats.getAvailable();
+		}
+		int target = (total + addresses.size() - 1) / addresses.size();
+		for (HttpRoute route : routes) {
+			String address = address(route.getTargetHost());
+			if (!addresses.contains(address)) {
+				// 已删除的节点不再有请求，连接空闲后关闭
+				continue;
+			}
+			PoolStats stats = connectionManager.getStats(route);
+			int surplus = stats.getLeased() + stats.getAvailable() - target;
+			if (surplus > 0) {
+				rebalances.put(address, new Rebalance(surplus));
+				LOGGER.info("Rebalance {} connections of {} in {}s", surplus, address, REBALANCE_TICKS);
+			} else {
+				rebalances.remove(address);
+			}
+		}
+	}
+
+	ConnectionStatistics getStatistics() {
+		ConnectionStatistics statistics = new ConnectionStatistics();
+		PoolStats stats = connectionManager.getTotalStats();
+		statistics.setLeased(stats.getLeased());
+		statistics.setAvailable(stats.getAvailable());
+		statistics.setPending(stats.getPending());
+		statistics.setMaxAgeClosedCount(maxAgeClosedCount.get());
+		statistics.setMaxRequestsClosedCount(maxRequestsClosedCount.get());
+		statistics.setRebalanceClosedCount(rebalanceClosedCount.get());
+		int rebalancing = 0;
+		for (Rebalance rebalance : rebalances.values()) {
+			rebalancing += Math.max(rebalance.remaining.get(), 0);
+		}
+		statistics.setRebalancing(rebalancing);
+		return statistics;
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.alibaba.hitsdb.client.http;
+
+import com.alibaba.hitsdb.client.value.JSONValue;
+
+/**
+ * 连接池与连接生命周期的统计快照
+ */
+public class ConnectionStatistics extends JSONValue {
+	/**
+	 * 连接池的名称，write或read
+	 */
+	private String pool;
+
+	/**
+	 * 连接总数的上限
+	 */
+	private int maxTotal;
+
+	/**
+	 * 正在使用的连接数
+	 */
+	private int leased;
+
+	/**
+	 * 空闲的连接数
+	 */
+	private int available;
+
+	/**
+	 * 等待连接的请求数
+	 */
+	private int pending;
+
+	/**
+	 * 累计因存活超过最长时间而关闭的连接数
+	 */
+	private long maxAgeClosedCount;
+
+	/**
+	 * 累计因请求数达到上限而关闭的连接数
+	 */
+	private long maxRequestsClosedCount;
+
+	/**
+	 * 累计因节点增加让出而关闭的连接数
+	 */
+	private long rebalanceClosedCount;
+
+	/**
+	 * 尚待让出的连接数
+	 */
+	private int rebalancing;
+
+	public String getPool() {
+		return pool;
+	}
+
+	public void setPool(String pool) {
+		this.pool = pool;
+	}
+
+	public int getMaxTotal() {
+		return maxTotal;
+	}
+
+	public void setMaxTotal(int maxTotal) {
+		this.maxTotal = maxTotal;
+	}
+
+	public int getLeased() {
+		return leased;
+	}
+
+	public void setLeased(int leased) {
+		this.leased = leased;
+	}
+
+	public int getAvailable() {
+		return available;
+	}
+
+	public void setAvailable(int available) {
+		this.available = available;
+	}
+
+	public int getPending() {
+		return pending;
+	}
+
+	public void setPending(int pending) {
+		this.pending = pending;
+	}
+
+	public long getMaxAgeClosedCount() {
+		return maxAgeClosedCount;
+	}
+
+	public void setMaxAgeClosedCount(long maxAgeClosedCount) {
+		this.maxAgeClosedCount = maxAgeClosedCount;
+	}
+
+	public long getMaxRequestsClosedCount() {
+		return maxRequestsClosedCount;
+	}
+
+	public void setMaxRequestsClosedCount(long maxRequestsClosedCount) {
+		this.maxRequestsClosedCount = maxRequestsClosedCount;
+	}
+
+	public long getRebalanceClosedCount() {
+		return rebalanceClosedCount;
+	}
+
+	public void setRebalanceClosedCount(long rebalanceClosedCount) {
+		this.rebalanceClosedCount = rebalanceClosedCount;
+	}
+
+	public int getRebalancing() {
+		return rebalancing;
+	}
+
+	public void setRebalancing(int rebalancing) {
+		this.rebalancing = rebalancing;
+	}
+
+}
@@ -0,0 +1,158 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 启动时预建连接。<br>
+ * 向每个节点同时发送若干个GET /api/ttl，并发的请求迫使连接池为每个请求建立一个连接，
+ * 收到非5xx的响应即认为连接可用，请求结束后连接留在连接池中供后续的请求复用。
+ * 预热请求不占用请求许可，也不计入地址的请求统计，超时时间与普通请求相同。
+ */
+class ConnectionWarmer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionWarmer.class);
+
+	private final CloseableHttpAsyncClient httpclient;
+	private final PoolingNHttpClientConnectionManager connectionManager;
+	private final List<String> addresses;
+	private final int connectionsPerAddress;
+
+	private final BasicFuture<WarmUpStatistics> future = new BasicFuture<WarmUpStatistics>(null);
+	private final AtomicInteger remaining = new AtomicInteger();
+	private final AtomicInteger validatedCount = new AtomicInteger();
+	private final AtomicInteger failedCount = new AtomicInteger();
+	private final Set<String> failedAddresses = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private volatile long startTime;
+	private volatile long finishTime;
+	private volatile boolean finished;
+
+	ConnectionWarmer(CloseableHttpAsyncClient httpclient, PoolingNHttpClientConnectionManager connectionManager,
+			List<String> addresses, int connectionsPerAddress) {
+		this.httpclient = httpclient;
+		this.connectionManager = connectionManager;
+		this.addresses = new ArrayList<String>(addresses);
+		this.connectionsPerAddress = connectionsPerAddress;
+	}
+
+	/**
+	 * 发送预热请求，需要在httpclient启动后调用，只能调用一次
+	 */
+	void start() {
+		this.startTime = System.nanoTime();
+		this.remaining.set(addresses.size() * connectionsPerAddress);
+		if (addresses.isEmpty()) {
+			finish();
+			return;
+		}
+		for (String address : addresses) {
+			for (int i = 0; i < connectionsPerAddress; i++) {
+				warm(address);
+			}
+		}
+	}
+
+	private void warm(final String address) {
+		HttpGet request = new HttpGet("http://" + address + HttpAPI.TTL);
+		try {
+			httpclient.execute(request, new FutureCallback<HttpResponse>() {
+				@Override
+				public void completed(HttpResponse result) {
+					int statusCode = result.getStatusLine().getStatusCode();
+					if (statusCode < 500) {
+						validatedCount.incrementAndGet();
+						done();
+					} else {
+						onFailure(address, "status code " + statusCode);
+					}
+				}
+
+				@Override
+				public void failed(Exception ex) {
+					onFailure(address, ex.toString());
+				}
+
+				@Override
+				public void cancelled() {
+					onFailure(address, "cancelled");
+				}
+			});
+		} catch (RuntimeException e) {
+			// 客户端已经关闭
+			onFailure(address, e.toString());
+		}
+	}
+
+	private void onFailure(String address, String reason) {
+		failedCount.incrementAndGet();
+		if (failedAddresses.add(address)) {
+			LOGGER.warn("Failed to warm up a connection to {}: {}", address, reason);
+		}
+		done();
+	}
+
+	private void done() {
+		if (remaining.decrementAndGet() == 0) {
+			finish();
+		}
+	}
+
+	private void finish() {
+		this.finishTime = System.nanoTime();
+		this.finished = true;
+		WarmUpStatistics statistics = getStatistics();
+		LOGGER.info("Warmed up {} connections in {}ms, {} failed, {} open in the pool", statistics.getValidatedCount(),
+				(long) statistics.getElapsedMillis(), statistics.getFailedCount(), statistics.getOpenConnections());
+		future.completed(statistics);
+	}
+
+	/**
+	 * 等待预热结束
+	 *
+	 * @return 预热结束且至少有一个连接通过了校验时返回true，超时或没有可用的连接时返回false
+	 */
+	boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+		try {
+			return future.get(timeout, unit).isReady();
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException e) {
+			// 不会发生，预热的结果只会正常完成
+			return false;
+		}
+	}
+
+	WarmUpStatistics getStatistics() {
+		boolean finished = this.finished;
+		long end = finished ? finishTime : System.nanoTime();
+		WarmUpStatistics statistics = new WarmUpStatistics();
+		statistics.setFinished(finished);
+		statistics.setReady(finished && validatedCount.get() > 0);
+		statistics.setConnectionsPerAddress(connectionsPerAddress);
+		statistics.setValidatedCount(validatedCount.get());
+		statistics.setFailedCount(failedCount.get());
+		PoolStats poolStats = connectionManager.getTotalStats();
+		statistics.setOpenConnections(poolStats.getAvailable() + poolStats.getLeased());
+		statistics.setElapsedMillis(startTime == 0 ? 0 : (end - startTime) / 1000000.0);
+		statistics.setFailedAddresses(new ArrayList<String>(failedAddresses));
+		return statistics;
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 后台探测被熔断的地址。<br>
+ * 按固定间隔向每个被熔断的地址发送GET /api/ttl，收到非5xx的响应即认为节点已经恢复。
+ * 探测请求不占用请求许可，也不计入地址的请求统计，超时时间等于探测间隔。
+ */
+class HealthProber {
+	private static final Logger LOGGER = LoggerFactory.getLogger(HealthProber.class);
+
+	private final CloseableHttpAsyncClient httpclient;
+	private final HttpAddressManager httpAddressManager;
+	private final int probeInterval;
+	private final RequestConfig requestConfig;
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * @param probeInterval 探测间隔，单位：毫秒
+	 */
+	HealthProber(CloseableHttpAsyncClient httpclient, HttpAddressManager httpAddressManager, int probeInterval) {
+		this.httpclient = httpclient;
+		this.httpAddressManager = httpAddressManager;
+		this.probeInterval = probeInterval;
+		this.requestConfig = RequestConfig.custom().setConnectTimeout(probeInterval).setSocketTimeout(probeInterval)
+				.setConnectionRequestTimeout(probeInterval).build();
+	}
+
+	synchronized void start() {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "hitsdb-health-probe");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					probeAll();
+				} catch (Throwable t) {
+					LOGGER.error("Failed to probe the unreachable addresses", t);
+				}
+			}
+		}, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+	}
+
+	synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	void probeAll() {
+		for (String address : httpAddressManager.getOpenAddresses()) {
+			if (httpAddressManager.tryProbe(address)) {
+				probe(address);
+			}
+		}
+	}
+
+	private void probe(final String address) {
+		HttpGet request = new HttpGet("http://" + address + HttpAPI.TTL);
+		request.setConfig(requestConfig);
+		try {
+			httpclient.execute(request, new FutureCallback<HttpResponse>() {
+				@Override
+				public void completed(HttpResponse result) {
+					httpAddressManager.onProbe(address, result.getStatusLine().getStatusCode() < 500);
+				}
+
+				@Override
+				public void failed(Exception ex) {
+					LOGGER.debug("The address {} is still unreachable: {}", address, ex.toString());
+					httpAddressManager.onProbe(address, false);
+				}
+
+				@Override
+				public void cancelled() {
+					httpAddressManager.onProbe(address, false);
+				}
+			});
+		} catch (RuntimeException e) {
+			// 客户端已经关闭
+			httpAddressManager.onProbe(address, false);
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.retry.RetryBudget;
+
+/**
+ * 查询对冲的策略。<br>
+ * 等待时间取最近查询耗时的分位数(不低于最短等待时间)，样本不足时不对冲；
+ * 对冲请求数由与写入重试相同的令牌预算限制，每个查询存入budgetPercent%个令牌。
+ */
+class HedgePolicy {
+	private static final int WINDOW_SIZE = 1000;
+	private static final int MIN_SAMPLES = 20;
+
+	private final LatencyWindow latencyWindow;
+	private final RetryBudget budget;
+	private final long minDelayNanos;
+
+	private final AtomicLong queryCount = new AtomicLong();
+	private final AtomicLong hedgedCount = new AtomicLong();
+	private final AtomicLong hedgeWonCount = new AtomicLong();
+	private final AtomicLong budgetExhaustedCount = new AtomicLong();
+
+	HedgePolicy(HiTSDBConfig config) {
+		this(config.getQueryHedgePercentile(), config.getQueryHedgeBudgetPercent(), config.getQueryHedgeMinDelay());
+	}
+
+	HedgePolicy(double percentile, int budgetPercent, int minDelayMillis) {
+		this.latencyWindow = new LatencyWindow(WINDOW_SIZE, percentile, MIN_SAMPLES);
+		this.budget = new RetryBudget(budgetPercent, 0);
+		this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+	}
+
+	/**
+	 * 发出一个查询(不包括对冲请求)
+	 */
+	void onQuery() {
+		queryCount.incrementAndGet();
+		budget.deposit();
+	}
+
+	/**
+	 * @return 发送对冲请求前的等待时间，样本不足时返回-1，单位：纳秒
+	 */
+	long getDelayNanos() {
+		long percentile = latencyWindow.getPercentile();
+		if (percentile < 0) {
+			return -1;
+		}
+		return Math.max(percentile, minDelayNanos);
+	}
+
+	/**
+	 * @return 对冲预算用完时返回false
+	 */
+	boolean tryHedge() {
+		if (budget.tryWithdraw()) {
+			hedgedCount.incrementAndGet();
+			return true;
+		}
+		budgetExhaustedCount.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * 记录一个查询请求的耗时。被取消的请求记录取消前的耗时，是实际耗时的下限
+	 */
+	void record(long latencyNanos) {
+		latencyWindow.record(latencyNanos);
+	}
+
+	void onHedgeWon() {
+		hedgeWonCount.incrementAndGet();
+	}
+
+	HedgeStatistics getStatistics() {
+		HedgeStatistics statistics = new HedgeStatistics();
+		long delayNanos = getDelayNanos();
+		statistics.setDelayMillis(delayNanos < 0 ? -1 : delayNanos / 1000000.0);
+		statistics.setQueryCount(queryCount.get());
+		statistics.setHedgedCount(hedgedCount.get());
+		statistics.setHedgeWonCount(hedgeWonCount.get());
+		statistics.setBudgetExhaustedCount(budgetExhaustedCount.get());
+		return statistics;
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.alibaba.hitsdb.client.http;
+
+import com.alibaba.hitsdb.client.value.JSONValue;
+
+/**
+ * 查询对冲的统计快照
+ */
+public class HedgeStatistics extends JSONValue {
+	/**
+	 * 当前发送对冲请求前的等待时间，样本不足时为-1，单位：毫秒
+	 */
+	private double delayMillis;
+
+	/**
+	 * 累计的查询数
+	 */
+	private long queryCount;
+
+	/**
+	 * 累计发送的对冲请求数
+	 */
+	private long hedgedCount;
+
+	/**
+	 * 累计对冲请求先于原请求返回的次数
+	 */
+	private long hedgeWonCount;
+
+	/**
+	 * 累计因对冲预算用完而没有发送的对冲请求数
+	 */
+	private long budgetExhaustedCount;
+
+	public double getDelayMillis() {
+		return delayMillis;
+	}
+
+	public void setDelayMillis(double delayMillis) {
+		this.delayMillis = delayMillis;
+	}
+
+	public long getQueryCount() {
+		return queryCount;
+	}
+
+	public void setQueryCount(long queryCount) {
+		this.queryCount = queryCount;
+	}
+
+	public long getHedgedCount() {
+		return hedgedCount;
+	}
+
+	public void setHedgedCount(long hedgedCount) {
+		this.hedgedCount = hedgedCount;
+	}
+
+	public long getHedgeWonCount() {
+		return hedgeWonCount;
+	}
+
+	public void setHedgeWonCount(long hedgeWonCount) {
+		this.hedgeWonCount = hedgeWonCount;
+	}
+
+	public long getBudgetExhaustedCount() {
+		return budgetExhaustedCount;
+	}
+
+	public void setBudgetExhaustedCount(long budgetExhaustedCount) {
+		this.budgetExhaustedCount = budgetExhaustedCount;
+	}
+
+}
@@ -1,16 +1,61 @@
 package com.alibaba.hitsdb.client.http;
 
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.alibaba.hitsdb.client.HiTSDBConfig;
 
+/**
+ * 管理HiTSDB集群的多个地址。<br>
+ * 每次请求随机选出两个地址，选择其中代价较小的一个(power of two choices)。
+ * 代价由请求耗时的EWMA、进行中的请求数与错误率计算，耗时统计来自所有写入、查询与管理请求，见{@link AddressStats}。<br>
+ * 地址可以在运行期间增加与删除，新增的地址在慢启动时间内逐步增加分配到的请求。<br>
+ * 连续连接失败或超时的地址被熔断，不再参与选择，由后台探测确认恢复后重新参与选择并慢启动，见{@link CircuitBreaker}。
+ * 所有地址都被熔断时仍在全部地址中选择。
+ */
 public class HttpAddressManager {
-	private final String host;
-	private final int port;
-	private final String address;
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpAddressManager.class);
+
+	private final long slowStartNanos;
+	private final int circuitBreakerThreshold;
+
+	/**
+	 * 地址列表，修改时整体替换，读取无需加锁
+	 */
+	private volatile String[] addresses;
+
+	/**
+	 * 未被熔断的地址列表，地址或熔断状态变化时整体替换
+	 */
+	private volatile String[] available;
+
+	private final ConcurrentHashMap<String, AddressStats> stats = new ConcurrentHashMap<String, AddressStats>();
+	private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<String, CircuitBreaker>();
 
 	private HttpAddressManager(HiTSDBConfig config) {
-		host = config.getHost();
-		port = config.getPort();
-		address = host + ":" + port;
+		this.slowStartNanos = TimeUnit.MILLISECONDS.toNanos(config.getAddressSlowStartTime());
+		this.circuitBreakerThreshold = config.getCircuitBreakerThreshold();
+		List<String> list = config.getAddresses();
+		this.addresses = list.toArray(new String[list.size()]);
+		this.available = this.addresses;
+		long now = System.nanoTime();
+		for (String address : this.addresses) {
+			// 启动时的地址同时开始接收请求，无需慢启动
+			stats.put(address, new AddressStats(address, 0, slowStartNanos, false, now));
+			breakers.put(address, new CircuitBreaker(circuitBreakerThreshold));
+		}
 	}
 
 	public static HttpAddressManager createHttpAddressManager(HiTSDBConfig config) {
@@ -19,6 +64,283 @@ public class HttpAddressManager {
 	}
 
 	public String getAddress() {
-		return this.address;
+		return getAddress(null);
+	}
+
+	/**
+	 * 选择一个地址
+	 * 
+	 * @param exclude 存在其它地址时不选择该地址，用于重试时换一个地址，可以为null
+	 */
+	public String getAddress(String exclude) {
+		return getAddress(exclude, System.nanoTime());
+	}
+
+	String getAddress(String exclude, long now) {
+		String[] addresses = this.available;
+		int size = addresses.length;
+		if (size == 1) {
+			return addresses[0];
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String first = addresses[random.nextInt(size)];
+		if (size == 2 && exclude != null) {
+			if (first.equals(exclude)) {
+				return addresses[0].equals(exclude) ? addresses[1] : addresses[0];
+			}
+			if (addresses[0].equals(exclude) || addresses[1].equals(exclude)) {
+				return first;
+			}
+		}
+
+		String second = addresses[random.nextInt(size)];
+		while (second.equals(first)) {
+			second = addresses[random.nextInt(size)];
+		}
+		if (first.equals(exclude)) {
+			return second;
+		}
+		if (second.equals(exclude)) {
+			return first;
+		}
+		return cost(second, now) < cost(first, now) ? second : first;
+	}
+
+	private double cost(String address, long now) {
+		AddressStats addressStats = stats.get(address);
+		return addressStats == null ? Double.MAX_VALUE : addressStats.cost(now);
+	}
+
+	/**
+	 * 请求发出前调用
+	 */
+	public void onRequest(String address) {
+		AddressStats addressStats = stats.get(address);
+		if (addressStats != null) {
+			addressStats.onRequest();
+		}
+	}
+
+	/**
+	 * 请求结束(包括异常)后调用，与{@link #onRequest(String)}一一对应
+	 * 
+	 * @param latencyNanos 请求耗时
+	 * @param error 是否为5xx或请求异常
+	 */
+	public void onResponse(String address, long latencyNanos, boolean error) {
+		onResponse(address, latencyNanos, error, System.nanoTime());
+	}
+
+	void onResponse(String address, long latencyNanos, boolean error, long now) {
+		AddressStats addressStats = stats.get(address);
+		if (addressStats != null) {
+			addressStats.onResponse(latencyNanos, error, now);
+		}
+		CircuitBreaker breaker = breakers.get(address);
+		if (breaker != null) {
+			breaker.onSuccess();
+		}
+	}
+
+	/**
+	 * 请求异常结束(没有收到响应)后调用，与{@link #onRequest(String)}一一对应
+	 * 
+	 * @param latencyNanos 请求耗时
+	 * @param ex 请求的异常，连接失败或超时计入熔断
+	 */
+	public void onFailure(String address, long latencyNanos, Throwable ex) {
+		long now = System.nanoTime();
+		AddressStats addressStats = stats.get(address);
+		if (addressStats != null) {
+			addressStats.onResponse(latencyNanos, true, now);
+		}
+		CircuitBreaker breaker = breakers.get(address);
+		if (breaker != null && isUnreachable(ex) && breaker.onFailure()) {
+			LOGGER.warn("The address {} is unreachable and removed from selection until it recovers: {}", address, ex.toString());
+			refreshAvailable();
+		}
+	}
+
+	/**
+	 * 是否为节点不可达导致的异常：连接失败、连接或读取超时、无法解析地址。从连接池获取连接超时不算在内
+	 */
+	static boolean isUnreachable(Throwable ex) {
+		Throwable cause = ex;
+		for (int depth = 0; cause != null && depth < 10; depth++) {
+			if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+					|| cause instanceof SocketTimeoutException || cause instanceof NoRouteToHostException
+					|| cause instanceof UnknownHostException) {
+				return true;
+			}
+			cause = cause.getCause();
+		}
+		return false;
+	}
+
+	/**
+	 * 被熔断的地址，由后台探测
+	 */
+	public List<String> getOpenAddresses() {
+		List<String> list = new ArrayList<String>();
+		for (String address : addresses) {
+			CircuitBreaker breaker = breakers.get(address);
+			if (breaker != null && breaker.isOpen()) {
+				list.add(address);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * 开始探测一个被熔断的地址
+	 * 
+	 * @return 地址未被熔断或已有探测在进行时返回false
+	 */
+	public boolean tryProbe(String address) {
+		CircuitBreaker breaker = breakers.get(address);
+		if (breaker == null || !breaker.isOpen()) {
+			return false;
+		}
+		return breaker.tryProbe();
+	}
+
+	/**
+	 * 探测结束，与{@link #tryProbe(String)}一一对应
+	 * 
+	 * @param success 节点是否已经恢复
+	 */
+	public void onProbe(String address, boolean success) {
+		onProbe(address, success, System.nanoTime());
+	}
+
+	void onProbe(String address, boolean success, long now) {
+		CircuitBreaker breaker = breakers.get(address);
+		if (breaker == null || !breaker.onProbe(success)) {
+			return;
+		}
+		AddressStats addressStats = stats.get(address);
+		if (addressStats != null) {
+			addressStats.recover(now);
+		}
+		LOGGER.info("The address {} has recovered and rejoined the selection", address);
+		refreshAvailable();
+	}
+
+	private synchronized void refreshAvailable() {
+		List<String> list = new ArrayList<String>(addresses.length);
+		for (String address : addresses) {
+			CircuitBreaker breaker = breakers.get(address);
+			if (breaker == null || !breaker.isOpen()) {
+				list.add(address);
+			}
+		}
+		this.available = list.isEmpty() ? addresses : list.toArray(new String[list.size()]);
+	}
+
+	/**
+	 * 请求取消或未能发出，只结束进行中的计数
+	 */
+	public void onCancelled(String address) {
+		AddressStats addressStats = stats.get(address);
+		if (addressStats != null) {
+			addressStats.onCancelled();
+		}
+	}
+
+	/**
+	 * @param address host:port
+	 * @return 地址已经存在时返回false
+	 */
+	public synchronized boolean addAddress(String address) {
+		for (String exist : addresses) {
+			if (exist.equals(address)) {
+				return false;
+			}
+		}
+
+		// 新地址以现有地址的平均耗时作为初始耗时，并从慢启动开始
+		double rttSum = 0;
+		int rttCount = 0;
+		for (String exist : addresses) {
+			double rtt = stats.get(exist).getRtt();
+			if (rtt > 0) {
+				rttSum += rtt;
+				rttCount++;
+			}
+		}
+		double initialRtt = rttCount == 0 ? 0 : rttSum / rttCount;
+		stats.put(address, new AddressStats(address, initialRtt, slowStartNanos, true, System.nanoTime()));
+		breakers.put(address, new CircuitBreaker(circuitBreakerThreshold));
+
+		String[] newAddresses = new String[addresses.length + 1];
+		System.arraycopy(addresses, 0, newAddresses, 0, addresses.length);
+		newAddresses[addresses.length] = address;
+		this.addresses = newAddresses;
+		refreshAvailable();
+		return true;
+	}
+
+	/**
+	 * 删除后不再向该地址发送新的请求，进行中的请求不受影响
+	 * 
+	 * @param address host:port
+	 * @return 地址不存在时返回false
+	 */
+	public synchronized boolean removeAddress(String address) {
+		int index = -1;
+		for (int i = 0; i < addresses.length; i++) {
+			if (addresses[i].equals(address)) {
+				index = i;
+				break;
+			}
+		}
+		if (index < 0) {
+			return false;
+		}
+		if (addresses.length == 1) {
+			throw new IllegalArgumentException("The last address " + address + " can't be removed");
+		}
+
+		String[] newAddresses = new String[addresses.length - 1];
+		System.arraycopy(addresses, 0, newAddresses, 0, index);
+		System.arraycopy(addresses, index + 1, newAddresses, index, addresses.length - index - 1);
+		this.addresses = newAddresses;
+		refreshAvailable();
+		stats.remove(address);
+		breakers.remove(address);
+		return true;
+	}
+
+	public List<String> getAddresses() {
+		List<String> list = new ArrayList<String>(addresses.length);
+		Collections.addAll(list, addresses);
+		return Collections.unmodifiableList(list);
+	}
+
+	public int getAddressCount() {
+		return addresses.length;
+	}
+
+	/**
+	 * 各个地址的请求统计
+	 */
+	public List<AddressStatistics> getStatistics() {
+		long now = System.nanoTime();
+		String[] addresses = this.addresses;
+		List<AddressStatistics> list = new ArrayList<AddressStatistics>(addresses.length);
+		for (String address : addresses) {
+			AddressStats addressStats = stats.get(address);
+			if (addressStats != null) {
+				AddressStatistics statistics = addressStats.getStatistics(now);
+				CircuitBreaker breaker = breakers.get(address);
+				if (breaker != null) {
+					statistics.setCircuitOpen(breaker.isOpen());
+					statistics.setCircuitOpenCount(breaker.getOpenCount());
+				}
+				list.add(statistics);
+			}
+		}
+		return list;
 	}
 }
@@ -5,39 +5,60 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.zip.GZIPOutputStream;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.concurrent.BasicFuture;
 import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.buffer.ByteSegmentPool;
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
 import com.alibaba.hitsdb.client.callback.http.HttpResponseCallbackFactory;
+import com.alibaba.hitsdb.client.compress.PayloadOutputStream;
+import com.alibaba.hitsdb.client.compress.PooledGZIPOutputStream;
+import com.alibaba.hitsdb.client.exception.PutTransportException;
 import com.alibaba.hitsdb.client.exception.VIPClientException;
 import com.alibaba.hitsdb.client.exception.http.HttpClientException;
 import com.alibaba.hitsdb.client.exception.http.HttpClientInitException;
 import com.alibaba.hitsdb.client.http.request.HttpDeleteWithEntity;
 import com.alibaba.hitsdb.client.http.request.HttpGetWithEntity;
+import com.alibaba.hitsdb.client.http.request.SegmentedByteEntity;
 import com.alibaba.hitsdb.client.http.semaphore.SemaphoreManager;
+import com.alibaba.hitsdb.client.http.semaphore.SemaphoreStatistics;
+import com.alibaba.hitsdb.client.retry.RetryScheduler;
+import com.alibaba.hitsdb.client.transport.PutTransport;
+import com.alibaba.hitsdb.client.transport.TelnetPutTransport;
 
 public class HttpClient {
 	private static final Logger LOGGER = LoggerFactory.getLogger(HttpClient.class);
 	public static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
 
+	/**
+	 * 开启读连接池时使用读连接池的API
+	 */
+	private static final Set<String> READ_APIS = new HashSet<String>(Arrays.asList(HttpAPI.QUERY, HttpAPI.SUGGEST, HttpAPI.DUMP_META));
+
 	private String host;
 	private int port;
 
@@ -50,9 +71,14 @@ public class HttpClient {
     }
 	
 	/**
-	 * 实际的HttpClient
+	 * 写入请求的连接池，未开启读连接池时也用于读请求
 	 */
-	private final CloseableHttpAsyncClient httpclient;
+	private final HttpPool writePool;
+
+	/**
+	 * 查询、suggest与dump_meta的连接池，未开启读连接池时与writePool相同
+	 */
+	private final HttpPool readPool;
 
 	/**
 	 * 回调接口工厂
@@ -65,32 +91,92 @@ public class HttpClient {
 	private final AtomicInteger unCompletedTaskNum;
 
 	/**
-	 * 使用Semaphore管理器
+	 * 地址管理器
 	 */
-	private final SemaphoreManager semaphoreManager;
+	private final HttpAddressManager httpAddressManager;
 
 	/**
-	 * 使用Semaphore管理器
+	 * 写入失败后的延迟重试
 	 */
-	private final HttpAddressManager httpAddressManager;
+	private final RetryScheduler retryScheduler;
+
+	/**
+	 * 被熔断地址的后台探测
+	 */
+	private final HealthProber healthProber;
+
+	/**
+	 * 查询对冲的策略，未开启查询对冲时为null
+	 */
+	private final HedgePolicy hedgePolicy;
+
+	/**
+	 * 异步批量写入的传输，未配置时为null，批量写入通过HTTP JSON发送
+	 */
+	private final PutTransport putTransport;
+
+	/**
+	 * 启动预热，未开启预热时为null
+	 */
+	private final ConnectionWarmer connectionWarmer;
 
 	/**
 	 * 是否压缩
 	 */
 	private final boolean httpCompress;
 
-	HttpClient(HiTSDBConfig config, CloseableHttpAsyncClient httpclient, SemaphoreManager semaphoreManager)
-			throws VIPClientException, HttpClientInitException {
+	/**
+	 * 压缩级别
+	 */
+	private final int httpCompressLevel;
+
+	/**
+	 * 最小压缩长度，单位：字节
+	 */
+	private final int httpCompressMinSize;
+
+	/**
+	 * 请求体字节缓冲区的分段池
+	 */
+	private final ByteSegmentPool byteSegmentPool;
+
+	/**
+	 * @param readPool 读请求的连接池，为null时读写共用writePool
+	 */
+	HttpClient(HiTSDBConfig config, HttpPool writePool, HttpPool readPool) throws VIPClientException, HttpClientInitException {
 		this.host = config.getHost();
 		this.port = config.getPort();
 		this.httpCompress = config.isHttpCompress();
-		this.httpclient = httpclient;
-		this.semaphoreManager = semaphoreManager;
+		this.httpCompressLevel = config.getHttpCompressLevel();
+		this.httpCompressMinSize = config.getHttpCompressMinSize();
+		this.writePool = writePool;
+		this.readPool = readPool != null ? readPool : writePool;
 		this.httpAddressManager = HttpAddressManager.createHttpAddressManager(config);
+		this.retryScheduler = new RetryScheduler(config);
+		this.healthProber = new HealthProber(writePool.getHttpclient(), this.httpAddressManager, config.getCircuitBreakerProbeInterval());
+		this.hedgePolicy = config.isQueryHedge() ? new HedgePolicy(config) : null;
+		this.putTransport = createPutTransport(config);
+		this.connectionWarmer = config.isWarmUp() ? new ConnectionWarmer(writePool.getHttpclient(), writePool.getConnectionManager(),
+				this.httpAddressManager.getAddresses(), config.getWarmUpConnections()) : null;
 		this.unCompletedTaskNum = new AtomicInteger(0);
+		this.byteSegmentPool = new ByteSegmentPool();
 		this.httpResponseCallbackFactory = new HttpResponseCallbackFactory(unCompletedTaskNum, this, this.httpCompress);
 	}
 
+	private static PutTransport createPutTransport(HiTSDBConfig config) {
+		if (config.getPutTransport() != null) {
+			return config.getPutTransport();
+		}
+		if (!config.isTelnetPut()) {
+			return null;
+		}
+		try {
+			return new TelnetPutTransport(config.getTelnetPutPort(), config.getTelnetPutConnections(), config.getHttpConnectTimeout() * 1000);
+		} catch (IOException e) {
+			throw new PutTransportException("Failed to create the telnet put transport", e);
+		}
+	}
+
 	public void close() throws IOException {
 		this.close(false);
 	}
@@ -100,8 +186,9 @@ public class HttpClient {
 		if (!force) {
 			// 优雅关闭
 			while (true) {
-				if (httpclient.isRunning()) { // 正在运行则等待
-					int i = this.unCompletedTaskNum.get();
+				if (writePool.getHttpclient().isRunning()) { // 正在运行则等待
+					// 等待退避的重试也是未完成的任务
+					int i = this.unCompletedTaskNum.get() + this.retryScheduler.getPending();
 					if (i == 0) {
 						break;
 					} else {
@@ -121,8 +208,19 @@ public class HttpClient {
 			}
 		}
 
+		// 消费者已经停止，等待写入传输中已提交的批次发送完成
+		if (putTransport != null) {
+			putTransport.close(force);
+		}
+
 		// 关闭
-		httpclient.close();
+		healthProber.stop();
+		writePool.close();
+		if (readPool != writePool) {
+			readPool.close();
+		}
+		// 强制关闭时，等待退避的重试立即执行并失败
+		retryScheduler.close();
 	}
 
 	public HttpResponse delete(String apiPath, String json) throws HttpClientException {
@@ -137,26 +235,37 @@ public class HttpClient {
 
 	private HttpResponse execute(HttpEntityEnclosingRequestBase request, String json) throws HttpClientException {
 		if (json != null && json.length() > 0) {
-			request.addHeader("Content-Type", "application/json");
-			if (!this.httpCompress) {
-				request.setEntity(generateStringEntity(json));
-			} else {
-				request.addHeader("Accept-Encoding", "gzip, deflate");
-				request.setEntity(generateGZIPCompressEntity(json));
-			}
+			setEntity(request, json);
 		}
 
+		HttpPool pool = pool(request);
+		AddressTracker tracker = new AddressTracker(request, null, acquirePermit(pool, request));
 		unCompletedTaskNum.incrementAndGet();
-		Future<HttpResponse> future = httpclient.execute(request, null);
+		Future<HttpResponse> future = null;
 		try {
+			future = pool.getHttpclient().execute(request, null);
 			HttpResponse httpResponse = future.get();
+			tracker.completed(httpResponse);
 			return httpResponse;
 		} catch (InterruptedException e) {
+			// 先取消仍在进行的请求，再归还许可
+			future.cancel(true);
+			tracker.cancelled();
+			Thread.currentThread().interrupt();
 			throw new HttpClientException(e);
 		} catch (ExecutionException e) {
+			tracker.failed(e);
 			throw new HttpClientException(e);
 		} catch (UnsupportedOperationException e) {
+			if (future != null) {
+				future.cancel(true);
+			}
+			tracker.cancelled();
 			throw new HttpClientException(e);
+		} catch (RuntimeException e) {
+			// 客户端已经关闭，请求没有发出
+			tracker.untrack();
+			throw e;
 		} finally {
 			unCompletedTaskNum.decrementAndGet();
 		}
@@ -164,22 +273,247 @@ public class HttpClient {
 
 	private void executeCallback(HttpEntityEnclosingRequestBase request, String json, FutureCallback<HttpResponse> httpCallback) {
 		if (json != null && json.length() > 0) {
-			request.addHeader("Content-Type", "application/json");
-			if (!this.httpCompress) {
-				request.setEntity(generateStringEntity(json));
-			} else {
-				request.addHeader("Accept-Encoding", "gzip, deflate");
-				request.setEntity(generateGZIPCompressEntity(json));
-			}
+			setEntity(request, json);
 		}
 
+		HttpPool pool = pool(request);
+		SemaphoreManager permits = acquirePermit(pool, request);
 		FutureCallback<HttpResponse> responseCallback = null;
 		if (httpCallback != null) {
 			unCompletedTaskNum.incrementAndGet();
 			responseCallback = this.httpResponseCallbackFactory.wrapUpBaseHttpFutureCallback(httpCallback);
 		}
 
-		httpclient.execute(request,responseCallback);
+		AddressTracker tracker = new AddressTracker(request, responseCallback, permits);
+		try {
+			pool.getHttpclient().execute(request, tracker);
+		} catch (RuntimeException e) {
+			tracker.untrack();
+			throw e;
+		}
+	}
+
+	/**
+	 * 发送缓冲区中的请求体并等待响应，调用后缓冲区的引用由该方法负责释放
+	 */
+	private HttpResponse execute(HttpEntityEnclosingRequestBase request, SegmentedByteBuffer body) throws HttpClientException {
+		setEntity(request, body);
+		SegmentedByteEntity entity = (SegmentedByteEntity) request.getEntity();
+
+		unCompletedTaskNum.incrementAndGet();
+		AddressTracker tracker = new AddressTracker(request, null);
+		Future<HttpResponse> future = null;
+		try {
+			future = writePool.getHttpclient().execute(request, null);
+			HttpResponse httpResponse = future.get();
+			tracker.completed(httpResponse);
+			return httpResponse;
+		} catch (InterruptedException e) {
+			// 先取消仍在进行的请求，I/O线程可能仍在写入请求体，由实体保证释放后不再读取缓冲区
+			future.cancel(true);
+			tracker.cancelled();
+			Thread.currentThread().interrupt();
+			throw new HttpClientException(e);
+		} catch (ExecutionException e) {
+			tracker.failed(e);
+			throw new HttpClientException(e);
+		} catch (UnsupportedOperationException e) {
+			tracker.cancelled();
+			throw new HttpClientException(e);
+		} finally {
+			unCompletedTaskNum.decrementAndGet();
+			entity.release();
+		}
+	}
+
+	/**
+	 * 异步发送缓冲区中的请求体，调用后缓冲区的引用由该方法负责释放
+	 */
+	private void executeCallback(HttpEntityEnclosingRequestBase request, SegmentedByteBuffer body, FutureCallback<HttpResponse> httpCallback) {
+		SegmentedByteBuffer content = setEntity(request, body);
+
+		// 无论是否有回调，都需要在请求结束后释放缓冲区
+		unCompletedTaskNum.incrementAndGet();
+		FutureCallback<HttpResponse> responseCallback = this.httpResponseCallbackFactory.wrapUpBaseHttpFutureCallback(httpCallback, content);
+		AddressTracker tracker = new AddressTracker(request, responseCallback);
+		try {
+			writePool.getHttpclient().execute(request, tracker);
+		} catch (RuntimeException e) {
+			tracker.untrack();
+			unCompletedTaskNum.decrementAndGet();
+			content.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * 记录请求的目标地址的耗时与结果，供地址选择使用。先于业务回调记录，重试时能够看到这次请求的结果
+	 */
+	private class AddressTracker implements FutureCallback<HttpResponse> {
+		private final String address;
+		private final long startTime;
+		private final FutureCallback<HttpResponse> callback;
+
+		/**
+		 * 请求占用的读许可，请求结束时归还；不占用许可时为null
+		 */
+		private final SemaphoreManager permits;
+
+		AddressTracker(HttpRequestBase request, FutureCallback<HttpResponse> callback) {
+			this(request, callback, null);
+		}
+
+		AddressTracker(HttpRequestBase request, FutureCallback<HttpResponse> callback, SemaphoreManager permits) {
+			this.address = address(request);
+			this.callback = callback;
+			this.permits = permits;
+			this.startTime = System.nanoTime();
+			httpAddressManager.onRequest(address);
+		}
+
+		@Override
+		public void completed(HttpResponse result) {
+			boolean serverError = result.getStatusLine().getStatusCode() >= 500;
+			httpAddressManager.onResponse(address, System.nanoTime() - startTime, serverError);
+			release();
+			if (callback != null) {
+				callback.completed(result);
+			}
+		}
+
+		@Override
+		public void failed(Exception ex) {
+			httpAddressManager.onFailure(address, System.nanoTime() - startTime, ex);
+			release();
+			if (callback != null) {
+				callback.failed(ex);
+			}
+		}
+
+		@Override
+		public void cancelled() {
+			untrack();
+			if (callback != null) {
+				callback.cancelled();
+			}
+		}
+
+		/**
+		 * 请求没有结果(取消或未能发出)，只结束进行中的计数
+		 */
+		void untrack() {
+			httpAddressManager.onCancelled(address);
+			release();
+		}
+
+		private void release() {
+			if (permits != null) {
+				permits.release(address);
+			}
+		}
+	}
+
+	private static String address(HttpRequestBase request) {
+		URI uri = request.getURI();
+		return uri.getHost() + ":" + uri.getPort();
+	}
+
+	/**
+	 * 按请求的API选择连接池，开启读连接池时查询、suggest与dump_meta使用读连接池
+	 */
+	private HttpPool pool(HttpRequestBase request) {
+		if (readPool != writePool && READ_APIS.contains(request.getURI().getPath())) {
+			return readPool;
+		}
+		return writePool;
+	}
+
+	/**
+	 * 为读连接池的请求获取目标地址的一个读许可，最长等待读请求的超时时间。写入的许可由批量写入的消费者获取
+	 * 
+	 * @return 获取了许可的SemaphoreManager，请求不需要许可时返回null
+	 * @throws HttpClientException 等待超时或被中断
+	 */
+	private SemaphoreManager acquirePermit(HttpPool pool, HttpRequestBase request) throws HttpClientException {
+		SemaphoreManager permits = pool.getRequestPermits();
+		if (permits == null) {
+			return null;
+		}
+		String address = address(request);
+		try {
+			if (!permits.acquire(address, pool.getTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+				throw new HttpClientException("No " + pool.getName() + " permit of " + address + " within "
+						+ pool.getTimeoutMillis() + "ms");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HttpClientException(e);
+		}
+		return permits;
+	}
+
+	/**
+	 * 设置请求实体。开启压缩时，尚未压缩且达到最小压缩长度的内容压缩到新的缓冲区，并释放原缓冲区。<br>
+	 * 抛出异常时缓冲区已被释放。
+	 *
+	 * @return 实际发送的缓冲区
+	 */
+	private SegmentedByteBuffer setEntity(HttpEntityEnclosingRequestBase request, SegmentedByteBuffer body) {
+		request.addHeader("Content-Type", "application/json");
+		SegmentedByteBuffer content = body;
+		if (this.httpCompress) {
+			request.addHeader("Accept-Encoding", "gzip, deflate");
+			if (content.getContentEncoding() == null && content.size() >= this.httpCompressMinSize) {
+				content = compress(body);
+			}
+		}
+
+		SegmentedByteEntity entity = new SegmentedByteEntity(content);
+		if (content.getContentEncoding() != null) {
+			entity.setContentType("application/json");
+			entity.setContentEncoding(content.getContentEncoding());
+		}
+		request.setEntity(entity);
+		return content;
+	}
+
+	private SegmentedByteBuffer compress(SegmentedByteBuffer body) {
+		PayloadOutputStream out = newRequestBody();
+		try {
+			body.writeTo(out);
+			return out.finish();
+		} catch (IOException e) {
+			out.abort();
+			throw new HttpClientException(e);
+		} finally {
+			body.release();
+		}
+	}
+
+	/**
+	 * 创建请求体输出流，开启压缩时边写入边压缩。<br>
+	 * 写入完成后调用{@link PayloadOutputStream#finish()}得到待发送的缓冲区。
+	 */
+	public PayloadOutputStream newRequestBody() {
+		return new PayloadOutputStream(this.byteSegmentPool, this.httpCompress, this.httpCompressLevel, this.httpCompressMinSize);
+	}
+
+	private void setEntity(HttpEntityEnclosingRequestBase request, String json) {
+		request.addHeader("Content-Type", "application/json");
+		if (!this.httpCompress) {
+			request.setEntity(generateStringEntity(json));
+			return;
+		}
+
+		request.addHeader("Accept-Encoding", "gzip, deflate");
+		byte[] bytes = json.getBytes(DEFAULT_CHARSET);
+		if (bytes.length < this.httpCompressMinSize) {
+			ByteArrayEntity byteEntity = new ByteArrayEntity(bytes);
+			byteEntity.setContentType("application/json");
+			request.setEntity(byteEntity);
+		} else {
+			request.setEntity(generateGZIPCompressEntity(bytes));
+		}
 	}
 
 	private StringEntity generateStringEntity(String json) {
@@ -187,21 +521,18 @@ public class HttpClient {
 		return stringEntity;
 	}
 
-	private ByteArrayEntity generateGZIPCompressEntity(String json) {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		GZIPOutputStream gzip = null;
+	private ByteArrayEntity generateGZIPCompressEntity(byte[] bytes) {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length / 4 + 64);
+		PooledGZIPOutputStream gzip = null;
 		try {
-			gzip = new GZIPOutputStream(baos);
-			gzip.write(json.getBytes(DEFAULT_CHARSET));
+			gzip = new PooledGZIPOutputStream(baos, this.httpCompressLevel);
+			gzip.write(bytes);
+			gzip.finish();
 		} catch (IOException e) {
 			throw new HttpClientException(e);
 		} finally {
-			if(gzip != null) {
-				try {
-					gzip.close();
-				} catch (IOException e) {
-					throw new HttpClientException(e);
-				}
+			if (gzip != null) {
+				gzip.abort();
 			}
 		}
 
@@ -286,6 +617,209 @@ public class HttpClient {
 		return execute(request, json);
 	}
 
+	/**
+	 * 同步发送查询请求。开启查询对冲时，超过对冲等待时间仍未返回则向另一个地址发送相同的请求，
+	 * 先返回的响应生效，另一个请求被取消；两个请求都失败时才抛出异常。未开启时与{@link #post(String, String)}相同
+	 */
+	public HttpResponse postHedged(String apiPath, String json) throws HttpClientException {
+		if (hedgePolicy == null) {
+			return post(apiPath, json);
+		}
+
+		hedgePolicy.onQuery();
+		BasicFuture<HttpResponse> result = new BasicFuture<HttpResponse>(null);
+		AtomicInteger outstanding = new AtomicInteger();
+		String address = httpAddressManager.getAddress();
+		Future<HttpResponse> primary = executeHedged(address, apiPath, json, result, outstanding, false);
+		Future<HttpResponse> hedge = null;
+		try {
+			HttpResponse httpResponse = null;
+			long delay = hedgePolicy.getDelayNanos();
+			if (delay >= 0) {
+				try {
+					httpResponse = result.get(delay, TimeUnit.NANOSECONDS);
+				} catch (TimeoutException e) {
+					String hedgeAddress = httpAddressManager.getAddress(address);
+					if (!hedgeAddress.equals(address)) {
+						hedge = executeHedged(hedgeAddress, apiPath, json, result, outstanding, true);
+					}
+				}
+			}
+			if (httpResponse == null) {
+				httpResponse = result.get();
+			}
+			return httpResponse;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HttpClientException(e);
+		} catch (ExecutionException e) {
+			throw new HttpClientException(e);
+		} finally {
+			// 取消仍在进行的请求，已经完成的请求取消无效
+			primary.cancel(true);
+			if (hedge != null) {
+				hedge.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * @return 对冲请求没有可用的读许可或对冲预算用完时不发送，返回null
+	 */
+	private Future<HttpResponse> executeHedged(String address, String apiPath, String json, BasicFuture<HttpResponse> result,
+			AtomicInteger outstanding, boolean hedge) {
+		final HttpPost request = new HttpPost("http://" + address + apiPath);
+		HttpPool pool = pool(request);
+		SemaphoreManager permits;
+		if (hedge) {
+			// 对冲请求不等待许可，读请求已经饱和时再发送只会加重负载
+			permits = pool.getRequestPermits();
+			if (permits != null && !permits.acquire(address)) {
+				return null;
+			}
+			// 取得许可后才动用预算，没有发出的对冲请求不消耗预算
+			if (!hedgePolicy.tryHedge()) {
+				if (permits != null) {
+					permits.release(address);
+				}
+				return null;
+			}
+		} else {
+			permits = acquirePermit(pool, request);
+		}
+		if (json != null && json.length() > 0) {
+			setEntity(request, json);
+		}
+
+		outstanding.incrementAndGet();
+		unCompletedTaskNum.incrementAndGet();
+		AddressTracker tracker = new AddressTracker(request, new HedgedCallback(result, outstanding, hedge), permits);
+		try {
+			return pool.getHttpclient().execute(request, tracker);
+		} catch (RuntimeException e) {
+			tracker.untrack();
+			outstanding.decrementAndGet();
+			unCompletedTaskNum.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * 对冲查询中一个请求的回调，第一个成功(非5xx)的响应作为结果，所有已发出的请求都失败时以最后一个5xx响应或异常作为结果
+	 */
+	private class HedgedCallback implements FutureCallback<HttpResponse> {
+		private final BasicFuture<HttpResponse> result;
+		private final AtomicInteger outstanding;
+		private final boolean hedge;
+		private final long startTime;
+
+		HedgedCallback(BasicFuture<HttpResponse> result, AtomicInteger outstanding, boolean hedge) {
+			this.result = result;
+			this.outstanding = outstanding;
+			this.hedge = hedge;
+			this.startTime = System.nanoTime();
+		}
+
+		@Override
+		public void completed(HttpResponse httpResponse) {
+			unCompletedTaskNum.decrementAndGet();
+			int remaining = outstanding.decrementAndGet();
+			hedgePolicy.record(System.nanoTime() - startTime);
+			if (httpResponse.getStatusLine().getStatusCode() >= 500) {
+				// 5xx与请求失败相同，只有没有其它进行中的请求时才作为结果
+				if (remaining == 0) {
+					result.completed(httpResponse);
+				}
+				return;
+			}
+			if (result.completed(httpResponse) && hedge) {
+				hedgePolicy.onHedgeWon();
+			}
+		}
+
+		@Override
+		public void failed(Exception ex) {
+			unCompletedTaskNum.decrementAndGet();
+			// 失败请求的耗时同样计入，避免分位数只反映成功的请求
+			hedgePolicy.record(System.nanoTime() - startTime);
+			if (outstanding.decrementAndGet() == 0) {
+				result.failed(ex);
+			}
+		}
+
+		@Override
+		public void cancelled() {
+			unCompletedTaskNum.decrementAndGet();
+			outstanding.decrementAndGet();
+			// 较慢的请求被取消，取消前的耗时仍然计入，避免分位数只反映较快的请求
+			hedgePolicy.record(System.nanoTime() - startTime);
+			result.cancel();
+		}
+	}
+
+	/**
+	 * 同步发送缓冲区中的请求体，调用方转移缓冲区的一次引用，请求结束后由HttpClient释放
+	 */
+	public HttpResponse post(String apiPath, SegmentedByteBuffer body, Map<String, String> params) throws HttpClientException {
+		final HttpPost request;
+		try {
+			String httpFullAPI = getUrl(apiPath);
+			request = new HttpPost(createURI(httpFullAPI, params));
+		} catch (RuntimeException e) {
+			body.release();
+			throw e;
+		}
+		return execute(request, body);
+	}
+
+	/**
+	 * 异步发送缓冲区中的请求体并返回响应的Future，调用方转移缓冲区的一次引用，请求结束后由HttpClient释放
+	 */
+	public Future<HttpResponse> postAsync(String apiPath, SegmentedByteBuffer body, Map<String, String> params) {
+		final HttpPost request;
+		try {
+			String httpFullAPI = getUrl(apiPath);
+			request = new HttpPost(createURI(httpFullAPI, params));
+		} catch (RuntimeException e) {
+			body.release();
+			throw e;
+		}
+
+		final BasicFuture<HttpResponse> future = new BasicFuture<HttpResponse>(null);
+		executeCallback(request, body, new FutureCallback<HttpResponse>() {
+			@Override
+			public void completed(HttpResponse result) {
+				future.completed(result);
+			}
+
+			@Override
+			public void failed(Exception ex) {
+				future.failed(ex);
+			}
+
+			@Override
+			public void cancelled() {
+				future.cancel();
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * 异步发送缓冲区中的请求体，调用方转移缓冲区的一次引用，请求结束后由HttpClient释放
+	 */
+	public void postToAddress(String address, String apiPath, SegmentedByteBuffer body, Map<String, String> params, FutureCallback<HttpResponse> httpCallback) {
+		final HttpPost request;
+		try {
+			String httpFullAPI = "http://" + address + apiPath;
+			request = new HttpPost(createURI(httpFullAPI, params));
+		} catch (RuntimeException e) {
+			body.release();
+			throw e;
+		}
+		executeCallback(request, body, httpCallback);
+	}
+
 	private URI createURI(String httpFullAPI, Map<String, String> params) {
 		URIBuilder builder;
 		try {
@@ -320,15 +854,132 @@ public class HttpClient {
 	}
 
 	public void start() {
-		this.httpclient.start();
+		this.writePool.start();
+		if (this.readPool != this.writePool) {
+			this.readPool.start();
+		}
+		this.healthProber.start();
+		if (this.connectionWarmer != null) {
+			this.connectionWarmer.start();
+		}
+	}
+
+	/**
+	 * 等待启动预热结束，未开启预热时立即返回true
+	 * 
+	 * @return 预热结束且至少有一个连接通过了校验时返回true
+	 */
+	public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+		return connectionWarmer == null || connectionWarmer.awaitReady(timeout, unit);
+	}
+
+	/**
+	 * 启动预热的统计，未开启预热时返回null
+	 */
+	public WarmUpStatistics getWarmUpStatistics() {
+		return connectionWarmer == null ? null : connectionWarmer.getStatistics();
 	}
 
 	public SemaphoreManager getSemaphoreManager() {
-		return semaphoreManager;
+		return writePool.getSemaphoreManager();
+	}
+
+	public RetryScheduler getRetryScheduler() {
+		return retryScheduler;
+	}
+
+	/**
+	 * 异步批量写入的传输，未配置时返回null
+	 */
+	public PutTransport getPutTransport() {
+		return putTransport;
+	}
+
+	/**
+	 * 查询对冲的统计，未开启查询对冲时返回null
+	 */
+	public HedgeStatistics getHedgeStatistics() {
+		return hedgePolicy == null ? null : hedgePolicy.getStatistics();
+	}
+
+	/**
+	 * 写入连接池的使用情况与连接生命周期的统计，未开启读连接池时也包括读请求
+	 */
+	public ConnectionStatistics getConnectionStatistics() {
+		return writePool.getStatistics();
+	}
+
+	/**
+	 * 读连接池的使用情况与连接生命周期的统计，未开启读连接池时返回null
+	 */
+	public ConnectionStatistics getReadConnectionStatistics() {
+		return readPool == writePool ? null : readPool.getStatistics();
+	}
+
+	/**
+	 * 读请求许可的争用与等待统计，未开启读连接池时返回null
+	 */
+	public SemaphoreStatistics getReadSemaphoreStatistics() {
+		return readPool == writePool ? null : readPool.getSemaphoreManager().getStatistics();
+	}
+
+	/**
+	 * 各个地址的请求统计
+	 */
+	public List<AddressStatistics> getAddressStatistics() {
+		return httpAddressManager.getStatistics();
 	}
 
 	public HttpAddressManager getHttpAddressManager() {
 		return httpAddressManager;
 	}
 
+	/**
+	 * 增加一个节点
+	 * 
+	 * @param address host:port
+	 * @return 地址已经存在时返回false
+	 */
+	public boolean addAddress(String address) {
+		writePool.putAddress(address);
+		if (readPool != writePool) {
+			readPool.putAddress(address);
+		}
+		if (!httpAddressManager.addAddress(address)) {
+			return false;
+		}
+		onAddressesChanged(true);
+		return true;
+	}
+
+	/**
+	 * 删除一个节点，进行中的请求不受影响
+	 * 
+	 * @param address host:port
+	 * @return 地址不存在时返回false
+	 */
+	public boolean removeAddress(String address) {
+		if (!httpAddressManager.removeAddress(address)) {
+			return false;
+		}
+		writePool.removeAddress(address);
+		if (readPool != writePool) {
+			readPool.removeAddress(address);
+		}
+		onAddressesChanged(false);
+		return true;
+	}
+
+	private void onAddressesChanged(boolean added) {
+		List<String> addresses = httpAddressManager.getAddresses();
+		writePool.onAddressesChanged(addresses, added);
+		if (readPool != writePool) {
+			readPool.onAddressesChanged(addresses, added);
+		}
+	}
+
+	public ByteSegmentPool getByteSegmentPool() {
+		return byteSegmentPool;
+	}
+
 }
@@ -1,11 +1,8 @@
 package com.alibaba.hitsdb.client.http;
 
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
 
-import org.apache.http.ConnectionReuseStrategy;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.conn.ConnectionKeepAliveStrategy;
@@ -35,30 +32,48 @@ public class HttpClientFactory {
 	public static HttpClient createHttpClient(HiTSDBConfig config) throws HttpClientInitException, VIPClientException {
 		Objects.requireNonNull(config);
 		
-		// 创建 ConnectingIOReactor
-		ConnectingIOReactor ioReactor = initIOReactorConfig(config);
-		
-		// 创建链接管理器
-		final PoolingNHttpClientConnectionManager cm = new PoolingNHttpClientConnectionManager(ioReactor);
-		
 		// 创建令牌管理器
 		semaphoreManager = createSemaphoreManager(config);
 		
-		// 创建HttpAsyncClient
-		CloseableHttpAsyncClient httpAsyncClient = createPoolingHttpClient(config,cm,semaphoreManager);
+		// 创建写入的连接池，未开启读连接池时读请求也使用该连接池
+		HttpPool writePool = createHttpPool(HttpPool.WRITE, config, config.getHttpConnectionPool(), config.getHttpConnectTimeout(),
+				semaphoreManager);
+		
+		// 创建读请求的连接池与读请求许可
+		HttpPool readPool = null;
+		if (config.isReadPool()) {
+			SemaphoreManager readSemaphoreManager = SemaphoreManager.create(config.getAddresses(), config.getReadRequestLimit());
+			readPool = createHttpPool(HttpPool.READ, config, config.getReadConnectionPool(), config.getReadTimeout(), readSemaphoreManager);
+		}
 		
 		// 组合生产HttpClientImpl
-		HttpClient httpClientImpl = new HttpClient(config,httpAsyncClient,semaphoreManager);
+		HttpClient httpClientImpl = new HttpClient(config,writePool,readPool);
 		
 		return httpClientImpl;
 	}
 	
+	private static HttpPool createHttpPool(String name, HiTSDBConfig config, int connectionsPerAddress, int timeout,
+			SemaphoreManager semaphoreManager) {
+		// 创建 ConnectingIOReactor，每个连接池有各自的I/O线程
+		ConnectingIOReactor ioReactor = initIOReactorConfig(config);
+		
+		// 创建链接管理器
+		final PoolingNHttpClientConnectionManager cm = new PoolingNHttpClientConnectionManager(ioReactor);
+		
+		// 创建连接生命周期管理器
+		ConnectionLifecycleManager connectionLifecycleManager = new ConnectionLifecycleManager(config, cm);
+		
+		// 创建HttpAsyncClient
+		CloseableHttpAsyncClient httpAsyncClient = createPoolingHttpClient(config,cm,connectionLifecycleManager,connectionsPerAddress,timeout);
+		
+		// 与RequestConfig一致，0表示不超时
+		long timeoutMillis = timeout > 0 ? timeout * 1000L : Long.MAX_VALUE;
+		return new HttpPool(name, httpAsyncClient, cm, connectionLifecycleManager, semaphoreManager, connectionsPerAddress, timeoutMillis);
+	}
 
-	private static RequestConfig initRequestConfig(HiTSDBConfig config) {
+	private static RequestConfig initRequestConfig(int httpConnectTimeout) {
 		RequestConfig requestConfig = null;
 
-		// 设置请求
-		int httpConnectTimeout = config.getHttpConnectTimeout();
 		// 需要设置
 		if (httpConnectTimeout >= 0) {
 			RequestConfig.Builder requestConfigBuilder = RequestConfig.custom();
@@ -86,56 +101,32 @@ public class HttpClientFactory {
 		}
 	}
 	
-	private static void initFixedCycleCloseConnection(final PoolingNHttpClientConnectionManager cm) {
-		// 定时关闭所有空闲链接
-		Executors.newSingleThreadScheduledExecutor(
-				new ThreadFactory() {
-					
-					@Override
-					public Thread newThread(Runnable r) {
-						Thread t = new Thread(r, "Fixed-Cycle-Close-Connection" );
-						t.setDaemon(true);
-						return t;
-					}
-				}
-				
-		).scheduleAtFixedRate(new Runnable() {
-		
-			@Override
-			public void run() {
-				try {
-					LOGGER.info("Close idle connections, fixed cycle operation");
-					cm.closeIdleConnections(3, TimeUnit.MINUTES);
-				} catch(Exception ex) {
-					LOGGER.error("",ex);
-				}
-			}
-		}, 30, 30, TimeUnit.SECONDS);
-	}
-	
 	private static SemaphoreManager createSemaphoreManager(HiTSDBConfig config) {
 		int httpConnectionPool = config.getHttpConnectionPool();
 		SemaphoreManager semaphoreManager = null;
 		if (httpConnectionPool > 0) {
-			String host = config.getHost();
-			int port = config.getPort();
+			List<String> addresses = config.getAddresses();
 			int activateRequestLimit = config.getActivateRequestLimit();
-			String address = String.format("%s:%d", host,port);
-			semaphoreManager = SemaphoreManager.create(address, activateRequestLimit);
+			if (config.isAdaptiveRequestLimit()) {
+				semaphoreManager = SemaphoreManager.createAdaptive(addresses, activateRequestLimit,
+						config.getAdaptiveRequestLimitMin(), config.getAdaptiveRequestLimitMax());
+			} else {
+				semaphoreManager = SemaphoreManager.create(addresses, activateRequestLimit, config.isActivateRequestLimitSwitch());
+			}
 		}
 		
 		return semaphoreManager;
 	}
 
-	private static CloseableHttpAsyncClient createPoolingHttpClient(HiTSDBConfig config,PoolingNHttpClientConnectionManager cm,SemaphoreManager semaphoreManager) throws HttpClientInitException {
-		int httpConnectionPool = config.getHttpConnectionPool();
-		int httpConnectionLiveTime = config.getHttpConnectionLiveTime();
+	private static CloseableHttpAsyncClient createPoolingHttpClient(HiTSDBConfig config,PoolingNHttpClientConnectionManager cm,ConnectionLifecycleManager connectionLifecycleManager,
+			int httpConnectionPool, int httpConnectTimeout) throws HttpClientInitException {
 		int httpKeepaliveTime = config.getHttpKeepaliveTime();
 		
-		RequestConfig requestConfig = initRequestConfig(config);
+		RequestConfig requestConfig = initRequestConfig(httpConnectTimeout);
 		
 		if (httpConnectionPool > 0) {
-			cm.setMaxTotal(httpConnectionPool);
+			// httpConnectionPool为每个节点的连接数
+			cm.setMaxTotal(httpConnectionPool * config.getAddresses().size());
 			cm.setDefaultMaxPerRoute(httpConnectionPool);
 			cm.closeExpiredConnections();
 		}
@@ -152,21 +143,12 @@ public class HttpClientFactory {
 
 		// 设置Keepalive
 		if (httpKeepaliveTime > 0) {
-			HiTSDBConnectionKeepAliveStrategy hiTSDBConnectionKeepAliveStrategy = new HiTSDBConnectionKeepAliveStrategy(httpConnectionLiveTime);
+			HiTSDBConnectionKeepAliveStrategy hiTSDBConnectionKeepAliveStrategy = new HiTSDBConnectionKeepAliveStrategy(httpKeepaliveTime);
 			httpAsyncClientBuilder.setKeepAliveStrategy(hiTSDBConnectionKeepAliveStrategy);
-		} else if (httpKeepaliveTime == 0) {
-			HiTSDBConnectionReuseStrategy hiTSDBConnectionReuseStrategy = new HiTSDBConnectionReuseStrategy();
-			httpAsyncClientBuilder.setConnectionReuseStrategy(hiTSDBConnectionReuseStrategy);
 		}
 
-		// 设置连接自动关闭
-		if(httpConnectionLiveTime > 0) {
-			HiTSDBHttpAsyncCallbackExecutor httpAsyncCallbackExecutor = new HiTSDBHttpAsyncCallbackExecutor(httpConnectionLiveTime);
-			httpAsyncClientBuilder.setEventHandler(httpAsyncCallbackExecutor);
-		}
-		
-		// 启动定时调度
-		initFixedCycleCloseConnection(cm);
+		// 短连接、连接最长存活时间与最多请求数都由连接生命周期管理器在响应结束时决定
+		httpAsyncClientBuilder.setConnectionReuseStrategy(connectionLifecycleManager);
 
 		CloseableHttpAsyncClient client = httpAsyncClientBuilder.build();
 		return client;
@@ -188,12 +170,3 @@ class HiTSDBConnectionKeepAliveStrategy implements ConnectionKeepAliveStrategy {
 	}
 
 }
-
-class HiTSDBConnectionReuseStrategy implements ConnectionReuseStrategy {
-
-	@Override
-	public boolean keepAlive(HttpResponse response, HttpContext context) {
-		return false;
-	}
-
-}
@@ -0,0 +1,122 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+
+import com.alibaba.hitsdb.client.http.semaphore.SemaphoreManager;
+
+/**
+ * 一组相互隔离的连接资源：异步HttpClient及其I/O线程、连接池、连接生命周期管理与请求许可。<br>
+ * 开启读连接池时读请求与写请求各用一组，互不占用连接与许可；否则读写共用写入的一组。
+ */
+class HttpPool {
+	static final String WRITE = "write";
+	static final String READ = "read";
+
+	private final String name;
+	private final CloseableHttpAsyncClient httpclient;
+	private final PoolingNHttpClientConnectionManager connectionManager;
+	private final ConnectionLifecycleManager connectionLifecycleManager;
+
+	/**
+	 * 请求许可，连接池大小不大于0时为null
+	 */
+	private final SemaphoreManager semaphoreManager;
+
+	/**
+	 * 每个地址的连接数
+	 */
+	private final int connectionsPerAddress;
+
+	/**
+	 * 等待许可的超时时间，单位：毫秒
+	 */
+	private final long timeoutMillis;
+
+	HttpPool(String name, CloseableHttpAsyncClient httpclient, PoolingNHttpClientConnectionManager connectionManager,
+			ConnectionLifecycleManager connectionLifecycleManager, SemaphoreManager semaphoreManager, int connectionsPerAddress,
+			long timeoutMillis) {
+		this.name = name;
+		this.httpclient = httpclient;
+		this.connectionManager = connectionManager;
+		this.connectionLifecycleManager = connectionLifecycleManager;
+		this.semaphoreManager = semaphoreManager;
+		this.connectionsPerAddress = connectionsPerAddress;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	void start() {
+		httpclient.start();
+		connectionLifecycleManager.start();
+	}
+
+	void close() throws IOException {
+		connectionLifecycleManager.stop();
+		httpclient.close();
+	}
+
+	/**
+	 * 增加地址前调用，地址可被选中时已经有许可
+	 */
+	void putAddress(String address) {
+		if (semaphoreManager != null) {
+			semaphoreManager.putAddress(address);
+		}
+	}
+
+	void removeAddress(String address) {
+		if (semaphoreManager != null) {
+			semaphoreManager.removeAddress(address);
+		}
+	}
+
+	/**
+	 * 地址增加或删除后按地址数调整连接总数，增加地址后让其它节点分批让出多出的连接
+	 */
+	void onAddressesChanged(List<String> addresses, boolean added) {
+		if (connectionsPerAddress > 0) {
+			connectionManager.setMaxTotal(connectionsPerAddress * addresses.size());
+		}
+		if (added) {
+			connectionLifecycleManager.rebalance(addresses);
+		}
+	}
+
+	String getName() {
+		return name;
+	}
+
+	CloseableHttpAsyncClient getHttpclient() {
+		return httpclient;
+	}
+
+	PoolingNHttpClientConnectionManager getConnectionManager() {
+		return connectionManager;
+	}
+
+	SemaphoreManager getSemaphoreManager() {
+		return semaphoreManager;
+	}
+
+	/**
+	 * 需要由HttpClient为每个请求获取的许可。写入的许可由批量写入的消费者获取，写入连接池返回null
+	 */
+	SemaphoreManager getRequestPermits() {
+		return READ.equals(name) ? semaphoreManager : null;
+	}
+
+	long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	ConnectionStatistics getStatistics() {
+		ConnectionStatistics statistics = connectionLifecycleManager.getStatistics();
+		statistics.setPool(name);
+		statistics.setMaxTotal(connectionManager.getMaxTotal());
+		return statistics;
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.util.Arrays;
+
+/**
+ * 最近若干次请求耗时的滑动窗口，计算指定的分位数。<br>
+ * 分位数每记录一定次数后重新计算一次，读取时不排序。
+ */
+class LatencyWindow {
+	private final long[] samples;
+	private final double percentile;
+	private final int minSamples;
+	private final int refreshInterval;
+
+	private int count;
+	private int next;
+	private int sinceRefresh;
+	private long value = -1;
+
+	/**
+	 * @param size 窗口大小
+	 * @param percentile 分位，取值范围(0, 100)
+	 * @param minSamples 样本数少于该值时没有分位数
+	 */
+	LatencyWindow(int size, double percentile, int minSamples) {
+		this.samples = new long[size];
+		this.percentile = percentile;
+		this.minSamples = Math.min(minSamples, size);
+		this.refreshInterval = Math.max(1, size / 20);
+	}
+
+	synchronized void record(long latencyNanos) {
+		samples[next] = latencyNanos;
+		next = (next + 1) % samples.length;
+		if (count < samples.length) {
+			count++;
+		}
+		if (count >= minSamples && (value < 0 || ++sinceRefresh >= refreshInterval)) {
+			long[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(percentile / 100 * count) - 1;
+			value = sorted[Math.max(0, Math.min(count - 1, index))];
+			sinceRefresh = 0;
+		}
+	}
+
+	/**
+	 * @return 样本不足时返回-1，单位：纳秒
+	 */
+	synchronized long getPercentile() {
+		return value;
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.util.List;
+
+import com.alibaba.hitsdb.client.value.JSONValue;
+
+/**
+ * 启动预热的统计快照
+ */
+public class WarmUpStatistics extends JSONValue {
+	/**
+	 * 预热是否已经结束
+	 */
+	private boolean finished;
+
+	/**
+	 * 预热结束且至少有一个连接通过了校验
+	 */
+	private boolean ready;
+
+	/**
+	 * 每个节点预建的连接数
+	 */
+	private int connectionsPerAddress;
+
+	/**
+	 * 通过校验的连接数
+	 */
+	private int validatedCount;
+
+	/**
+	 * 建立连接或校验失败的连接数
+	 */
+	private int failedCount;
+
+	/**
+	 * 预热结束时连接池中的连接数
+	 */
+	private int openConnections;
+
+	/**
+	 * 预热耗时，尚未结束时为已经过的时间，单位：毫秒
+	 */
+	private double elapsedMillis;
+
+	/**
+	 * 有连接建立或校验失败的节点
+	 */
+	private List<String> failedAddresses;
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public void setFinished(boolean finished) {
+		this.finished = finished;
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public void setReady(boolean ready) {
+		this.ready = ready;
+	}
+
+	public int getConnectionsPerAddress() {
+		return connectionsPerAddress;
+	}
+
+	public void setConnectionsPerAddress(int connectionsPerAddress) {
+		this.connectionsPerAddress = connectionsPerAddress;
+	}
+
+	public int getValidatedCount() {
+		return validatedCount;
+	}
+
+	public void setValidatedCount(int validatedCount) {
+		this.validatedCount = validatedCount;
+	}
+
+	public int getFailedCount() {
+		return failedCount;
+	}
+
+	public void setFailedCount(int failedCount) {
+		this.failedCount = failedCount;
+	}
+
+	public int getOpenConnections() {
+		return openConnections;
+	}
+
+	public void setOpenConnections(int openConnections) {
+		this.openConnections = openConnections;
+	}
+
+	public double getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public void setElapsedMillis(double elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public List<String> getFailedAddresses() {
+		return failedAddresses;
+	}
+
+	public void setFailedAddresses(List<String> failedAddresses) {
+		this.failedAddresses = failedAddresses;
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.alibaba.hitsdb.client.http.request;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
+
+/**
+ * 以{@link SegmentedByteBuffer}为内容的请求实体，异步发送时逐个分段写入通道，不会合并成连续数组。<br>
+ * 实体不持有缓冲区的引用计数，由发起请求的一方在请求结束后释放缓冲区。
+ * 请求被取消时I/O线程可能仍在写入，此时需通过{@link #release()}释放，保证释放后不会再读取缓冲区。
+ */
+public class SegmentedByteEntity extends AbstractHttpEntity implements HttpAsyncContentProducer {
+    private final SegmentedByteBuffer content;
+    private final ByteBuffer[] buffers;
+    private int index;
+    private boolean released;
+
+    public SegmentedByteEntity(SegmentedByteBuffer content) {
+        this.content = content;
+        this.buffers = content.toByteBuffers();
+    }
+
+    @Override
+    public synchronized void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        if (released) {
+            throw new IOException("The request content has been released");
+        }
+        while (index < buffers.length) {
+            ByteBuffer buffer = buffers[index];
+            encoder.write(buffer);
+            if (buffer.hasRemaining()) {
+                // 通道已写满，等待下一次可写
+                return;
+            }
+            index++;
+        }
+        encoder.complete();
+    }
+
+    /**
+     * 重试请求时会调用该方法，只重置读取位置，不释放缓冲区
+     */
+    @Override
+    public synchronized void close() {
+        for (ByteBuffer buffer : buffers) {
+            buffer.rewind();
+        }
+        index = 0;
+    }
+
+    /**
+     * 释放缓冲区。与写入通道互斥，释放后不会再读取缓冲区，重复调用只释放一次
+     */
+    public synchronized void release() {
+        if (!released) {
+            released = true;
+            content.release();
+        }
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return content.size();
+    }
+
+    @Override
+    public InputStream getContent() {
+        return content.newInputStream();
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        content.writeTo(out);
+        out.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+}
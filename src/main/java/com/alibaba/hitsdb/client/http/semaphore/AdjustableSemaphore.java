@@ -0,0 +1,40 @@
+package com.alibaba.hitsdb.client.http.semaphore;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 许可总数可以调整的公平信号量。<br>
+ * 调小时直接扣减可用许可，可用许可可能暂时为负数，进行中的请求归还许可后恢复。
+ */
+final class AdjustableSemaphore extends Semaphore {
+	private static final long serialVersionUID = 1L;
+
+	private int limit;
+
+	AdjustableSemaphore(int limit) {
+		super(limit, true);
+		this.limit = limit;
+	}
+
+	synchronized void setLimit(int newLimit) {
+		int delta = newLimit - limit;
+		limit = newLimit;
+		if (delta > 0) {
+			release(delta);
+		} else if (delta < 0) {
+			reducePermits(-delta);
+		}
+	}
+
+	synchronized int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * 进行中的请求数
+	 */
+	int getInflight() {
+		return getLimit() - availablePermits();
+	}
+
+}
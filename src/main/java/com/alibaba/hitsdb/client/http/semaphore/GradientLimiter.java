@@ -0,0 +1,131 @@
+package com.alibaba.hitsdb.client.http.semaphore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按请求耗时自适应调整一个地址的并发上限。<br>
+ * 每个采样窗口(至少1秒且至少10个样本)比较窗口内的平均耗时(短期)与长期耗时基线：短期耗时高于基线说明服务端开始排队，按比例(gradient)降低上限；
+ * 耗时平稳时上限每个窗口增加约sqrt(limit)，逐步探测服务端的处理能力。<br>
+ * 窗口内出现5xx或超时则不看耗时，上限直接乘以0.9(AIMD中的乘性减)。<br>
+ * 并发明显低于上限时(请求量本身不足)不会增加上限，避免空闲期间上限无限增长。
+ */
+class GradientLimiter {
+	private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final int WINDOW_MIN_SAMPLES = 10;
+	private static final double BACKOFF_RATIO = 0.9;
+	private static final double RTT_TOLERANCE = 1.5;
+	private static final double SMOOTHING = 0.2;
+	private static final double LONG_RTT_FACTOR = 0.05;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private double limit;
+
+	/**
+	 * 长期耗时基线，单位：纳秒
+	 */
+	private double longRtt;
+
+	private long windowStart;
+	private long windowRttSum;
+	private int windowSamples;
+	private int windowMaxInflight;
+	private boolean windowDropped;
+
+	private long increaseCount;
+	private long decreaseCount;
+
+	GradientLimiter(int initialLimit, int minLimit, int maxLimit, long now) {
+		if (minLimit <= 0 || maxLimit < minLimit) {
+			throw new IllegalArgumentException("Illegal adaptive request limit bounds");
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+		this.windowStart = now;
+	}
+
+	/**
+	 * 记录一个请求的结果
+	 *
+	 * @param rttNanos 请求耗时
+	 * @param inflight 请求发出时进行中的请求数
+	 * @param dropped 是否为5xx或超时
+	 * @param now 当前时间，单位：纳秒
+	 * @return 新的并发上限
+	 */
+	synchronized int onSample(long rttNanos, int inflight, boolean dropped, long now) {
+		if (dropped) {
+			windowDropped = true;
+		} else {
+			windowRttSum += rttNanos;
+			windowSamples++;
+		}
+		if (inflight > windowMaxInflight) {
+			windowMaxInflight = inflight;
+		}
+
+		// 窗口至少持续1秒，请求量再大每秒也只调整一次
+		if (now - windowStart < WINDOW_NANOS) {
+			return getLimit();
+		}
+		// 没有失败时样本不足则延长窗口，避免少量请求的耗时抖动影响上限
+		if (!windowDropped && windowSamples < WINDOW_MIN_SAMPLES) {
+			return getLimit();
+		}
+
+		int oldLimit = getLimit();
+		if (windowDropped) {
+			limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+		} else {
+			adjust((double) windowRttSum / windowSamples);
+		}
+
+		int newLimit = getLimit();
+		if (newLimit > oldLimit) {
+			increaseCount++;
+		} else if (newLimit < oldLimit) {
+			decreaseCount++;
+		}
+
+		windowStart = now;
+		windowRttSum = 0;
+		windowSamples = 0;
+		windowMaxInflight = 0;
+		windowDropped = false;
+		return newLimit;
+	}
+
+	private void adjust(double shortRtt) {
+		if (longRtt == 0) {
+			longRtt = shortRtt;
+		} else {
+			longRtt = longRtt * (1 - LONG_RTT_FACTOR) + shortRtt * LONG_RTT_FACTOR;
+		}
+		// 负载下降后短期耗时远低于基线，基线快速回落，避免长时间高估可以承受的排队
+		if (longRtt > shortRtt * 2) {
+			longRtt = shortRtt * 2;
+		}
+
+		double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+		double newLimit = limit * gradient + Math.sqrt(limit);
+		if (windowMaxInflight * 2 < limit) {
+			newLimit = Math.min(newLimit, limit);
+		}
+		newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+		limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+	}
+
+	synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	synchronized long getIncreaseCount() {
+		return increaseCount;
+	}
+
+	synchronized long getDecreaseCount() {
+		return decreaseCount;
+	}
+
+}
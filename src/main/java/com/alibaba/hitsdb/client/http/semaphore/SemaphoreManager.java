@@ -4,82 +4,297 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * 按地址限制同时进行中的请求数。<br>
+ * 每个地址一个公平信号量，等待许可的线程按先后顺序获得许可并阻塞等待，不再自旋；同时统计许可的争用与等待时间。<br>
+ * 自适应模式下每个地址的许可数由{@link GradientLimiter}根据请求耗时与5xx、超时在上下限之间调整。
+ */
 public class SemaphoreManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(SemaphoreManager.class);
-	private ConcurrentHashMap<String, Semaphore> addressSemaphoreMap;
+	private ConcurrentHashMap<String, AdjustableSemaphore> addressSemaphoreMap;
+	private ConcurrentHashMap<String, GradientLimiter> addressLimiterMap;
 	private int poolNum;
 	private boolean activateRequestLimitSwitch = true;
+	private boolean adaptive;
+	private int minLimit;
+	private int maxLimit;
 
-	private SemaphoreManager(List<String> addresses, int poolNum) {
+	private final AtomicLong acquiredCount = new AtomicLong();
+	private final AtomicLong contendedCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong interruptedCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	private SemaphoreManager(List<String> addresses, int poolNum, boolean activateRequestLimitSwitch, boolean adaptive, int minLimit, int maxLimit) {
 		synchronized (this) {
 			this.poolNum = poolNum;
-			this.addressSemaphoreMap = new ConcurrentHashMap<String, Semaphore>();
+			this.activateRequestLimitSwitch = activateRequestLimitSwitch;
+			this.adaptive = adaptive;
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+			this.addressSemaphoreMap = new ConcurrentHashMap<String, AdjustableSemaphore>();
+			this.addressLimiterMap = new ConcurrentHashMap<String, GradientLimiter>();
 			for (String address : addresses) {
-				Semaphore semaphore = new Semaphore(poolNum);
-				this.addressSemaphoreMap.put(address, semaphore);
+				putAddress(address);
 			}
 		}
 	}
 
-	private SemaphoreManager(String address, int poolNum) {
-		this(Arrays.asList(address), poolNum);
+	private SemaphoreManager(String address, int poolNum, boolean activateRequestLimitSwitch) {
+		this(Arrays.asList(address), poolNum, activateRequestLimitSwitch, false, 0, 0);
 	}
 
 	public static SemaphoreManager create(List<String> addresses, int poolNum) {
-		SemaphoreManager semaphoreManager = new SemaphoreManager(addresses, poolNum);
-		return semaphoreManager;
+		return create(addresses, poolNum, true);
 	}
 
 	public static SemaphoreManager create(String address, int poolNum) {
-		SemaphoreManager semaphoreManager = new SemaphoreManager(address, poolNum);
+		return create(address, poolNum, true);
+	}
+
+	/**
+	 * @param activateRequestLimitSwitch 为false时不限制请求数，获取许可总是成功
+	 */
+	public static SemaphoreManager create(List<String> addresses, int poolNum, boolean activateRequestLimitSwitch) {
+		SemaphoreManager semaphoreManager = new SemaphoreManager(addresses, poolNum, activateRequestLimitSwitch, false, 0, 0);
 		return semaphoreManager;
 	}
 
+	/**
+	 * 创建自适应模式的SemaphoreManager
+	 * 
+	 * @param initialLimit 每个地址的初始许可数
+	 * @param minLimit 每个地址的最小许可数
+	 * @param maxLimit 每个地址的最大许可数
+	 */
+	public static SemaphoreManager createAdaptive(List<String> addresses, int initialLimit, int minLimit, int maxLimit) {
+		if (minLimit <= 0 || maxLimit < minLimit) {
+			throw new IllegalArgumentException("Illegal adaptive request limit bounds");
+		}
+		int limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+		SemaphoreManager semaphoreManager = new SemaphoreManager(addresses, limit, true, true, minLimit, maxLimit);
+		return semaphoreManager;
+	}
+
+	public static SemaphoreManager createAdaptive(String address, int initialLimit, int minLimit, int maxLimit) {
+		return createAdaptive(Arrays.asList(address), initialLimit, minLimit, maxLimit);
+	}
+
+	public static SemaphoreManager create(String address, int poolNum, boolean activateRequestLimitSwitch) {
+		SemaphoreManager semaphoreManager = new SemaphoreManager(address, poolNum, activateRequestLimitSwitch);
+		return semaphoreManager;
+	}
+
+	/**
+	 * 增加地址，地址已经存在时(例如删除时仍有进行中的请求)沿用原有的许可
+	 */
 	public void putAddress(String address) {
-		this.addressSemaphoreMap.put(address, new Semaphore(poolNum));
+		if (this.addressSemaphoreMap.putIfAbsent(address, new AdjustableSemaphore(poolNum)) == null && adaptive) {
+			this.addressLimiterMap.put(address, new GradientLimiter(poolNum, minLimit, maxLimit, System.nanoTime()));
+		}
 	}
 
+	/**
+	 * 不等待地获取许可
+	 * 
+	 * @param address
+	 * @return 没有可用的许可时返回false
+	 */
 	public boolean acquire(String address) {
 		if (!this.activateRequestLimitSwitch) {
 			return true;
 		}
 
-		Semaphore semaphore = this.addressSemaphoreMap.get(address);
+		Semaphore semaphore = getSemaphore(address);
 		if (semaphore == null) {
-			LOGGER.warn("the host:{} does not exist in the SemaphoreManager", address);
 			return false;
 		}
 
-		for (int i = 0; i < 3; i++) {
-			boolean acquire = semaphore.tryAcquire();
-			if (acquire) {
-				return acquire;
+		boolean acquire = semaphore.tryAcquire();
+		if (acquire) {
+			acquiredCount.incrementAndGet();
+		}
+		return acquire;
+	}
+
+	/**
+	 * 阻塞获取许可，按等待的先后顺序获得许可
+	 * 
+	 * @param address
+	 * @param timeout 最长等待时间
+	 * @param unit
+	 * @return 超时或地址不存在时返回false
+	 * @throws InterruptedException 等待过程中被中断
+	 */
+	public boolean acquire(String address, long timeout, TimeUnit unit) throws InterruptedException {
+		if (!this.activateRequestLimitSwitch) {
+			return true;
+		}
+
+		Semaphore semaphore = getSemaphore(address);
+		if (semaphore == null) {
+			return false;
+		}
+
+		// 公平模式下带超时的tryAcquire不会插队，有线程在等待时同样视为争用
+		if (semaphore.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+			acquiredCount.incrementAndGet();
+			return true;
+		}
+
+		contendedCount.incrementAndGet();
+		long start = System.nanoTime();
+		boolean acquire;
+		try {
+			acquire = semaphore.tryAcquire(timeout, unit);
+		} catch (InterruptedException e) {
+			interruptedCount.incrementAndGet();
+			recordWait(System.nanoTime() - start);
+			throw e;
+		}
+		recordWait(System.nanoTime() - start);
+
+		if (acquire) {
+			acquiredCount.incrementAndGet();
+		} else {
+			timeoutCount.incrementAndGet();
+		}
+		return acquire;
+	}
+
+	private AdjustableSemaphore getSemaphore(String address) {
+		AdjustableSemaphore semaphore = this.addressSemaphoreMap.get(address);
+		if (semaphore == null) {
+			LOGGER.warn("the host:{} does not exist in the SemaphoreManager", address);
+		}
+		return semaphore;
+	}
+
+	private void recordWait(long waitNanos) {
+		totalWaitNanos.addAndGet(waitNanos);
+		while (true) {
+			long max = maxWaitNanos.get();
+			if (waitNanos <= max || maxWaitNanos.compareAndSet(max, waitNanos)) {
+				return;
 			}
 		}
+	}
 
-		return false;
+	/**
+	 * 记录一个请求的结果，自适应模式下据此调整该地址的许可数。需要在归还许可之前调用
+	 * 
+	 * @param address
+	 * @param latencyNanos 请求耗时
+	 * @param dropped 是否为5xx或超时等说明服务端过载的失败
+	 */
+	public void onResponse(String address, long latencyNanos, boolean dropped) {
+		if (!adaptive) {
+			return;
+		}
+		GradientLimiter limiter = this.addressLimiterMap.get(address);
+		AdjustableSemaphore semaphore = this.addressSemaphoreMap.get(address);
+		if (limiter == null || semaphore == null) {
+			return;
+		}
+
+		int limit = limiter.onSample(latencyNanos, semaphore.getInflight(), dropped, System.nanoTime());
+		if (limit != semaphore.getLimit()) {
+			LOGGER.debug("Adjust the request limit of {} to {}", address, limit);
+			semaphore.setLimit(limit);
+		}
 	}
 
 	public void release(String address) {
+		if (!this.activateRequestLimitSwitch) {
+			return;
+		}
+
 		Semaphore semaphore = this.addressSemaphoreMap.get(address);
 		if (semaphore != null) {
 			semaphore.release();
 		}
 	}
 
+	/**
+	 * 删除地址，仍有进行中的请求时保留该地址的许可并返回false
+	 */
 	public boolean removeAddress(String address) {
-		Semaphore semaphore = this.addressSemaphoreMap.get(address);
-		if (semaphore.availablePermits() == this.poolNum) {
+		AdjustableSemaphore semaphore = this.addressSemaphoreMap.get(address);
+		if (semaphore == null) {
+			return true;
+		}
+		if (semaphore.getInflight() == 0) {
 			this.addressSemaphoreMap.remove(address);
+			this.addressLimiterMap.remove(address);
 			return true;
 		}
 		return false;
 	}
 
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * 地址进行中的请求数，地址不存在时返回0
+	 */
+	public int getInflight(String address) {
+		AdjustableSemaphore semaphore = this.addressSemaphoreMap.get(address);
+		return semaphore == null ? 0 : semaphore.getInflight();
+	}
+
+	/**
+	 * 地址当前的许可数
+	 */
+	public int getLimit(String address) {
+		AdjustableSemaphore semaphore = this.addressSemaphoreMap.get(address);
+		return semaphore == null ? 0 : semaphore.getLimit();
+	}
+
+	public boolean isActivateRequestLimitSwitch() {
+		return activateRequestLimitSwitch;
+	}
+
+	public SemaphoreStatistics getStatistics() {
+		int permits = 0;
+		int availablePermits = 0;
+		int queueLength = 0;
+		for (AdjustableSemaphore semaphore : addressSemaphoreMap.values()) {
+			permits += semaphore.getLimit();
+			availablePermits += semaphore.availablePermits();
+			queueLength += semaphore.getQueueLength();
+		}
+		long limitIncreaseCount = 0;
+		long limitDecreaseCount = 0;
+		for (GradientLimiter limiter : addressLimiterMap.values()) {
+			limitIncreaseCount += limiter.getIncreaseCount();
+			limitDecreaseCount += limiter.getDecreaseCount();
+		}
+
+		SemaphoreStatistics statistics = new SemaphoreStatistics();
+		statistics.setPermits(activateRequestLimitSwitch ? permits : -1);
+		statistics.setAdaptive(adaptive);
+		statistics.setLimitIncreaseCount(limitIncreaseCount);
+		statistics.setLimitDecreaseCount(limitDecreaseCount);
+		statistics.setAvailablePermits(availablePermits);
+		statistics.setQueueLength(queueLength);
+		statistics.setAcquiredCount(acquiredCount.get());
+		statistics.setContendedCount(contendedCount.get());
+		statistics.setTimeoutCount(timeoutCount.get());
+		statistics.setInterruptedCount(interruptedCount.get());
+		long contended = contendedCount.get();
+		statistics.setAvgWaitMillis(contended == 0 ? 0 : totalWaitNanos.get() / 1e6 / contended);
+		statistics.setMaxWaitMillis(maxWaitNanos.get() / 1e6);
+		return statistics;
+	}
+
 	@Override
 	public String toString() {
 		return addressSemaphoreMap.toString();
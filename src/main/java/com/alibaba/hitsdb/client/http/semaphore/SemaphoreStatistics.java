@@ -0,0 +1,161 @@
+package com.alibaba.hitsdb.client.http.semaphore;
+
+import com.alibaba.hitsdb.client.value.JSONValue;
+
+/**
+ * 请求许可的争用统计快照
+ */
+public class SemaphoreStatistics extends JSONValue {
+	/**
+	 * 所有地址当前的许可数之和，未开启请求数限制时为-1
+	 */
+	private int permits;
+
+	/**
+	 * 是否按请求耗时自适应调整许可数
+	 */
+	private boolean adaptive;
+
+	/**
+	 * 自适应模式下累计调大与调小许可数的次数
+	 */
+	private long limitIncreaseCount;
+	private long limitDecreaseCount;
+
+	/**
+	 * 当前所有地址可用的许可数
+	 */
+	private int availablePermits;
+
+	/**
+	 * 当前等待许可的线程数
+	 */
+	private int queueLength;
+
+	/**
+	 * 累计获得许可的次数
+	 */
+	private long acquiredCount;
+
+	/**
+	 * 累计需要等待许可的次数
+	 */
+	private long contendedCount;
+
+	/**
+	 * 累计等待超时的次数
+	 */
+	private long timeoutCount;
+
+	/**
+	 * 累计等待被中断的次数
+	 */
+	private long interruptedCount;
+
+	/**
+	 * 需要等待时的平均等待时间，单位：毫秒
+	 */
+	private double avgWaitMillis;
+
+	/**
+	 * 最长等待时间，单位：毫秒
+	 */
+	private double maxWaitMillis;
+
+	public int getPermits() {
+		return permits;
+	}
+
+	public void setPermits(int permits) {
+		this.permits = permits;
+	}
+
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	public void setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	public long getLimitIncreaseCount() {
+		return limitIncreaseCount;
+	}
+
+	public void setLimitIncreaseCount(long limitIncreaseCount) {
+		this.limitIncreaseCount = limitIncreaseCount;
+	}
+
+	public long getLimitDecreaseCount() {
+		return limitDecreaseCount;
+	}
+
+	public void setLimitDecreaseCount(long limitDecreaseCount) {
+		this.limitDecreaseCount = limitDecreaseCount;
+	}
+
+	public int getAvailablePermits() {
+		return availablePermits;
+	}
+
+	public void setAvailablePermits(int availablePermits) {
+		this.availablePermits = availablePermits;
+	}
+
+	public int getQueueLength() {
+		return queueLength;
+	}
+
+	public void setQueueLength(int queueLength) {
+		this.queueLength = queueLength;
+	}
+
+	public long getAcquiredCount() {
+		return acquiredCount;
+	}
+
+	public void setAcquiredCount(long acquiredCount) {
+		this.acquiredCount = acquiredCount;
+	}
+
+	public long getContendedCount() {
+		return contendedCount;
+	}
+
+	public void setContendedCount(long contendedCount) {
+		this.contendedCount = contendedCount;
+	}
+
+	public long getTimeoutCount() {
+		return timeoutCount;
+	}
+
+	public void setTimeoutCount(long timeoutCount) {
+		this.timeoutCount = timeoutCount;
+	}
+
+	public long getInterruptedCount() {
+		return interruptedCount;
+	}
+
+	public void setInterruptedCount(long interruptedCount) {
+		this.interruptedCount = interruptedCount;
+	}
+
+	public double getAvgWaitMillis() {
+		return avgWaitMillis;
+	}
+
+	public void setAvgWaitMillis(double avgWaitMillis) {
+		this.avgWaitMillis = avgWaitMillis;
+	}
+
+	public double getMaxWaitMillis() {
+		return maxWaitMillis;
+	}
+
+	public void setMaxWaitMillis(double maxWaitMillis) {
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.alibaba.hitsdb.client.lane;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个批次占用的通道许可，批次处理结束(包括重试)后归还，重复归还无影响
+ */
+public final class LanePermit {
+    private final LaneScheduler scheduler;
+    private final int lane;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    LanePermit(LaneScheduler scheduler, int lane) {
+        this.scheduler = scheduler;
+        this.lane = lane;
+    }
+
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            scheduler.release(lane);
+        }
+    }
+
+    public int getLane() {
+        return lane;
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.alibaba.hitsdb.client.lane;
+
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按权重在各个通道之间分配请求并发许可。<br>
+ * 采用stride scheduling：每个通道维护一个虚拟时间(pass)，每获得一个许可前进stride(与权重成反比)，
+ * 许可不足时总是由等待中pass最小的通道获得许可。通道由空闲转为等待时，pass不小于全局虚拟时间，空闲期间不会积累额度。<br>
+ * 每个通道占用的许可数不超过 许可总数 * permitShare。许可总数可以随节点增减调整。
+ */
+public class LaneScheduler {
+    private static final long STRIDE_BASE = 1L << 20;
+
+    private int totalPermits;
+    private final double[] shares;
+    private final int[] limits;
+    private final long[] strides;
+    private final long[] passes;
+    private final int[] inflight;
+    private final int[] waiting;
+    private final long[] granted;
+    private int available;
+    private long virtualTime;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    /**
+     * @param totalPermits 许可总数
+     * @param lanes 各个通道，下标即通道编号
+     */
+    public LaneScheduler(int totalPermits, List<PutLane> lanes) {
+        if (totalPermits <= 0) {
+            throw new IllegalArgumentException("The total permits must be greater than 0");
+        }
+        int count = lanes.size();
+        this.totalPermits = totalPermits;
+        this.available = totalPermits;
+        this.shares = new double[count];
+        this.limits = new int[count];
+        this.strides = new long[count];
+        this.passes = new long[count];
+        this.inflight = new int[count];
+        this.waiting = new int[count];
+        this.granted = new long[count];
+        for (int i = 0; i < count; i++) {
+            PutLane lane = lanes.get(i);
+            shares[i] = lane.getPermitShare();
+            strides[i] = STRIDE_BASE / lane.getWeight();
+        }
+        updateLimits();
+    }
+
+    private void updateLimits() {
+        for (int i = 0; i < limits.length; i++) {
+            limits[i] = Math.max(1, (int) Math.ceil(totalPermits * shares[i]));
+        }
+    }
+
+    /**
+     * 调整许可总数及各通道上限。减少时已发出的许可不受影响，归还后才会低于新的总数
+     */
+    public void setTotalPermits(int totalPermits) {
+        if (totalPermits <= 0) {
+            throw new IllegalArgumentException("The total permits must be greater than 0");
+        }
+        lock.lock();
+        try {
+            available += totalPermits - this.totalPermits;
+            this.totalPermits = totalPermits;
+            updateLimits();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 为通道获取一个许可，许可不足或未轮到该通道时阻塞
+     */
+    public LanePermit acquire(int lane) throws InterruptedException {
+        lock.lock();
+        try {
+            if (waiting[lane] == 0 && passes[lane] < virtualTime) {
+                passes[lane] = virtualTime;
+            }
+            waiting[lane]++;
+            try {
+                while (available <= 0 || inflight[lane] >= limits[lane] || next() != lane) {
+                    changed.await();
+                }
+            } catch (InterruptedException e) {
+                // 本通道退出等待，其它通道可能因此可以获得许可
+                changed.signalAll();
+                throw e;
+            } finally {
+                waiting[lane]--;
+            }
+
+            available--;
+            inflight[lane]++;
+            granted[lane]++;
+            virtualTime = passes[lane];
+            passes[lane] += strides[lane];
+            changed.signalAll();
+            return new LanePermit(this, lane);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待中且未达到上限的通道里pass最小的通道
+     */
+    private int next() {
+        int next = -1;
+        for (int i = 0; i < passes.length; i++) {
+            if (waiting[i] > 0 && inflight[i] < limits[i] && (next < 0 || passes[i] < passes[next])) {
+                next = i;
+            }
+        }
+        return next;
+    }
+
+    void release(int lane) {
+        lock.lock();
+        try {
+            available++;
+            inflight[lane]--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTotalPermits() {
+        lock.lock();
+        try {
+            return totalPermits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit(int lane) {
+        lock.lock();
+        try {
+            return limits[lane];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInflight(int lane) {
+        lock.lock();
+        try {
+            return inflight[lane];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 通道累计获得的许可数
+     */
+    public long getGranted(int lane) {
+        lock.lock();
+        try {
+            return granted[lane];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.alibaba.hitsdb.client.lane;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 异步写入的优先级通道。<br>
+ * 每个通道有独立的缓冲队列、批次大小、提交间隔与消费者线程，并按权重与许可占比分享请求并发许可。
+ * 数据点按metric匹配通道，或在put时显式指定通道，未匹配的数据点进入默认通道。
+ */
+public final class PutLane {
+    /**
+     * 默认通道的名称，使用HiTSDBConfig中的批量参数
+     */
+    public static final String DEFAULT = "default";
+
+    public static class Builder {
+        private final String name;
+        private int weight = 1;
+        private int batchPutSize = -1;
+        private int batchPutTimeLimit = -1;
+        private int batchPutBufferSize = -1;
+        private double permitShare = 1.0;
+        private int consumerThreadCount = 1;
+        private boolean httpPut = false;
+        private final List<Pattern> metricPatterns = new ArrayList<Pattern>();
+
+        public Builder(String name) {
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("The lane name can't be empty");
+            }
+            if (DEFAULT.equals(name)) {
+                throw new IllegalArgumentException("The lane name '" + DEFAULT + "' is reserved");
+            }
+            this.name = name;
+        }
+
+        private Builder() {
+            this.name = DEFAULT;
+        }
+
+        /**
+         * 请求许可不足时按权重比例分配，默认为1
+         */
+        public Builder weight(int weight) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("The lane weight must be greater than 0");
+            }
+            this.weight = weight;
+            return this;
+        }
+
+        /**
+         * 每批次数据点个数，默认与batchPutSize相同
+         */
+        public Builder batchPutSize(int batchPutSize) {
+            if (batchPutSize <= 0) {
+                throw new IllegalArgumentException("The lane batchPutSize must be greater than 0");
+            }
+            this.batchPutSize = batchPutSize;
+            return this;
+        }
+
+        /**
+         * 批次提交间隔，单位：毫秒，默认与batchPutTimeLimit相同
+         */
+        public Builder batchPutTimeLimit(int batchPutTimeLimit) {
+            if (batchPutTimeLimit <= 0) {
+                throw new IllegalArgumentException("The lane batchPutTimeLimit must be greater than 0");
+            }
+            this.batchPutTimeLimit = batchPutTimeLimit;
+            return this;
+        }
+
+        /**
+         * 缓冲队列长度，默认与batchPutBufferSize相同
+         */
+        public Builder batchPutBufferSize(int batchPutBufferSize) {
+            if (batchPutBufferSize <= 0) {
+                throw new IllegalArgumentException("The lane batchPutBufferSize must be greater than 0");
+            }
+            this.batchPutBufferSize = batchPutBufferSize;
+            return this;
+        }
+
+        /**
+         * 通道最多占用的请求许可比例，取值(0, 1]，默认为1。
+         * 为批量回填等低优先级通道设置小于1的值，可以为其它通道保留许可。
+         */
+        public Builder permitShare(double permitShare) {
+            if (!(permitShare > 0 && permitShare <= 1)) {
+                throw new IllegalArgumentException("The lane permitShare must be in (0, 1]");
+            }
+            this.permitShare = permitShare;
+            return this;
+        }
+
+        public Builder consumerThreadCount(int consumerThreadCount) {
+            if (consumerThreadCount <= 0) {
+                throw new IllegalArgumentException("The lane consumerThreadCount must be greater than 0");
+            }
+            this.consumerThreadCount = consumerThreadCount;
+            return this;
+        }
+
+        /**
+         * 配置了telnetPut或自定义的写入传输时，该通道仍通过HTTP JSON写入，用于需要服务端结果的数据
+         */
+        public Builder httpPut() {
+            this.httpPut = true;
+            return this;
+        }
+
+        /**
+         * metric完全匹配该正则表达式的数据点进入该通道，可以指定多个
+         */
+        public Builder metricPattern(String regex) {
+            this.metricPatterns.add(Pattern.compile(regex));
+            return this;
+        }
+
+        public PutLane build() {
+            return new PutLane(this);
+        }
+    }
+
+    public static Builder name(String name) {
+        return new Builder(name);
+    }
+
+    private final String name;
+    private final int weight;
+    private final int batchPutSize;
+    private final int batchPutTimeLimit;
+    private final int batchPutBufferSize;
+    private final double permitShare;
+    private final int consumerThreadCount;
+    private final boolean httpPut;
+    private final List<Pattern> metricPatterns;
+
+    private PutLane(Builder builder) {
+        this.name = builder.name;
+        this.weight = builder.weight;
+        this.batchPutSize = builder.batchPutSize;
+        this.batchPutTimeLimit = builder.batchPutTimeLimit;
+        this.batchPutBufferSize = builder.batchPutBufferSize;
+        this.permitShare = builder.permitShare;
+        this.consumerThreadCount = builder.consumerThreadCount;
+        this.httpPut = builder.httpPut;
+        this.metricPatterns = Collections.unmodifiableList(new ArrayList<Pattern>(builder.metricPatterns));
+    }
+
+    /**
+     * 默认通道，批量参数为-1表示使用HiTSDBConfig中的配置
+     */
+    public static PutLane defaultLane(int consumerThreadCount) {
+        return new Builder().consumerThreadCount(consumerThreadCount).build();
+    }
+
+    public boolean matches(String metric) {
+        for (Pattern pattern : metricPatterns) {
+            if (pattern.matcher(metric).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getBatchPutSize() {
+        return batchPutSize;
+    }
+
+    public int getBatchPutTimeLimit() {
+        return batchPutTimeLimit;
+    }
+
+    public int getBatchPutBufferSize() {
+        return batchPutBufferSize;
+    }
+
+    public double getPermitShare() {
+        return permitShare;
+    }
+
+    public int getConsumerThreadCount() {
+        return consumerThreadCount;
+    }
+
+    public boolean isHttpPut() {
+        return httpPut;
+    }
+
+    public List<Pattern> getMetricPatterns() {
+        return metricPatterns;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
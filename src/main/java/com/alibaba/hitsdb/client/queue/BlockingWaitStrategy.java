@@ -0,0 +1,52 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class BlockingWaitStrategy implements WaitStrategy {
+    /**
+     * 单次最长阻塞时间。
+     * 等待方在检查条件与进入阻塞之间可能错过一次唤醒，超时后会重新检查条件。
+     */
+    private static final long MAX_BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger(0);
+
+    @Override
+    public void idle(int counter, long deadline) throws InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return;
+        }
+
+        lock.lockInterruptibly();
+        try {
+            // 加锁成功后再计数，加锁时被中断不会留下计数
+            waiters.incrementAndGet();
+            condition.awaitNanos(Math.min(remaining, MAX_BLOCK_NANOS));
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void signalAll() {
+        // 没有等待者时不加锁
+        if (waiters.get() == 0) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.alibaba.hitsdb.client.queue;
+
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public void idle(int counter, long deadline) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    @Override
+    public void signalAll() {
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.alibaba.hitsdb.client.queue;
 
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -34,7 +35,8 @@ public class DataPointQueue implements DataQueue {
                 pointQueue.put(point);
             } catch (InterruptedException e) {
                 LOGGER.error("Client Thread been Interrupted.",e);
-                return;
+                Thread.currentThread().interrupt();
+                throw new BufferQueueFullException("Interrupted while waiting for the buffer queue.", e);
             }
         } else {
             try {
@@ -45,6 +47,14 @@ public class DataPointQueue implements DataQueue {
         }
     }
 
+    @Override
+    public boolean offer(Point point) {
+        if (forbiddenWrite.get()) {
+            throw new IllegalStateException("client has been closed.");
+        }
+        return pointQueue.offer(point);
+    }
+
     public Point receive() throws InterruptedException {
         Point point = null;
         point = pointQueue.take();
@@ -56,6 +66,27 @@ public class DataPointQueue implements DataQueue {
         return point;
     }
 
+    @Override
+    public int receiveBatch(List<Point> sink, int max, long timeout) throws InterruptedException {
+        if (max <= 0) {
+            return 0;
+        }
+
+        int count = pointQueue.drainTo(sink, max);
+        if (count > 0 || timeout <= 0) {
+            return count;
+        }
+
+        // 队列为空，阻塞等待第一个点，之后再一次性取出其余的点
+        Point point = pointQueue.poll(timeout, TimeUnit.MILLISECONDS);
+        if (point == null) {
+            return 0;
+        }
+
+        sink.add(point);
+        return 1 + pointQueue.drainTo(sink, max - 1);
+    }
+
     @Override
     public void forbiddenSend() {
         forbiddenWrite.compareAndSet(false, true);
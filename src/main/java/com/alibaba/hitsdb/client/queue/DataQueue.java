@@ -1,15 +1,26 @@
 package com.alibaba.hitsdb.client.queue;
 
+import java.util.List;
+
 import com.alibaba.hitsdb.client.value.request.Point;
 
 public interface DataQueue {
     /**
-     * 发送
+     * 发送。队列已满时按backpressure配置阻塞等待或抛出{@link com.alibaba.hitsdb.client.exception.BufferQueueFullException}，
+     * 等待期间被中断时保留中断状态并抛出该异常，Point不会放入队列
      * 
      * @param point
      */
     void send(Point point);
 
+    /**
+     * 尝试发送，队列已满时立即返回false，不阻塞也不抛出异常。
+     * 
+     * @param point
+     * @return 是否已放入队列
+     */
+    boolean offer(Point point);
+
     /**
      * 获取Point，获取不到则线程阻塞。
      * 
@@ -26,6 +37,20 @@ public interface DataQueue {
      */
     Point receive(int timeout) throws InterruptedException;
 
+    /**
+     * 批量获取Point，一次取出当前所有可取的Point(最多max个)追加到sink中。
+     * 仅当队列为空时才阻塞等待，若超时返回0。
+     * 
+     * @param sink
+     *            接收Point的列表
+     * @param max
+     *            最多获取的个数
+     * @param timeout
+     *            超时时间，单位毫秒，小于等于0表示不等待
+     * @return 实际获取的个数
+     */
+    int receiveBatch(List<Point> sink, int max, long timeout) throws InterruptedException;
+
     /**
      * 禁止写入数据
      */
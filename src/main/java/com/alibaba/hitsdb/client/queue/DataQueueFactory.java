@@ -1,9 +1,110 @@
 package com.alibaba.hitsdb.client.queue;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.exception.SpillStoreException;
+import com.alibaba.hitsdb.client.lane.PutLane;
+
 public class DataQueueFactory {
 
+    public static DataQueue createDataQueue(HiTSDBConfig config) {
+        List<PutLane> lanes = config.getLanes();
+        if (lanes.isEmpty()) {
+            return createDefaultDataQueue(config);
+        }
+
+        // 默认通道沿用原有的队列配置，其它通道使用各自的队列长度
+        List<PutLane> allLanes = new ArrayList<PutLane>(lanes.size() + 1);
+        List<DataQueue> queues = new ArrayList<DataQueue>(lanes.size() + 1);
+        allLanes.add(PutLane.defaultLane(config.getBatchPutConsumerThreadCount()));
+        queues.add(createDefaultDataQueue(config));
+        for (PutLane lane : lanes) {
+            int bufferSize = lane.getBatchPutBufferSize() > 0 ? lane.getBatchPutBufferSize() : config.getBatchPutBufferSize();
+            int timeLimit = lane.getBatchPutTimeLimit() > 0 ? lane.getBatchPutTimeLimit() : config.getBatchPutTimeLimit();
+            allLanes.add(lane);
+            queues.add(createDataQueue(config.getDataQueueType(), config.getWaitStrategyType(), bufferSize, timeLimit, config.isBackpressure()));
+        }
+        return new LanedDataQueue(allLanes, queues, config.getBatchPutTimeLimit());
+    }
+
+    private static DataQueue createDefaultDataQueue(HiTSDBConfig config) {
+        int batchPutBufferSize = config.getBatchPutBufferSize();
+        int batchPutTimeLimit = config.getBatchPutTimeLimit();
+        boolean backpressure = config.isBackpressure();
+        int partitionCount = config.getBatchPutPartitionCount();
+        String spillDirectory = config.getSpillDirectory();
+        if (partitionCount > 1) {
+            // 缓冲区总长度与磁盘溢出上限平均分配到各个分区
+            int partitionSize = (batchPutBufferSize + partitionCount - 1) / partitionCount;
+            long partitionSpillBytes = Math.max(config.getSpillMaxBytes() / partitionCount, config.getSpillSegmentSize());
+            List<DataQueue> partitions = new ArrayList<DataQueue>(partitionCount);
+            for (int i = 0; i < partitionCount; i++) {
+                DataQueue partition = createDataQueue(config.getDataQueueType(), config.getWaitStrategyType(), partitionSize, batchPutTimeLimit, backpressure);
+                if (spillDirectory != null) {
+                    File directory = new File(spillDirectory, "partition-" + i);
+                    partition = createSpillableDataQueue(partition, directory, config.getSpillSegmentSize(), partitionSpillBytes, batchPutTimeLimit, backpressure);
+                }
+                partitions.add(partition);
+            }
+            return new PartitionedDataQueue(partitions, batchPutTimeLimit);
+        }
+
+        DataQueue queue = createDataQueue(config.getDataQueueType(), config.getWaitStrategyType(), batchPutBufferSize, batchPutTimeLimit, backpressure);
+        if (spillDirectory != null) {
+            queue = createSpillableDataQueue(queue, new File(spillDirectory), config.getSpillSegmentSize(), config.getSpillMaxBytes(), batchPutTimeLimit, backpressure);
+        }
+        return queue;
+    }
+
+    public static DataQueue createSpillableDataQueue(DataQueue memoryQueue, File directory, int segmentSize, long maxBytes,
+            int waitTimeLimit, boolean backpressure) {
+        DiskSpillStore spillStore;
+        try {
+            spillStore = new DiskSpillStore(directory, segmentSize, maxBytes);
+        } catch (IOException e) {
+            throw new SpillStoreException("Failed to open the spill store in " + directory, e);
+        }
+        return new SpillableDataQueue(memoryQueue, spillStore, waitTimeLimit, backpressure);
+    }
+
+    private static DataQueue createDataQueue(DataQueueType dataQueueType, WaitStrategyType waitStrategyType, int batchPutBufferSize,
+            int batchPutTimeLimit, boolean backpressure) {
+        switch (dataQueueType) {
+        case RingBuffer:
+            return createRingBufferQueue(batchPutBufferSize, batchPutTimeLimit, backpressure, waitStrategyType);
+        case ArrayBlocking:
+        default:
+            return createDataPointQueue(batchPutBufferSize, batchPutTimeLimit, backpressure);
+        }
+    }
+
     public static DataQueue createDataPointQueue(int size,int waitTimeLimit,boolean backpressure) {
         DataQueue instance = new DataPointQueue(size,waitTimeLimit,backpressure);
         return instance;
     }
-}
\ No newline at end of file
+
+    public static DataQueue createRingBufferQueue(int size, int waitTimeLimit, boolean backpressure, WaitStrategyType waitStrategyType) {
+        WaitStrategy notEmptyWaitStrategy = createWaitStrategy(waitStrategyType);
+        WaitStrategy notFullWaitStrategy = createWaitStrategy(waitStrategyType);
+        DataQueue instance = new RingBufferDataQueue(size, waitTimeLimit, backpressure, notEmptyWaitStrategy, notFullWaitStrategy);
+        return instance;
+    }
+
+    public static WaitStrategy createWaitStrategy(WaitStrategyType waitStrategyType) {
+        switch (waitStrategyType) {
+        case BusySpin:
+            return new BusySpinWaitStrategy();
+        case Yielding:
+            return new YieldingWaitStrategy();
+        case Blocking:
+            return new BlockingWaitStrategy();
+        case Sleeping:
+        default:
+            return new SleepingWaitStrategy();
+        }
+    }
+}
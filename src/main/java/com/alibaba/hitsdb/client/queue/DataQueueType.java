@@ -0,0 +1,12 @@
+package com.alibaba.hitsdb.client.queue;
+
+public enum DataQueueType {
+    /**
+     * 基于ArrayBlockingQueue的缓冲队列
+     */
+    ArrayBlocking,
+    /**
+     * 基于预分配环形数组的无锁缓冲队列
+     */
+    RingBuffer
+}
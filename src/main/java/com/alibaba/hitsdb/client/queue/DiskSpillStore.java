@@ -0,0 +1,396 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.serialize.PointBinaryCodec;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 基于内存映射分段文件的数据点溢出存储。<br>
+ * 数据点按写入顺序追加到固定大小的分段文件中，每条记录为4字节长度加编码后的数据点。分段读完后删除文件。
+ * 目录中已有的分段文件(例如上次进程退出时未读完的数据)在打开时会被重新读取，因此可能重复发送部分数据点。
+ * 关闭时解除所有映射并保留未读完的分段文件，下次打开时恢复。<br>
+ * 所有方法在同一把锁内执行，线程安全。
+ */
+public class DiskSpillStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskSpillStore.class);
+
+    private static final String SEGMENT_PREFIX = "spill-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * 分段已写满的标记
+     */
+    private static final int SEALED = -1;
+
+    private final File directory;
+    private final int segmentSize;
+    private final long maxBytes;
+
+    /**
+     * 尚未读完的分段，队尾为当前写入的分段
+     */
+    private final Deque<Segment> segments = new ArrayDeque<Segment>();
+    private Segment writeSegment;
+    private long nextSegmentId;
+    /**
+     * 只在持有锁时修改，读取不加锁，生产者据此判断是否需要进入磁盘
+     */
+    private volatile long size;
+    private long spilledPoints;
+    private long restoredPoints;
+    private boolean closed;
+
+    private final RecordBuffer recordBuffer = new RecordBuffer();
+    private final DataOutputStream recordOutput = new DataOutputStream(recordBuffer);
+
+    /**
+     * 可直接访问内部数组的记录编码缓冲，避免复制
+     */
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private static class Segment {
+        final File file;
+        final MappedByteBuffer buffer;
+        final DataInputStream input;
+        int writePosition;
+        int readPosition;
+
+        Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+            this.input = new DataInputStream(new MappedInputStream(buffer));
+        }
+    }
+
+    /**
+     * 在映射区域上顺序读取，读取位置由映射区域的position决定
+     */
+    private static class MappedInputStream extends InputStream {
+        private final MappedByteBuffer buffer;
+
+        MappedInputStream(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+
+    /**
+     * @param directory 分段文件所在目录，不存在时自动创建
+     * @param segmentSize 每个分段文件的字节数
+     * @param maxBytes 所有分段文件的总字节数上限
+     */
+    public DiskSpillStore(File directory, int segmentSize, long maxBytes) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("The segment size can't be less than 1024 bytes");
+        }
+        if (maxBytes < segmentSize) {
+            throw new IllegalArgumentException("The max bytes can't be less than the segment size");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create the spill directory " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        restore();
+    }
+
+    private void restore() throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        long[] ids = new long[files.length];
+        int count = 0;
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                ids[count++] = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                count--;
+                LOGGER.warn("Ignore the unknown file {} in the spill directory", file);
+            }
+        }
+        Arrays.sort(ids, 0, count);
+
+        for (int i = 0; i < count; i++) {
+            Segment segment = map(ids[i], false);
+            int points = scan(segment);
+            if (points == 0) {
+                release(segment);
+                continue;
+            }
+            segments.addLast(segment);
+            size += points;
+            restoredPoints += points;
+            LOGGER.info("Restored {} spilled points from {}", points, segment.file);
+        }
+        if (count > 0) {
+            nextSegmentId = ids[count - 1] + 1;
+        }
+    }
+
+    /**
+     * 扫描已有分段的记录，确定写入位置并返回记录数
+     */
+    private int scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        int points = 0;
+        while (position + 4 <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + 4 + length > buffer.capacity()) {
+                break;
+            }
+            position += 4 + length;
+            points++;
+        }
+        segment.writePosition = position;
+        return points;
+    }
+
+    private Segment map(long id, boolean create) throws IOException {
+        File file = new File(directory, SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (create) {
+                raf.setLength(segmentSize);
+            }
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            return new Segment(file, buffer);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 解除映射并删除分段文件
+     */
+    private void release(Segment segment) {
+        MappedBuffers.unmap(segment.buffer);
+        if (!segment.file.delete()) {
+            LOGGER.warn("Failed to delete the spill segment {}", segment.file);
+            segment.file.deleteOnExit();
+        }
+    }
+
+    /**
+     * 追加一个数据点
+     * 
+     * @param point
+     * @return 超过磁盘上限或写入失败时返回false
+     */
+    public synchronized boolean append(Point point) {
+        if (closed) {
+            return false;
+        }
+        recordBuffer.reset();
+        try {
+            PointBinaryCodec.encode(point, recordOutput);
+        } catch (IOException e) {
+            LOGGER.error("Failed to encode the point to spill", e);
+            return false;
+        }
+        int length = recordBuffer.size();
+        if (4 + length > segmentSize) {
+            LOGGER.error("The point is larger than the spill segment size {}", segmentSize);
+            return false;
+        }
+
+        Segment segment = writeSegment;
+        if (segment == null || segment.writePosition + 4 + length > segmentSize) {
+            if (segment != null) {
+                seal(segment);
+            }
+            segment = nextSegment();
+            if (segment == null) {
+                return false;
+            }
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.writePosition;
+        // 先写数据体再写长度，进程中途退出时不会留下不完整的记录。借助duplicate写入，不影响读取位置
+        ByteBuffer target = buffer.duplicate();
+        target.position(position + 4);
+        target.put(recordBuffer.array(), 0, length);
+        buffer.putInt(position, length);
+        segment.writePosition = position + 4 + length;
+        size++;
+        spilledPoints++;
+        return true;
+    }
+
+    private void seal(Segment segment) {
+        if (segment.writePosition + 4 <= segmentSize) {
+            segment.buffer.putInt(segment.writePosition, SEALED);
+        }
+        writeSegment = null;
+    }
+
+    private Segment nextSegment() {
+        if ((long) (segments.size() + 1) * segmentSize > maxBytes) {
+            return null;
+        }
+        try {
+            Segment segment = map(nextSegmentId++, true);
+            segments.addLast(segment);
+            writeSegment = segment;
+            return segment;
+        } catch (IOException e) {
+            LOGGER.error("Failed to create the spill segment", e);
+            return null;
+        }
+    }
+
+    /**
+     * 按写入顺序取出最多max个数据点
+     * 
+     * @return 实际取出的个数
+     */
+    public synchronized int drainTo(List<Point> sink, int max) {
+        int count = 0;
+        while (count < max) {
+            Segment segment = segments.peekFirst();
+            if (segment == null) {
+                break;
+            }
+
+            if (segment.readPosition >= segment.writePosition) {
+                segments.pollFirst();
+                release(segment);
+                if (segment == writeSegment) {
+                    // 读取追上写入，释放当前分段，下次溢出时再创建
+                    writeSegment = null;
+                    break;
+                }
+                continue;
+            }
+
+            MappedByteBuffer buffer = segment.buffer;
+            int length = buffer.getInt(segment.readPosition);
+            buffer.position(segment.readPosition + 4);
+            segment.readPosition += 4 + length;
+            size--;
+            try {
+                sink.add(PointBinaryCodec.decode(segment.input));
+                count++;
+            } catch (IOException e) {
+                LOGGER.error("Failed to decode the spilled point in " + segment.file + ", skip it", e);
+            }
+        }
+        return count;
+    }
+
+    public synchronized Point poll() {
+        List<Point> sink = new ArrayList<Point>(1);
+        if (drainTo(sink, 1) == 0) {
+            return null;
+        }
+        return sink.get(0);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 当前存储的数据点个数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 当前占用的磁盘字节数
+     */
+    public synchronized long getDiskBytes() {
+        return (long) segments.size() * segmentSize;
+    }
+
+    /**
+     * 累计溢出到磁盘的数据点个数
+     */
+    public synchronized long getSpilledPoints() {
+        return spilledPoints;
+    }
+
+    /**
+     * 打开时从已有分段恢复的数据点个数
+     */
+    public synchronized long getRestoredPoints() {
+        return restoredPoints;
+    }
+
+    /**
+     * 解除所有分段的映射，未读完的分段文件保留在目录中。关闭后不能再追加或取出数据点
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments) {
+            MappedBuffers.unmap(segment.buffer);
+        }
+        segments.clear();
+        writeSegment = null;
+        size = 0;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+}
@@ -0,0 +1,247 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.lane.PutLane;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 按优先级通道划分的缓冲队列。<br>
+ * 每个通道一个独立的队列，数据点按metric匹配第一个符合的通道，或由调用方显式指定通道，未匹配的数据点进入默认通道(下标0)。
+ * 各个通道的队列由各自的消费者线程消费。
+ */
+public class LanedDataQueue implements DataQueue, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LanedDataQueue.class);
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * metric路由结果缓存的上限，避免metric数量无限增长时占用过多内存
+     */
+    private static final int MAX_ROUTE_CACHE_SIZE = 65536;
+
+    private final PutLane[] lanes;
+    private final DataQueue[] queues;
+    private final Map<String, Integer> laneIndexes = new HashMap<String, Integer>();
+    private final ConcurrentHashMap<String, Integer> routeCache = new ConcurrentHashMap<String, Integer>();
+    private final AtomicBoolean forbiddenWrite = new AtomicBoolean(false);
+    private final int waitCloseTimeLimit;
+    private int receiveIndex;
+
+    /**
+     * @param lanes 各个通道，第一个为默认通道
+     * @param queues 与通道一一对应的队列
+     */
+    public LanedDataQueue(List<PutLane> lanes, List<DataQueue> queues, int waitCloseTimeLimit) {
+        if (lanes == null || lanes.isEmpty() || queues == null || lanes.size() != queues.size()) {
+            throw new IllegalArgumentException("Each lane must have one queue");
+        }
+        this.lanes = lanes.toArray(new PutLane[lanes.size()]);
+        this.queues = queues.toArray(new DataQueue[queues.size()]);
+        for (int i = 0; i < this.lanes.length; i++) {
+            if (laneIndexes.put(this.lanes[i].getName(), i) != null) {
+                throw new IllegalArgumentException("Duplicate lane name " + this.lanes[i].getName());
+            }
+        }
+        this.waitCloseTimeLimit = waitCloseTimeLimit;
+    }
+
+    /**
+     * 计算数据点所属的通道
+     *
+     * @param point
+     * @return 通道下标
+     */
+    public int route(Point point) {
+        String metric = point.getMetric();
+        if (metric == null) {
+            return 0;
+        }
+        Integer index = routeCache.get(metric);
+        if (index != null) {
+            return index;
+        }
+
+        int lane = 0;
+        for (int i = 1; i < lanes.length; i++) {
+            if (lanes[i].matches(metric)) {
+                lane = i;
+                break;
+            }
+        }
+        if (routeCache.size() < MAX_ROUTE_CACHE_SIZE) {
+            routeCache.put(metric, lane);
+        }
+        return lane;
+    }
+
+    private int laneIndex(String lane) {
+        Integer index = laneIndexes.get(lane);
+        if (index == null) {
+            throw new IllegalArgumentException("The lane " + lane + " does not exist");
+        }
+        return index;
+    }
+
+    private void checkWritable() {
+        if (forbiddenWrite.get()) {
+            throw new IllegalStateException("client has been closed.");
+        }
+    }
+
+    @Override
+    public void send(Point point) {
+        checkWritable();
+        queues[route(point)].send(point);
+    }
+
+    /**
+     * 写入指定的通道
+     */
+    public void send(Point point, String lane) {
+        checkWritable();
+        queues[laneIndex(lane)].send(point);
+    }
+
+    @Override
+    public boolean offer(Point point) {
+        checkWritable();
+        return queues[route(point)].offer(point);
+    }
+
+    @Override
+    public Point receive() throws InterruptedException {
+        while (true) {
+            Point point = receive(Integer.MAX_VALUE);
+            if (point != null) {
+                return point;
+            }
+        }
+    }
+
+    @Override
+    public Point receive(int timeout) throws InterruptedException {
+        List<Point> sink = new ArrayList<Point>(1);
+        int count = receiveBatch(sink, 1, timeout);
+        if (count == 0) {
+            return null;
+        }
+        return sink.get(0);
+    }
+
+    /**
+     * 轮询各个通道获取Point。<br>
+     * 通道队列通常由各自的消费者线程直接消费，该方法仅用于不区分通道的消费场景。
+     */
+    @Override
+    public int receiveBatch(List<Point> sink, int max, long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(timeout, 0));
+        while (true) {
+            int count = 0;
+            int start = nextReceiveIndex();
+            for (int i = 0; i < queues.length && count < max; i++) {
+                count += queues[(start + i) % queues.length].receiveBatch(sink, max - count, 0);
+            }
+
+            if (count > 0 || timeout <= 0) {
+                return count;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return 0;
+            }
+
+            LockSupport.parkNanos(Math.min(remaining, POLL_INTERVAL_NANOS));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private int nextReceiveIndex() {
+        // 不要求严格轮询，无需同步
+        int index = receiveIndex;
+        receiveIndex = (index + 1) % queues.length;
+        return index;
+    }
+
+    @Override
+    public void forbiddenSend() {
+        forbiddenWrite.compareAndSet(false, true);
+        for (DataQueue queue : queues) {
+            queue.forbiddenSend();
+        }
+    }
+
+    @Override
+    public void waitEmpty() {
+        // 等待为空之前，必须已经设置了禁止写入
+        if (forbiddenWrite.get()) {
+            while (true) {
+                try {
+                    Thread.sleep(waitCloseTimeLimit);
+                } catch (InterruptedException e) {
+                    LOGGER.warn("The waitEmpty() method is being illegally interrupted");
+                }
+
+                if (isEmpty()) {
+                    return;
+                }
+            }
+        } else {
+            throw new IllegalStateException(
+                    "The queue is still allowed to write data. you must first call the forbiddenSend() method");
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (DataQueue queue : queues) {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 关闭各个通道中需要关闭的队列，例如磁盘溢出队列
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataQueue queue : queues) {
+            if (queue instanceof Closeable) {
+                ((Closeable) queue).close();
+            }
+        }
+    }
+
+    public List<PutLane> getLanes() {
+        List<PutLane> list = new ArrayList<PutLane>(lanes.length);
+        Collections.addAll(list, lanes);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 与通道一一对应的队列
+     */
+    public List<DataQueue> getQueues() {
+        List<DataQueue> list = new ArrayList<DataQueue>(queues.length);
+        Collections.addAll(list, queues);
+        return Collections.unmodifiableList(list);
+    }
+
+}
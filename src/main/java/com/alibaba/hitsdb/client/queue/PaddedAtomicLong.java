@@ -0,0 +1,24 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 填充缓存行的AtomicLong，避免生产者序号与消费者序号之间的伪共享。
+ */
+class PaddedAtomicLong extends AtomicLong {
+    private static final long serialVersionUID = -3415778863941386253L;
+
+    public volatile long p1, p2, p3, p4, p5, p6 = 7L;
+
+    public PaddedAtomicLong(long initialValue) {
+        super(initialValue);
+    }
+
+    /**
+     * 防止填充字段被优化掉
+     */
+    public long sumPaddingToPreventOptimisation() {
+        return p1 + p2 + p3 + p4 + p5 + p6;
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 按时间线分区的缓冲队列。<br>
+ * 根据metric与tags的哈希值将Point路由到固定的分区，同一时间线的点始终进入同一个分区，
+ * 每个分区由独立的消费者线程消费，保证了同一时间线内的写入顺序。
+ */
+public class PartitionedDataQueue implements DataQueue, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedDataQueue.class);
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final DataQueue[] partitions;
+    private final AtomicBoolean forbiddenWrite = new AtomicBoolean(false);
+    private final int waitCloseTimeLimit;
+    private int receiveIndex;
+
+    public PartitionedDataQueue(List<DataQueue> partitions, int waitCloseTimeLimit) {
+        if (partitions == null || partitions.isEmpty()) {
+            throw new IllegalArgumentException("The partitions can't be empty");
+        }
+        this.partitions = partitions.toArray(new DataQueue[partitions.size()]);
+        this.waitCloseTimeLimit = waitCloseTimeLimit;
+    }
+
+    /**
+     * 计算Point所属的分区
+     *
+     * @param point
+     * @return 分区下标
+     */
+    public int partition(Point point) {
+        int hash = 0;
+        String metric = point.getMetric();
+        if (metric != null) {
+            hash = metric.hashCode();
+        }
+
+        Map<String, String> tags = point.getTags();
+        if (tags != null) {
+            // Map的hashCode与tag的顺序无关
+            hash = hash * 31 + tags.hashCode();
+        }
+
+        hash ^= (hash >>> 16);
+        return (hash & 0x7fffffff) % partitions.length;
+    }
+
+    @Override
+    public void send(Point point) {
+        if (forbiddenWrite.get()) {
+            throw new IllegalStateException("client has been closed.");
+        }
+
+        partitions[partition(point)].send(point);
+    }
+
+    @Override
+    public boolean offer(Point point) {
+        if (forbiddenWrite.get()) {
+            throw new IllegalStateException("client has been closed.");
+        }
+
+        return partitions[partition(point)].offer(point);
+    }
+
+    @Override
+    public Point receive() throws InterruptedException {
+        while (true) {
+            Point point = receive(Integer.MAX_VALUE);
+            if (point != null) {
+                return point;
+            }
+        }
+    }
+
+    @Override
+    public Point receive(int timeout) throws InterruptedException {
+        List<Point> sink = new ArrayList<Point>(1);
+        int count = receiveBatch(sink, 1, timeout);
+        if (count == 0) {
+            return null;
+        }
+        return sink.get(0);
+    }
+
+    /**
+     * 轮询各个分区获取Point。<br>
+     * 分区队列通常由各自的消费者线程直接消费，该方法仅用于不区分分区的消费场景。
+     */
+    @Override
+    public int receiveBatch(List<Point> sink, int max, long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(timeout, 0));
+        while (true) {
+            int count = 0;
+            int start = nextReceiveIndex();
+            for (int i = 0; i < partitions.length && count < max; i++) {
+                DataQueue partition = partitions[(start + i) % partitions.length];
+                count += partition.receiveBatch(sink, max - count, 0);
+            }
+
+            if (count > 0 || timeout <= 0) {
+                return count;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return 0;
+            }
+
+            LockSupport.parkNanos(Math.min(remaining, POLL_INTERVAL_NANOS));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private int nextReceiveIndex() {
+        // 不要求严格轮询，无需同步
+        int index = receiveIndex;
+        receiveIndex = (index + 1) % partitions.length;
+        return index;
+    }
+
+    @Override
+    public void forbiddenSend() {
+        forbiddenWrite.compareAndSet(false, true);
+        for (DataQueue partition : partitions) {
+            partition.forbiddenSend();
+        }
+    }
+
+    @Override
+    public void waitEmpty() {
+        // 等待为空之前，必须已经设置了禁止写入
+        if (forbiddenWrite.get()) {
+            while (true) {
+                try {
+                    Thread.sleep(waitCloseTimeLimit);
+                } catch (InterruptedException e) {
+                    LOGGER.warn("The waitEmpty() method is being illegally interrupted");
+                }
+
+                if (isEmpty()) {
+                    return;
+                }
+            }
+        } else {
+            throw new IllegalStateException(
+                    "The queue is still allowed to write data. you must first call the forbiddenSend() method");
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (DataQueue partition : partitions) {
+            if (!partition.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 关闭各个分区中需要关闭的队列，例如磁盘溢出队列
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataQueue queue : partitions) {
+            if (queue instanceof Closeable) {
+                ((Closeable) queue).close();
+            }
+        }
+    }
+
+    /**
+     * 各个分区队列
+     *
+     * @return
+     */
+    public List<DataQueue> getPartitions() {
+        return Collections.unmodifiableList(Arrays.asList(partitions));
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+}
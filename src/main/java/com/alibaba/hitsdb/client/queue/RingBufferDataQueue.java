@@ -0,0 +1,307 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.exception.BufferQueueFullException;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 基于预分配环形数组的无锁缓冲队列。<br>
+ * 每个槽位维护一个序号，生产者与消费者分别通过CAS推进写序号与读序号，支持多生产者、多消费者并发访问。
+ */
+public class RingBufferDataQueue implements DataQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RingBufferDataQueue.class);
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final Point[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    /**
+     * 写序号，生产者竞争
+     */
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+
+    /**
+     * 读序号，消费者竞争
+     */
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+
+    /**
+     * 队列为空时消费者的等待策略
+     */
+    private final WaitStrategy notEmptyWaitStrategy;
+
+    /**
+     * 队列已满时生产者的等待策略
+     */
+    private final WaitStrategy notFullWaitStrategy;
+
+    private final AtomicBoolean forbiddenWrite = new AtomicBoolean(false);
+    private final int waitCloseTimeLimit;
+    private final boolean backpressure;
+
+    public RingBufferDataQueue(int size, int waitCloseTimeLimit, boolean backpressure, WaitStrategy notEmptyWaitStrategy,
+            WaitStrategy notFullWaitStrategy) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size of the ring buffer must be greater than 0");
+        }
+        if (size > MAX_CAPACITY) {
+            throw new IllegalArgumentException("The size of the ring buffer can't be greater than " + MAX_CAPACITY);
+        }
+
+        int capacity = tableSizeFor(size);
+        this.buffer = new Point[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.waitCloseTimeLimit = waitCloseTimeLimit;
+        this.backpressure = backpressure;
+        this.notEmptyWaitStrategy = notEmptyWaitStrategy;
+        this.notFullWaitStrategy = notFullWaitStrategy;
+    }
+
+    /**
+     * 容量至少为2。只有一个槽位时，已写入槽位的序号与下一次写入的位置相同，无法区分队列已满
+     */
+    private static int tableSizeFor(int size) {
+        int capacity = 2;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @Override
+    public void send(Point point) {
+        if (forbiddenWrite.get()) {
+            throw new IllegalStateException("client has been closed.");
+        }
+
+        if (tryOffer(point)) {
+            return;
+        }
+
+        if (this.backpressure) {
+            int counter = 0;
+            while (!tryOffer(point)) {
+                try {
+                    notFullWaitStrategy.idle(counter++, Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    LOGGER.error("Client Thread been Interrupted.", e);
+                    Thread.currentThread().interrupt();
+                    throw new BufferQueueFullException("Interrupted while waiting for the buffer queue.", e);
+                }
+            }
+        } else {
+            throw new BufferQueueFullException("The buffer queue is full.", null);
+        }
+    }
+
+    @Override
+    public Point receive() throws InterruptedException {
+        int counter = 0;
+        while (true) {
+            Point point = poll();
+            if (point != null) {
+                return point;
+            }
+            notEmptyWaitStrategy.idle(counter++, Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public Point receive(int timeout) throws InterruptedException {
+        Point point = poll();
+        if (point != null) {
+            return point;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        int counter = 0;
+        while (true) {
+            notEmptyWaitStrategy.idle(counter++, deadline);
+            point = poll();
+            if (point != null) {
+                return point;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public int receiveBatch(List<Point> sink, int max, long timeout) throws InterruptedException {
+        if (max <= 0) {
+            return 0;
+        }
+
+        int count = drainTo(sink, max);
+        if (count > 0 || timeout <= 0) {
+            return count;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        int counter = 0;
+        while (true) {
+            notEmptyWaitStrategy.idle(counter++, deadline);
+            count = drainTo(sink, max);
+            if (count > 0) {
+                return count;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(Point point) {
+        if (forbiddenWrite.get()) {
+            throw new IllegalStateException("client has been closed.");
+        }
+        return tryOffer(point);
+    }
+
+    private boolean tryOffer(Point point) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long dif = sequences.get(index) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = point;
+                    sequences.lazySet(index, pos + 1);
+                    notEmptyWaitStrategy.signalAll();
+                    return true;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                // 槽位尚未被消费，队列已满
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private Point poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long dif = sequences.get(index) - (pos + 1);
+            if (dif == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    Point point = buffer[index];
+                    buffer[index] = null;
+                    sequences.lazySet(index, pos + mask + 1);
+                    notFullWaitStrategy.signalAll();
+                    return point;
+                }
+                pos = head.get();
+            } else if (dif < 0) {
+                // 槽位尚未写入，队列为空
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * 一次CAS认领读序号之后连续的已写入槽位，批量取出
+     */
+    private int drainTo(List<Point> sink, int max) {
+        long pos = head.get();
+        while (true) {
+            int available = 0;
+            while (available < max) {
+                long current = pos + available;
+                if (sequences.get((int) (current & mask)) != current + 1) {
+                    break;
+                }
+                available++;
+            }
+
+            if (available == 0) {
+                long newPos = head.get();
+                if (newPos == pos) {
+                    // 槽位尚未写入，队列为空
+                    return 0;
+                }
+                pos = newPos;
+                continue;
+            }
+
+            if (head.compareAndSet(pos, pos + available)) {
+                for (int i = 0; i < available; i++) {
+                    long current = pos + i;
+                    int index = (int) (current & mask);
+                    sink.add(buffer[index]);
+                    buffer[index] = null;
+                    sequences.lazySet(index, current + mask + 1);
+                }
+                notFullWaitStrategy.signalAll();
+                return available;
+            }
+            pos = head.get();
+        }
+    }
+
+    @Override
+    public void forbiddenSend() {
+        forbiddenWrite.compareAndSet(false, true);
+    }
+
+    @Override
+    public void waitEmpty() {
+        // 等待为空之前，必须已经设置了禁止写入
+        if (forbiddenWrite.get()) {
+            try {
+                Thread.sleep(waitCloseTimeLimit);
+            } catch (InterruptedException e) {
+                LOGGER.warn("The method waitEmpty() is being illegally interrupted");
+            }
+
+            while (true) {
+                boolean empty = isEmpty();
+                if (empty) {
+                    return;
+                } else {
+                    try {
+                        Thread.sleep(waitCloseTimeLimit);
+                    } catch (InterruptedException e) {
+                        LOGGER.warn("The waitEmpty() method is being illegally interrupted");
+                    }
+                }
+            }
+        } else {
+            throw new IllegalStateException(
+                    "The queue is still allowed to write data. you must first call the forbiddenSend() method");
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    /**
+     * 环形数组实际容量，为不小于配置长度的2的幂
+     *
+     * @return
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+}
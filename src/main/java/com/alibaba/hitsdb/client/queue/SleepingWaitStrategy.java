@@ -0,0 +1,35 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class SleepingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long SLEEP_NANOS = 100 * 1000L;
+
+    @Override
+    public void idle(int counter, long deadline) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        if (counter < SPIN_TRIES) {
+            return;
+        }
+
+        if (counter < YIELD_TRIES) {
+            Thread.yield();
+            return;
+        }
+
+        long remaining = deadline - System.nanoTime();
+        if (remaining > 0) {
+            LockSupport.parkNanos(Math.min(remaining, SLEEP_NANOS));
+        }
+    }
+
+    @Override
+    public void signalAll() {
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.exception.BufferQueueFullException;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 带磁盘溢出的缓冲队列。<br>
+ * 内存队列已满时，Point追加到{@link DiskSpillStore}的分段文件中；磁盘也达到上限时，
+ * 按backpressure配置阻塞等待或抛出{@link BufferQueueFullException}。<br>
+ * 磁盘中还有Point时，新的Point一律追加到磁盘，即使内存队列已有空位。磁盘中的Point总是晚于内存队列中的Point，
+ * 消费时先取内存队列再取磁盘，保持写入顺序。
+ */
+public class SpillableDataQueue implements DataQueue, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillableDataQueue.class);
+
+    /**
+     * 等待内存队列时检查磁盘的间隔。
+     * 生产者判断磁盘非空与消费者取完磁盘并发时，Point可能在消费者等待内存队列期间追加到磁盘
+     */
+    private static final long SPILL_CHECK_MILLIS = 10;
+
+    private final DataQueue memoryQueue;
+    private final DiskSpillStore spillStore;
+    private final AtomicBoolean forbiddenWrite = new AtomicBoolean(false);
+    private final int waitCloseTimeLimit;
+    private final boolean backpressure;
+
+    /**
+     * 内存与磁盘都已满时，生产者在notFull上等待，消费者取出Point后唤醒
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger(0);
+
+    public SpillableDataQueue(DataQueue memoryQueue, DiskSpillStore spillStore, int waitCloseTimeLimit, boolean backpressure) {
+        this.memoryQueue = memoryQueue;
+        this.spillStore = spillStore;
+        this.waitCloseTimeLimit = waitCloseTimeLimit;
+        this.backpressure = backpressure;
+    }
+
+    @Override
+    public void send(Point point) {
+        if (offer(point)) {
+            return;
+        }
+
+        if (this.backpressure) {
+            lock.lock();
+            try {
+                // 先计数再检查，消费者取出Point后一定能看到等待者
+                waiters.incrementAndGet();
+                while (!offer(point)) {
+                    notFull.await();
+                }
+            } catch (InterruptedException e) {
+                LOGGER.error("Client Thread been Interrupted.");
+                Thread.currentThread().interrupt();
+                throw new BufferQueueFullException("Interrupted while waiting for the buffer queue.", e);
+            } finally {
+                waiters.decrementAndGet();
+                lock.unlock();
+            }
+        } else {
+            throw new BufferQueueFullException("The buffer queue and the spill store are full.", null);
+        }
+    }
+
+    @Override
+    public boolean offer(Point point) {
+        if (forbiddenWrite.get()) {
+            throw new IllegalStateException("client has been closed.");
+        }
+
+        // 磁盘非空时直接追加到磁盘，保证磁盘中的Point都晚于内存队列中的Point。
+        // isEmpty()不加锁，没有溢出时生产者不会争用磁盘存储的锁
+        if (spillStore.isEmpty() && memoryQueue.offer(point)) {
+            return true;
+        }
+        return spillStore.append(point);
+    }
+
+    @Override
+    public Point receive() throws InterruptedException {
+        while (true) {
+            Point point = receive((int) SPILL_CHECK_MILLIS);
+            if (point != null) {
+                return point;
+            }
+        }
+    }
+
+    @Override
+    public Point receive(int timeout) throws InterruptedException {
+        List<Point> sink = new ArrayList<Point>(1);
+        if (receiveBatch(sink, 1, timeout) == 0) {
+            return null;
+        }
+        return sink.get(0);
+    }
+
+    @Override
+    public int receiveBatch(List<Point> sink, int max, long timeout) throws InterruptedException {
+        if (max <= 0) {
+            return 0;
+        }
+
+        int count = drainTo(sink, max);
+        if (count > 0 || timeout <= 0) {
+            return count;
+        }
+
+        long deadline = System.currentTimeMillis() + timeout;
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return 0;
+            }
+            count = memoryQueue.receiveBatch(sink, max, Math.min(remaining, SPILL_CHECK_MILLIS));
+            if (count < max) {
+                count += spillStore.drainTo(sink, max - count);
+            }
+            if (count > 0) {
+                signalNotFull();
+                return count;
+            }
+        }
+    }
+
+    /**
+     * 先取内存队列，再取磁盘，不等待
+     */
+    private int drainTo(List<Point> sink, int max) throws InterruptedException {
+        int count = memoryQueue.receiveBatch(sink, max, 0);
+        if (count < max) {
+            count += spillStore.drainTo(sink, max - count);
+        }
+        if (count > 0) {
+            signalNotFull();
+        }
+        return count;
+    }
+
+    private void signalNotFull() {
+        // 没有等待者时不加锁
+        if (waiters.get() == 0) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void forbiddenSend() {
+        forbiddenWrite.compareAndSet(false, true);
+        memoryQueue.forbiddenSend();
+        // 唤醒等待的生产者，让其抛出异常退出
+        signalNotFull();
+    }
+
+    @Override
+    public void waitEmpty() {
+        // 等待为空之前，必须已经设置了禁止写入
+        if (forbiddenWrite.get()) {
+            while (true) {
+                if (isEmpty()) {
+                    return;
+                }
+
+                try {
+                    Thread.sleep(waitCloseTimeLimit);
+                } catch (InterruptedException e) {
+                    LOGGER.warn("The waitEmpty() method is being illegally interrupted");
+                }
+            }
+        } else {
+            throw new IllegalStateException(
+                    "The queue is still allowed to write data. you must first call the forbiddenSend() method");
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return spillStore.isEmpty() && memoryQueue.isEmpty();
+    }
+
+    /**
+     * 禁止写入并关闭溢出存储，未取出的Point保留在磁盘中，下次打开时恢复
+     */
+    @Override
+    public void close() {
+        forbiddenSend();
+        spillStore.close();
+    }
+
+    public DataQueue getMemoryQueue() {
+        return memoryQueue;
+    }
+
+    public DiskSpillStore getSpillStore() {
+        return spillStore;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.alibaba.hitsdb.client.queue;
+
+/**
+ * 环形队列的等待策略。<br>
+ * 队列为空时消费者等待，队列已满且开启背压时生产者等待。
+ */
+public interface WaitStrategy {
+
+    /**
+     * 条件不满足时进行一次等待，调用方在返回后重新检查条件。
+     * 
+     * @param counter
+     *            本次等待之前已经等待的次数，从0开始
+     * @param deadline
+     *            等待截止时间，以System.nanoTime()为基准
+     * @throws InterruptedException
+     */
+    void idle(int counter, long deadline) throws InterruptedException;
+
+    /**
+     * 队列状态发生变化时调用，唤醒处于等待中的线程
+     */
+    void signalAll();
+}
@@ -0,0 +1,20 @@
+package com.alibaba.hitsdb.client.queue;
+
+public enum WaitStrategyType {
+    /**
+     * 自旋等待，延迟最低，但会占满CPU
+     */
+    BusySpin,
+    /**
+     * 自旋后让出CPU
+     */
+    Yielding,
+    /**
+     * 自旋、让出CPU后短暂休眠
+     */
+    Sleeping,
+    /**
+     * 基于锁和条件变量阻塞等待，CPU消耗最低
+     */
+    Blocking
+}
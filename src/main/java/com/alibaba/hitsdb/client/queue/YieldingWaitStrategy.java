@@ -0,0 +1,21 @@
+package com.alibaba.hitsdb.client.queue;
+
+public class YieldingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public void idle(int counter, long deadline) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        if (counter >= SPIN_TRIES) {
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public void signalAll() {
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.alibaba.hitsdb.client.retry;
+
+import java.util.Locale;
+
+import com.alibaba.hitsdb.client.value.response.batch.ErrorPoint;
+
+/**
+ * 按错误信息中的关键字判断：限流、超时、存储不可用等服务端的暂时性错误可以重试，
+ * 其它错误(例如metric或tag不合法、值无法解析)视为数据点本身的错误，不再重试。
+ */
+public class DefaultPointErrorClassifier implements PointErrorClassifier {
+    private static final String[] TRANSIENT_KEYWORDS = { "throttle", "timeout", "timed out", "busy", "unavailable",
+            "try again", "overload", "interrupted", "rpc", "hbase", "connection" };
+
+    @Override
+    public boolean isTransient(ErrorPoint errorPoint) {
+        String error = errorPoint.getError();
+        if (error == null) {
+            return false;
+        }
+        String lower = error.toLowerCase(Locale.ENGLISH);
+        for (String keyword : TRANSIENT_KEYWORDS) {
+            if (lower.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.alibaba.hitsdb.client.retry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.response.batch.ErrorPoint;
+
+/**
+ * 批次中部分数据点写入失败时，按错误类型划分批次中的数据点。<br>
+ * 服务端返回的失败数据点按metric、tags与秒级时间戳对应到批次中的原始数据点，
+ * 重试与确认都使用原始数据点(预写日志的位置记录在原始数据点上)。
+ */
+public class PartialFailure {
+    private final List<Point> succeeded;
+    private final List<Point> transientPoints;
+    private final List<ErrorPoint> transientErrors;
+    private final List<Point> permanentPoints;
+    private final List<ErrorPoint> permanentErrors;
+
+    private PartialFailure(List<Point> succeeded, List<Point> transientPoints, List<ErrorPoint> transientErrors,
+            List<Point> permanentPoints, List<ErrorPoint> permanentErrors) {
+        this.succeeded = succeeded;
+        this.transientPoints = transientPoints;
+        this.transientErrors = transientErrors;
+        this.permanentPoints = permanentPoints;
+        this.permanentErrors = permanentErrors;
+    }
+
+    /**
+     * @param points 批次中的数据点
+     * @param errors 服务端返回的失败数据点
+     * @return 有失败数据点无法对应到批次中的数据点时返回null，只能按整个批次处理
+     */
+    public static PartialFailure split(List<Point> points, List<ErrorPoint> errors, PointErrorClassifier classifier) {
+        Map<String, LinkedList<Point>> index = new HashMap<String, LinkedList<Point>>(points.size() * 2);
+        for (Point point : points) {
+            String key = key(point);
+            LinkedList<Point> same = index.get(key);
+            if (same == null) {
+                same = new LinkedList<Point>();
+                index.put(key, same);
+            }
+            same.add(point);
+        }
+
+        Map<Point, Boolean> failed = new IdentityHashMap<Point, Boolean>();
+        List<Point> transientPoints = new ArrayList<Point>();
+        List<ErrorPoint> transientErrors = new ArrayList<ErrorPoint>();
+        List<Point> permanentPoints = new ArrayList<Point>();
+        List<ErrorPoint> permanentErrors = new ArrayList<ErrorPoint>();
+        for (ErrorPoint error : errors) {
+            Point datapoint = error.getDatapoint();
+            LinkedList<Point> same = datapoint == null ? null : index.get(key(datapoint));
+            if (same == null || same.isEmpty()) {
+                return null;
+            }
+            Point point = same.removeFirst();
+            failed.put(point, Boolean.TRUE);
+            if (classifier.isTransient(error)) {
+                transientPoints.add(point);
+                transientErrors.add(error);
+            } else {
+                permanentPoints.add(point);
+                permanentErrors.add(error);
+            }
+        }
+
+        List<Point> succeeded = new ArrayList<Point>(points.size() - failed.size());
+        for (Point point : points) {
+            if (!failed.containsKey(point)) {
+                succeeded.add(point);
+            }
+        }
+        return new PartialFailure(succeeded, transientPoints, transientErrors, permanentPoints, permanentErrors);
+    }
+
+    private static String key(Point point) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(point.getMetric()).append('\0').append(point.getTimestamp()).append('\0');
+        // tags排序后比较，与顺序无关
+        Map<String, String> tags = point.getTags();
+        if (tags != null) {
+            builder.append(new TreeMap<String, String>(tags));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 写入成功的数据点
+     */
+    public List<Point> getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * 暂时性错误的数据点，可以重新发送
+     */
+    public List<Point> getTransientPoints() {
+        return transientPoints;
+    }
+
+    /**
+     * 与{@link #getTransientPoints()}一一对应的错误信息
+     */
+    public List<ErrorPoint> getTransientErrors() {
+        return transientErrors;
+    }
+
+    /**
+     * 数据点本身的错误，不再重试
+     */
+    public List<Point> getPermanentPoints() {
+        return permanentPoints;
+    }
+
+    /**
+     * 与{@link #getPermanentPoints()}一一对应的错误信息
+     */
+    public List<ErrorPoint> getPermanentErrors() {
+        return permanentErrors;
+    }
+
+}
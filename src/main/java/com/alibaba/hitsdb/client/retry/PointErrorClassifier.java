@@ -0,0 +1,16 @@
+package com.alibaba.hitsdb.client.retry;
+
+import com.alibaba.hitsdb.client.value.response.batch.ErrorPoint;
+
+/**
+ * 判断写入失败的数据点是否可以重试
+ */
+public interface PointErrorClassifier {
+
+    /**
+     * @param errorPoint 服务端返回的失败数据点与错误信息
+     * @return 暂时性的错误(例如服务端限流、超时)返回true，重新发送可能成功；数据点本身的错误返回false
+     */
+    boolean isTransient(ErrorPoint errorPoint);
+
+}
@@ -0,0 +1,74 @@
+package com.alibaba.hitsdb.client.retry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全局的重试预算。<br>
+ * 每个写入请求存入percent%个令牌，每次重试取出一个令牌；另外每秒补充minPerSecond个保底令牌，请求量很小时也能重试。
+ * 令牌数有上限，长时间正常运行后积累的令牌不会在故障时引发大量重试。
+ */
+public class RetryBudget {
+    private static final long SCALE = 100;
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long deposit;
+    private final long minPerSecond;
+    private final long maxBalance;
+
+    /**
+     * 令牌数 * 100
+     */
+    private long balance;
+
+    /**
+     * 当前一秒内剩余的保底令牌
+     */
+    private long reserve;
+    private long reserveSecond;
+
+    /**
+     * @param percent 重试数不超过请求数的百分比
+     * @param minPerSecond 每秒保底的重试数
+     */
+    public RetryBudget(int percent, int minPerSecond) {
+        if (percent < 0 || minPerSecond < 0) {
+            throw new IllegalArgumentException("The retry budget can't be less than 0");
+        }
+        this.deposit = percent;
+        this.minPerSecond = minPerSecond;
+        this.maxBalance = Math.max(100, minPerSecond * 10L) * SCALE;
+        this.reserveSecond = Long.MIN_VALUE;
+    }
+
+    /**
+     * 发出一个写入请求(不包括重试)
+     */
+    public synchronized void deposit() {
+        balance = Math.min(maxBalance, balance + deposit);
+    }
+
+    /**
+     * @return 预算已经用完时返回false
+     */
+    public boolean tryWithdraw() {
+        return tryWithdraw(System.nanoTime());
+    }
+
+    synchronized boolean tryWithdraw(long now) {
+        if (balance >= SCALE) {
+            balance -= SCALE;
+            return true;
+        }
+        long second = now / SECOND_NANOS;
+        if (second != reserveSecond) {
+            reserveSecond = second;
+            reserve = minPerSecond;
+        }
+        if (reserve > 0) {
+            reserve--;
+            return true;
+        }
+        return false;
+    }
+
+}
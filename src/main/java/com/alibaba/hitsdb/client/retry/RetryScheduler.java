@@ -0,0 +1,125 @@
+package com.alibaba.hitsdb.client.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+
+/**
+ * 写入失败后的延迟重试。<br>
+ * 第n次重试前等待min(maxBackoff, backoff * 2^(n-1))，在其一半到全部之间随机，避免大量批次在同一时刻重试；
+ * 超过批次的截止时间或全局重试预算用完时不再重试。重试任务由时间轮定时执行，不占用I/O线程。
+ */
+public class RetryScheduler {
+    private static final long TICK_MILLIS = 10;
+    private static final int WHEEL_SIZE = 512;
+
+    private final long backoff;
+    private final long maxBackoff;
+    private final long deadline;
+    private final RetryBudget budget;
+    private final TimerWheel timer;
+
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong budgetExhaustedCount = new AtomicLong();
+    private final AtomicLong deadlineExceededCount = new AtomicLong();
+
+    public RetryScheduler(HiTSDBConfig config) {
+        this(config.getBatchPutRetryBackoff(), config.getBatchPutRetryMaxBackoff(), config.getBatchPutRetryDeadline(),
+                new RetryBudget(config.getBatchPutRetryBudgetPercent(), config.getBatchPutRetryBudgetMinPerSecond()));
+    }
+
+    /**
+     * @param backoff 第一次重试的退避时间，单位：毫秒
+     * @param maxBackoff 退避时间上限，单位：毫秒
+     * @param deadline 批次从第一次发送开始的重试截止时间，0表示不限，单位：毫秒
+     */
+    RetryScheduler(long backoff, long maxBackoff, long deadline, RetryBudget budget) {
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.deadline = TimeUnit.MILLISECONDS.toNanos(deadline);
+        this.budget = budget;
+        this.timer = new TimerWheel("hitsdb-retry-timer", TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+    }
+
+    /**
+     * 发出一个写入请求(不包括重试)，为重试预算存入令牌
+     */
+    public void onRequest() {
+        budget.deposit();
+    }
+
+    /**
+     * @param startTime 批次第一次发送的时间(System.nanoTime())
+     * @return 批次的重试截止时间，不限时返回Long.MAX_VALUE
+     */
+    public long deadline(long startTime) {
+        return deadline <= 0 ? Long.MAX_VALUE : startTime + deadline;
+    }
+
+    /**
+     * 第attempt次重试的退避时间
+     *
+     * @param attempt 从1开始
+     * @return 单位：毫秒
+     */
+    long backoff(int attempt) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 30);
+        long delay = Math.min(maxBackoff, backoff << shift);
+        if (delay <= 1) {
+            return delay;
+        }
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    /**
+     * 退避后执行重试
+     *
+     * @param attempt 第几次重试，从1开始
+     * @param batchDeadline 批次的重试截止时间，见{@link #deadline(long)}
+     * @param task 重试任务，在定时器线程中执行，不能阻塞
+     * @return 超过截止时间、重试预算用完或定时器已经停止时返回false，任务不会被执行
+     */
+    public boolean schedule(int attempt, long batchDeadline, Runnable task) {
+        long delay = backoff(attempt);
+        if (batchDeadline != Long.MAX_VALUE && System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) > batchDeadline) {
+            deadlineExceededCount.incrementAndGet();
+            return false;
+        }
+        if (!budget.tryWithdraw()) {
+            budgetExhaustedCount.incrementAndGet();
+            return false;
+        }
+        if (!timer.schedule(task, delay, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        scheduledCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 等待退避的重试数
+     */
+    public int getPending() {
+        return timer.getPending();
+    }
+
+    /**
+     * 停止定时器，等待退避的重试立即执行
+     */
+    public void close() {
+        timer.stop();
+    }
+
+    public RetryStatistics getStatistics() {
+        RetryStatistics statistics = new RetryStatistics();
+        statistics.setPending(timer.getPending());
+        statistics.setScheduledCount(scheduledCount.get());
+        statistics.setBudgetExhaustedCount(budgetExhaustedCount.get());
+        statistics.setDeadlineExceededCount(deadlineExceededCount.get());
+        return statistics;
+    }
+
+}
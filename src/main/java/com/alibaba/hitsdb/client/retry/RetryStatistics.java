@@ -0,0 +1,61 @@
+package com.alibaba.hitsdb.client.retry;
+
+import com.alibaba.hitsdb.client.value.JSONValue;
+
+/**
+ * 写入重试的统计快照
+ */
+public class RetryStatistics extends JSONValue {
+    /**
+     * 等待退避的重试数
+     */
+    private int pending;
+
+    /**
+     * 累计发起的重试数
+     */
+    private long scheduledCount;
+
+    /**
+     * 累计因重试预算用完而放弃的重试数
+     */
+    private long budgetExhaustedCount;
+
+    /**
+     * 累计因超过批次截止时间而放弃的重试数
+     */
+    private long deadlineExceededCount;
+
+    public int getPending() {
+        return pending;
+    }
+
+    public void setPending(int pending) {
+        this.pending = pending;
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount;
+    }
+
+    public void setScheduledCount(long scheduledCount) {
+        this.scheduledCount = scheduledCount;
+    }
+
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount;
+    }
+
+    public void setBudgetExhaustedCount(long budgetExhaustedCount) {
+        this.budgetExhaustedCount = budgetExhaustedCount;
+    }
+
+    public long getDeadlineExceededCount() {
+        return deadlineExceededCount;
+    }
+
+    public void setDeadlineExceededCount(long deadlineExceededCount) {
+        this.deadlineExceededCount = deadlineExceededCount;
+    }
+
+}
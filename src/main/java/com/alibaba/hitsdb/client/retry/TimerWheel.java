@@ -0,0 +1,204 @@
+package com.alibaba.hitsdb.client.retry;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 哈希时间轮定时器。<br>
+ * 时间轮分为固定个数的槽位，每个槽位对应一个tick，延迟超过一圈的任务记录剩余圈数。
+ * 新任务先进入无锁队列，由工作线程在每个tick开始时放入槽位，调度与到期的开销都是O(1)，适合大量短延迟、精度要求不高的任务。<br>
+ * 任务在工作线程中执行，不能阻塞。工作线程在第一次调度时启动。
+ */
+public class TimerWheel {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimerWheel.class);
+
+    private static final class Timeout {
+        final Runnable task;
+        final long deadline;
+        long rounds;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+
+    private final String name;
+    private final long tickNanos;
+    private final int mask;
+    private final List<LinkedList<Timeout>> wheel;
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<Timeout>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final long startTime;
+    private long tick;
+
+    private Thread worker;
+    private volatile boolean stopped;
+
+    /**
+     * @param name 工作线程的名字
+     * @param tickDuration 每个槽位的时间
+     * @param unit 时间单位
+     * @param wheelSize 槽位个数，向上取整为2的幂
+     */
+    public TimerWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("The tick duration and wheel size must be greater than 0");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = size - 1;
+        this.wheel = new ArrayList<LinkedList<Timeout>>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.add(new LinkedList<Timeout>());
+        }
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * 延迟执行任务
+     *
+     * @return 定时器已经停止时返回false，任务不会被执行
+     */
+    public boolean schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            return false;
+        }
+        ensureStarted();
+        pending.incrementAndGet();
+        incoming.add(new Timeout(task, System.nanoTime() + unit.toNanos(Math.max(delay, 0))));
+        if (stopped) {
+            // 与stop()并发，由stop()或这里执行都可以，只执行一次
+            runIncoming();
+        }
+        return true;
+    }
+
+    private synchronized void ensureStarted() {
+        if (worker != null || stopped) {
+            return;
+        }
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        }, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void work() {
+        while (!stopped) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleep = deadline - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+
+            transferIncoming();
+            expire(wheel.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            long ticks = (timeout.deadline - startTime + tickNanos - 1) / tickNanos;
+            long target = Math.max(ticks, tick);
+            timeout.rounds = (target - tick) / wheel.size();
+            wheel.get((int) (target & mask)).add(timeout);
+        }
+    }
+
+    private void expire(LinkedList<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                continue;
+            }
+            iterator.remove();
+            run(timeout);
+        }
+    }
+
+    private void run(Timeout timeout) {
+        try {
+            timeout.task.run();
+        } catch (Throwable t) {
+            LOGGER.error("Failed to run the timer task", t);
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    private void runIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            run(timeout);
+        }
+    }
+
+    /**
+     * 停止定时器，尚未到期的任务在调用线程中立即执行
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            thread = worker;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            // 必须等工作线程退出后才能访问槽位
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for (LinkedList<Timeout> bucket : wheel) {
+            Timeout timeout;
+            while ((timeout = bucket.poll()) != null) {
+                run(timeout);
+            }
+        }
+        runIncoming();
+    }
+
+    /**
+     * 尚未执行的任务数
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+}
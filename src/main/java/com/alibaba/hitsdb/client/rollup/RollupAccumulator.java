@@ -0,0 +1,27 @@
+package com.alibaba.hitsdb.client.rollup;
+
+/**
+ * 一条时间线一个时间窗口内的聚合值，只在所属分段的锁内访问
+ */
+final class RollupAccumulator {
+    long count;
+    double sum;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+
+    void add(double value) {
+        count++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    double avg() {
+        return sum / count;
+    }
+
+}
@@ -0,0 +1,352 @@
+package com.alibaba.hitsdb.client.rollup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+import com.alibaba.hitsdb.client.value.type.Aggregator;
+import com.alibaba.hitsdb.client.value.type.Granularity;
+
+/**
+ * 写入前的降精度预聚合。<br>
+ * 原始数据点按时间线累加到指定Granularity的时间窗口中，窗口结束并经过延迟时间后，
+ * 每个窗口按配置的聚合方式输出带granularity与aggregator的数据点。<br>
+ * 窗口的关闭以客户端时钟为准：所属窗口已经关闭的数据点(迟到或回填的数据)不参与聚合，由调用方按原始数据点发送。<br>
+ * 聚合状态按时间线哈希分为多个分段，各分段独立加锁，支持多个生产者线程并发写入。
+ */
+public class RollupStage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RollupStage.class);
+
+    private static final int STRIPES = 16;
+    private static final long TICK_MILLIS = 1000;
+
+    /**
+     * 聚合后数据点的输出
+     */
+    public interface RollupSink {
+        void emit(Point point);
+    }
+
+    private static final class WindowKey {
+        final String metric;
+        final TagSet tags;
+        final long start;
+        final int hashCode;
+
+        WindowKey(String metric, TagSet tags, long start) {
+            this.metric = metric;
+            this.tags = tags;
+            this.start = start;
+            this.hashCode = (metric.hashCode() * 31 + tags.hashCode()) * 31 + (int) (start ^ (start >>> 32));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof WindowKey)) {
+                return false;
+            }
+            WindowKey other = (WindowKey) o;
+            return start == other.start && hashCode == other.hashCode && metric.equals(other.metric) && tags.equals(other.tags);
+        }
+    }
+
+    private final Granularity granularity;
+    private final Aggregator[] aggregators;
+    private final long windowSeconds;
+    private final long delayMillis;
+    private final RollupSink sink;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Map<WindowKey, RollupAccumulator>[] stripes = new Map[STRIPES];
+
+    /**
+     * 结束时间不晚于该值(秒)的窗口已经关闭。在扫描分段之前更新，写入方在分段锁内读取
+     */
+    private volatile long closedBefore;
+
+    /**
+     * 关闭后不再接收数据点，在分段锁内读取
+     */
+    private volatile boolean closed;
+
+    private final AtomicLong aggregatedPoints = new AtomicLong();
+    private final AtomicLong latePoints = new AtomicLong();
+    private final AtomicLong emittedPoints = new AtomicLong();
+    private final AtomicLong failedPoints = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param granularity 聚合窗口
+     * @param aggregators 聚合方式，支持sum、count、min、max、avg
+     * @param delayMillis 窗口结束后等待迟到数据点的时间，单位：毫秒
+     * @param sink 聚合后数据点的输出
+     */
+    public RollupStage(Granularity granularity, Collection<Aggregator> aggregators, long delayMillis, RollupSink sink) {
+        checkAggregators(aggregators);
+        if (granularity == null || granularity == Granularity.S1) {
+            throw new IllegalArgumentException("The rollup granularity must be coarser than 1s");
+        }
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("The rollup delay can't be less than 0");
+        }
+        this.granularity = granularity;
+        this.aggregators = aggregators.toArray(new Aggregator[aggregators.size()]);
+        this.windowSeconds = granularity.getSeconds();
+        this.delayMillis = delayMillis;
+        this.sink = sink;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new HashMap<WindowKey, RollupAccumulator>();
+        }
+        this.closedBefore = closedBefore(System.currentTimeMillis());
+    }
+
+    public static void checkAggregators(Collection<Aggregator> aggregators) {
+        if (aggregators == null || aggregators.isEmpty()) {
+            throw new IllegalArgumentException("The rollup aggregators can't be empty");
+        }
+        for (Aggregator aggregator : aggregators) {
+            switch (aggregator) {
+            case SUM:
+            case COUNT:
+            case MIN:
+            case MAX:
+            case AVG:
+                break;
+            default:
+                throw new IllegalArgumentException("The rollup aggregator " + aggregator + " is not supported");
+            }
+        }
+    }
+
+    private long closedBefore(long nowMillis) {
+        return (nowMillis - delayMillis) / 1000;
+    }
+
+    /**
+     * 启动窗口关闭的定时任务
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "hitsdb-rollup");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tick(System.currentTimeMillis());
+                } catch (Throwable t) {
+                    LOGGER.error("Failed to emit the rollup points", t);
+                }
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 累加一个原始数据点
+     *
+     * @return 不能聚合时返回false，包括已带有granularity或aggregator、值为空、所属窗口已经关闭的数据点，以及关闭之后的所有数据点
+     */
+    public boolean add(Point point) {
+        if (point.getGranularity() != null || point.getAggregator() != null) {
+            return false;
+        }
+        String metric = point.getMetric();
+        Number value = point.getValue();
+        if (metric == null || value == null) {
+            return false;
+        }
+
+        long seconds;
+        if (point instanceof DoublePoint) {
+            seconds = ((DoublePoint) point).getTimestamp();
+        } else {
+            Integer timestamp = point.getTimestamp();
+            if (timestamp == null) {
+                return false;
+            }
+            seconds = timestamp;
+        }
+
+        long offset = seconds % windowSeconds;
+        if (offset < 0) {
+            offset += windowSeconds;
+        }
+        long start = seconds - offset;
+        WindowKey key = new WindowKey(metric, TagSet.of(point.getTags()), start);
+        Map<WindowKey, RollupAccumulator> stripe = stripes[stripe(key)];
+        synchronized (stripe) {
+            if (closed) {
+                return false;
+            }
+            if (start + windowSeconds <= closedBefore) {
+                latePoints.incrementAndGet();
+                return false;
+            }
+            RollupAccumulator accumulator = stripe.get(key);
+            if (accumulator == null) {
+                accumulator = new RollupAccumulator();
+                stripe.put(key, accumulator);
+            }
+            accumulator.add(value.doubleValue());
+        }
+        aggregatedPoints.incrementAndGet();
+        return true;
+    }
+
+    private static int stripe(WindowKey key) {
+        int h = key.hashCode;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * 关闭到期的窗口并输出聚合结果
+     *
+     * @param nowMillis 当前时间
+     * @return 输出的数据点个数
+     */
+    int tick(long nowMillis) {
+        long before = closedBefore(nowMillis);
+        if (before > closedBefore) {
+            closedBefore = before;
+        }
+        return emit(false);
+    }
+
+    /**
+     * 输出所有窗口，包括尚未结束的窗口
+     *
+     * @return 输出的数据点个数
+     */
+    public int flush() {
+        return emit(true);
+    }
+
+    private int emit(boolean all) {
+        long before = closedBefore;
+        List<Entry<WindowKey, RollupAccumulator>> closed = new ArrayList<Entry<WindowKey, RollupAccumulator>>();
+        for (Map<WindowKey, RollupAccumulator> stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Entry<WindowKey, RollupAccumulator>> iterator = stripe.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Entry<WindowKey, RollupAccumulator> entry = iterator.next();
+                    if (all || entry.getKey().start + windowSeconds <= before) {
+                        closed.add(entry);
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+
+        // 在锁外输出，输出可能因缓冲队列已满而阻塞
+        int count = 0;
+        for (Entry<WindowKey, RollupAccumulator> entry : closed) {
+            WindowKey key = entry.getKey();
+            RollupAccumulator accumulator = entry.getValue();
+            for (Aggregator aggregator : aggregators) {
+                Point point = Point.metric(key.metric).tag(key.tags).timestamp((int) key.start)
+                        .value(value(accumulator, aggregator)).granularity(granularity)
+                        .aggregator(aggregator.getName()).build();
+                try {
+                    sink.emit(point);
+                    count++;
+                } catch (RuntimeException e) {
+                    failedPoints.incrementAndGet();
+                    LOGGER.error("Failed to emit the rollup point " + point.toJSON(), e);
+                }
+            }
+        }
+        emittedPoints.addAndGet(count);
+        return count;
+    }
+
+    private static Number value(RollupAccumulator accumulator, Aggregator aggregator) {
+        switch (aggregator) {
+        case SUM:
+            return accumulator.sum;
+        case COUNT:
+            return accumulator.count;
+        case MIN:
+            return accumulator.min;
+        case MAX:
+            return accumulator.max;
+        case AVG:
+            return accumulator.avg();
+        default:
+            throw new IllegalStateException("Unsupported rollup aggregator " + aggregator);
+        }
+    }
+
+    /**
+     * 停止接收数据点与定时任务
+     *
+     * @param flush 是否输出尚未关闭的窗口
+     */
+    public void close(boolean flush) {
+        closed = true;
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                try {
+                    scheduler.awaitTermination(TICK_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    LOGGER.warn("Interrupted while waiting for the rollup scheduler to stop");
+                }
+                scheduler = null;
+            }
+        }
+        if (flush) {
+            flush();
+        }
+    }
+
+    public RollupStatistics getStatistics() {
+        int openWindows = 0;
+        for (Map<WindowKey, RollupAccumulator> stripe : stripes) {
+            synchronized (stripe) {
+                openWindows += stripe.size();
+            }
+        }
+
+        RollupStatistics statistics = new RollupStatistics();
+        statistics.setGranularity(granularity.getName());
+        statistics.setOpenWindows(openWindows);
+        statistics.setAggregatedPoints(aggregatedPoints.get());
+        statistics.setLatePoints(latePoints.get());
+        statistics.setEmittedPoints(emittedPoints.get());
+        statistics.setFailedPoints(failedPoints.get());
+        return statistics;
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.alibaba.hitsdb.client.rollup;
+
+import com.alibaba.hitsdb.client.value.JSONValue;
+
+/**
+ * 预聚合的统计快照
+ */
+public class RollupStatistics extends JSONValue {
+    private String granularity;
+
+    /**
+     * 尚未输出的时间线窗口个数
+     */
+    private int openWindows;
+
+    /**
+     * 累计参与聚合的原始数据点个数
+     */
+    private long aggregatedPoints;
+
+    /**
+     * 累计因所属窗口已经关闭而按原始数据点发送的个数
+     */
+    private long latePoints;
+
+    /**
+     * 累计输出的聚合数据点个数
+     */
+    private long emittedPoints;
+
+    /**
+     * 累计输出失败的聚合数据点个数
+     */
+    private long failedPoints;
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public int getOpenWindows() {
+        return openWindows;
+    }
+
+    public void setOpenWindows(int openWindows) {
+        this.openWindows = openWindows;
+    }
+
+    public long getAggregatedPoints() {
+        return aggregatedPoints;
+    }
+
+    public void setAggregatedPoints(long aggregatedPoints) {
+        this.aggregatedPoints = aggregatedPoints;
+    }
+
+    public long getLatePoints() {
+        return latePoints;
+    }
+
+    public void setLatePoints(long latePoints) {
+        this.latePoints = latePoints;
+    }
+
+    public long getEmittedPoints() {
+        return emittedPoints;
+    }
+
+    public void setEmittedPoints(long emittedPoints) {
+        this.emittedPoints = emittedPoints;
+    }
+
+    public long getFailedPoints() {
+        return failedPoints;
+    }
+
+    public void setFailedPoints(long failedPoints) {
+        this.failedPoints = failedPoints;
+    }
+
+}
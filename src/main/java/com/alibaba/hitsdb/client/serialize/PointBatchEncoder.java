@@ -0,0 +1,147 @@
+package com.alibaba.hitsdb.client.serialize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
+import com.alibaba.hitsdb.client.compress.PayloadOutputStream;
+import com.alibaba.hitsdb.client.http.HttpClient;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 将一批数据点编码为一个或多个请求体，每个请求体编码后(压缩前)的JSON长度不超过上限。<br>
+ * 超过上限的单个数据点单独成为一个请求体。非线程安全，每个线程持有一个实例。
+ */
+public class PointBatchEncoder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PointBatchEncoder.class);
+
+    /**
+     * 编码后的一个请求
+     */
+    public static class EncodedBatch {
+        private final List<Point> points;
+        private final SegmentedByteBuffer body;
+
+        EncodedBatch(List<Point> points, SegmentedByteBuffer body) {
+            this.points = points;
+            this.body = body;
+        }
+
+        public List<Point> getPoints() {
+            return points;
+        }
+
+        /**
+         * 请求体，引用归调用方所有
+         */
+        public SegmentedByteBuffer getBody() {
+            return body;
+        }
+    }
+
+    private final HttpClient httpclient;
+    private final PointJSONByteWriter jsonWriter = new PointJSONByteWriter();
+
+    /**
+     * 单个数据点的编码暂存
+     */
+    private final ByteArrayOutputStream pointScratch = new ByteArrayOutputStream(512);
+
+    public PointBatchEncoder(HttpClient httpclient) {
+        this.httpclient = httpclient;
+    }
+
+    /**
+     * @param points
+     * @param maxPayloadBytes 每个请求体的最大字节数，小于等于0表示不限制
+     * @return 按原顺序切分后的请求
+     * @throws IOException 编码失败时已申请的缓冲区均已释放
+     */
+    public List<EncodedBatch> encode(Collection<Point> points, int maxPayloadBytes) throws IOException {
+        List<EncodedBatch> batches = new ArrayList<EncodedBatch>(1);
+        if (maxPayloadBytes <= 0) {
+            List<Point> pointList = points instanceof List ? (List<Point>) points : new ArrayList<Point>(points);
+            batches.add(new EncodedBatch(pointList, encodeAll(points)));
+            return batches;
+        }
+
+        PayloadOutputStream out = null;
+        List<Point> current = null;
+        int currentBytes = 0;
+        try {
+            for (Point point : points) {
+                pointScratch.reset();
+                jsonWriter.writePoint(pointScratch, point);
+                int pointBytes = pointScratch.size();
+
+                // 逗号与结尾的']'各占一个字节
+                if (out != null && currentBytes + 1 + pointBytes + 1 > maxPayloadBytes) {
+                    out.write(']');
+                    batches.add(new EncodedBatch(current, out.finish()));
+                    out = null;
+                }
+
+                if (out == null) {
+                    if (1 + pointBytes + 1 > maxPayloadBytes) {
+                        LOGGER.warn("The point of metric {} is {} bytes, larger than the max payload size {}",
+                                point.getMetric(), pointBytes, maxPayloadBytes);
+                    }
+                    out = httpclient.newRequestBody();
+                    current = new ArrayList<Point>();
+                    out.write('[');
+                    currentBytes = 1;
+                } else {
+                    out.write(',');
+                    currentBytes++;
+                }
+
+                pointScratch.writeTo(out);
+                currentBytes += pointBytes;
+                current.add(point);
+            }
+
+            if (out == null) {
+                out = httpclient.newRequestBody();
+                current = new ArrayList<Point>();
+                out.write('[');
+            }
+            out.write(']');
+            batches.add(new EncodedBatch(current, out.finish()));
+            out = null;
+            return batches;
+        } catch (IOException e) {
+            if (out != null) {
+                out.abort();
+            }
+            release(batches);
+            throw e;
+        }
+    }
+
+    private SegmentedByteBuffer encodeAll(Collection<Point> points) throws IOException {
+        PayloadOutputStream out = httpclient.newRequestBody();
+        try {
+            jsonWriter.writePoints(out, points);
+            return out.finish();
+        } catch (IOException e) {
+            out.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 释放尚未发送的请求体
+     */
+    public static void release(List<EncodedBatch> batches) {
+        for (EncodedBatch batch : batches) {
+            batch.body.release();
+        }
+    }
+
+}
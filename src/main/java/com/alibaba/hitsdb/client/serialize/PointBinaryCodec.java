@@ -0,0 +1,239 @@
+package com.alibaba.hitsdb.client.serialize;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+
+/**
+ * 数据点的紧凑二进制编码，用于本地磁盘存储，不保证跨版本兼容。<br>
+ * 字符串以长度+UTF-8字节编码，不受{@link DataOutput#writeUTF(String)}的64KB限制。
+ */
+public final class PointBinaryCodec {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte KIND_POINT = 0;
+    private static final byte KIND_DOUBLE_POINT = 1;
+
+    private static final int HAS_METRIC = 1;
+    private static final int HAS_TAGS = 1 << 1;
+    private static final int HAS_TIMESTAMP = 1 << 2;
+    private static final int HAS_VALUE = 1 << 3;
+    private static final int HAS_GRANULARITY = 1 << 4;
+    private static final int HAS_AGGREGATOR = 1 << 5;
+    private static final int HAS_VERSION = 1 << 6;
+
+    private static final byte VALUE_INT = 0;
+    private static final byte VALUE_LONG = 1;
+    private static final byte VALUE_DOUBLE = 2;
+    private static final byte VALUE_FLOAT = 3;
+    private static final byte VALUE_SHORT = 4;
+    private static final byte VALUE_BYTE = 5;
+    private static final byte VALUE_BIG_DECIMAL = 6;
+    private static final byte VALUE_BIG_INTEGER = 7;
+
+    private PointBinaryCodec() {
+    }
+
+    public static void encode(Point point, DataOutput out) throws IOException {
+        if (point instanceof DoublePoint) {
+            DoublePoint doublePoint = (DoublePoint) point;
+            out.writeByte(KIND_DOUBLE_POINT);
+            writeString(out, doublePoint.getMetric());
+            writeTags(out, doublePoint.getTags());
+            out.writeLong(doublePoint.getTime());
+            out.writeDouble(doublePoint.getDoubleValue());
+            return;
+        }
+
+        out.writeByte(KIND_POINT);
+        int flags = 0;
+        if (point.getMetric() != null) {
+            flags |= HAS_METRIC;
+        }
+        if (point.getTags() != null) {
+            flags |= HAS_TAGS;
+        }
+        if (point.getTimestamp() != null) {
+            flags |= HAS_TIMESTAMP;
+        }
+        if (point.getValue() != null) {
+            flags |= HAS_VALUE;
+        }
+        if (point.getGranularity() != null) {
+            flags |= HAS_GRANULARITY;
+        }
+        if (point.getAggregator() != null) {
+            flags |= HAS_AGGREGATOR;
+        }
+        if (point.getVersion() != null) {
+            flags |= HAS_VERSION;
+        }
+        out.writeByte(flags);
+
+        if ((flags & HAS_METRIC) != 0) {
+            writeString(out, point.getMetric());
+        }
+        if ((flags & HAS_TAGS) != 0) {
+            writeTags(out, point.getTags());
+        }
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            out.writeInt(point.getTimestamp().intValue());
+        }
+        if ((flags & HAS_VALUE) != 0) {
+            writeValue(out, point.getValue());
+        }
+        if ((flags & HAS_GRANULARITY) != 0) {
+            writeString(out, point.getGranularity());
+        }
+        if ((flags & HAS_AGGREGATOR) != 0) {
+            writeString(out, point.getAggregator());
+        }
+        if ((flags & HAS_VERSION) != 0) {
+            out.writeLong(point.getVersion().longValue());
+        }
+    }
+
+    public static Point decode(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        if (kind == KIND_DOUBLE_POINT) {
+            String metric = readString(in);
+            TagSet tags = TagSet.of(readTags(in));
+            long time = in.readLong();
+            double value = in.readDouble();
+            return new DoublePoint(metric, tags, time, value);
+        }
+        if (kind != KIND_POINT) {
+            throw new IOException("Unknown point kind: " + kind);
+        }
+
+        int flags = in.readByte();
+        Point point = new Point();
+        if ((flags & HAS_METRIC) != 0) {
+            point.setMetric(readString(in));
+        }
+        if ((flags & HAS_TAGS) != 0) {
+            point.setTags(readTags(in));
+        }
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            point.setTimestamp(in.readInt());
+        }
+        if ((flags & HAS_VALUE) != 0) {
+            point.setValue(readValue(in));
+        }
+        if ((flags & HAS_GRANULARITY) != 0) {
+            point.setGranularity(readString(in));
+        }
+        if ((flags & HAS_AGGREGATOR) != 0) {
+            point.setAggregator(readString(in));
+        }
+        if ((flags & HAS_VERSION) != 0) {
+            point.setVersion(in.readLong());
+        }
+        return point;
+    }
+
+    private static void writeTags(DataOutput out, Map<String, String> tags) throws IOException {
+        if (tags instanceof TagSet) {
+            TagSet tagSet = (TagSet) tags;
+            out.writeInt(tagSet.size());
+            for (int i = 0; i < tagSet.size(); i++) {
+                writeString(out, tagSet.getKey(i));
+                writeString(out, tagSet.getValue(i));
+            }
+            return;
+        }
+
+        out.writeInt(tags.size());
+        for (Entry<String, String> entry : tags.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readTags(DataInput in) throws IOException {
+        int size = in.readInt();
+        Map<String, String> tags = new HashMap<String, String>(Math.max(4, size * 2));
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            tags.put(key, readString(in));
+        }
+        return tags;
+    }
+
+    private static void writeValue(DataOutput out, Number value) throws IOException {
+        if (value instanceof Double) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeDouble(value.doubleValue());
+        } else if (value instanceof Long) {
+            out.writeByte(VALUE_LONG);
+            out.writeLong(value.longValue());
+        } else if (value instanceof Integer) {
+            out.writeByte(VALUE_INT);
+            out.writeInt(value.intValue());
+        } else if (value instanceof Float) {
+            out.writeByte(VALUE_FLOAT);
+            out.writeFloat(value.floatValue());
+        } else if (value instanceof Short) {
+            out.writeByte(VALUE_SHORT);
+            out.writeShort(value.shortValue());
+        } else if (value instanceof Byte) {
+            out.writeByte(VALUE_BYTE);
+            out.writeByte(value.byteValue());
+        } else if (value instanceof BigInteger) {
+            out.writeByte(VALUE_BIG_INTEGER);
+            writeString(out, value.toString());
+        } else {
+            // 其余的Number类型按十进制文本保存
+            out.writeByte(VALUE_BIG_DECIMAL);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Number readValue(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+        case VALUE_DOUBLE:
+            return in.readDouble();
+        case VALUE_LONG:
+            return in.readLong();
+        case VALUE_INT:
+            return in.readInt();
+        case VALUE_FLOAT:
+            return in.readFloat();
+        case VALUE_SHORT:
+            return in.readShort();
+        case VALUE_BYTE:
+            return in.readByte();
+        case VALUE_BIG_INTEGER:
+            return new BigInteger(readString(in));
+        case VALUE_BIG_DECIMAL:
+            return new BigDecimal(readString(in));
+        default:
+            throw new IOException("Unknown value type: " + type);
+        }
+    }
+
+    private static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+}
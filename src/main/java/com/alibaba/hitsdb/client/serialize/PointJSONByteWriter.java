@@ -0,0 +1,168 @@
+package com.alibaba.hitsdb.client.serialize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+
+/**
+ * 将数据点直接编码为UTF-8字节的JSON输出，不经过String中转。<br>
+ * 内部持有一个小的暂存数组，可在同一线程内反复使用，非线程安全。
+ */
+public class PointJSONByteWriter extends PointJSONWriter {
+    private static final int SCRATCH_SIZE = 512;
+
+    private final byte[] scratch = new byte[SCRATCH_SIZE];
+    private int position;
+    private OutputStream out;
+
+    /**
+     * 将数据点数组写入out
+     */
+    public void writePoints(OutputStream out, Collection<? extends Point> points) throws IOException {
+        this.out = out;
+        this.position = 0;
+        try {
+            writePoints(points);
+            flush();
+        } finally {
+            this.out = null;
+        }
+    }
+
+    /**
+     * 将单个数据点写入out
+     */
+    public void writePoint(OutputStream out, Point point) throws IOException {
+        this.out = out;
+        this.position = 0;
+        try {
+            writePoint(point);
+            flush();
+        } finally {
+            this.out = null;
+        }
+    }
+
+    private void flush() throws IOException {
+        if (position > 0) {
+            out.write(scratch, 0, position);
+            position = 0;
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+        if (position + length > SCRATCH_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    protected void writeAscii(char c) throws IOException {
+        ensure(1);
+        scratch[position++] = (byte) c;
+    }
+
+    @Override
+    protected void writeAscii(String s) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            ensure(1);
+            scratch[position++] = (byte) s.charAt(i);
+        }
+    }
+
+    @Override
+    protected void writeText(String s) throws IOException {
+        writeUTF8(s, false);
+    }
+
+    @Override
+    protected void writeString(String s) throws IOException {
+        writeAscii('"');
+        writeUTF8(s, true);
+        writeAscii('"');
+    }
+
+    private void writeUTF8(String s, boolean escape) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            ensure(6);
+            if (c < 0x80) {
+                if (escape && (c < 0x20 || c == '"' || c == '\\')) {
+                    String shortEscape = PointJSONSerializer.escape(c);
+                    if (shortEscape != null) {
+                        scratch[position++] = '\\';
+                        scratch[position++] = (byte) shortEscape.charAt(1);
+                    } else {
+                        scratch[position++] = '\\';
+                        scratch[position++] = 'u';
+                        scratch[position++] = '0';
+                        scratch[position++] = '0';
+                        scratch[position++] = (byte) PointJSONSerializer.hex(c >> 4);
+                        scratch[position++] = (byte) PointJSONSerializer.hex(c);
+                    }
+                } else {
+                    scratch[position++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                scratch[position++] = (byte) (0xC0 | (c >> 6));
+                scratch[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                scratch[position++] = (byte) (0xF0 | (codePoint >> 18));
+                scratch[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                scratch[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                scratch[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符，与String.getBytes(UTF-8)一致替换为'?'
+                scratch[position++] = '?';
+            } else {
+                scratch[position++] = (byte) (0xE0 | (c >> 12));
+                scratch[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                scratch[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    @Override
+    protected void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+
+        ensure(20);
+        if (value < 0) {
+            scratch[position++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            scratch[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        position = end;
+    }
+
+    @Override
+    protected void writeTagSet(TagSet tags) throws IOException {
+        byte[] bytes = tags.toJSONBytes();
+        if (bytes.length > SCRATCH_SIZE - position) {
+            flush();
+            out.write(bytes, 0, bytes.length);
+        } else {
+            System.arraycopy(bytes, 0, scratch, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.alibaba.hitsdb.client.serialize;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+
+/**
+ * 数据点的JSON序列化，直接拼接字符串而不经过fastjson反射。<br>
+ * 字段顺序与空值处理与fastjson默认输出保持一致。
+ */
+public final class PointJSONSerializer {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private PointJSONSerializer() {
+    }
+
+    public static String toJSONString(Collection<? extends Point> points) {
+        StringBuilder sb = new StringBuilder(points.size() * 128);
+        appendJSONArray(sb, points);
+        return sb.toString();
+    }
+
+    public static String toJSONString(Point point) {
+        StringBuilder sb = new StringBuilder(128);
+        appendJSON(sb, point);
+        return sb.toString();
+    }
+
+    public static void appendJSONArray(StringBuilder sb, Collection<? extends Point> points) {
+        try {
+            new StringBuilderWriter(sb).writePoints(points);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void appendJSON(StringBuilder sb, Point point) {
+        try {
+            new StringBuilderWriter(sb).writePoint(point);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 写入带引号并转义后的JSON字符串
+     */
+    public static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        int length = s.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+
+            sb.append(s, start, i);
+            start = i + 1;
+            String escape = escape(c);
+            if (escape != null) {
+                sb.append(escape);
+            } else {
+                sb.append("\\u00").append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+            }
+        }
+        sb.append(s, start, length);
+        sb.append('"');
+    }
+
+    /**
+     * 需要转义的字符的简写形式，没有简写形式时返回null
+     */
+    static String escape(char c) {
+        switch (c) {
+        case '"':
+            return "\\\"";
+        case '\\':
+            return "\\\\";
+        case '\b':
+            return "\\b";
+        case '\f':
+            return "\\f";
+        case '\n':
+            return "\\n";
+        case '\r':
+            return "\\r";
+        case '\t':
+            return "\\t";
+        default:
+            return null;
+        }
+    }
+
+    static char hex(int value) {
+        return HEX[value & 0xF];
+    }
+
+    private static class StringBuilderWriter extends PointJSONWriter {
+        private final StringBuilder sb;
+
+        StringBuilderWriter(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        @Override
+        protected void writeAscii(char c) {
+            sb.append(c);
+        }
+
+        @Override
+        protected void writeAscii(String s) {
+            sb.append(s);
+        }
+
+        @Override
+        protected void writeText(String s) {
+            sb.append(s);
+        }
+
+        @Override
+        protected void writeString(String s) {
+            appendString(sb, s);
+        }
+
+        @Override
+        protected void writeLong(long value) {
+            sb.append(value);
+        }
+
+        @Override
+        protected void writeTagSet(TagSet tags) {
+            sb.append(tags.toJSON());
+        }
+    }
+
+}
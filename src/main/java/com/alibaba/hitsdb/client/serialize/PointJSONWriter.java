@@ -0,0 +1,184 @@
+package com.alibaba.hitsdb.client.serialize;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+
+/**
+ * 数据点JSON输出的公共逻辑，字段顺序与空值处理与fastjson默认输出保持一致。<br>
+ * 子类决定输出的目标(字符或UTF-8字节)。
+ */
+public abstract class PointJSONWriter {
+
+    public void writePoints(Collection<? extends Point> points) throws IOException {
+        writeAscii('[');
+        boolean first = true;
+        for (Point point : points) {
+            if (!first) {
+                writeAscii(',');
+            }
+            writePoint(point);
+            first = false;
+        }
+        writeAscii(']');
+    }
+
+    public void writePoint(Point point) throws IOException {
+        if (HiTSDBConfig.Builder.ProducerThreadSerializeSwitch && !(point instanceof DoublePoint)) {
+            // 生产者线程已经完成序列化。不能调用toJSON()，尚未序列化时它会回到这里
+            String json = point.getJson();
+            if (json != null) {
+                writeText(json);
+                return;
+            }
+        }
+
+        writeAscii('{');
+        boolean first = true;
+
+        String aggregator = point.getAggregator();
+        if (aggregator != null) {
+            first = writeName("aggregator", first);
+            writeString(aggregator);
+        }
+
+        String granularity = point.getGranularity();
+        if (granularity != null) {
+            first = writeName("granularity", first);
+            writeString(granularity);
+        }
+
+        String metric = point.getMetric();
+        if (metric != null) {
+            first = writeName("metric", first);
+            writeString(metric);
+        }
+
+        if (point instanceof DoublePoint) {
+            DoublePoint doublePoint = (DoublePoint) point;
+            first = writeName("tags", first);
+            writeTagSet(doublePoint.getTags());
+            first = writeName("timestamp", first);
+            writeLong(doublePoint.getTime());
+            first = writeName("value", first);
+            writeDouble(doublePoint.getDoubleValue());
+        } else {
+            Map<String, String> tags = point.getTags();
+            if (tags != null) {
+                first = writeName("tags", first);
+                writeTags(tags);
+            }
+
+            Integer timestamp = point.getTimestamp();
+            if (timestamp != null) {
+                first = writeName("timestamp", first);
+                writeLong(timestamp.intValue());
+            }
+
+            Number value = point.getValue();
+            if (value != null) {
+                first = writeName("value", first);
+                writeNumber(value);
+            }
+        }
+
+        Long version = point.getVersion();
+        if (version != null) {
+            first = writeName("version", first);
+            writeLong(version.longValue());
+        }
+
+        writeAscii('}');
+    }
+
+    private boolean writeName(String name, boolean first) throws IOException {
+        if (!first) {
+            writeAscii(',');
+        }
+        writeAscii('"');
+        writeAscii(name);
+        writeAscii('"');
+        writeAscii(':');
+        return false;
+    }
+
+    private void writeTags(Map<String, String> tags) throws IOException {
+        if (tags instanceof TagSet) {
+            writeTagSet((TagSet) tags);
+            return;
+        }
+
+        writeAscii('{');
+        boolean first = true;
+        for (Entry<String, String> entry : tags.entrySet()) {
+            String value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            if (!first) {
+                writeAscii(',');
+            }
+            writeString(String.valueOf(entry.getKey()));
+            writeAscii(':');
+            writeString(value);
+            first = false;
+        }
+        writeAscii('}');
+    }
+
+    private void writeNumber(Number value) throws IOException {
+        if (value instanceof Double) {
+            writeDouble(value.doubleValue());
+        } else if (value instanceof Float) {
+            float f = value.floatValue();
+            if (Float.isNaN(f) || Float.isInfinite(f)) {
+                writeAscii("null");
+            } else {
+                writeAscii(Float.toString(f));
+            }
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeLong(value.longValue());
+        } else {
+            writeAscii(value.toString());
+        }
+    }
+
+    private void writeDouble(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeAscii("null");
+        } else {
+            writeAscii(Double.toString(value));
+        }
+    }
+
+    /**
+     * 写入单个ASCII字符
+     */
+    protected abstract void writeAscii(char c) throws IOException;
+
+    /**
+     * 写入仅包含ASCII字符、无需转义的文本
+     */
+    protected abstract void writeAscii(String s) throws IOException;
+
+    /**
+     * 写入无需转义的任意文本
+     */
+    protected abstract void writeText(String s) throws IOException;
+
+    /**
+     * 写入带引号并转义后的JSON字符串
+     */
+    protected abstract void writeString(String s) throws IOException;
+
+    protected abstract void writeLong(long value) throws IOException;
+
+    protected abstract void writeTagSet(TagSet tags) throws IOException;
+
+}
@@ -0,0 +1,34 @@
+package com.alibaba.hitsdb.client.transport;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 异步批量写入使用的传输方式，替代HTTP JSON写入/api/put。<br>
+ * 消费者线程获取请求许可后调用{@link #send(String, List, PutTransportCallback)}，许可在回调中归还。
+ * 传输不能表示的数据点(见{@link #accepts(Point)})仍通过HTTP JSON写入。
+ */
+public interface PutTransport {
+
+    /**
+     * @return 该数据点能否通过该传输写入
+     */
+    boolean accepts(Point point);
+
+    /**
+     * 异步发送一个批次，不阻塞调用线程。无论成功与否，callback恰好被调用一次，可能在调用线程中被调用
+     *
+     * @param address 目标节点的地址，host:port
+     */
+    void send(String address, List<Point> points, PutTransportCallback callback);
+
+    /**
+     * 关闭传输，之后发送的批次直接失败
+     *
+     * @param force 为false时等待已经提交的批次发送完成，为true时尚未发送的批次立即失败
+     */
+    void close(boolean force) throws IOException;
+
+}
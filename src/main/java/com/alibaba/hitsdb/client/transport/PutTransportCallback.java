@@ -0,0 +1,19 @@
+package com.alibaba.hitsdb.client.transport;
+
+import java.util.List;
+
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * {@link PutTransport}发送一个批次的结果
+ */
+public interface PutTransportCallback {
+
+    /**
+     * 批次已经全部交给目标节点
+     */
+    void completed(List<Point> points);
+
+    void failed(List<Point> points, Exception ex);
+
+}
@@ -0,0 +1,72 @@
+package com.alibaba.hitsdb.client.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 到一个节点的持久连接。<br>
+ * 消费者线程向队列提交批次，I/O线程按顺序写出，不等待响应(流水线)；
+ * 除队列与调度标记外，其它字段只在I/O线程中访问。
+ */
+final class TelnetConnection {
+
+    /**
+     * 等待写出的一个批次
+     */
+    static final class PendingWrite {
+        final List<Point> points;
+        final ByteBuffer buffer;
+        final PutTransportCallback callback;
+
+        PendingWrite(List<Point> points, ByteBuffer buffer, PutTransportCallback callback) {
+            this.points = points;
+            this.buffer = buffer;
+            this.callback = callback;
+        }
+    }
+
+    final String address;
+    final String host;
+    final int port;
+    final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<PendingWrite>();
+
+    /**
+     * 是否已经在I/O线程的待处理列表中，避免每次提交都唤醒I/O线程
+     */
+    final AtomicBoolean scheduled = new AtomicBoolean();
+
+    SocketChannel channel;
+    SelectionKey key;
+    boolean connecting;
+    long connectDeadline;
+
+    /**
+     * 连接失败后在reconnectAfter之前不再重连，期间提交的批次直接失败，单位：纳秒
+     */
+    boolean backoff;
+    long reconnectAfter;
+
+    /**
+     * 正在写出的批次
+     */
+    PendingWrite current;
+
+    /**
+     * 服务端返回的尚未读到换行符的内容
+     */
+    final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    TelnetConnection(String address, String host, int port) {
+        this.address = address;
+        this.host = host;
+        this.port = port;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.alibaba.hitsdb.client.transport;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+
+/**
+ * 将数据点编码为telnet风格的行协议：put &lt;metric&gt; &lt;timestamp&gt; &lt;value&gt; &lt;tagk=tagv&gt;...
+ */
+final class TelnetLineEncoder {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private TelnetLineEncoder() {
+    }
+
+    /**
+     * 行协议没有预聚合粒度、聚合函数与版本号，也不能表示非数值；
+     * metric与标签中不能有空白字符，标签中不能有'='，否则会破坏行的结构
+     */
+    static boolean accepts(Point point) {
+        if (point.getGranularity() != null || point.getAggregator() != null || point.getVersion() != null) {
+            return false;
+        }
+        if (!isToken(point.getMetric(), false) || point.getTimestamp() == null) {
+            return false;
+        }
+        Number value = point.getValue();
+        if (value == null) {
+            return false;
+        }
+        if ((value instanceof Double || value instanceof Float) && !isFinite(value.doubleValue())) {
+            return false;
+        }
+        Map<String, String> tags = point.getTags();
+        if (tags != null) {
+            for (Entry<String, String> tag : tags.entrySet()) {
+                if (!isToken(tag.getKey(), true) || !isToken(tag.getValue(), true)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+
+    private static boolean isToken(String token, boolean tag) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c <= ' ' || c == 0x7F || (tag && c == '=')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 调用方需要先用{@link #accepts(Point)}检查数据点
+     */
+    static byte[] encode(List<Point> points) {
+        StringBuilder builder = new StringBuilder(points.size() * 96);
+        for (Point point : points) {
+            append(builder, point);
+        }
+        return builder.toString().getBytes(UTF_8);
+    }
+
+    static void append(StringBuilder builder, Point point) {
+        builder.append("put ").append(point.getMetric()).append(' ');
+        if (point instanceof DoublePoint) {
+            // 保留毫秒时间戳
+            DoublePoint doublePoint = (DoublePoint) point;
+            builder.append(doublePoint.getTime()).append(' ');
+            builder.append(Double.toString(doublePoint.getDoubleValue()));
+        } else {
+            builder.append(point.getTimestamp().intValue()).append(' ');
+            appendValue(builder, point.getValue());
+        }
+
+        Map<String, String> tags = point.getTags();
+        if (tags instanceof TagSet) {
+            TagSet tagSet = (TagSet) tags;
+            for (int i = 0; i < tagSet.size(); i++) {
+                builder.append(' ').append(tagSet.getKey(i)).append('=').append(tagSet.getValue(i));
+            }
+        } else if (tags != null) {
+            for (Entry<String, String> tag : tags.entrySet()) {
+                builder.append(' ').append(tag.getKey()).append('=').append(tag.getValue());
+            }
+        }
+        builder.append('\n');
+    }
+
+    /**
+     * 与JSON序列化的格式一致，服务端按相同的类型(整数或浮点数)存储
+     */
+    private static void appendValue(StringBuilder builder, Number value) {
+        if (value instanceof Double) {
+            builder.append(Double.toString(value.doubleValue()));
+        } else if (value instanceof Float) {
+            builder.append(Float.toString(value.floatValue()));
+        } else if (value instanceof BigDecimal) {
+            builder.append(((BigDecimal) value).toPlainString());
+        } else {
+            builder.append(value.toString());
+        }
+    }
+
+}
@@ -0,0 +1,439 @@
+package com.alibaba.hitsdb.client.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.transport.TelnetConnection.PendingWrite;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 通过telnet风格的行协议写入数据点：put &lt;metric&gt; &lt;timestamp&gt; &lt;value&gt; &lt;tagk=tagv&gt;...<br>
+ * 每个节点维持若干条持久连接，批次轮流分配到各条连接，由一个NIO线程按顺序写出，不等待响应。
+ * 行协议写入成功时服务端不返回任何内容，因此批次写入套接字后即视为成功；
+ * 服务端返回的错误行无法对应到批次，只计数并记录日志。适合允许少量丢失的高吞吐数据。<br>
+ * 连接断开时，正在写出与排队的批次失败，下一个批次到来时重新连接；连接失败后等待一段时间再重连，期间的批次直接失败。
+ */
+public class TelnetPutTransport implements PutTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TelnetPutTransport.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long SELECT_TIMEOUT_MILLIS = 100;
+    private static final long RECONNECT_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_LINE_BYTES = 4096;
+
+    private final int port;
+    private final int connectionsPerAddress;
+    private final long connectTimeoutNanos;
+
+    private final ConcurrentHashMap<String, TelnetConnection[]> pools = new ConcurrentHashMap<String, TelnetConnection[]>();
+    private final AtomicInteger nextConnection = new AtomicInteger();
+
+    /**
+     * 有新提交批次的连接，由I/O线程处理
+     */
+    private final ConcurrentLinkedQueue<TelnetConnection> ready = new ConcurrentLinkedQueue<TelnetConnection>();
+
+    /**
+     * 已提交但尚未写出或失败的批次数
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong rejectedLines = new AtomicLong();
+
+    private final Selector selector;
+    private final Thread ioThread;
+
+    /**
+     * 只在I/O线程中使用
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+
+    private volatile boolean closed;
+    private volatile boolean stopped;
+
+    /**
+     * @param port 行协议的端口，0表示与地址中的端口相同(服务端在同一端口上同时支持HTTP与行协议)
+     * @param connectionsPerAddress 每个节点的连接数
+     * @param connectTimeoutMillis 连接超时，单位：毫秒
+     */
+    public TelnetPutTransport(int port, int connectionsPerAddress, int connectTimeoutMillis) throws IOException {
+        if (port < 0 || connectionsPerAddress <= 0 || connectTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Illegal telnet put transport arguments");
+        }
+        this.port = port;
+        this.connectionsPerAddress = connectionsPerAddress;
+        this.connectTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(connectTimeoutMillis);
+        this.selector = Selector.open();
+        this.ioThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "hitsdb-telnet-put");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    @Override
+    public boolean accepts(Point point) {
+        return TelnetLineEncoder.accepts(point);
+    }
+
+    @Override
+    public void send(String address, List<Point> points, PutTransportCallback callback) {
+        if (closed) {
+            callback.failed(points, new IOException("The telnet put transport is closed"));
+            return;
+        }
+        TelnetConnection connection;
+        try {
+            connection = connection(address);
+        } catch (IllegalArgumentException e) {
+            callback.failed(points, e);
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(TelnetLineEncoder.encode(points));
+        pending.incrementAndGet();
+        connection.queue.offer(new PendingWrite(points, buffer, callback));
+        if (stopped) {
+            // 与关闭并发，I/O线程可能已经退出。正在写出的批次由关闭流程处理
+            IOException ex = new IOException("The telnet put transport is closed");
+            PendingWrite write;
+            while ((write = connection.queue.poll()) != null) {
+                failed(write, ex);
+            }
+            return;
+        }
+        if (connection.scheduled.compareAndSet(false, true)) {
+            ready.offer(connection);
+            selector.wakeup();
+        }
+    }
+
+    private TelnetConnection connection(String address) {
+        TelnetConnection[] pool = pools.get(address);
+        if (pool == null) {
+            int index = address.lastIndexOf(':');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Illegal address " + address);
+            }
+            String host = address.substring(0, index);
+            int remotePort = this.port > 0 ? this.port : Integer.parseInt(address.substring(index + 1));
+            pool = new TelnetConnection[connectionsPerAddress];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = new TelnetConnection(address, host, remotePort);
+            }
+            TelnetConnection[] exist = pools.putIfAbsent(address, pool);
+            if (exist != null) {
+                pool = exist;
+            }
+        }
+        return pool[(nextConnection.getAndIncrement() & Integer.MAX_VALUE) % pool.length];
+    }
+
+    private void loop() {
+        while (!stopped) {
+            try {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                long now = System.nanoTime();
+                TelnetConnection connection;
+                while ((connection = ready.poll()) != null) {
+                    // 先清除标记，处理期间新提交的批次会再次调度
+                    connection.scheduled.set(false);
+                    process(connection, now);
+                }
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (key.isValid()) {
+                        handle((TelnetConnection) key.attachment(), key, now);
+                    }
+                }
+
+                checkConnectTimeout(now);
+            } catch (Throwable t) {
+                LOGGER.error("An error occurred in the telnet put I/O thread", t);
+            }
+        }
+    }
+
+    private void process(TelnetConnection connection, long now) {
+        if (connection.channel == null) {
+            if (connection.queue.isEmpty()) {
+                return;
+            }
+            if (connection.backoff && now - connection.reconnectAfter < 0) {
+                failQueued(connection, new ConnectException("Waiting to reconnect to " + connection.address));
+                return;
+            }
+            connect(connection, now);
+        } else if (!connection.connecting) {
+            try {
+                flush(connection);
+            } catch (IOException e) {
+                disconnect(connection, e);
+            }
+        }
+    }
+
+    private void connect(TelnetConnection connection, long now) {
+        try {
+            SocketChannel channel = SocketChannel.open();
+            connection.channel = channel;
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().setKeepAlive(true);
+            InetSocketAddress remote = new InetSocketAddress(connection.host, connection.port);
+            if (remote.isUnresolved()) {
+                throw new UnknownHostException(connection.host);
+            }
+            if (channel.connect(remote)) {
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                onConnected(connection);
+            } else {
+                connection.connecting = true;
+                connection.connectDeadline = now + connectTimeoutNanos;
+                connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+            }
+        } catch (IOException e) {
+            connectFailed(connection, e, now);
+        }
+    }
+
+    private void onConnected(TelnetConnection connection) throws IOException {
+        connection.connecting = false;
+        connection.backoff = false;
+        LOGGER.info("Connected to {} for the telnet put", connection.address);
+        flush(connection);
+    }
+
+    private void handle(TelnetConnection connection, SelectionKey key, long now) {
+        try {
+            if (key.isConnectable()) {
+                if (connection.channel.finishConnect()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    onConnected(connection);
+                }
+                return;
+            }
+            if (key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(connection);
+            }
+        } catch (IOException e) {
+            if (connection.connecting) {
+                connectFailed(connection, e, now);
+            } else {
+                disconnect(connection, e);
+            }
+        }
+    }
+
+    /**
+     * 按顺序写出排队的批次，套接字缓冲区已满时等待可写事件
+     */
+    private void flush(TelnetConnection connection) throws IOException {
+        while (true) {
+            PendingWrite write = connection.current;
+            if (write == null) {
+                write = connection.queue.poll();
+                if (write == null) {
+                    connection.key.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+                connection.current = write;
+            }
+            connection.channel.write(write.buffer);
+            if (write.buffer.hasRemaining()) {
+                connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            connection.current = null;
+            completed(write);
+        }
+    }
+
+    /**
+     * 服务端只在写入出错时返回一行错误信息
+     */
+    private void read(TelnetConnection connection) throws IOException {
+        readBuffer.clear();
+        int n = connection.channel.read(readBuffer);
+        if (n < 0) {
+            throw new EOFException("The connection is closed by " + connection.address);
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+            byte b = readBuffer.get();
+            if (b == '\n') {
+                onRejected(connection, new String(connection.line.toByteArray(), UTF_8).trim());
+                connection.line.reset();
+            } else if (connection.line.size() < MAX_LINE_BYTES) {
+                connection.line.write(b);
+            }
+        }
+    }
+
+    private void onRejected(TelnetConnection connection, String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+        long count = rejectedLines.incrementAndGet();
+        // 按2的幂次记录日志，避免大量错误时刷屏
+        if ((count & (count - 1)) == 0) {
+            LOGGER.warn("{} rejected {} put lines so far, the latest error: {}", connection.address, count, line);
+        }
+    }
+
+    private void checkConnectTimeout(long now) {
+        for (TelnetConnection[] pool : pools.values()) {
+            for (TelnetConnection connection : pool) {
+                if (connection.connecting && now - connection.connectDeadline > 0) {
+                    connectFailed(connection, new SocketTimeoutException("Connect to " + connection.address + " timed out"), now);
+                }
+            }
+        }
+    }
+
+    private void connectFailed(TelnetConnection connection, IOException e, long now) {
+        LOGGER.warn("Failed to connect to {} for the telnet put: {}", connection.address, e.toString());
+        connection.backoff = true;
+        connection.reconnectAfter = now + RECONNECT_BACKOFF_NANOS;
+        closeChannel(connection);
+        failQueued(connection, e);
+    }
+
+    private void disconnect(TelnetConnection connection, IOException e) {
+        if (connection.current != null || !connection.queue.isEmpty()) {
+            LOGGER.warn("The telnet put connection to {} is broken: {}", connection.address, e.toString());
+        }
+        closeChannel(connection);
+        failQueued(connection, e);
+    }
+
+    private void closeChannel(TelnetConnection connection) {
+        if (connection.key != null) {
+            connection.key.cancel();
+            connection.key = null;
+        }
+        if (connection.channel != null) {
+            try {
+                connection.channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Failed to close the telnet put connection to {}", connection.address, e);
+            }
+            connection.channel = null;
+        }
+        connection.connecting = false;
+        connection.line.reset();
+    }
+
+    private void failQueued(TelnetConnection connection, Exception ex) {
+        PendingWrite write = connection.current;
+        connection.current = null;
+        if (write != null) {
+            failed(write, ex);
+        }
+        while ((write = connection.queue.poll()) != null) {
+            failed(write, ex);
+        }
+    }
+
+    private void completed(PendingWrite write) {
+        // 回调前计数，回调中看到的已是结束后的状态
+        pending.decrementAndGet();
+        try {
+            write.callback.completed(write.points);
+        } catch (RuntimeException e) {
+            LOGGER.error("An error occurred in the put transport callback", e);
+        }
+    }
+
+    private void failed(PendingWrite write, Exception ex) {
+        // 回调前计数，回调中看到的已是结束后的状态
+        pending.decrementAndGet();
+        try {
+            write.callback.failed(write.points, ex);
+        } catch (RuntimeException e) {
+            LOGGER.error("An error occurred in the put transport callback", e);
+        }
+    }
+
+    /**
+     * 已提交但尚未写出或失败的批次数
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * 服务端返回的错误行数
+     */
+    public long getRejectedLines() {
+        return rejectedLines.get();
+    }
+
+    @Override
+    public void close(boolean force) throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        if (!force) {
+            // 等待已提交的批次写出，连接失败的批次会很快失败
+            while (pending.get() > 0 && ioThread.isAlive()) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        stopped = true;
+        selector.wakeup();
+        while (ioThread.isAlive()) {
+            try {
+                ioThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        IOException ex = new IOException("The telnet put transport is closed");
+        for (TelnetConnection[] pool : pools.values()) {
+            for (TelnetConnection connection : pool) {
+                closeChannel(connection);
+                failQueued(connection, ex);
+            }
+        }
+        selector.close();
+    }
+
+}
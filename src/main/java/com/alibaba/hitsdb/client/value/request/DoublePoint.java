@@ -0,0 +1,83 @@
+package com.alibaba.hitsdb.client.value.request;
+
+import java.util.Map;
+
+import com.alibaba.fastjson.annotation.JSONType;
+import com.alibaba.hitsdb.client.serialize.PointJSONSerializer;
+
+/**
+ * 时间戳与值均以基本类型存储的数据点，用于高吞吐写入。<br>
+ * 标签使用可共享的{@link TagSet}，每个点只创建一个对象，序列化时不经过反射。
+ */
+@JSONType(ignores = { "granularityType", "time", "doubleValue", "walSegment" })
+public class DoublePoint extends Point {
+	/**
+	 * 高32位不为0的时间戳视为毫秒，与服务端的判断方式一致
+	 */
+	private static final long SECOND_MASK = 0xFFFFFFFF00000000L;
+
+	private TagSet tags;
+	private long time;
+	private double value;
+
+	public DoublePoint(String metric, TagSet tags, long time, double value) {
+		super();
+		super.setMetric(metric);
+		this.tags = tags == null ? TagSet.EMPTY : tags;
+		this.time = time;
+		this.value = value;
+	}
+
+	@Override
+	public TagSet getTags() {
+		return tags;
+	}
+
+	@Override
+	public void setTags(Map<String, String> tags) {
+		this.tags = TagSet.of(tags);
+	}
+
+	/**
+	 * 秒级时间戳
+	 */
+	@Override
+	public Integer getTimestamp() {
+		if ((time & SECOND_MASK) != 0) {
+			return (int) (time / 1000);
+		}
+		return (int) time;
+	}
+
+	@Override
+	public void setTimestamp(Integer timestamp) {
+		this.time = timestamp;
+	}
+
+	/**
+	 * 原始时间戳，秒或毫秒
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	@Override
+	public Number getValue() {
+		return value;
+	}
+
+	@Override
+	public void setValue(Number value) {
+		this.value = value.doubleValue();
+	}
+
+	public double getDoubleValue() {
+		return value;
+	}
+
+	@Override
+	public String toJSON() {
+		return PointJSONSerializer.toJSONString(this);
+	}
+
+}
@@ -5,13 +5,14 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.annotation.JSONType;
 import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.serialize.PointJSONSerializer;
 import com.alibaba.hitsdb.client.value.JSONValue;
 import com.alibaba.hitsdb.client.value.type.Granularity;
+import com.alibaba.hitsdb.client.wal.WalSegment;
 
-@JSONType(ignores = { "granularityType" })
+@JSONType(ignores = { "granularityType", "walSegment", "json" })
 public class Point extends JSONValue {
 
 	public static class MetricBuilder {
@@ -118,7 +119,7 @@ public class Point extends JSONValue {
 		}
 
 		private String buildJSON(Point point) {
-			return JSON.toJSONString(point);
+			return PointJSONSerializer.toJSONString(point);
 		}
 
 	}
@@ -136,6 +137,11 @@ public class Point extends JSONValue {
 	private String json;
 	private Long version;
 
+	/**
+	 * 数据点所在的预写日志分段，未开启预写日志或已处理完毕时为null
+	 */
+	private transient WalSegment walSegment;
+
 	public String getMetric() {
 		return metric;
 	}
@@ -199,12 +205,42 @@ public class Point extends JSONValue {
 		this.version = version;
 	}
 
+	/**
+	 * 客户端内部使用，生产者线程序列化得到的JSON，未序列化时为null
+	 */
+	public String getJson() {
+		return json;
+	}
+
+	/**
+	 * 客户端内部使用
+	 */
+	public WalSegment getWalSegment() {
+		return walSegment;
+	}
+
+	/**
+	 * 客户端内部使用
+	 */
+	public void setWalSegment(WalSegment walSegment) {
+		this.walSegment = walSegment;
+	}
+
 	@Override
 	public String toJSON() {
-		if (HiTSDBConfig.Builder.ProducerThreadSerializeSwitch) {
+		if (HiTSDBConfig.Builder.ProducerThreadSerializeSwitch && this.json != null) {
 			return this.json;
 		} else {
-			return super.toJSON();
+			return PointJSONSerializer.toJSONString(this);
+		}
+	}
+
+	@Override
+	public void appendJSON(StringBuilder sb) {
+		if (HiTSDBConfig.Builder.ProducerThreadSerializeSwitch && this.json != null) {
+			sb.append(this.json);
+		} else {
+			PointJSONSerializer.appendJSON(sb, this);
 		}
 	}
 
@@ -0,0 +1,228 @@
+package com.alibaba.hitsdb.client.value.request;
+
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.alibaba.hitsdb.client.serialize.PointJSONSerializer;
+
+/**
+ * 不可变的标签集合，按tag key排序存储。<br>
+ * 同一条时间线的多个点可以共享同一个TagSet，哈希值与JSON片段只计算一次。
+ */
+public final class TagSet extends AbstractMap<String, String> {
+
+	public static class Builder {
+		private final TreeMap<String, String> tags = new TreeMap<String, String>();
+
+		public Builder tag(final String tagName, final String value) {
+			Objects.requireNonNull(tagName, "tagName");
+			Objects.requireNonNull(value, "value");
+			if (!tagName.isEmpty() && !value.isEmpty()) {
+				tags.put(tagName, value);
+			}
+			return this;
+		}
+
+		public Builder tag(final Map<String, String> tags) {
+			for (Entry<String, String> entry : tags.entrySet()) {
+				tag(entry.getKey(), entry.getValue());
+			}
+			return this;
+		}
+
+		public TagSet build() {
+			String[] keys = new String[tags.size()];
+			String[] values = new String[tags.size()];
+			int i = 0;
+			for (Entry<String, String> entry : tags.entrySet()) {
+				keys[i] = entry.getKey();
+				values[i] = entry.getValue();
+				i++;
+			}
+			return new TagSet(keys, values);
+		}
+	}
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	public static final TagSet EMPTY = new TagSet(new String[0], new String[0]);
+
+	public static Builder tag(String tagName, String value) {
+		return new Builder().tag(tagName, value);
+	}
+
+	public static TagSet of(Map<String, String> tags) {
+		if (tags instanceof TagSet) {
+			return (TagSet) tags;
+		}
+		if (tags == null || tags.isEmpty()) {
+			return EMPTY;
+		}
+		return new Builder().tag(tags).build();
+	}
+
+	private final String[] keys;
+	private final String[] values;
+	private final int hashCode;
+	private volatile String json;
+	private volatile byte[] jsonBytes;
+	private transient Set<Entry<String, String>> entrySet;
+
+	private TagSet(String[] keys, String[] values) {
+		this.keys = keys;
+		this.values = values;
+		// 与java.util.Map#hashCode()的约定保持一致
+		int hash = 0;
+		for (int i = 0; i < keys.length; i++) {
+			hash += keys[i].hashCode() ^ values[i].hashCode();
+		}
+		this.hashCode = hash;
+	}
+
+	@Override
+	public int size() {
+		return keys.length;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public String get(Object key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		return values[index];
+	}
+
+	private int indexOf(Object key) {
+		if (!(key instanceof String)) {
+			return -1;
+		}
+		return Arrays.binarySearch(keys, key);
+	}
+
+	public String getKey(int index) {
+		return keys[index];
+	}
+
+	public String getValue(int index) {
+		return values[index];
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		Set<Entry<String, String>> es = this.entrySet;
+		if (es == null) {
+			es = new AbstractSet<Entry<String, String>>() {
+
+				@Override
+				public Iterator<Entry<String, String>> iterator() {
+					return new Iterator<Entry<String, String>>() {
+						private int index = 0;
+
+						@Override
+						public boolean hasNext() {
+							return index < keys.length;
+						}
+
+						@Override
+						public Entry<String, String> next() {
+							if (index >= keys.length) {
+								throw new NoSuchElementException();
+							}
+							Entry<String, String> entry = new SimpleImmutableEntry<String, String>(keys[index], values[index]);
+							index++;
+							return entry;
+						}
+
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return keys.length;
+				}
+			};
+			this.entrySet = es;
+		}
+		return es;
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (o instanceof TagSet) {
+			TagSet other = (TagSet) o;
+			return hashCode == other.hashCode && Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+		}
+		return super.equals(o);
+	}
+
+	/**
+	 * 标签集合的JSON对象，首次调用后缓存
+	 *
+	 * @return
+	 */
+	public String toJSON() {
+		String s = this.json;
+		if (s == null) {
+			StringBuilder sb = new StringBuilder(keys.length * 32);
+			sb.append('{');
+			for (int i = 0; i < keys.length; i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				PointJSONSerializer.appendString(sb, keys[i]);
+				sb.append(':');
+				PointJSONSerializer.appendString(sb, values[i]);
+			}
+			sb.append('}');
+			s = sb.toString();
+			this.json = s;
+		}
+		return s;
+	}
+
+	/**
+	 * 标签集合的JSON对象的UTF-8编码，首次调用后缓存，调用方不能修改返回的数组
+	 *
+	 * @return
+	 */
+	public byte[] toJSONBytes() {
+		byte[] bytes = this.jsonBytes;
+		if (bytes == null) {
+			bytes = toJSON().getBytes(UTF_8);
+			this.jsonBytes = bytes;
+		}
+		return bytes;
+	}
+
+	@Override
+	public String toString() {
+		return toJSON();
+	}
+
+}
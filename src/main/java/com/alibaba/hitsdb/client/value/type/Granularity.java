@@ -4,7 +4,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 public enum Granularity {
-    S1("1s"),S5("5s"), S15("15s"), M1("1m"), M5("5m"), M15("15m"), M60("60m"), H1("1h"), H2("2h"), H6("6h"), H24("24h");
+    S1("1s", 1), S5("5s", 5), S15("15s", 15), M1("1m", 60), M5("5m", 300), M15("15m", 900), M60("60m", 3600),
+    H1("1h", 3600), H2("2h", 7200), H6("6h", 21600), H24("24h", 86400);
 
     private static final Map<String, Granularity> CODE_MAP = new HashMap<String, Granularity>();
 
@@ -19,15 +20,24 @@ public enum Granularity {
     }
 
     private String name;
+    private int seconds;
 
-    private Granularity(String name) {
+    private Granularity(String name, int seconds) {
         this.name = name;
+        this.seconds = seconds;
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * 时间窗口的长度，单位：秒
+     */
+    public int getSeconds() {
+        return seconds;
+    }
+
     @Override
     public String toString() {
         return name;
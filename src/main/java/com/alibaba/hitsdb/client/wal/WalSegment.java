@@ -0,0 +1,85 @@
+package com.alibaba.hitsdb.client.wal;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预写日志的一个分段文件。<br>
+ * 分段写满后封闭，封闭且其中的数据点全部确认后删除文件。确认可以在任意线程乱序进行。
+ */
+public final class WalSegment {
+    private final WriteAheadLog log;
+    private final long id;
+    private final File file;
+    final MappedByteBuffer buffer;
+
+    /**
+     * 写入位置，只在日志的锁内访问
+     */
+    int writePosition;
+
+    /**
+     * 只在日志的锁内修改
+     */
+    private volatile int appendedPoints;
+    private final AtomicInteger acknowledgedPoints = new AtomicInteger();
+    private volatile boolean sealed;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    WalSegment(WriteAheadLog log, long id, File file, MappedByteBuffer buffer) {
+        this.log = log;
+        this.id = id;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    void appended() {
+        appendedPoints++;
+    }
+
+    /**
+     * 封闭分段，之后不再追加数据点
+     */
+    void seal() {
+        sealed = true;
+        tryRelease();
+    }
+
+    void acknowledge(int points) {
+        acknowledgedPoints.addAndGet(points);
+        tryRelease();
+    }
+
+    private void tryRelease() {
+        // sealed之后appendedPoints不再变化
+        if (sealed && acknowledgedPoints.get() >= appendedPoints && released.compareAndSet(false, true)) {
+            log.release(this);
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * 尚未确认的数据点个数
+     */
+    public int getPendingPoints() {
+        return Math.max(appendedPoints - acknowledgedPoints.get(), 0);
+    }
+
+}
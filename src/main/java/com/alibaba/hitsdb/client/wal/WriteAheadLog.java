@@ -0,0 +1,593 @@
+package com.alibaba.hitsdb.client.wal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.hitsdb.client.exception.WriteAheadLogException;
+import com.alibaba.hitsdb.client.serialize.PointBinaryCodec;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+/**
+ * 基于内存映射分段文件的预写日志。<br>
+ * 每条记录为4字节长度、4字节CRC32校验和与编码后的数据点，先写数据体与校验和再写长度，恢复时遇到不完整或校验失败的记录即停止读取该分段。<br>
+ * 刷盘由独立线程完成：syncInterval为0时，等待刷盘的写入线程合并为一次刷盘(group commit)；大于0时按间隔定时刷盘。<br>
+ * 追加的数据点记录所在的分段，处理完毕后通过{@link #acknowledge(Collection)}确认，分段写满且全部确认后删除文件。
+ */
+public class WriteAheadLog implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * 长度与校验和
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * 分段已写满的标记
+     */
+    private static final int SEALED = -1;
+
+    /**
+     * 恢复时逐个处理数据点
+     */
+    public interface ReplayHandler {
+        void replay(Point point);
+    }
+
+    private final File directory;
+    private final int segmentSize;
+    private final int syncInterval;
+
+    /**
+     * 打开时目录中已有的分段，等待重放
+     */
+    private final List<File> recoveredFiles = new ArrayList<File>();
+
+    /**
+     * 尚未删除的分段，只在this锁内访问
+     */
+    private final Set<WalSegment> segments = new LinkedHashSet<WalSegment>();
+    private WalSegment writeSegment;
+    private long nextSegmentId;
+
+    /**
+     * 累计写入的字节数，作为刷盘进度的逻辑位置
+     */
+    private long writtenPosition;
+    private long appendedPoints;
+    private volatile boolean closed;
+
+    private final RecordBuffer recordBuffer = new RecordBuffer();
+    private final DataOutputStream recordOutput = new DataOutputStream(recordBuffer);
+    private final CRC32 crc = new CRC32();
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncRequested = syncLock.newCondition();
+    private final Condition synced = syncLock.newCondition();
+    private boolean syncPending;
+    private volatile long syncedPosition;
+    private final AtomicLong syncCount = new AtomicLong();
+    private final AtomicLong replayedPoints = new AtomicLong();
+    private final Thread syncThread;
+
+    /**
+     * 可直接访问内部数组的记录编码缓冲，避免复制
+     */
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    /**
+     * @param directory 分段文件所在目录，不存在时自动创建
+     * @param segmentSize 每个分段文件的字节数
+     * @param syncInterval 刷盘间隔，单位：毫秒，0表示写入线程等待合并刷盘
+     */
+    public WriteAheadLog(File directory, int segmentSize, int syncInterval) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("The segment size can't be less than 1024 bytes");
+        }
+        if (syncInterval < 0) {
+            throw new IllegalArgumentException("The sync interval can't be less than 0");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create the write-ahead log directory " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncInterval = syncInterval;
+        recover();
+
+        this.syncThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                syncLoop();
+            }
+        }, "hitsdb-wal-sync");
+        this.syncThread.setDaemon(true);
+        this.syncThread.start();
+    }
+
+    private void recover() {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        long[] ids = new long[files.length];
+        int count = 0;
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                ids[count++] = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                count--;
+                LOGGER.warn("Ignore the unknown file {} in the write-ahead log directory", file);
+            }
+        }
+        Arrays.sort(ids, 0, count);
+
+        for (int i = 0; i < count; i++) {
+            recoveredFiles.add(segmentFile(ids[i]));
+        }
+        if (count > 0) {
+            nextSegmentId = ids[count - 1] + 1;
+        }
+    }
+
+    private File segmentFile(long id) {
+        return new File(directory, SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (size > 0) {
+                raf.setLength(size);
+            }
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void delete(File file) {
+        // 映射区域在GC时才会解除映射，文件可以先删除
+        if (!file.delete() && file.exists()) {
+            LOGGER.warn("Failed to delete the write-ahead log segment {}", file);
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * 重放打开时目录中已有的分段。<br>
+     * 按写入顺序将每个数据点交给handler，一个分段处理完毕后删除该分段文件。
+     * handler通常会把数据点重新追加到日志中，因此需要在删除旧分段之前先调用{@link #flush()}。
+     *
+     * @return 重放的数据点个数
+     */
+    public long replay(ReplayHandler handler) {
+        long total = 0;
+        while (true) {
+            File file;
+            synchronized (this) {
+                if (recoveredFiles.isEmpty()) {
+                    break;
+                }
+                file = recoveredFiles.remove(0);
+            }
+
+            int points = 0;
+            try {
+                MappedByteBuffer buffer = map(file, 0);
+                points = replay(file, buffer, handler);
+            } catch (IOException e) {
+                throw new WriteAheadLogException("Failed to replay the write-ahead log segment " + file, e);
+            }
+
+            flush();
+            delete(file);
+            total += points;
+            replayedPoints.addAndGet(points);
+            if (points > 0) {
+                LOGGER.info("Replayed {} points from the write-ahead log segment {}", points, file);
+            }
+        }
+        return total;
+    }
+
+    private int replay(File file, MappedByteBuffer buffer, ReplayHandler handler) {
+        CRC32 checksum = new CRC32();
+        byte[] body = new byte[256];
+        int position = 0;
+        int points = 0;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0) {
+                break;
+            }
+            if (position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                LOGGER.warn("Found a truncated record at {} in {}, ignore the rest", position, file);
+                break;
+            }
+
+            if (body.length < length) {
+                body = new byte[Math.max(length, body.length * 2)];
+            }
+            ByteBuffer source = buffer.duplicate();
+            source.position(position + RECORD_HEADER_SIZE);
+            source.get(body, 0, length);
+            checksum.reset();
+            checksum.update(body, 0, length);
+            if ((int) checksum.getValue() != buffer.getInt(position + 4)) {
+                LOGGER.warn("Found a corrupted record at {} in {}, ignore the rest", position, file);
+                break;
+            }
+
+            try {
+                Point point = PointBinaryCodec.decode(new DataInputStream(new ByteArrayInputStream(body, 0, length)));
+                handler.replay(point);
+                points++;
+            } catch (IOException e) {
+                LOGGER.error("Failed to decode the point at " + position + " in " + file + ", skip it", e);
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return points;
+    }
+
+    /**
+     * 追加一个数据点，并在数据点上记录所在的分段。
+     *
+     * @param point
+     * @return 写入后的逻辑位置，用于{@link #sync(long)}
+     */
+    public long append(Point point) {
+        long position;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The write-ahead log has been closed.");
+            }
+
+            recordBuffer.reset();
+            try {
+                PointBinaryCodec.encode(point, recordOutput);
+            } catch (IOException e) {
+                throw new WriteAheadLogException("Failed to encode the point", e);
+            }
+            int length = recordBuffer.size();
+            if (RECORD_HEADER_SIZE + length > segmentSize) {
+                throw new WriteAheadLogException("The point is larger than the write-ahead log segment size " + segmentSize);
+            }
+
+            WalSegment segment = writeSegment;
+            if (segment == null || segment.writePosition + RECORD_HEADER_SIZE + length > segmentSize) {
+                segment = rotate(segment);
+            }
+
+            byte[] body = recordBuffer.array();
+            crc.reset();
+            crc.update(body, 0, length);
+
+            MappedByteBuffer buffer = segment.buffer;
+            int offset = segment.writePosition;
+            ByteBuffer target = buffer.duplicate();
+            target.position(offset + RECORD_HEADER_SIZE);
+            target.put(body, 0, length);
+            buffer.putInt(offset + 4, (int) crc.getValue());
+            buffer.putInt(offset, length);
+            segment.writePosition = offset + RECORD_HEADER_SIZE + length;
+            segment.appended();
+            point.setWalSegment(segment);
+
+            writtenPosition += RECORD_HEADER_SIZE + length;
+            appendedPoints++;
+            position = writtenPosition;
+        }
+
+        if (syncInterval == 0) {
+            requestSync();
+        }
+        return position;
+    }
+
+    /**
+     * 封闭当前分段并创建新的分段。<br>
+     * 封闭前同步刷盘，刷盘线程只需要关心当前分段。
+     */
+    private WalSegment rotate(WalSegment segment) {
+        if (segment != null) {
+            if (segment.writePosition + 4 <= segmentSize) {
+                segment.buffer.putInt(segment.writePosition, SEALED);
+            }
+            force(segment);
+            writeSegment = null;
+            segment.seal();
+        }
+
+        long id = nextSegmentId++;
+        File file = segmentFile(id);
+        try {
+            WalSegment newSegment = new WalSegment(this, id, file, map(file, segmentSize));
+            segments.add(newSegment);
+            writeSegment = newSegment;
+            return newSegment;
+        } catch (IOException e) {
+            throw new WriteAheadLogException("Failed to create the write-ahead log segment " + file, e);
+        }
+    }
+
+    private void force(WalSegment segment) {
+        try {
+            segment.force();
+            syncCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to sync the write-ahead log segment " + segment.getFile(), e);
+        }
+    }
+
+    /**
+     * 分段全部确认后删除
+     */
+    void release(WalSegment segment) {
+        synchronized (this) {
+            if (!segments.remove(segment)) {
+                return;
+            }
+        }
+        delete(segment.getFile());
+    }
+
+    /**
+     * 确认一批数据点已处理完毕，可以重复调用。<br>
+     * 同一批次中相邻的数据点通常位于同一分段，合并后再更新分段的确认数。
+     */
+    public static void acknowledge(Collection<? extends Point> points) {
+        WalSegment current = null;
+        int count = 0;
+        for (Point point : points) {
+            WalSegment segment = point.getWalSegment();
+            if (segment == null) {
+                continue;
+            }
+            point.setWalSegment(null);
+            if (segment != current) {
+                if (current != null) {
+                    current.acknowledge(count);
+                }
+                current = segment;
+                count = 0;
+            }
+            count++;
+        }
+        if (current != null) {
+            current.acknowledge(count);
+        }
+    }
+
+    public static void acknowledge(Point point) {
+        WalSegment segment = point.getWalSegment();
+        if (segment != null) {
+            point.setWalSegment(null);
+            segment.acknowledge(1);
+        }
+    }
+
+    private void requestSync() {
+        syncLock.lock();
+        try {
+            syncPending = true;
+            syncRequested.signal();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            syncLock.lock();
+            try {
+                if (syncInterval > 0) {
+                    if (!closed) {
+                        syncRequested.await(syncInterval, TimeUnit.MILLISECONDS);
+                    }
+                } else {
+                    while (!syncPending && !closed) {
+                        syncRequested.await();
+                    }
+                }
+                syncPending = false;
+            } catch (InterruptedException e) {
+                LOGGER.warn("The write-ahead log sync thread is interrupted");
+                return;
+            } finally {
+                syncLock.unlock();
+            }
+
+            if (closed) {
+                return;
+            }
+            flush();
+        }
+    }
+
+    /**
+     * 立即刷盘当前已写入的数据点
+     */
+    public void flush() {
+        long target;
+        WalSegment segment;
+        synchronized (this) {
+            target = writtenPosition;
+            segment = writeSegment;
+        }
+        if (target <= syncedPosition) {
+            return;
+        }
+
+        // 分段轮换时已经刷盘，这里只需要刷当前分段
+        if (segment != null) {
+            force(segment);
+        }
+
+        syncLock.lock();
+        try {
+            if (target > syncedPosition) {
+                syncedPosition = target;
+            }
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * 等待指定位置之前的数据刷盘。按间隔刷盘时直接返回。
+     *
+     * @param position {@link #append(Point)}的返回值
+     */
+    public void sync(long position) {
+        if (syncInterval > 0 || syncedPosition >= position) {
+            return;
+        }
+
+        syncLock.lock();
+        try {
+            while (syncedPosition < position && !closed) {
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * 停止刷盘线程并刷盘，已全部确认的分段被删除，其余分段保留到下次打开时重放
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        syncLock.lock();
+        try {
+            closed = true;
+            syncRequested.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+        try {
+            syncThread.join();
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for the write-ahead log sync thread");
+        }
+
+        flush();
+
+        syncLock.lock();
+        try {
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+
+        WalSegment segment;
+        synchronized (this) {
+            segment = writeSegment;
+            writeSegment = null;
+        }
+        if (segment != null) {
+            if (segment.writePosition + 4 <= segmentSize) {
+                segment.buffer.putInt(segment.writePosition, SEALED);
+            }
+            segment.seal();
+        }
+
+        long pending = getPendingPoints();
+        if (pending > 0) {
+            LOGGER.info("{} unacknowledged points are kept in the write-ahead log {}", pending, directory);
+        }
+    }
+
+    /**
+     * 尚未确认的数据点个数
+     */
+    public synchronized long getPendingPoints() {
+        long pending = 0;
+        for (WalSegment segment : segments) {
+            pending += segment.getPendingPoints();
+        }
+        return pending;
+    }
+
+    /**
+     * 尚未删除的分段个数，不包括等待重放的分段
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 累计追加的数据点个数
+     */
+    public synchronized long getAppendedPoints() {
+        return appendedPoints;
+    }
+
+    /**
+     * 累计重放的数据点个数
+     */
+    public long getReplayedPoints() {
+        return replayedPoints.get();
+    }
+
+    /**
+     * 累计刷盘次数
+     */
+    public long getSyncCount() {
+        return syncCount.get();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.alibaba.hitsdb.client.buffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSegmentedByteBuffer {
+
+    @Test
+    public void testWriteAcrossSegments() throws IOException {
+        ByteSegmentPool pool = new ByteSegmentPool(16, 4);
+        SegmentedByteBuffer buffer = pool.newBuffer();
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        buffer.write(data, 0, 50);
+        for (int i = 50; i < data.length; i++) {
+            buffer.write(data[i]);
+        }
+
+        Assert.assertEquals(100, buffer.size());
+        Assert.assertArrayEquals(data, buffer.toByteArray());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffer.writeTo(out);
+        Assert.assertArrayEquals(data, out.toByteArray());
+
+        ByteBuffer[] buffers = buffer.toByteBuffers();
+        Assert.assertEquals(7, buffers.length);
+        Assert.assertEquals(4, buffers[6].remaining());
+
+        InputStream in = buffer.newInputStream();
+        byte[] read = new byte[100];
+        int offset = 0;
+        int n;
+        while ((n = in.read(read, offset, read.length - offset)) > 0) {
+            offset += n;
+        }
+        Assert.assertEquals(100, offset);
+        Assert.assertArrayEquals(data, read);
+        Assert.assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testRelease() {
+        ByteSegmentPool pool = new ByteSegmentPool(16, 4);
+        SegmentedByteBuffer buffer = pool.newBuffer();
+        buffer.write(new byte[100], 0, 100);
+        Assert.assertEquals(0, pool.getPooledSegments());
+
+        buffer.retain();
+        Assert.assertFalse(buffer.release());
+        Assert.assertTrue(buffer.release());
+        // 超出上限的分段不会被缓存
+        Assert.assertEquals(4, pool.getPooledSegments());
+
+        try {
+            buffer.release();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+        }
+
+        // 新的缓冲区复用池中的分段
+        SegmentedByteBuffer other = pool.newBuffer();
+        other.write(1);
+        Assert.assertEquals(3, pool.getPooledSegments());
+        other.release();
+        Assert.assertEquals(4, pool.getPooledSegments());
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.alibaba.hitsdb.client.compress;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.buffer.ByteSegmentPool;
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
+
+public class TestPayloadOutputStream {
+
+    private static byte[] data(int length) {
+        Random random = new Random(length);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            // 可压缩的内容
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        return data;
+    }
+
+    private static byte[] gunzip(SegmentedByteBuffer buffer) throws IOException {
+        InputStream in = new GZIPInputStream(buffer.newInputStream());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] b = new byte[1024];
+        int n;
+        while ((n = in.read(b)) > 0) {
+            out.write(b, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testPooledGZIP() throws IOException {
+        byte[] data = data(100000);
+        for (int i = 0; i < 3; i++) {
+            // 同一线程内重复使用压缩器
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            PooledGZIPOutputStream gzip = new PooledGZIPOutputStream(out, i * 4);
+            gzip.write(data, 0, 10);
+            gzip.write(data, 10, data.length - 10);
+            gzip.finish();
+
+            InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()));
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] b = new byte[1024];
+            int n;
+            while ((n = in.read(b)) > 0) {
+                result.write(b, 0, n);
+            }
+            Assert.assertArrayEquals(data, result.toByteArray());
+        }
+    }
+
+    @Test
+    public void testCompressWhileWriting() throws IOException {
+        ByteSegmentPool pool = new ByteSegmentPool(1024, 64);
+        byte[] data = data(50000);
+
+        PayloadOutputStream out = new PayloadOutputStream(pool, true, 1, 4096);
+        for (int i = 0; i < data.length; i += 1000) {
+            out.write(data, i, 1000);
+        }
+        SegmentedByteBuffer buffer = out.finish();
+        Assert.assertEquals(PayloadOutputStream.GZIP, buffer.getContentEncoding());
+        Assert.assertTrue(buffer.size() < data.length);
+        Assert.assertArrayEquals(data, gunzip(buffer));
+        buffer.release();
+    }
+
+    @Test
+    public void testSmallPayloadNotCompressed() throws IOException {
+        ByteSegmentPool pool = new ByteSegmentPool(1024, 64);
+        byte[] data = data(100);
+
+        PayloadOutputStream out = new PayloadOutputStream(pool, true, 1, 4096);
+        out.write(data);
+        SegmentedByteBuffer buffer = out.finish();
+        Assert.assertNull(buffer.getContentEncoding());
+        Assert.assertArrayEquals(data, buffer.toByteArray());
+        buffer.release();
+
+        out = new PayloadOutputStream(pool, false, 1, 0);
+        out.write(data(10000));
+        buffer = out.finish();
+        Assert.assertNull(buffer.getContentEncoding());
+        Assert.assertEquals(10000, buffer.size());
+        buffer.release();
+    }
+
+}
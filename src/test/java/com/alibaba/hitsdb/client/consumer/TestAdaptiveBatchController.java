@@ -0,0 +1,91 @@
+package com.alibaba.hitsdb.client.consumer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAdaptiveBatchController {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long now;
+
+    /**
+     * 模拟一个统计窗口：8个批次，每批次填满，窗口时长1秒
+     */
+    private void window(AdaptiveBatchController controller) {
+        int batchSize = controller.getBatchSize();
+        for (int i = 0; i < 8; i++) {
+            now += SECOND / 8;
+            controller.onSuccess(batchSize, TimeUnit.MILLISECONDS.toNanos(10), now);
+        }
+    }
+
+    @Test
+    public void testGrowWhileThroughputImproves() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(100, 1000, 10, 100, 200, 30, SECOND, now);
+        window(controller);
+        Assert.assertEquals(250, controller.getBatchSize());
+        window(controller);
+        Assert.assertEquals(313, controller.getBatchSize());
+        Assert.assertTrue(controller.getBatchPutTimeLimit() > 30);
+
+        AdaptiveBatchStatistics statistics = controller.getStatistics();
+        Assert.assertEquals("grow", statistics.getLastDecision());
+        Assert.assertEquals(2, statistics.getGrowCount());
+        Assert.assertEquals(8 * 200 + 8 * 250, statistics.getAckedPoints());
+    }
+
+    @Test
+    public void testReverseWhenThroughputDrops() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(100, 1000, 10, 100, 500, 50, SECOND, now);
+        // 第一个窗口吞吐量为每秒4000点，增大到625
+        window(controller);
+        Assert.assertEquals(625, controller.getBatchSize());
+
+        // 第二个窗口耗时变为3秒，吞吐量下降，反向缩小
+        for (int i = 0; i < 8; i++) {
+            now += 3 * SECOND / 8;
+            controller.onSuccess(625, TimeUnit.MILLISECONDS.toNanos(300), now);
+        }
+        Assert.assertEquals(500, controller.getBatchSize());
+        Assert.assertEquals("shrink", controller.getStatistics().getLastDecision());
+    }
+
+    @Test
+    public void testBackoffOnFailure() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(100, 1000, 10, 100, 800, 80, SECOND, now);
+        for (int i = 0; i < 7; i++) {
+            now += SECOND / 8;
+            controller.onSuccess(800, 0, now);
+        }
+        now += SECOND / 8;
+        controller.onFailure(800, 0, now);
+        Assert.assertEquals(400, controller.getBatchSize());
+        Assert.assertEquals(1, controller.getStatistics().getBackoffCount());
+        Assert.assertEquals(1, controller.getStatistics().getFailedBatches());
+
+        // 不会低于下限
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 8; i++) {
+                now += SECOND / 8;
+                controller.onFailure(controller.getBatchSize(), 0, now);
+            }
+        }
+        Assert.assertEquals(100, controller.getBatchSize());
+        Assert.assertEquals(10, controller.getBatchPutTimeLimit());
+    }
+
+    @Test
+    public void testHoldWhenBatchesNotFull() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(100, 1000, 10, 100, 500, 50, SECOND, now);
+        for (int i = 0; i < 8; i++) {
+            now += SECOND / 8;
+            controller.onSuccess(50, 0, now);
+        }
+        Assert.assertEquals(500, controller.getBatchSize());
+        Assert.assertEquals(50, controller.getBatchPutTimeLimit());
+        Assert.assertEquals("hold", controller.getStatistics().getLastDecision());
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.alibaba.hitsdb.client.consumer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+import com.alibaba.hitsdb.client.value.type.Granularity;
+
+public class TestPointCoalescer {
+
+    @Test
+    public void testCoalesce() {
+        List<Point> points = new ArrayList<Point>();
+        points.add(Point.metric("cpu").tag("host", "a").timestamp(100).value(1).build());
+        points.add(Point.metric("cpu").tag("host", "b").timestamp(100).value(2).build());
+        points.add(Point.metric("cpu").tag("host", "a").timestamp(101).value(3).build());
+        points.add(Point.metric("cpu").tag("host", "a").timestamp(100).value(4).build());
+        points.add(Point.metric("cpu").tag("host", "a").timestamp(100).value(5).granularity(Granularity.M1).build());
+        points.add(Point.metric("mem").tag("host", "a").timestamp(100).value(6).build());
+        points.add(Point.metric("cpu").tag("host", "a").timestamp(100).value(7).build());
+
+        List<Point> dropped = new ArrayList<Point>();
+        PointCoalescer coalescer = new PointCoalescer();
+        Assert.assertEquals(2, coalescer.coalesce(points, dropped));
+        Assert.assertEquals(5, points.size());
+        Assert.assertEquals(2, dropped.size());
+
+        // 保留最后一个值，位置为第一次出现的位置
+        Assert.assertEquals(7, points.get(0).getValue());
+        Assert.assertEquals(2, points.get(1).getValue());
+        Assert.assertEquals(3, points.get(2).getValue());
+        Assert.assertEquals(5, points.get(3).getValue());
+        Assert.assertEquals(6, points.get(4).getValue());
+        Assert.assertEquals(1, dropped.get(0).getValue());
+        Assert.assertEquals(4, dropped.get(1).getValue());
+    }
+
+    @Test
+    public void testReuse() {
+        PointCoalescer coalescer = new PointCoalescer();
+        TagSet tags = TagSet.tag("host", "a").build();
+        for (int round = 0; round < 3; round++) {
+            int size = round == 1 ? 10 : 3000;
+            List<Point> points = new ArrayList<Point>();
+            for (int i = 0; i < size; i++) {
+                points.add(new DoublePoint("cpu", tags, 1000 + i % 100, i));
+            }
+            int expected = Math.min(size, 100);
+            Assert.assertEquals(size - expected, coalescer.coalesce(points, null));
+            Assert.assertEquals(expected, points.size());
+            Assert.assertEquals((double) (size - 1), points.get((size - 1) % 100).getValue());
+        }
+    }
+
+    @Test
+    public void testSecondsAndMillis() {
+        TagSet tags = TagSet.tag("host", "a").build();
+        List<Point> points = new ArrayList<Point>();
+        points.add(new DoublePoint("cpu", tags, 1501564455L, 1));
+        points.add(Point.metric("cpu").tag("host", "a").timestamp(1501564456).value(2).build());
+        // 同一时刻的毫秒时间戳
+        points.add(new DoublePoint("cpu", tags, 1501564455000L, 3));
+        points.add(new DoublePoint("cpu", tags, 1501564456000L, 4));
+        // 不是整秒的毫秒时间戳单独保留
+        points.add(new DoublePoint("cpu", tags, 1501564455500L, 5));
+
+        Assert.assertEquals(2, new PointCoalescer().coalesce(points, null));
+        Assert.assertEquals(3, points.size());
+        Assert.assertEquals(3.0, points.get(0).getValue());
+        Assert.assertEquals(4.0, points.get(1).getValue());
+        Assert.assertEquals(5.0, points.get(2).getValue());
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestConnectionLifecycleManager {
+
+	/**
+	 * 记录每个请求来自的客户端端口，不同的端口即不同的连接
+	 */
+	private static class TTLServer {
+		final HttpServer server;
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+
+		TTLServer() throws IOException {
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.createContext(HttpAPI.TTL, new HttpHandler() {
+				@Override
+				public void handle(HttpExchange exchange) throws IOException {
+					clientPorts.add(exchange.getRemoteAddress().getPort());
+					byte[] body = "{\"val\":0}".getBytes("UTF-8");
+					exchange.sendResponseHeaders(200, body.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(body);
+					out.close();
+				}
+			});
+			server.setExecutor(executor);
+			server.start();
+		}
+
+		int getPort() {
+			return server.getAddress().getPort();
+		}
+
+		void stop() {
+			server.stop(0);
+			executor.shutdownNow();
+		}
+	}
+
+	private TTLServer server;
+	private TTLServer newServer;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new TTLServer();
+		newServer = new TTLServer();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+		newServer.stop();
+	}
+
+	private HttpClient start(HiTSDBConfig.Builder builder) {
+		HttpClient httpClient = HttpClientFactory.createHttpClient(builder.config());
+		httpClient.start();
+		return httpClient;
+	}
+
+	@Test
+	public void testKeepAlive() throws Exception {
+		HttpClient httpClient = start(HiTSDBConfig.address("127.0.0.1", server.getPort()));
+		try {
+			for (int i = 0; i < 10; i++) {
+				httpClient.get(HttpAPI.TTL, null);
+			}
+			Assert.assertEquals(1, server.clientPorts.size());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+	@Test
+	public void testShortConnection() throws Exception {
+		HttpClient httpClient = start(HiTSDBConfig.address("127.0.0.1", server.getPort()).httpKeepaliveTime(0));
+		try {
+			for (int i = 0; i < 5; i++) {
+				httpClient.get(HttpAPI.TTL, null);
+			}
+			Assert.assertEquals(5, server.clientPorts.size());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+	@Test
+	public void testMaxRequests() throws Exception {
+		HttpClient httpClient = start(HiTSDBConfig.address("127.0.0.1", server.getPort()).httpConnectionMaxRequests(3));
+		try {
+			for (int i = 0; i < 9; i++) {
+				httpClient.get(HttpAPI.TTL, null);
+			}
+			Assert.assertEquals(3, server.clientPorts.size());
+			Assert.assertEquals(3, httpClient.getConnectionStatistics().getMaxRequestsClosedCount());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+	@Test
+	public void testMaxAge() throws Exception {
+		HttpClient httpClient = start(HiTSDBConfig.address("127.0.0.1", server.getPort()).httpConnectionLiveTime(1));
+		try {
+			httpClient.get(HttpAPI.TTL, null);
+			httpClient.get(HttpAPI.TTL, null);
+			Thread.sleep(1100);
+			// 超过最长存活时间，响应结束后关闭
+			httpClient.get(HttpAPI.TTL, null);
+			httpClient.get(HttpAPI.TTL, null);
+			Assert.assertEquals(2, server.clientPorts.size());
+			Assert.assertEquals(1, httpClient.getConnectionStatistics().getMaxAgeClosedCount());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+	@Test
+	public void testRebalance() throws Exception {
+		HttpClient httpClient = start(HiTSDBConfig.address("127.0.0.1", server.getPort()).warmUpAsync(8));
+		try {
+			Assert.assertTrue(httpClient.awaitReady(10, TimeUnit.SECONDS));
+			ConnectionStatistics warm = httpClient.getConnectionStatistics();
+			Assert.assertEquals(8, warm.getAvailable() + warm.getLeased());
+
+			// 8个连接平分到2个节点，原节点分批让出4个连接
+			httpClient.addAddress("127.0.0.1:" + newServer.getPort());
+			Assert.assertEquals(4, httpClient.getConnectionStatistics().getRebalancing());
+			long start = System.currentTimeMillis();
+			while (httpClient.getConnectionStatistics().getRebalanceClosedCount() < 4
+					&& System.currentTimeMillis() - start < 10000) {
+				httpClient.get(HttpAPI.TTL, null);
+				Thread.sleep(20);
+			}
+			ConnectionStatistics statistics = httpClient.getConnectionStatistics();
+			Assert.assertEquals(4, statistics.getRebalanceClosedCount());
+			// 每秒最多让出一个连接
+			Assert.assertTrue(System.currentTimeMillis() - start >= 2500);
+			Thread.sleep(1100);
+			Assert.assertEquals(0, httpClient.getConnectionStatistics().getRebalancing());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestConnectionWarmer {
+	private HttpServer server;
+	private ExecutorService executor;
+	private final AtomicInteger requests = new AtomicInteger();
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext(HttpAPI.TTL, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				requests.incrementAndGet();
+				byte[] body = "{\"val\":0}".getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		executor = Executors.newFixedThreadPool(8);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private static int unusedPort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		int port = socket.getLocalPort();
+		socket.close();
+		return port;
+	}
+
+	@Test
+	public void testConfig() {
+		Assert.assertFalse(HiTSDBConfig.address("127.0.0.1").config().isWarmUp());
+		HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1").httpConnectionPool(4).warmUp(8).config();
+		Assert.assertTrue(config.isWarmUp());
+		Assert.assertFalse(config.isWarmUpAsync());
+		// 预建的连接数不超过连接池的大小
+		Assert.assertEquals(4, config.getWarmUpConnections());
+		Assert.assertTrue(HiTSDBConfig.address("127.0.0.1").warmUpAsync(2).config().isWarmUpAsync());
+		try {
+			HiTSDBConfig.address("127.0.0.1").warmUp(0);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testWarmUp() throws Exception {
+		int deadPort = unusedPort();
+		HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1", server.getAddress().getPort()).addAddress("127.0.0.1", deadPort)
+				.warmUpAsync(4).config();
+		HttpClient httpClient = HttpClientFactory.createHttpClient(config);
+		try {
+			httpClient.start();
+			Assert.assertTrue(httpClient.awaitReady(10, TimeUnit.SECONDS));
+
+			WarmUpStatistics statistics = httpClient.getWarmUpStatistics();
+			Assert.assertTrue(statistics.isFinished());
+			Assert.assertEquals(4, statistics.getValidatedCount());
+			Assert.assertEquals(4, statistics.getFailedCount());
+			Assert.assertEquals(4, statistics.getOpenConnections());
+			Assert.assertEquals(4, requests.get());
+			Assert.assertEquals(1, statistics.getFailedAddresses().size());
+			Assert.assertEquals("127.0.0.1:" + deadPort, statistics.getFailedAddresses().get(0));
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+	@Test
+	public void testNoReachableAddress() throws Exception {
+		HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1", unusedPort()).warmUpAsync(2).config();
+		HttpClient httpClient = HttpClientFactory.createHttpClient(config);
+		try {
+			httpClient.start();
+			Assert.assertFalse(httpClient.awaitReady(10, TimeUnit.SECONDS));
+			WarmUpStatistics statistics = httpClient.getWarmUpStatistics();
+			Assert.assertTrue(statistics.isFinished());
+			Assert.assertFalse(statistics.isReady());
+			Assert.assertEquals(2, statistics.getFailedCount());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+	@Test
+	public void testWithoutWarmUp() throws Exception {
+		HttpClient httpClient = HttpClientFactory.createHttpClient(HiTSDBConfig.address("127.0.0.1", server.getAddress().getPort()).config());
+		try {
+			httpClient.start();
+			Assert.assertTrue(httpClient.awaitReady(0, TimeUnit.SECONDS));
+			Assert.assertNull(httpClient.getWarmUpStatistics());
+			Assert.assertEquals(0, requests.get());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+}
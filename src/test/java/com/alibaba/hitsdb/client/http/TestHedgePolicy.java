@@ -0,0 +1,225 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestHedgePolicy {
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	public void testConfig() {
+		Assert.assertFalse(HiTSDBConfig.address("127.0.0.1").config().isQueryHedge());
+		HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1").queryHedge().config();
+		Assert.assertTrue(config.isQueryHedge());
+		Assert.assertEquals(95, config.getQueryHedgePercentile(), 0);
+		Assert.assertEquals(5, config.getQueryHedgeBudgetPercent());
+		try {
+			HiTSDBConfig.address("127.0.0.1").queryHedge(100, 5);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testPercentile() {
+		LatencyWindow window = new LatencyWindow(100, 90, 10);
+		for (int i = 1; i <= 9; i++) {
+			window.record(i * MS);
+		}
+		// 样本不足
+		Assert.assertEquals(-1, window.getPercentile());
+
+		for (int i = 10; i <= 100; i++) {
+			window.record(i * MS);
+		}
+		Assert.assertEquals(90 * MS, window.getPercentile());
+
+		// 旧样本滑出窗口
+		for (int i = 0; i < 100; i++) {
+			window.record(1000 * MS);
+		}
+		Assert.assertEquals(1000 * MS, window.getPercentile());
+	}
+
+	@Test
+	public void testDelay() {
+		HedgePolicy policy = new HedgePolicy(50, 5, 10);
+		Assert.assertEquals(-1, policy.getDelayNanos());
+		for (int i = 0; i < 100; i++) {
+			policy.record(2 * MS);
+		}
+		// 不低于最短等待时间
+		Assert.assertEquals(10 * MS, policy.getDelayNanos());
+		for (int i = 0; i < 1000; i++) {
+			policy.record(40 * MS);
+		}
+		Assert.assertEquals(40 * MS, policy.getDelayNanos());
+		Assert.assertEquals(40, policy.getStatistics().getDelayMillis(), 0.001);
+	}
+
+	@Test
+	public void testBudget() {
+		HedgePolicy policy = new HedgePolicy(95, 5, 0);
+		Assert.assertFalse(policy.tryHedge());
+		for (int i = 0; i < 100; i++) {
+			policy.onQuery();
+		}
+		// 100个查询最多5个对冲请求
+		int hedged = 0;
+		while (policy.tryHedge()) {
+			hedged++;
+		}
+		Assert.assertEquals(5, hedged);
+
+		HedgeStatistics statistics = policy.getStatistics();
+		Assert.assertEquals(100, statistics.getQueryCount());
+		Assert.assertEquals(5, statistics.getHedgedCount());
+		Assert.assertEquals(2, statistics.getBudgetExhaustedCount());
+	}
+
+	@Test
+	public void testServerErrorDoesNotWin() throws Exception {
+		// 预热阶段快速返回200；之后第一个请求(主请求)慢速返回200，第二个请求(对冲请求)快速返回500
+		final AtomicBoolean warm = new AtomicBoolean(true);
+		final AtomicInteger requests = new AtomicInteger();
+		HttpHandler handler = new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				int status = 200;
+				if (!warm.get()) {
+					if (requests.incrementAndGet() == 1) {
+						try {
+							Thread.sleep(300);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					} else {
+						status = 500;
+					}
+				}
+				byte[] body = "[]".getBytes("UTF-8");
+				exchange.sendResponseHeaders(status, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		HttpServer[] servers = new HttpServer[2];
+		for (int i = 0; i < servers.length; i++) {
+			servers[i] = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			servers[i].createContext(HttpAPI.QUERY, handler);
+			servers[i].setExecutor(executor);
+			servers[i].start();
+		}
+		HttpClient httpClient = HttpClientFactory.createHttpClient(HiTSDBConfig.address("127.0.0.1", servers[0].getAddress().getPort())
+				.addAddress("127.0.0.1", servers[1].getAddress().getPort()).queryHedge(95, 50).queryHedgeMinDelay(50).config());
+		httpClient.start();
+		try {
+			for (int i = 0; i < 40; i++) {
+				Assert.assertEquals(200, httpClient.postHedged(HttpAPI.QUERY, "{}").getStatusLine().getStatusCode());
+			}
+			warm.set(false);
+			Assert.assertEquals(200, httpClient.postHedged(HttpAPI.QUERY, "{}").getStatusLine().getStatusCode());
+			Assert.assertEquals(2, requests.get());
+			Assert.assertEquals(0, httpClient.getHedgeStatistics().getHedgeWonCount());
+		} finally {
+			httpClient.close(true);
+			for (HttpServer server : servers) {
+				server.stop(0);
+			}
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testHedgeWithoutPermit() throws Exception {
+		// 预热阶段快速返回，之后每个请求都慢速返回
+		final AtomicBoolean warm = new AtomicBoolean(true);
+		final AtomicInteger requests = new AtomicInteger();
+		HttpHandler handler = new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				if (!warm.get()) {
+					requests.incrementAndGet();
+					try {
+						Thread.sleep(300);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				byte[] body = "[]".getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		HttpServer[] servers = new HttpServer[2];
+		for (int i = 0; i < servers.length; i++) {
+			servers[i] = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			servers[i].createContext(HttpAPI.QUERY, handler);
+			servers[i].setExecutor(executor);
+			servers[i].start();
+		}
+		HttpClient httpClient = HttpClientFactory.createHttpClient(HiTSDBConfig.address("127.0.0.1", servers[0].getAddress().getPort())
+				.addAddress("127.0.0.1", servers[1].getAddress().getPort()).readPool(2, 5, 1).queryHedge(95, 50)
+				.queryHedgeMinDelay(50).config());
+		httpClient.start();
+		try {
+			for (int i = 0; i < 40; i++) {
+				Assert.assertEquals(200, httpClient.postHedged(HttpAPI.QUERY, "{}").getStatusLine().getStatusCode());
+			}
+			warm.set(false);
+			long hedged = httpClient.getHedgeStatistics().getHedgedCount();
+
+			// 占用一个地址唯一的读许可，发往该地址的对冲请求不能发出
+			final CountDownLatch occupied = new CountDownLatch(1);
+			httpClient.postToAddress("127.0.0.1:" + servers[1].getAddress().getPort(), HttpAPI.QUERY, "{}",
+					new FutureCallback<HttpResponse>() {
+						@Override
+						public void completed(HttpResponse result) {
+							occupied.countDown();
+						}
+
+						@Override
+						public void failed(Exception ex) {
+						}
+
+						@Override
+						public void cancelled() {
+						}
+					});
+			Assert.assertEquals(200, httpClient.postHedged(HttpAPI.QUERY, "{}").getStatusLine().getStatusCode());
+			Assert.assertTrue(occupied.await(5, TimeUnit.SECONDS));
+
+			// 只有实际发出的对冲请求消耗预算并计数
+			Assert.assertEquals(2 + httpClient.getHedgeStatistics().getHedgedCount() - hedged, requests.get());
+		} finally {
+			httpClient.close(true);
+			for (HttpServer server : servers) {
+				server.stop(0);
+			}
+			executor.shutdownNow();
+		}
+	}
+
+}
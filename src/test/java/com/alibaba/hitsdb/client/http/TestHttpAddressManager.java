@@ -0,0 +1,202 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+
+public class TestHttpAddressManager {
+	private static final String A = "10.0.0.1:8242";
+	private static final String B = "10.0.0.2:8242";
+	private static final String C = "10.0.0.3:8242";
+
+	private HiTSDBConfig config() {
+		return HiTSDBConfig.address("10.0.0.1", 8242).addAddress("10.0.0.2", 8242).addAddress("10.0.0.1", 8242).config();
+	}
+
+	@Test
+	public void testConfig() {
+		Assert.assertEquals(Arrays.asList(A, B), config().getAddresses());
+		Assert.assertEquals(Arrays.asList(A), HiTSDBConfig.address("10.0.0.1").config().getAddresses());
+	}
+
+	@Test
+	public void testLeastOutstanding() {
+		HttpAddressManager manager = HttpAddressManager.createHttpAddressManager(config());
+		manager.onRequest(A);
+		manager.onRequest(A);
+		manager.onRequest(B);
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(B, manager.getAddress());
+		}
+		// 重试时换一个节点
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(A, manager.getAddress(B));
+		}
+	}
+
+	@Test
+	public void testPreferFasterAddress() {
+		HiTSDBConfig config = HiTSDBConfig.address("10.0.0.1", 8242).addAddress("10.0.0.2", 8242)
+				.addAddress("10.0.0.3", 8242).config();
+		HttpAddressManager manager = HttpAddressManager.createHttpAddressManager(config);
+		long now = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			request(manager, A, 5 * MS, false, now);
+			request(manager, B, 5 * MS, false, now);
+			request(manager, C, 50 * MS, false, now);
+		}
+
+		Map<String, Integer> counts = count(manager, 3000, now);
+		Assert.assertNull(counts.get(C));
+		Assert.assertTrue(counts.get(A) > 1000);
+		Assert.assertTrue(counts.get(B) > 1000);
+
+		// 错误率高的节点被避开
+		for (int i = 0; i < 10; i++) {
+			request(manager, A, 5 * MS, true, now);
+		}
+		// 两两比较时只在与更慢的节点比较时被选中
+		counts = count(manager, 3000, now);
+		Assert.assertTrue(counts.get(B) > 1800);
+		Assert.assertTrue(counts.get(A) < 1200);
+		Assert.assertNull(counts.get(C));
+	}
+
+	@Test
+	public void testSlowStart() {
+		HiTSDBConfig config = HiTSDBConfig.address("10.0.0.1", 8242).addressSlowStartTime(10000).config();
+		HttpAddressManager manager = HttpAddressManager.createHttpAddressManager(config);
+		long now = System.nanoTime();
+		request(manager, A, 5 * MS, false, now);
+		manager.onRequest(A);
+
+		// 新节点的初始耗时与已有节点相同，但慢启动期间代价更高
+		Assert.assertTrue(manager.addAddress(B));
+		Map<String, Integer> counts = count(manager, 1000, System.nanoTime());
+		Assert.assertNull(counts.get(B));
+		counts = count(manager, 1000, System.nanoTime() + 20 * SECOND);
+		Assert.assertEquals(1000, counts.get(B).intValue());
+	}
+
+	private static final long MS = 1000000L;
+	private static final long SECOND = 1000 * MS;
+
+	private void request(HttpAddressManager manager, String address, long latency, boolean error, long now) {
+		manager.onRequest(address);
+		manager.onResponse(address, latency, error, now);
+	}
+
+	private Map<String, Integer> count(HttpAddressManager manager, int times, long now) {
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (int i = 0; i < times; i++) {
+			String address = manager.getAddress(null, now);
+			Integer count = counts.get(address);
+			counts.put(address, count == null ? 1 : count + 1);
+		}
+		return counts;
+	}
+
+	@Test
+	public void testAddAndRemove() {
+		HiTSDBConfig config = HiTSDBConfig.address("10.0.0.1", 8242).addAddress("10.0.0.2", 8242)
+				.addressSlowStartTime(0).config();
+		HttpAddressManager manager = HttpAddressManager.createHttpAddressManager(config);
+		Assert.assertTrue(manager.addAddress(C));
+		Assert.assertFalse(manager.addAddress(C));
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (int i = 0; i < 3000; i++) {
+			String address = manager.getAddress();
+			Integer count = counts.get(address);
+			counts.put(address, count == null ? 1 : count + 1);
+		}
+		Assert.assertEquals(3, counts.size());
+		for (int count : counts.values()) {
+			Assert.assertTrue(count > 500);
+		}
+
+		Assert.assertTrue(manager.removeAddress(A));
+		Assert.assertFalse(manager.removeAddress(A));
+		Assert.assertTrue(manager.removeAddress(C));
+		Assert.assertEquals(Arrays.asList(B), manager.getAddresses());
+		Assert.assertEquals(B, manager.getAddress(B));
+		try {
+			manager.removeAddress(B);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCircuitBreaker() {
+		HiTSDBConfig config = HiTSDBConfig.address("10.0.0.1", 8242).addAddress("10.0.0.2", 8242)
+				.addAddress("10.0.0.3", 8242).circuitBreakerThreshold(2).addressSlowStartTime(0).config();
+		HttpAddressManager manager = HttpAddressManager.createHttpAddressManager(config);
+		ConnectException refused = new ConnectException("Connection refused");
+
+		// 中间收到响应，连续失败次数清零
+		fail(manager, A, refused);
+		manager.onRequest(A);
+		manager.onResponse(A, MS, true);
+		fail(manager, A, refused);
+		Assert.assertTrue(manager.getOpenAddresses().isEmpty());
+
+		fail(manager, A, new ExecutionException(new SocketTimeoutException()));
+		Assert.assertEquals(Collections.singletonList(A), manager.getOpenAddresses());
+		Map<String, Integer> counts = count(manager, 1000, System.nanoTime());
+		Assert.assertNull(counts.get(A));
+		Assert.assertEquals(C, manager.getAddress(B));
+
+		// 同一时间只有一个探测，探测失败保持熔断
+		Assert.assertFalse(manager.tryProbe(B));
+		Assert.assertTrue(manager.tryProbe(A));
+		Assert.assertFalse(manager.tryProbe(A));
+		manager.onProbe(A, false);
+		Assert.assertEquals(Collections.singletonList(A), manager.getOpenAddresses());
+
+		Assert.assertTrue(manager.tryProbe(A));
+		manager.onProbe(A, true);
+		Assert.assertTrue(manager.getOpenAddresses().isEmpty());
+		counts = count(manager, 3000, System.nanoTime());
+		Assert.assertTrue(counts.get(A) > 500);
+		Assert.assertEquals(1, manager.getStatistics().get(0).getCircuitOpenCount());
+	}
+
+	@Test
+	public void testAllAddressesOpen() {
+		HiTSDBConfig config = HiTSDBConfig.address("10.0.0.1", 8242).addAddress("10.0.0.2", 8242)
+				.circuitBreakerThreshold(1).config();
+		HttpAddressManager manager = HttpAddressManager.createHttpAddressManager(config);
+		fail(manager, A, new ConnectException());
+		fail(manager, B, new ConnectException());
+		Assert.assertEquals(Arrays.asList(A, B), manager.getOpenAddresses());
+		// 全部被熔断时仍然在所有地址中选择
+		Assert.assertEquals(B, manager.getAddress(A));
+		Assert.assertEquals(A, manager.getAddress(B));
+	}
+
+	@Test
+	public void testUnreachable() {
+		Assert.assertTrue(HttpAddressManager.isUnreachable(new ConnectException()));
+		Assert.assertTrue(HttpAddressManager.isUnreachable(new ExecutionException(new SocketTimeoutException())));
+		// 从连接池获取连接超时与节点无关
+		Assert.assertFalse(HttpAddressManager.isUnreachable(new TimeoutException()));
+		Assert.assertFalse(HttpAddressManager.isUnreachable(new IllegalStateException()));
+	}
+
+	private void fail(HttpAddressManager manager, String address, Exception ex) {
+		manager.onRequest(address);
+		manager.onFailure(address, MS, ex);
+	}
+
+}
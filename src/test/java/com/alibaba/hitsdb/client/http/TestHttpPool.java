@@ -0,0 +1,219 @@
+package com.alibaba.hitsdb.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.exception.http.HttpClientException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestHttpPool {
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * 正在处理及同时处理过最多的查询数
+	 */
+	private final AtomicInteger queries = new AtomicInteger();
+	private final AtomicInteger maxQueries = new AtomicInteger();
+
+	private static void respond(HttpExchange exchange, String body) throws IOException {
+		InputStream in = exchange.getRequestBody();
+		while (in.read() >= 0) {
+		}
+		byte[] bytes = body.getBytes("UTF-8");
+		exchange.sendResponseHeaders(200, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext(HttpAPI.QUERY, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				int current = queries.incrementAndGet();
+				if (current > maxQueries.get()) {
+					maxQueries.set(current);
+				}
+				try {
+					// 慢查询
+					Thread.sleep(800);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				queries.decrementAndGet();
+				respond(exchange, "[]");
+			}
+		});
+		server.createContext(HttpAPI.PUT, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange, "{}");
+			}
+		});
+		executor = Executors.newFixedThreadPool(8);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testConfig() {
+		HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1").httpConnectTimeout(30).readPool(8).config();
+		Assert.assertTrue(config.isReadPool());
+		Assert.assertEquals(8, config.getReadConnectionPool());
+		Assert.assertEquals(30, config.getReadTimeout());
+		Assert.assertEquals(8, config.getReadRequestLimit());
+		Assert.assertFalse(HiTSDBConfig.address("127.0.0.1").config().isReadPool());
+	}
+
+	@Test
+	public void testSharedPool() {
+		HttpClient httpClient = HttpClientFactory.createHttpClient(HiTSDBConfig.address("127.0.0.1", server.getAddress().getPort()).config());
+		try {
+			Assert.assertEquals(HttpPool.WRITE, httpClient.getConnectionStatistics().getPool());
+			Assert.assertNull(httpClient.getReadConnectionStatistics());
+			Assert.assertNull(httpClient.getReadSemaphoreStatistics());
+		} finally {
+			try {
+				httpClient.close(true);
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	@Test
+	public void testIsolation() throws Exception {
+		HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1", server.getAddress().getPort()).httpConnectionPool(4).readPool(2, 5, 1)
+				.config();
+		HttpClient httpClient = HttpClientFactory.createHttpClient(config);
+		httpClient.start();
+		try {
+			final CountDownLatch completed = new CountDownLatch(1);
+			httpClient.post(HttpAPI.QUERY, "{}", new FutureCallback<HttpResponse>() {
+				@Override
+				public void completed(HttpResponse result) {
+					completed.countDown();
+				}
+
+				@Override
+				public void failed(Exception ex) {
+				}
+
+				@Override
+				public void cancelled() {
+				}
+			});
+
+			// 慢查询占用读连接时写入不受影响
+			long start = System.currentTimeMillis();
+			for (int i = 0; i < 5; i++) {
+				HttpResponse response = httpClient.post(HttpAPI.PUT, "[]");
+				Assert.assertEquals(200, response.getStatusLine().getStatusCode());
+			}
+			Assert.assertTrue(System.currentTimeMillis() - start < 600);
+
+			ConnectionStatistics read = httpClient.getReadConnectionStatistics();
+			Assert.assertEquals(HttpPool.READ, read.getPool());
+			Assert.assertEquals(2, read.getMaxTotal());
+			Assert.assertEquals(1, read.getLeased());
+			ConnectionStatistics write = httpClient.getConnectionStatistics();
+			Assert.assertEquals(HttpPool.WRITE, write.getPool());
+			Assert.assertEquals(0, write.getLeased());
+
+			// 只有一个读许可，第二个查询等第一个结束后才发出
+			Assert.assertEquals(200, httpClient.post(HttpAPI.QUERY, "{}").getStatusLine().getStatusCode());
+			Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+			Assert.assertTrue(System.currentTimeMillis() - start >= 1500);
+			Assert.assertEquals(1, maxQueries.get());
+			Assert.assertEquals(0, httpClient.getReadSemaphoreStatistics().getTimeoutCount());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+	@Test
+	public void testUnboundedPermitWait() throws Exception {
+		// 超时时间为0时等待许可不超时
+		HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1", server.getAddress().getPort()).readPool(1, 0, 1).config();
+		HttpClient httpClient = HttpClientFactory.createHttpClient(config);
+		httpClient.start();
+		try {
+			final CountDownLatch completed = new CountDownLatch(1);
+			httpClient.post(HttpAPI.QUERY, "{}", new FutureCallback<HttpResponse>() {
+				@Override
+				public void completed(HttpResponse result) {
+					completed.countDown();
+				}
+
+				@Override
+				public void failed(Exception ex) {
+				}
+
+				@Override
+				public void cancelled() {
+				}
+			});
+			Assert.assertEquals(200, httpClient.post(HttpAPI.QUERY, "{}").getStatusLine().getStatusCode());
+			Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+			Assert.assertEquals(0, httpClient.getReadSemaphoreStatistics().getTimeoutCount());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+	@Test
+	public void testInterruptCancelsRequest() throws Exception {
+		HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1", server.getAddress().getPort()).readPool(1, 5, 1).config();
+		final HttpClient httpClient = HttpClientFactory.createHttpClient(config);
+		httpClient.start();
+		try {
+			final AtomicInteger failures = new AtomicInteger();
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						httpClient.post(HttpAPI.QUERY, "{}");
+					} catch (HttpClientException e) {
+						failures.incrementAndGet();
+					}
+				}
+			});
+			thread.start();
+			Thread.sleep(200);
+			thread.interrupt();
+			thread.join(1000);
+			Assert.assertEquals(1, failures.get());
+
+			// 请求已经取消，许可归还时连接不再被占用
+			Assert.assertEquals(0, httpClient.getReadConnectionStatistics().getLeased());
+		} finally {
+			httpClient.close(true);
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.alibaba.hitsdb.client.http.request;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.buffer.ByteSegmentPool;
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
+
+public class TestSegmentedByteEntity {
+
+    @Test
+    public void testRelease() {
+        ByteSegmentPool pool = new ByteSegmentPool(16, 8);
+        SegmentedByteBuffer buffer = pool.newBuffer();
+        buffer.write(new byte[40], 0, 40);
+        SegmentedByteEntity entity = new SegmentedByteEntity(buffer);
+        Assert.assertEquals(40, entity.getContentLength());
+
+        entity.release();
+        Assert.assertEquals(3, pool.getPooledSegments());
+        // 重复释放不会再次归还分段
+        entity.release();
+        Assert.assertEquals(3, pool.getPooledSegments());
+
+        try {
+            // 释放后不会再读取缓冲区
+            entity.produceContent(null, null);
+            Assert.fail();
+        } catch (IOException e) {
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.alibaba.hitsdb.client.http.semaphore;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestGradientLimiter {
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+	private long now;
+
+	/**
+	 * 一个采样窗口，每个请求耗时rtt，进行中的请求数为inflight
+	 */
+	private int window(GradientLimiter limiter, long rtt, int inflight, boolean dropped) {
+		int limit = 0;
+		for (int i = 0; i < 20; i++) {
+			now += WINDOW / 20;
+			limit = limiter.onSample(rtt, inflight, dropped, now);
+		}
+		return limit;
+	}
+
+	@Test
+	public void testGrowWhenLatencyIsStable() {
+		GradientLimiter limiter = new GradientLimiter(10, 1, 100, now);
+		int limit = 10;
+		for (int i = 0; i < 20; i++) {
+			limit = window(limiter, 10 * MS, limiter.getLimit(), false);
+		}
+		Assert.assertTrue("limit " + limit, limit > 20);
+		Assert.assertTrue(limiter.getIncreaseCount() > 0);
+		Assert.assertEquals(0, limiter.getDecreaseCount());
+	}
+
+	@Test
+	public void testShrinkWhenLatencyGrows() {
+		GradientLimiter limiter = new GradientLimiter(50, 1, 100, now);
+		for (int i = 0; i < 5; i++) {
+			window(limiter, 10 * MS, 50, false);
+		}
+		int before = limiter.getLimit();
+		int after = before;
+		for (int i = 0; i < 5; i++) {
+			after = window(limiter, 40 * MS, after, false);
+		}
+		Assert.assertTrue(before + " -> " + after, after < before);
+	}
+
+	@Test
+	public void testBackoffOnDropped() {
+		GradientLimiter limiter = new GradientLimiter(50, 5, 100, now);
+		Assert.assertEquals(45, window(limiter, 10 * MS, 50, true));
+		for (int i = 0; i < 50; i++) {
+			window(limiter, 10 * MS, 50, true);
+		}
+		Assert.assertEquals(5, limiter.getLimit());
+	}
+
+	@Test
+	public void testNotGrowWhenIdle() {
+		GradientLimiter limiter = new GradientLimiter(20, 1, 100, now);
+		for (int i = 0; i < 20; i++) {
+			window(limiter, 10 * MS, 2, false);
+		}
+		Assert.assertEquals(20, limiter.getLimit());
+	}
+
+	@Test
+	public void testOneAdjustmentPerWindow() {
+		GradientLimiter limiter = new GradientLimiter(100, 1, 1000, now);
+		// 同一时刻的大量样本不会关闭窗口
+		for (int i = 0; i < 1000; i++) {
+			limiter.onSample(10 * MS, limiter.getLimit(), false, now);
+		}
+		Assert.assertEquals(100, limiter.getLimit());
+
+		// 窗口满1秒后只调整一次：100 * 0.8 + (100 + sqrt(100)) * 0.2
+		now += WINDOW;
+		for (int i = 0; i < 1000; i++) {
+			limiter.onSample(10 * MS, limiter.getLimit(), false, now);
+		}
+		Assert.assertEquals(102, limiter.getLimit());
+		Assert.assertEquals(1, limiter.getIncreaseCount());
+	}
+
+	@Test
+	public void testAdjustableSemaphore() throws InterruptedException {
+		SemaphoreManager semaphoreManager = SemaphoreManager.createAdaptive("127.0.0.1:8242", 4, 1, 8);
+		String address = "127.0.0.1:8242";
+		for (int i = 0; i < 4; i++) {
+			Assert.assertTrue(semaphoreManager.acquire(address, 0, TimeUnit.MILLISECONDS));
+		}
+		Assert.assertFalse(semaphoreManager.acquire(address));
+
+		// 超时后许可数减少，进行中的请求归还许可前不能获得新的许可
+		long deadline = System.nanoTime() + 2 * WINDOW;
+		while (semaphoreManager.getLimit(address) == 4 && System.nanoTime() < deadline) {
+			semaphoreManager.onResponse(address, 10 * MS, true);
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(3, semaphoreManager.getLimit(address));
+		semaphoreManager.release(address);
+		Assert.assertFalse(semaphoreManager.acquire(address));
+		semaphoreManager.release(address);
+		Assert.assertTrue(semaphoreManager.acquire(address));
+
+		SemaphoreStatistics statistics = semaphoreManager.getStatistics();
+		Assert.assertTrue(statistics.isAdaptive());
+		Assert.assertEquals(3, statistics.getPermits());
+		Assert.assertEquals(1, statistics.getLimitDecreaseCount());
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.alibaba.hitsdb.client.http.semaphore;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSemaphoreManager {
+	private static final String ADDRESS = "127.0.0.1:8242";
+
+	@Test
+	public void testBlockingAcquire() throws InterruptedException {
+		final SemaphoreManager semaphoreManager = SemaphoreManager.create(ADDRESS, 1);
+		Assert.assertTrue(semaphoreManager.acquire(ADDRESS, 0, TimeUnit.MILLISECONDS));
+		Assert.assertFalse(semaphoreManager.acquire(ADDRESS, 50, TimeUnit.MILLISECONDS));
+
+		final CountDownLatch acquired = new CountDownLatch(1);
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (semaphoreManager.acquire(ADDRESS, 10, TimeUnit.SECONDS)) {
+						acquired.countDown();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		thread.start();
+		Assert.assertFalse(acquired.await(50, TimeUnit.MILLISECONDS));
+		semaphoreManager.release(ADDRESS);
+		Assert.assertTrue(acquired.await(1, TimeUnit.SECONDS));
+		thread.join();
+
+		SemaphoreStatistics statistics = semaphoreManager.getStatistics();
+		Assert.assertEquals(1, statistics.getPermits());
+		Assert.assertEquals(0, statistics.getAvailablePermits());
+		Assert.assertEquals(2, statistics.getAcquiredCount());
+		Assert.assertEquals(2, statistics.getContendedCount());
+		Assert.assertEquals(1, statistics.getTimeoutCount());
+		Assert.assertTrue(statistics.getMaxWaitMillis() >= 40);
+	}
+
+	@Test
+	public void testInterrupt() throws InterruptedException {
+		final SemaphoreManager semaphoreManager = SemaphoreManager.create(ADDRESS, 1);
+		Assert.assertTrue(semaphoreManager.acquire(ADDRESS));
+
+		final AtomicBoolean interrupted = new AtomicBoolean();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					semaphoreManager.acquire(ADDRESS, 10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					interrupted.set(true);
+				}
+			}
+		});
+		thread.start();
+		while (semaphoreManager.getStatistics().getQueueLength() == 0) {
+			Thread.sleep(1);
+		}
+		thread.interrupt();
+		thread.join();
+		Assert.assertTrue(interrupted.get());
+		Assert.assertEquals(1, semaphoreManager.getStatistics().getInterruptedCount());
+	}
+
+	@Test
+	public void testSwitchOff() throws InterruptedException {
+		SemaphoreManager semaphoreManager = SemaphoreManager.create(ADDRESS, -1, false);
+		for (int i = 0; i < 10; i++) {
+			Assert.assertTrue(semaphoreManager.acquire(ADDRESS, 0, TimeUnit.MILLISECONDS));
+			Assert.assertTrue(semaphoreManager.acquire(ADDRESS));
+		}
+		semaphoreManager.release(ADDRESS);
+		Assert.assertEquals(-1, semaphoreManager.getStatistics().getPermits());
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.alibaba.hitsdb.client.lane;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestLaneScheduler {
+
+    @Test
+    public void testWeightedShare() throws InterruptedException {
+        final LaneScheduler scheduler = new LaneScheduler(1, Arrays.asList(PutLane.defaultLane(1),
+                PutLane.name("alert").weight(3).build()));
+        final AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final int lane = i % 2;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (running.get()) {
+                            LanePermit permit = scheduler.acquire(lane);
+                            try {
+                                Thread.sleep(1);
+                            } finally {
+                                permit.release();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (scheduler.getGranted(1) < 300 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join();
+        }
+
+        double ratio = (double) scheduler.getGranted(1) / scheduler.getGranted(0);
+        Assert.assertTrue("ratio " + ratio, ratio > 2 && ratio < 4);
+        Assert.assertEquals(0, scheduler.getInflight(0));
+        Assert.assertEquals(0, scheduler.getInflight(1));
+    }
+
+    @Test
+    public void testPermitShare() throws InterruptedException {
+        final LaneScheduler scheduler = new LaneScheduler(4, Arrays.asList(PutLane.defaultLane(1),
+                PutLane.name("bulk").permitShare(0.5).build()));
+        Assert.assertEquals(4, scheduler.getLimit(0));
+        Assert.assertEquals(2, scheduler.getLimit(1));
+
+        LanePermit first = scheduler.acquire(1);
+        scheduler.acquire(1);
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    scheduler.acquire(1);
+                    acquired.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        Assert.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+
+        // 超出占比的通道阻塞时，其它通道仍可使用剩余的许可
+        LanePermit other = scheduler.acquire(0);
+        scheduler.acquire(0);
+        Assert.assertEquals(2, scheduler.getInflight(0));
+
+        other.release();
+        Assert.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        first.release();
+        // 重复归还不会多释放许可
+        first.release();
+        Assert.assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(2, scheduler.getInflight(1));
+        Assert.assertEquals(1, scheduler.getInflight(0));
+        thread.join();
+    }
+
+    @Test
+    public void testSetTotalPermits() throws InterruptedException {
+        final LaneScheduler scheduler = new LaneScheduler(2, Arrays.asList(PutLane.defaultLane(1),
+                PutLane.name("bulk").permitShare(0.5).build()));
+        LanePermit first = scheduler.acquire(0);
+        scheduler.acquire(0);
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    scheduler.acquire(1);
+                    acquired.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        Assert.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+
+        // 增加节点后许可总数与通道上限随之增加，等待的通道立即获得许可
+        scheduler.setTotalPermits(4);
+        Assert.assertEquals(4, scheduler.getTotalPermits());
+        Assert.assertEquals(2, scheduler.getLimit(1));
+        Assert.assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        thread.join();
+
+        // 减少节点后已发出的许可归还前不会发出新的许可
+        scheduler.setTotalPermits(2);
+        Assert.assertEquals(1, scheduler.getLimit(1));
+        first.release();
+        Assert.assertEquals(1, scheduler.getInflight(0));
+        Assert.assertEquals(1, scheduler.getInflight(1));
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.lane.PutLane;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+public class TestLanedDataQueue {
+
+    @Test
+    public void testCreate() {
+        HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1")
+                .lane(PutLane.name("alert").metricPattern("alert\\..*").batchPutBufferSize(100).build()).config();
+        DataQueue queue = DataQueueFactory.createDataQueue(config);
+        Assert.assertTrue(queue instanceof LanedDataQueue);
+        List<PutLane> lanes = ((LanedDataQueue) queue).getLanes();
+        Assert.assertEquals(2, lanes.size());
+        Assert.assertEquals(PutLane.DEFAULT, lanes.get(0).getName());
+        Assert.assertEquals("alert", lanes.get(1).getName());
+    }
+
+    @Test
+    public void testRoute() throws InterruptedException {
+        List<PutLane> lanes = new ArrayList<PutLane>();
+        lanes.add(PutLane.defaultLane(1));
+        lanes.add(PutLane.name("alert").metricPattern("alert\\..*").build());
+        lanes.add(PutLane.name("bulk").metricPattern("bulk\\..*").metricPattern("backfill\\..*").build());
+        List<DataQueue> queues = new ArrayList<DataQueue>();
+        for (int i = 0; i < lanes.size(); i++) {
+            queues.add(DataQueueFactory.createDataPointQueue(100, 100, false));
+        }
+        LanedDataQueue queue = new LanedDataQueue(lanes, queues, 100);
+
+        queue.send(Point.metric("cpu").tag("host", "a").timestamp(1).value(1).build());
+        queue.send(Point.metric("alert.cpu").tag("host", "a").timestamp(1).value(1).build());
+        queue.send(Point.metric("backfill.cpu").tag("host", "a").timestamp(1).value(1).build());
+        queue.send(Point.metric("cpu").tag("host", "a").timestamp(2).value(1).build(), "alert");
+
+        List<Point> sink = new ArrayList<Point>();
+        Assert.assertEquals(1, queues.get(0).receiveBatch(sink, 10, 0));
+        Assert.assertEquals(2, queues.get(1).receiveBatch(sink, 10, 0));
+        Assert.assertEquals(1, queues.get(2).receiveBatch(sink, 10, 0));
+        Assert.assertTrue(queue.isEmpty());
+
+        try {
+            queue.send(Point.metric("cpu").tag("host", "a").timestamp(3).value(1).build(), "unknown");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}
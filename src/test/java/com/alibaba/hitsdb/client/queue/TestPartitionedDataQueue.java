@@ -0,0 +1,83 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+public class TestPartitionedDataQueue {
+
+    @Test
+    public void testCreate() {
+        HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1").batchPutPartitionCount(4).config();
+        DataQueue queue = DataQueueFactory.createDataQueue(config);
+        Assert.assertTrue(queue instanceof PartitionedDataQueue);
+        Assert.assertEquals(4, ((PartitionedDataQueue) queue).getPartitionCount());
+    }
+
+    @Test
+    public void testSameSeriesSamePartition() throws InterruptedException {
+        List<DataQueue> partitions = new ArrayList<DataQueue>();
+        for (int i = 0; i < 8; i++) {
+            partitions.add(DataQueueFactory.createDataPointQueue(1000, 100, false));
+        }
+        PartitionedDataQueue queue = new PartitionedDataQueue(partitions, 100);
+
+        for (int t = 0; t < 100; t++) {
+            for (int host = 0; host < 10; host++) {
+                // tag的添加顺序不影响分区
+                Point point;
+                if (t % 2 == 0) {
+                    point = Point.metric("cpu").tag("host", "host" + host).tag("dc", "hz").timestamp(t).value(t).build();
+                } else {
+                    point = Point.metric("cpu").tag("dc", "hz").tag("host", "host" + host).timestamp(t).value(t).build();
+                }
+                queue.send(point);
+            }
+        }
+
+        int total = 0;
+        for (DataQueue partition : queue.getPartitions()) {
+            List<Point> sink = new ArrayList<Point>();
+            partition.receiveBatch(sink, Integer.MAX_VALUE, 0);
+            total += sink.size();
+
+            // 同一时间线的点都在该分区内，且保持写入顺序
+            int[] lastTimestamp = new int[10];
+            int[] count = new int[10];
+            for (Point point : sink) {
+                int host = Integer.parseInt(point.getTags().get("host").substring(4));
+                Assert.assertTrue(count[host] == 0 || point.getTimestamp() > lastTimestamp[host]);
+                lastTimestamp[host] = point.getTimestamp();
+                count[host]++;
+            }
+            for (int c : count) {
+                Assert.assertTrue(c == 0 || c == 100);
+            }
+        }
+        Assert.assertEquals(1000, total);
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testReceiveAcrossPartitions() throws InterruptedException {
+        List<DataQueue> partitions = new ArrayList<DataQueue>();
+        for (int i = 0; i < 4; i++) {
+            partitions.add(DataQueueFactory.createDataPointQueue(1000, 100, false));
+        }
+        PartitionedDataQueue queue = new PartitionedDataQueue(partitions, 100);
+        for (int host = 0; host < 20; host++) {
+            queue.send(Point.metric("cpu").tag("host", "host" + host).timestamp(1).value(1).build());
+        }
+
+        List<Point> sink = new ArrayList<Point>();
+        while (queue.receiveBatch(sink, 3, 10) > 0) {
+        }
+        Assert.assertEquals(20, sink.size());
+        Assert.assertNull(queue.receive(10));
+    }
+}
@@ -0,0 +1,198 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.exception.BufferQueueFullException;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+public class TestRingBufferDataQueue {
+
+    private static Point point(int timestamp) {
+        return Point.metric("test").tag("tagk", "tagv").timestamp(timestamp).value(timestamp).build();
+    }
+
+    @Test
+    public void testCapacity() {
+        RingBufferDataQueue queue = new RingBufferDataQueue(1000, 100, true, new SleepingWaitStrategy(), new SleepingWaitStrategy());
+        Assert.assertEquals(1024, queue.capacity());
+
+        // 只有一个槽位时无法判断队列已满
+        DataQueue single = DataQueueFactory.createRingBufferQueue(1, 100, false, WaitStrategyType.Yielding);
+        Assert.assertEquals(2, ((RingBufferDataQueue) single).capacity());
+        Assert.assertTrue(single.offer(point(1)));
+        Assert.assertTrue(single.offer(point(2)));
+        Assert.assertFalse(single.offer(point(3)));
+    }
+
+    @Test
+    public void testSendAndReceive() throws InterruptedException {
+        DataQueue queue = DataQueueFactory.createRingBufferQueue(4, 100, false, WaitStrategyType.Sleeping);
+        Assert.assertTrue(queue.isEmpty());
+        for (int i = 0; i < 4; i++) {
+            queue.send(point(i));
+        }
+        Assert.assertFalse(queue.isEmpty());
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(Integer.valueOf(i), queue.receive(10).getTimestamp());
+        }
+        Assert.assertNull(queue.receive(10));
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testReceiveBatch() throws InterruptedException {
+        DataQueue queue = DataQueueFactory.createRingBufferQueue(8, 100, false, WaitStrategyType.Blocking);
+        for (int i = 0; i < 5; i++) {
+            queue.send(point(i));
+        }
+
+        List<Point> sink = new ArrayList<Point>();
+        Assert.assertEquals(3, queue.receiveBatch(sink, 3, 10));
+        Assert.assertEquals(2, queue.receiveBatch(sink, 10, 10));
+        Assert.assertEquals(0, queue.receiveBatch(sink, 10, 10));
+        Assert.assertEquals(0, queue.receiveBatch(sink, 10, 0));
+        Assert.assertEquals(5, sink.size());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(Integer.valueOf(i), sink.get(i).getTimestamp());
+        }
+
+        // 环形数组回绕后仍然保持顺序
+        sink.clear();
+        for (int i = 0; i < 8; i++) {
+            queue.send(point(i));
+        }
+        Assert.assertEquals(8, queue.receiveBatch(sink, 100, 10));
+        for (int i = 0; i < 8; i++) {
+            Assert.assertEquals(Integer.valueOf(i), sink.get(i).getTimestamp());
+        }
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testReceiveBatchWait() throws InterruptedException {
+        final DataQueue queue = DataQueueFactory.createRingBufferQueue(8, 100, false, WaitStrategyType.Blocking);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.send(point(1));
+            }
+        }).start();
+
+        List<Point> sink = new ArrayList<Point>();
+        Assert.assertEquals(1, queue.receiveBatch(sink, 10, 5000));
+    }
+
+    @Test(expected = BufferQueueFullException.class)
+    public void testQueueFull() {
+        DataQueue queue = DataQueueFactory.createRingBufferQueue(2, 100, false, WaitStrategyType.Yielding);
+        queue.send(point(1));
+        queue.send(point(2));
+        queue.send(point(3));
+    }
+
+    @Test
+    public void testInterruptedSend() {
+        DataQueue[] queues = { DataQueueFactory.createRingBufferQueue(2, 100, true, WaitStrategyType.Blocking),
+                DataQueueFactory.createDataPointQueue(1, 100, true) };
+        for (DataQueue queue : queues) {
+            while (queue.offer(point(1))) {
+            }
+            // 等待队列时被中断，Point没有放入队列，抛出异常并保留中断状态
+            Thread.currentThread().interrupt();
+            try {
+                queue.send(point(2));
+                Assert.fail();
+            } catch (BufferQueueFullException e) {
+                Assert.assertTrue(Thread.currentThread().isInterrupted());
+            } finally {
+                Thread.interrupted();
+            }
+            Assert.assertFalse(queue.isEmpty());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testForbiddenSend() {
+        DataQueue queue = DataQueueFactory.createRingBufferQueue(2, 100, false, WaitStrategyType.Yielding);
+        queue.forbiddenSend();
+        queue.send(point(1));
+    }
+
+    @Test
+    public void testConcurrentBackpressure() throws InterruptedException {
+        testConcurrent(WaitStrategyType.Blocking);
+        testConcurrent(WaitStrategyType.Sleeping);
+        testConcurrent(WaitStrategyType.Yielding);
+    }
+
+    private void testConcurrent(WaitStrategyType waitStrategyType) throws InterruptedException {
+        final int producerNum = 4;
+        final int consumerNum = 2;
+        final int size = 50000;
+        final DataQueue queue = DataQueueFactory.createRingBufferQueue(64, 100, true, waitStrategyType);
+        final AtomicLong received = new AtomicLong();
+        final AtomicLong sum = new AtomicLong();
+        final CountDownLatch producerLatch = new CountDownLatch(producerNum);
+        ExecutorService threadPool = Executors.newFixedThreadPool(producerNum + consumerNum);
+
+        for (int i = 0; i < consumerNum; i++) {
+            threadPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    List<Point> sink = new ArrayList<Point>();
+                    while (true) {
+                        try {
+                            sink.clear();
+                            queue.receiveBatch(sink, 16, 100);
+                            for (Point point : sink) {
+                                sum.addAndGet(point.getTimestamp());
+                            }
+                            received.addAndGet(sink.size());
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+
+        for (int i = 0; i < producerNum; i++) {
+            threadPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < size; j++) {
+                        queue.send(point(j));
+                    }
+                    producerLatch.countDown();
+                }
+            });
+        }
+
+        producerLatch.await();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (received.get() < producerNum * size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        threadPool.shutdownNow();
+        threadPool.awaitTermination(1, TimeUnit.SECONDS);
+
+        Assert.assertEquals(producerNum * size, received.get());
+        Assert.assertEquals(producerNum * ((long) size * (size - 1) / 2), sum.get());
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,282 @@
+package com.alibaba.hitsdb.client.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.exception.BufferQueueFullException;
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+import com.alibaba.hitsdb.client.value.type.Granularity;
+
+public class TestSpillableDataQueue {
+    private File directory;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("hitsdb-spill").toFile();
+    }
+
+    @After
+    public void after() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static Point point(int i) {
+        return Point.metric("test").tag("host", "host" + i).timestamp(1501564455 + i).value(i).build();
+    }
+
+    @Test
+    public void testSpillAndDrain() throws Exception {
+        DataQueue memoryQueue = DataQueueFactory.createDataPointQueue(10, 100, false);
+        SpillableDataQueue queue = new SpillableDataQueue(memoryQueue, new DiskSpillStore(directory, 1024, 1024 * 1024), 100, false);
+        for (int i = 0; i < 500; i++) {
+            queue.send(point(i));
+        }
+        Assert.assertEquals(490, queue.getSpillStore().size());
+        Assert.assertTrue(queue.getSpillStore().getDiskBytes() > 1024);
+
+        List<Point> sink = new ArrayList<Point>();
+        while (queue.receiveBatch(sink, 64, 0) > 0) {
+        }
+        Assert.assertEquals(500, sink.size());
+        Assert.assertTrue(queue.isEmpty());
+        // 读完后分段文件全部删除
+        Assert.assertEquals(0, queue.getSpillStore().getDiskBytes());
+        Assert.assertEquals(0, directory.listFiles().length);
+
+        Set<Integer> timestamps = new HashSet<Integer>();
+        for (Point point : sink) {
+            timestamps.add(point.getTimestamp());
+        }
+        Assert.assertEquals(500, timestamps.size());
+        // 先取内存队列再取磁盘，保持写入顺序
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals(point(i).toJSON(), sink.get(i).toJSON());
+        }
+    }
+
+    @Test
+    public void testOrderAfterSpill() throws Exception {
+        DataQueue memoryQueue = DataQueueFactory.createDataPointQueue(4, 100, false);
+        SpillableDataQueue queue = new SpillableDataQueue(memoryQueue, new DiskSpillStore(directory, 1024, 1024 * 1024), 100, false);
+        for (int i = 0; i < 10; i++) {
+            queue.send(point(i));
+        }
+        Assert.assertEquals(6, queue.getSpillStore().size());
+
+        List<Point> sink = new ArrayList<Point>();
+        Assert.assertEquals(3, queue.receiveBatch(sink, 3, 0));
+        // 内存队列已有空位，但磁盘中还有数据点，新的数据点追加到磁盘
+        for (int i = 10; i < 20; i++) {
+            queue.send(point(i));
+        }
+        Assert.assertEquals(16, queue.getSpillStore().size());
+
+        Assert.assertEquals(point(3).toJSON(), queue.receive(0).toJSON());
+        while (queue.receiveBatch(sink, 5, 0) > 0) {
+        }
+        Assert.assertEquals(19, sink.size());
+        sink.add(3, point(3));
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(point(i).toJSON(), sink.get(i).toJSON());
+        }
+
+        // 磁盘取完后重新使用内存队列
+        queue.send(point(20));
+        Assert.assertTrue(queue.getSpillStore().isEmpty());
+        Assert.assertEquals(point(20).toJSON(), queue.receive(100).toJSON());
+    }
+
+    @Test
+    public void testSkipCorruptRecord() throws Exception {
+        DiskSpillStore store = new DiskSpillStore(directory, 1024, 1024 * 1024);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(store.append(point(i)));
+        }
+        // 第一条记录的类型字节
+        RandomAccessFile raf = new RandomAccessFile(new File(directory, "spill-0.seg"), "rw");
+        try {
+            raf.seek(4);
+            raf.writeByte(9);
+        } finally {
+            raf.close();
+        }
+
+        List<Point> sink = new ArrayList<Point>();
+        Assert.assertEquals(2, store.drainTo(sink, 2));
+        Assert.assertEquals(2, sink.size());
+        Assert.assertEquals(point(1).toJSON(), sink.get(0).toJSON());
+        Assert.assertEquals(point(2).toJSON(), sink.get(1).toJSON());
+        Assert.assertTrue(store.isEmpty());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        DataQueue memoryQueue = DataQueueFactory.createDataPointQueue(4, 100, false);
+        SpillableDataQueue queue = new SpillableDataQueue(memoryQueue, new DiskSpillStore(directory, 1024, 1024 * 1024), 100, false);
+        for (int i = 0; i < 10; i++) {
+            queue.send(point(i));
+        }
+        queue.close();
+        try {
+            queue.send(point(10));
+            Assert.fail();
+        } catch (IllegalStateException e) {
+        }
+
+        // 未取出的数据点保留在磁盘中
+        DiskSpillStore restored = new DiskSpillStore(directory, 1024, 1024 * 1024);
+        Assert.assertEquals(6, restored.getRestoredPoints());
+        restored.close();
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        DataQueue memoryQueue = DataQueueFactory.createDataPointQueue(4, 100, false);
+        final SpillableDataQueue queue = new SpillableDataQueue(memoryQueue, new DiskSpillStore(directory, 1024, 1024), 100, true);
+        int sent = 0;
+        while (queue.offer(point(sent))) {
+            sent++;
+        }
+        final int total = sent + 1;
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                queue.send(point(total - 1));
+            }
+        });
+        producer.start();
+        producer.join(100);
+        Assert.assertTrue(producer.isAlive());
+
+        // 磁盘分段读完删除后，等待的生产者被唤醒
+        List<Point> sink = new ArrayList<Point>();
+        while (sink.size() < total) {
+            queue.receiveBatch(sink, 64, 100);
+        }
+        producer.join(1000);
+        Assert.assertFalse(producer.isAlive());
+        for (int i = 0; i < total; i++) {
+            Assert.assertEquals(point(i).toJSON(), sink.get(i).toJSON());
+        }
+    }
+
+    @Test
+    public void testDiskCap() throws Exception {
+        DataQueue memoryQueue = DataQueueFactory.createDataPointQueue(10, 100, false);
+        SpillableDataQueue queue = new SpillableDataQueue(memoryQueue, new DiskSpillStore(directory, 1024, 2048), 100, false);
+        int sent = 0;
+        try {
+            for (int i = 0; i < 1000; i++) {
+                queue.send(point(i));
+                sent++;
+            }
+            Assert.fail();
+        } catch (BufferQueueFullException e) {
+        }
+        Assert.assertTrue(sent > 10);
+        Assert.assertEquals(2048, queue.getSpillStore().getDiskBytes());
+
+        List<Point> sink = new ArrayList<Point>();
+        while (queue.receiveBatch(sink, 64, 0) > 0) {
+        }
+        Assert.assertEquals(sent, sink.size());
+    }
+
+    @Test
+    public void testRestore() throws Exception {
+        DiskSpillStore store = new DiskSpillStore(directory, 1024, 1024 * 1024);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(store.append(point(i)));
+        }
+        List<Point> sink = new ArrayList<Point>();
+        store.drainTo(sink, 30);
+
+        // 重新打开时未删除的分段从头读取
+        DiskSpillStore restored = new DiskSpillStore(directory, 1024, 1024 * 1024);
+        Assert.assertTrue(restored.getRestoredPoints() >= 70);
+        Assert.assertTrue(restored.append(point(100)));
+
+        sink.clear();
+        restored.drainTo(sink, 1000);
+        Assert.assertEquals(restored.getRestoredPoints() + 1, sink.size());
+        Assert.assertEquals(point(99).toJSON(), sink.get(sink.size() - 2).toJSON());
+        Assert.assertEquals(point(100).toJSON(), sink.get(sink.size() - 1).toJSON());
+    }
+
+    @Test
+    public void testCodec() throws Exception {
+        List<Point> points = new ArrayList<Point>();
+        points.add(Point.metric("test").tag("k", "值").timestamp(1501564455).value(1.5).build());
+        points.add(Point.metric("test").timestamp(1501564455).value(123456789012L).version(1508123847977L).build());
+        points.add(Point.metric("test").timestamp(1501564455).value(3.5f).granularity(Granularity.M1).aggregator("sum").build());
+        points.add(Point.metric("test").timestamp(1501564455).value(new BigDecimal("1.25")).build());
+        points.add(Point.metric("test").timestamp(1501564455).value(7).build());
+        points.add(new DoublePoint("cpu", TagSet.tag("host", "host1").build(), 1501564455000L, 0.25));
+
+        DiskSpillStore store = new DiskSpillStore(directory, 1024, 1024 * 1024);
+        for (Point point : points) {
+            Assert.assertTrue(store.append(point));
+        }
+        List<Point> sink = new ArrayList<Point>();
+        store.drainTo(sink, 100);
+        Assert.assertEquals(JSON.toJSONString(points), JSON.toJSONString(sink));
+        Assert.assertTrue(sink.get(5) instanceof DoublePoint);
+    }
+
+    @Test
+    public void testOfferWithoutStoreLock() throws Exception {
+        DataQueue memoryQueue = DataQueueFactory.createDataPointQueue(10, 100, false);
+        final DiskSpillStore store = new DiskSpillStore(directory, 1024, 1024 * 1024);
+        final SpillableDataQueue queue = new SpillableDataQueue(memoryQueue, store, 100, false);
+        final List<Point> offered = new ArrayList<Point>();
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                queue.offer(point(0));
+                offered.add(point(0));
+            }
+        });
+
+        // 没有溢出时写入内存队列不需要磁盘存储的锁
+        synchronized (store) {
+            producer.start();
+            producer.join(1000);
+            Assert.assertFalse(producer.isAlive());
+        }
+        Assert.assertEquals(1, offered.size());
+        Assert.assertTrue(store.isEmpty());
+        Assert.assertEquals(point(0).toJSON(), queue.receive(0).toJSON());
+        queue.close();
+    }
+
+    @Test
+    public void testCreate() {
+        HiTSDBConfig config = HiTSDBConfig.address("127.0.0.1").spillToDisk(directory.getPath()).batchPutPartitionCount(2).config();
+        DataQueue queue = DataQueueFactory.createDataQueue(config);
+        Assert.assertTrue(queue instanceof PartitionedDataQueue);
+        Assert.assertTrue(((PartitionedDataQueue) queue).getPartitions().get(0) instanceof SpillableDataQueue);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.alibaba.hitsdb.client.retry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.response.batch.DetailsResult;
+import com.alibaba.hitsdb.client.value.response.batch.ErrorPoint;
+
+public class TestPartialFailure {
+    private final PointErrorClassifier classifier = new DefaultPointErrorClassifier();
+
+    private List<Point> points() {
+        List<Point> points = new ArrayList<Point>();
+        for (int i = 0; i < 5; i++) {
+            points.add(Point.metric("cpu").tag("host", "h" + i).tag("dc", "hz").timestamp(1500000000).value(i).build());
+        }
+        // 同一时间线同一时间戳的重复点
+        points.add(Point.metric("cpu").tag("dc", "hz").tag("host", "h0").timestamp(1500000000).value(10).build());
+        return points;
+    }
+
+    private ErrorPoint error(Point point, String error) {
+        // 服务端返回的数据点是反序列化得到的新对象，tags的顺序也可能不同
+        Point datapoint = JSON.parseObject(point.toJSON(), Point.class);
+        return new ErrorPoint(datapoint, error);
+    }
+
+    @Test
+    public void testSplit() {
+        List<Point> points = points();
+        List<ErrorPoint> errors = Arrays.asList(error(points.get(1), "Please throttle writes: region is too busy"),
+                error(points.get(3), "Invalid tag value"), error(points.get(0), "RPC timed out"),
+                error(points.get(0), "Unable to parse value to a number"));
+        PartialFailure partialFailure = PartialFailure.split(points, errors, classifier);
+
+        Assert.assertEquals(Arrays.asList(points.get(2), points.get(4)), partialFailure.getSucceeded());
+        Assert.assertEquals(2, partialFailure.getTransientPoints().size());
+        Assert.assertSame(points.get(1), partialFailure.getTransientPoints().get(0));
+        Assert.assertSame(points.get(0), partialFailure.getTransientPoints().get(1));
+        Assert.assertEquals(2, partialFailure.getTransientErrors().size());
+        Assert.assertSame(points.get(3), partialFailure.getPermanentPoints().get(0));
+        // 重复点依次对应
+        Assert.assertSame(points.get(5), partialFailure.getPermanentPoints().get(1));
+        Assert.assertEquals("Invalid tag value", partialFailure.getPermanentErrors().get(0).getError());
+    }
+
+    @Test
+    public void testUnmatched() {
+        List<Point> points = points();
+        Point other = Point.metric("mem").tag("host", "h0").timestamp(1500000000).value(1).build();
+        Assert.assertNull(PartialFailure.split(points, Arrays.asList(error(other, "timeout")), classifier));
+        Assert.assertNull(PartialFailure.split(points, Arrays.asList(new ErrorPoint(null, "timeout")), classifier));
+    }
+
+    @Test
+    public void testParseDetails() {
+        String content = "{\"success\":1,\"failed\":1,\"errors\":[{\"datapoint\":{\"metric\":\"cpu\",\"timestamp\":1500000000,"
+                + "\"value\":1,\"tags\":{\"dc\":\"hz\",\"host\":\"h1\"}},\"error\":\"Please throttle writes\"}]}";
+        DetailsResult detailsResult = JSON.parseObject(content, DetailsResult.class);
+        List<Point> points = points().subList(0, 2);
+        PartialFailure partialFailure = PartialFailure.split(points, detailsResult.getErrors(), classifier);
+        Assert.assertEquals(1, partialFailure.getSucceeded().size());
+        Assert.assertSame(points.get(1), partialFailure.getTransientPoints().get(0));
+    }
+
+    @Test
+    public void testDefaultClassifier() {
+        Assert.assertTrue(classifier.isTransient(new ErrorPoint(null, "Please throttle writes")));
+        Assert.assertTrue(classifier.isTransient(new ErrorPoint(null, "HBase RegionTooBusyException")));
+        Assert.assertFalse(classifier.isTransient(new ErrorPoint(null, "Invalid metric name")));
+        Assert.assertFalse(classifier.isTransient(new ErrorPoint(null, null)));
+    }
+
+}
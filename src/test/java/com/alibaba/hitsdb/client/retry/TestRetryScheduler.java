@@ -0,0 +1,92 @@
+package com.alibaba.hitsdb.client.retry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRetryScheduler {
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    @Test
+    public void testBackoff() {
+        RetryScheduler scheduler = new RetryScheduler(100, 1000, 0, new RetryBudget(100, 0));
+        for (int i = 0; i < 100; i++) {
+            long first = scheduler.backoff(1);
+            Assert.assertTrue(first >= 50 && first <= 100);
+            long third = scheduler.backoff(3);
+            Assert.assertTrue(third >= 200 && third <= 400);
+            long max = scheduler.backoff(40);
+            Assert.assertTrue(max >= 500 && max <= 1000);
+        }
+        scheduler.close();
+    }
+
+    @Test
+    public void testDeadline() throws InterruptedException {
+        RetryScheduler scheduler = new RetryScheduler(100, 100, 1000, new RetryBudget(100, 10));
+        long now = System.nanoTime();
+        Assert.assertEquals(Long.MAX_VALUE, new RetryScheduler(100, 100, 0, new RetryBudget(0, 0)).deadline(now));
+
+        // 退避结束时已经超过截止时间
+        Assert.assertFalse(scheduler.schedule(1, now + TimeUnit.MILLISECONDS.toNanos(20), NOOP));
+        Assert.assertEquals(1, scheduler.getStatistics().getDeadlineExceededCount());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        Assert.assertTrue(scheduler.schedule(1, scheduler.deadline(now), new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }));
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, scheduler.getStatistics().getScheduledCount());
+        scheduler.close();
+    }
+
+    @Test
+    public void testBudget() {
+        RetryBudget budget = new RetryBudget(20, 2);
+        long now = 0;
+        // 每秒保底2次
+        Assert.assertTrue(budget.tryWithdraw(now));
+        Assert.assertTrue(budget.tryWithdraw(now));
+        Assert.assertFalse(budget.tryWithdraw(now));
+
+        // 10个请求存入2次重试
+        for (int i = 0; i < 10; i++) {
+            budget.deposit();
+        }
+        Assert.assertTrue(budget.tryWithdraw(now));
+        Assert.assertTrue(budget.tryWithdraw(now));
+        Assert.assertFalse(budget.tryWithdraw(now));
+
+        now += TimeUnit.SECONDS.toNanos(1);
+        Assert.assertTrue(budget.tryWithdraw(now));
+
+        // 令牌数有上限
+        for (int i = 0; i < 100000; i++) {
+            budget.deposit();
+        }
+        int retries = 0;
+        while (budget.tryWithdraw(now)) {
+            retries++;
+        }
+        Assert.assertEquals(101, retries);
+    }
+
+    @Test
+    public void testBudgetExhausted() {
+        RetryScheduler scheduler = new RetryScheduler(0, 0, 0, new RetryBudget(0, 1));
+        Assert.assertTrue(scheduler.schedule(1, Long.MAX_VALUE, NOOP));
+        Assert.assertFalse(scheduler.schedule(1, Long.MAX_VALUE, NOOP));
+        Assert.assertEquals(1, scheduler.getStatistics().getBudgetExhaustedCount());
+        scheduler.close();
+    }
+
+}
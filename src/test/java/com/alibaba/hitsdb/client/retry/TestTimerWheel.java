@@ -0,0 +1,61 @@
+package com.alibaba.hitsdb.client.retry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTimerWheel {
+
+    @Test
+    public void testOrderAndRounds() throws InterruptedException {
+        // 8个槽位一圈80毫秒，150毫秒的任务需要多转一圈
+        TimerWheel timer = new TimerWheel("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+        final List<Integer> fired = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        long start = System.nanoTime();
+        for (final int delay : new int[] { 150, 0, 40 }) {
+            Assert.assertTrue(timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    fired.add(delay);
+                    latch.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS));
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        Assert.assertEquals(0, fired.get(0).intValue());
+        Assert.assertEquals(40, fired.get(1).intValue());
+        Assert.assertEquals(150, fired.get(2).intValue());
+        // 任务执行完之后才减少计数，等工作线程退出后再检查
+        timer.stop();
+        Assert.assertEquals(0, timer.getPending());
+    }
+
+    @Test
+    public void testStopRunsPendingTasks() {
+        TimerWheel timer = new TimerWheel("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+        final AtomicInteger fired = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                fired.incrementAndGet();
+            }
+        };
+        for (int i = 0; i < 10; i++) {
+            timer.schedule(task, 1, TimeUnit.HOURS);
+        }
+        Assert.assertEquals(10, timer.getPending());
+
+        timer.stop();
+        Assert.assertEquals(10, fired.get());
+        Assert.assertEquals(0, timer.getPending());
+        Assert.assertFalse(timer.schedule(task, 0, TimeUnit.MILLISECONDS));
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.alibaba.hitsdb.client.rollup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+import com.alibaba.hitsdb.client.value.type.Aggregator;
+import com.alibaba.hitsdb.client.value.type.Granularity;
+
+public class TestRollupStage {
+    private final List<Point> emitted = new ArrayList<Point>();
+    private RollupStage stage;
+    private long now;
+    private int windowStart;
+
+    @Before
+    public void init() {
+        stage = new RollupStage(Granularity.M1, Arrays.asList(Aggregator.SUM, Aggregator.COUNT, Aggregator.MIN,
+                Aggregator.MAX, Aggregator.AVG), 0, new RollupStage.RollupSink() {
+                    @Override
+                    public void emit(Point point) {
+                        emitted.add(point);
+                    }
+                });
+        now = System.currentTimeMillis();
+        // 使用下一个窗口，保证构造时尚未关闭
+        windowStart = (int) (now / 1000 / 60 * 60 + 60);
+    }
+
+    private Map<String, Number> values(String host) {
+        Map<String, Number> values = new HashMap<String, Number>();
+        for (Point point : emitted) {
+            if (host.equals(point.getTags().get("host"))) {
+                Assert.assertEquals(Granularity.M1.getName(), point.getGranularity());
+                Assert.assertEquals(Integer.valueOf(windowStart), point.getTimestamp());
+                values.put(point.getAggregator(), point.getValue());
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void testAggregate() {
+        TagSet tags = TagSet.tag("host", "a").build();
+        Assert.assertTrue(stage.add(new DoublePoint("cpu", tags, windowStart, 1)));
+        Assert.assertTrue(stage.add(new DoublePoint("cpu", tags, (windowStart + 30) * 1000L, 5)));
+        Assert.assertTrue(stage.add(Point.metric("cpu").tag("host", "a").timestamp(windowStart + 59).value(3).build()));
+        Assert.assertTrue(stage.add(Point.metric("cpu").tag("host", "b").timestamp(windowStart + 1).value(10).build()));
+        // 下一个窗口
+        Assert.assertTrue(stage.add(Point.metric("cpu").tag("host", "a").timestamp(windowStart + 60).value(100).build()));
+        // 已带有聚合信息的点不参与聚合
+        Assert.assertFalse(stage.add(Point.metric("cpu").tag("host", "a").timestamp(windowStart).value(1)
+                .granularity(Granularity.M5).aggregator("sum").build()));
+
+        // 窗口未结束
+        Assert.assertEquals(0, stage.tick(now));
+        Assert.assertEquals(3, stage.getStatistics().getOpenWindows());
+
+        Assert.assertEquals(10, stage.tick((windowStart + 60) * 1000L));
+        Map<String, Number> a = values("a");
+        Assert.assertEquals(9.0, a.get("sum").doubleValue(), 0);
+        Assert.assertEquals(3L, a.get("count"));
+        Assert.assertEquals(1.0, a.get("min").doubleValue(), 0);
+        Assert.assertEquals(5.0, a.get("max").doubleValue(), 0);
+        Assert.assertEquals(3.0, a.get("avg").doubleValue(), 0);
+        Assert.assertEquals(1L, values("b").get("count"));
+
+        RollupStatistics statistics = stage.getStatistics();
+        Assert.assertEquals(1, statistics.getOpenWindows());
+        Assert.assertEquals(5, statistics.getAggregatedPoints());
+        Assert.assertEquals(10, statistics.getEmittedPoints());
+    }
+
+    @Test
+    public void testLatePoint() {
+        Assert.assertTrue(stage.add(Point.metric("cpu").tag("host", "a").timestamp(windowStart).value(1).build()));
+        stage.tick((windowStart + 60) * 1000L);
+
+        // 窗口已经关闭，按原始数据点发送
+        Assert.assertFalse(stage.add(Point.metric("cpu").tag("host", "a").timestamp(windowStart + 10).value(1).build()));
+        Assert.assertFalse(stage.add(Point.metric("cpu").tag("host", "a").timestamp(1501564455).value(1).build()));
+        Assert.assertEquals(2, stage.getStatistics().getLatePoints());
+    }
+
+    @Test
+    public void testClose() {
+        Assert.assertTrue(stage.add(Point.metric("cpu").tag("host", "a").timestamp(windowStart).value(1).build()));
+        stage.close(true);
+        Assert.assertEquals(5, emitted.size());
+        Assert.assertFalse(stage.add(Point.metric("cpu").tag("host", "a").timestamp(windowStart).value(1).build()));
+        Assert.assertEquals(0, stage.getStatistics().getOpenWindows());
+    }
+
+}
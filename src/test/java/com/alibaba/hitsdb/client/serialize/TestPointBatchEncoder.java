@@ -0,0 +1,82 @@
+package com.alibaba.hitsdb.client.serialize;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.http.HttpClient;
+import com.alibaba.hitsdb.client.http.HttpClientFactory;
+import com.alibaba.hitsdb.client.serialize.PointBatchEncoder.EncodedBatch;
+import com.alibaba.hitsdb.client.value.request.Point;
+
+public class TestPointBatchEncoder {
+    private HttpClient httpclient;
+
+    @Before
+    public void init() throws Exception {
+        httpclient = HttpClientFactory.createHttpClient(HiTSDBConfig.address("127.0.0.1", 8242).config());
+    }
+
+    @After
+    public void after() throws IOException {
+        httpclient.close(true);
+    }
+
+    private List<Point> points(int count) {
+        List<Point> points = new ArrayList<Point>();
+        for (int i = 0; i < count; i++) {
+            points.add(Point.metric("test").tag("host", "host" + i).timestamp(1501564455 + i).value(i).build());
+        }
+        return points;
+    }
+
+    @Test
+    public void testSplitAtPointBoundary() throws IOException {
+        List<Point> points = points(100);
+        int maxPayloadBytes = 1000;
+        List<EncodedBatch> batches = new PointBatchEncoder(httpclient).encode(points, maxPayloadBytes);
+        Assert.assertTrue(batches.size() > 1);
+
+        List<Point> decoded = new ArrayList<Point>();
+        for (EncodedBatch batch : batches) {
+            String json = new String(batch.getBody().toByteArray(), HttpClient.DEFAULT_CHARSET);
+            Assert.assertTrue(json.length() <= maxPayloadBytes);
+            Assert.assertEquals(PointJSONSerializer.toJSONString(batch.getPoints()), json);
+            decoded.addAll(JSON.parseArray(json, Point.class));
+            Assert.assertTrue(batch.getBody().release());
+        }
+        Assert.assertEquals(JSON.toJSONString(points), JSON.toJSONString(decoded));
+    }
+
+    @Test
+    public void testNoLimit() throws IOException {
+        List<Point> points = points(100);
+        List<EncodedBatch> batches = new PointBatchEncoder(httpclient).encode(points, 0);
+        Assert.assertEquals(1, batches.size());
+        Assert.assertSame(points, batches.get(0).getPoints());
+        Assert.assertEquals(PointJSONSerializer.toJSONString(points),
+                new String(batches.get(0).getBody().toByteArray(), HttpClient.DEFAULT_CHARSET));
+        PointBatchEncoder.release(batches);
+    }
+
+    @Test
+    public void testOversizedPoint() throws IOException {
+        List<Point> points = points(3);
+        List<EncodedBatch> batches = new PointBatchEncoder(httpclient).encode(points, 10);
+        // 单个数据点超过上限，各自成为一个请求
+        Assert.assertEquals(3, batches.size());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(1, batches.get(i).getPoints().size());
+            Assert.assertSame(points.get(i), batches.get(i).getPoints().get(0));
+        }
+        PointBatchEncoder.release(batches);
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.alibaba.hitsdb.client.serialize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.buffer.ByteSegmentPool;
+import com.alibaba.hitsdb.client.buffer.SegmentedByteBuffer;
+import com.alibaba.hitsdb.client.http.HttpClient;
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+import com.alibaba.hitsdb.client.value.type.Granularity;
+
+public class TestPointJSONSerializer {
+
+    @Test
+    public void testSameAsFastJSON() {
+        List<Point> points = new ArrayList<Point>();
+        points.add(Point.metric("test").tag("tagk1", "tagv1").tag("tagk2", "tagv2").timestamp(1501564455).value(12.3).build());
+        points.add(Point.metric("test").tag("host", "a\"b\\c\n\t\u0001d").timestamp(1501564455).value(1).build());
+        points.add(Point.metric("中文").tag("k", "值").timestamp(1501564455).value(123456789012L).build());
+        points.add(Point.metric("test").timestamp(1501564455).value(1.0E-10).version(1508123847977L).build());
+        points.add(Point.metric("test").timestamp(1501564455).value(3.5f).granularity(Granularity.M1).aggregator("sum").build());
+        points.add(Point.metric("test").timestamp(1501564455).value(new BigDecimal("1.25")).build());
+        points.add(Point.metric("test").timestamp(1501564455).value(Double.NaN).build());
+        points.add(Point.metric("test").build());
+
+        Assert.assertEquals(JSON.toJSONString(points), PointJSONSerializer.toJSONString(points));
+        for (Point point : points) {
+            Assert.assertEquals(JSON.toJSONString(point), point.toJSON());
+        }
+    }
+
+    @Test
+    public void testProducerThreadSerialize() {
+        Point expected = Point.metric("m").tag("k", "v").timestamp(1).value(1.0).build();
+        HiTSDBConfig.Builder.ProducerThreadSerializeSwitch = true;
+        try {
+            Point point = Point.metric("m").tag("k", "v").timestamp(1).value(1.0).build();
+            Assert.assertEquals(expected.toJSON(), point.getJson());
+            Assert.assertEquals(expected.toJSON(), point.toJSON());
+            List<Point> points = new ArrayList<Point>();
+            points.add(point);
+            points.add(new DoublePoint("cpu", TagSet.tag("host", "a").build(), 1501564455L, 0.5));
+            Assert.assertEquals(JSON.toJSONString(points), PointJSONSerializer.toJSONString(points));
+            // fastjson输出中不包含缓存的JSON
+            Assert.assertEquals(expected.toJSON(), JSON.toJSONString(point));
+        } finally {
+            HiTSDBConfig.Builder.ProducerThreadSerializeSwitch = false;
+        }
+    }
+
+    @Test
+    public void testDoublePoint() {
+        TagSet tags = TagSet.tag("host", "host1").tag("dc", "hz").build();
+        DoublePoint point = new DoublePoint("cpu", tags, 1501564455000L, 0.25);
+        Assert.assertEquals("{\"metric\":\"cpu\",\"tags\":{\"dc\":\"hz\",\"host\":\"host1\"},\"timestamp\":1501564455000,\"value\":0.25}",
+                point.toJSON());
+        Assert.assertEquals(Integer.valueOf(1501564455), point.getTimestamp());
+        Assert.assertEquals(0.25, point.getValue().doubleValue(), 0);
+
+        DoublePoint secondPoint = new DoublePoint("cpu", tags, 1501564455L, 1);
+        Assert.assertEquals(Integer.valueOf(1501564455), secondPoint.getTimestamp());
+
+        // fastjson按JavaBean序列化的结果与序列化器输出的内容一致
+        JSONObject expected = JSON.parseObject(JSON.toJSONString(secondPoint));
+        JSONObject actual = JSON.parseObject(secondPoint.toJSON());
+        Assert.assertEquals(expected, actual);
+
+        List<Point> points = new ArrayList<Point>();
+        points.add(point);
+        points.add(secondPoint);
+        JSONArray array = JSON.parseArray(PointJSONSerializer.toJSONString(points));
+        Assert.assertEquals(2, array.size());
+        Assert.assertEquals("host1", array.getJSONObject(1).getJSONObject("tags").getString("host"));
+    }
+
+    @Test
+    public void testTagSet() {
+        Map<String, String> map = new HashMap<String, String>();
+        map.put("host", "host1");
+        map.put("dc", "hz");
+        TagSet tags = TagSet.of(map);
+        Assert.assertEquals(map, tags);
+        Assert.assertEquals(tags, map);
+        Assert.assertEquals(map.hashCode(), tags.hashCode());
+        Assert.assertEquals("hz", tags.get("dc"));
+        Assert.assertNull(tags.get("none"));
+        Assert.assertSame(TagSet.EMPTY, TagSet.of(new HashMap<String, String>()));
+        Assert.assertEquals("{\"dc\":\"hz\",\"host\":\"host1\"}", JSON.toJSONString(tags));
+    }
+
+    @Test
+    public void testByteWriter() throws IOException {
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longValue.append("值\"\uD83D\uDE00");
+        }
+
+        List<Point> points = new ArrayList<Point>();
+        points.add(Point.metric("中文").tag("k", longValue.toString()).timestamp(1501564455).value(-123456789012L).build());
+        points.add(Point.metric("test").tag("host", "a\"b\\c\n\t\u0001d").timestamp(1501564455).value(1.0E-10).build());
+        points.add(new DoublePoint("cpu", TagSet.tag("host", "host1").build(), 1501564455000L, Double.NaN));
+        points.add(Point.metric("test").build());
+
+        ByteSegmentPool pool = new ByteSegmentPool(64, 16);
+        SegmentedByteBuffer buffer = pool.newBuffer();
+        new PointJSONByteWriter().writePoints(buffer, points);
+
+        String expected = PointJSONSerializer.toJSONString(points);
+        Assert.assertArrayEquals(expected.getBytes(HttpClient.DEFAULT_CHARSET), buffer.toByteArray());
+        Assert.assertTrue(buffer.release());
+    }
+}
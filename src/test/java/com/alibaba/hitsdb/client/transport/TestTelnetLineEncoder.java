@@ -0,0 +1,43 @@
+package com.alibaba.hitsdb.client.transport;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+import com.alibaba.hitsdb.client.value.type.Granularity;
+
+public class TestTelnetLineEncoder {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testEncode() {
+        Point point = Point.metric("cpu.usage").tag("host", "h1").timestamp(1500000000).value(12.5).build();
+        Point longPoint = Point.metric("disk").tag("dc", "hz").timestamp(1500000001).value(42L).build();
+        DoublePoint doublePoint = new DoublePoint("mem", TagSet.tag("host", "h2").build(), 1500000000123L, 3);
+        String lines = new String(TelnetLineEncoder.encode(Arrays.asList(point, longPoint, (Point) doublePoint)), UTF_8);
+        Assert.assertEquals("put cpu.usage 1500000000 12.5 host=h1\n"
+                + "put disk 1500000001 42 dc=hz\n"
+                + "put mem 1500000000123 3.0 host=h2\n", lines);
+    }
+
+    @Test
+    public void testAccepts() {
+        Assert.assertTrue(TelnetLineEncoder.accepts(Point.metric("cpu").tag("host", "h1").timestamp(1500000000).value(1).build()));
+        // 空白字符与'='会破坏行的结构
+        Assert.assertFalse(TelnetLineEncoder.accepts(Point.metric("cpu usage").tag("host", "h1").timestamp(1500000000).value(1).build()));
+        Assert.assertFalse(TelnetLineEncoder.accepts(Point.metric("cpu").tag("host", "h1\nput x").timestamp(1500000000).value(1).build()));
+        Assert.assertFalse(TelnetLineEncoder.accepts(Point.metric("cpu").tag("host", "a=b").timestamp(1500000000).value(1).build()));
+        Assert.assertFalse(TelnetLineEncoder.accepts(Point.metric("cpu").tag("host", "h1").timestamp(1500000000).value(Double.NaN).build()));
+        // 行协议不能表示预聚合粒度与版本号
+        Assert.assertFalse(TelnetLineEncoder.accepts(Point.metric("cpu").tag("host", "h1").timestamp(1500000000).value(1)
+                .granularity(Granularity.M1).build()));
+        Assert.assertFalse(TelnetLineEncoder.accepts(Point.metric("cpu").tag("host", "h1").timestamp(1500000000).value(1)
+                .version(1L).build()));
+    }
+
+}
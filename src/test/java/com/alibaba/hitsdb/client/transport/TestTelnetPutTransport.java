@@ -0,0 +1,205 @@
+package com.alibaba.hitsdb.client.transport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.value.request.Point;
+
+public class TestTelnetPutTransport {
+
+    /**
+     * 模拟服务端：逐行读取，metric为"bad"的行返回一行错误
+     */
+    private static class LineServer implements Runnable {
+        final ServerSocket serverSocket;
+        final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger connections = new AtomicInteger();
+
+        LineServer() throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            Thread thread = new Thread(this, "line-server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread reader = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            read(socket);
+                        }
+                    });
+                    reader.setDaemon(true);
+                    reader.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void read(Socket socket) {
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                OutputStream out = socket.getOutputStream();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                    if (line.startsWith("put bad ")) {
+                        out.write("put: illegal argument: bad metric\n".getBytes("UTF-8"));
+                        out.flush();
+                    }
+                }
+                socket.close();
+            } catch (IOException e) {
+                // 连接被客户端关闭
+            }
+        }
+
+        String address() {
+            return "127.0.0.1:" + serverSocket.getLocalPort();
+        }
+    }
+
+    private static class LatchCallback implements PutTransportCallback {
+        final CountDownLatch latch;
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+        LatchCallback(int count) {
+            this.latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void completed(List<Point> points) {
+            completed.addAndGet(points.size());
+            latch.countDown();
+        }
+
+        @Override
+        public void failed(List<Point> points, Exception ex) {
+            failure.set(ex);
+            latch.countDown();
+        }
+    }
+
+    private LineServer server;
+    private TelnetPutTransport transport;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LineServer();
+        transport = new TelnetPutTransport(0, 2, 1000);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        transport.close(true);
+        server.serverSocket.close();
+    }
+
+    private static List<Point> batch(String metric, int base, int size) {
+        List<Point> points = new ArrayList<Point>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(Point.metric(metric).tag("id", String.valueOf(base + i)).timestamp(1500000000 + base + i).value(i)
+                    .build());
+        }
+        return points;
+    }
+
+    @Test
+    public void testSend() throws Exception {
+        LatchCallback callback = new LatchCallback(20);
+        for (int i = 0; i < 20; i++) {
+            transport.send(server.address(), batch("cpu", i * 50, 50), callback);
+        }
+        Assert.assertTrue(callback.latch.await(10, TimeUnit.SECONDS));
+        Assert.assertNull(callback.failure.get());
+        Assert.assertEquals(1000, callback.completed.get());
+
+        // 优雅关闭后服务端已读到全部数据行
+        transport.close(false);
+        Assert.assertEquals(0, transport.getPending());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.lines.size() < 1000 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1000, server.lines.size());
+        Assert.assertEquals(2, server.connections.get());
+    }
+
+    @Test
+    public void testRejectedLines() throws Exception {
+        LatchCallback callback = new LatchCallback(1);
+        List<Point> points = batch("bad", 0, 3);
+        transport.send(server.address(), points, callback);
+        Assert.assertTrue(callback.latch.await(10, TimeUnit.SECONDS));
+        // 写出即视为成功，服务端的错误行只做计数
+        Assert.assertEquals(3, callback.completed.get());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (transport.getRejectedLines() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(3, transport.getRejectedLines());
+    }
+
+    @Test
+    public void testConnectRefused() throws Exception {
+        // 占用端口但不监听，连接被拒绝。直接关闭监听的端口可能被其它连接重用
+        Socket bound = new Socket();
+        bound.bind(new InetSocketAddress("127.0.0.1", 0));
+        String address = "127.0.0.1:" + bound.getLocalPort();
+        try {
+            testConnectRefused(address);
+        } finally {
+            bound.close();
+        }
+    }
+
+    private void testConnectRefused(String address) throws Exception {
+        LatchCallback callback = new LatchCallback(1);
+        transport.send(address, batch("cpu", 0, 10), callback);
+        Assert.assertTrue(callback.latch.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(callback.failure.get() instanceof ConnectException);
+
+        // 退避期间提交的批次直接失败
+        LatchCallback backoff = new LatchCallback(2);
+        transport.send(address, batch("cpu", 10, 10), backoff);
+        transport.send(address, batch("cpu", 20, 10), backoff);
+        Assert.assertTrue(backoff.latch.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(backoff.failure.get() instanceof ConnectException);
+        Assert.assertEquals(0, backoff.completed.get());
+        Assert.assertEquals(0, transport.getPending());
+    }
+
+    @Test
+    public void testIllegalAddress() throws Exception {
+        LatchCallback callback = new LatchCallback(1);
+        transport.send("localhost", batch("cpu", 0, 1), callback);
+        Assert.assertTrue(callback.latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(callback.failure.get() instanceof IllegalArgumentException);
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.alibaba.hitsdb.client.wal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.hitsdb.client.HiTSDBConfig;
+import com.alibaba.hitsdb.client.value.request.DoublePoint;
+import com.alibaba.hitsdb.client.value.request.Point;
+import com.alibaba.hitsdb.client.value.request.TagSet;
+import com.alibaba.hitsdb.client.value.type.Aggregator;
+import com.alibaba.hitsdb.client.value.type.Granularity;
+
+public class TestWriteAheadLog {
+    private File directory;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("hitsdb-wal").toFile();
+    }
+
+    @After
+    public void after() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static Point point(int i) {
+        return Point.metric("test").tag("host", "host" + i).timestamp(1501564455 + i).value(i).build();
+    }
+
+    private static List<Point> replay(WriteAheadLog log) {
+        final List<Point> points = new ArrayList<Point>();
+        log.replay(new WriteAheadLog.ReplayHandler() {
+            @Override
+            public void replay(Point point) {
+                points.add(point);
+            }
+        });
+        return points;
+    }
+
+    @Test
+    public void testAcknowledge() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(directory, 1024, 0);
+        List<Point> points = new ArrayList<Point>();
+        for (int i = 0; i < 100; i++) {
+            Point point = point(i);
+            log.sync(log.append(point));
+            Assert.assertNotNull(point.getWalSegment());
+            points.add(point);
+        }
+        Assert.assertTrue(log.getSegmentCount() > 1);
+        Assert.assertEquals(100, log.getPendingPoints());
+        Assert.assertTrue(log.getSyncCount() > 0);
+
+        // 乱序确认，重复确认无影响
+        WriteAheadLog.acknowledge(points.subList(50, 100));
+        WriteAheadLog.acknowledge(points.subList(50, 100));
+        Assert.assertEquals(50, log.getPendingPoints());
+        WriteAheadLog.acknowledge(points.subList(0, 50));
+        Assert.assertEquals(0, log.getPendingPoints());
+        Assert.assertNull(points.get(0).getWalSegment());
+
+        // 只剩当前分段，关闭时删除
+        Assert.assertEquals(1, log.getSegmentCount());
+        log.close();
+        Assert.assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(directory, 1024, 10);
+        List<Point> points = new ArrayList<Point>();
+        for (int i = 0; i < 100; i++) {
+            Point point = point(i);
+            log.append(point);
+            points.add(point);
+        }
+        points.add(new DoublePoint("cpu", TagSet.tag("host", "host1").build(), 1501564455000L, 0.25));
+        log.append(points.get(100));
+        WriteAheadLog.acknowledge(points.subList(0, 30));
+        log.close();
+
+        // 未全部确认的分段保留，第一个分段已全部确认被删除
+        WriteAheadLog reopened = new WriteAheadLog(directory, 1024, 0);
+        List<Point> replayed = replay(reopened);
+        Assert.assertTrue(replayed.size() >= 71);
+        Assert.assertTrue(replayed.size() < 101);
+        Assert.assertEquals(points.get(99).toJSON(), replayed.get(replayed.size() - 2).toJSON());
+        Assert.assertEquals(points.get(100).toJSON(), replayed.get(replayed.size() - 1).toJSON());
+        Assert.assertEquals(replayed.size(), reopened.getReplayedPoints());
+        Assert.assertEquals(0, directory.listFiles().length);
+        reopened.close();
+    }
+
+    @Test
+    public void testCorruptedRecord() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(directory, 4096, 0);
+        for (int i = 0; i < 10; i++) {
+            log.sync(log.append(point(i)));
+        }
+        log.close();
+
+        // 破坏第6条记录的数据体，恢复时只读出前5条
+        File file = directory.listFiles()[0];
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            int position = 0;
+            for (int i = 0; i < 5; i++) {
+                raf.seek(position);
+                position += 8 + raf.readInt();
+            }
+            raf.seek(position + 12);
+            int b = raf.read();
+            raf.seek(position + 12);
+            raf.write(b ^ 0xFF);
+        } finally {
+            raf.close();
+        }
+
+        WriteAheadLog reopened = new WriteAheadLog(directory, 4096, 0);
+        List<Point> replayed = replay(reopened);
+        Assert.assertEquals(5, replayed.size());
+        Assert.assertEquals(point(4).toJSON(), replayed.get(4).toJSON());
+        reopened.close();
+    }
+
+    @Test
+    public void testConfigConflicts() {
+        try {
+            HiTSDBConfig.address("127.0.0.1").writeAheadLog(directory.getPath()).rollup(Granularity.M1, Aggregator.SUM).config();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            HiTSDBConfig.address("127.0.0.1").writeAheadLog(directory.getPath()).telnetPut().config();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+}